@@ -0,0 +1,181 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compares a JMH CSV result file with the recorded baseline and reports every
+ * benchmark whose score moved by more than a threshold in the wrong direction.
+ * Benchmarks are matched on their name and parameter values. A benchmark that
+ * has no baseline, or whose baseline was measured in another mode or unit,
+ * cannot be checked and fails the comparison. Baseline entries that were not
+ * run are only listed. Until a baseline has been recorded at all, the
+ * comparison is skipped and succeeds.
+ * <p>
+ * Usage: {@code BaselineComparison baseline.csv current.csv [threshold]}
+ * where threshold is a fraction (default 0.10). The exit status is 1 if a
+ * regression was found and 3 if the baseline does not cover every benchmark.
+ */
+public class BaselineComparison {
+
+    private static final double DEFAULT_THRESHOLD = 0.10;
+
+    static final int REGRESSION = 1;
+    static final int USAGE = 2;
+    static final int INCOMPLETE_BASELINE = 3;
+
+    static class Result {
+
+        final String mode;
+        final double score;
+        final double error;
+        final String unit;
+
+        Result(String mode, double score, double error, String unit) {
+            this.mode = mode;
+            this.score = score;
+            this.error = error;
+            this.unit = unit;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineComparison baseline.csv current.csv [threshold]");
+            System.exit(USAGE);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+        Map<String, Result> baseline = read(Paths.get(args[0]));
+        Map<String, Result> current = read(Paths.get(args[1]));
+        System.exit(compare(baseline, current, threshold));
+    }
+
+    /**
+     * @return 0, {@link #REGRESSION} or {@link #INCOMPLETE_BASELINE}.
+     */
+    static int compare(Map<String, Result> baseline, Map<String, Result> current, double threshold) {
+        if (baseline.isEmpty()) {
+            System.out.println("No baseline has been recorded yet, so the comparison is skipped. Record one from a run on the reference machine.");
+            return 0;
+        }
+        int regressions = 0;
+        int unchecked = 0;
+        for (Map.Entry<String, Result> entry : current.entrySet()) {
+            Result now = entry.getValue();
+            Result before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf(Locale.ROOT, "NEW        %-70s %12.3f %s%n", entry.getKey(), now.score, now.unit);
+                ++unchecked;
+                continue;
+            }
+            if (!before.unit.equals(now.unit) || !before.mode.equals(now.mode)) {
+                System.out.printf(Locale.ROOT, "MISMATCH   %-70s %s/%s vs %s/%s%n", entry.getKey(), before.mode, before.unit, now.mode, now.unit);
+                ++unchecked;
+                continue;
+            }
+            // Throughput improves upwards, every other JMH mode downwards.
+            double change = "thrpt".equals(now.mode) ? before.score / now.score - 1 : now.score / before.score - 1;
+            boolean significant = Math.abs(now.score - before.score) > before.error + now.error;
+            String status = "OK";
+            if (significant && change > threshold) {
+                status = "REGRESSION";
+                ++regressions;
+            } else if (significant && change < -threshold) {
+                status = "IMPROVED";
+            }
+            System.out.printf(Locale.ROOT, "%-10s %-70s %12.3f -> %12.3f %s (%+.1f%%)%n", status, entry.getKey(), before.score, now.score, now.unit, change * 100);
+        }
+        for (String key : baseline.keySet()) {
+            if (!current.containsKey(key)) {
+                System.out.printf(Locale.ROOT, "MISSING    %s%n", key);
+            }
+        }
+        System.out.printf(Locale.ROOT, "%d regression(s) beyond %.0f%%, %d benchmark(s) without a usable baseline%n", regressions, threshold * 100, unchecked);
+        if (regressions > 0) {
+            return REGRESSION;
+        }
+        return unchecked > 0 ? INCOMPLETE_BASELINE : 0;
+    }
+
+    static Map<String, Result> read(Path file) throws IOException {
+        Map<String, Result> results = new LinkedHashMap<>();
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        if (lines.isEmpty()) {
+            return results;
+        }
+        List<String> columns = split(lines.get(0));
+        int benchmark = columns.indexOf("Benchmark");
+        int mode = columns.indexOf("Mode");
+        int score = columns.indexOf("Score");
+        int error = columns.indexOf("Score Error (99.9%)");
+        int unit = columns.indexOf("Unit");
+        if (benchmark < 0 || mode < 0 || score < 0 || error < 0 || unit < 0) {
+            throw new IllegalArgumentException(file + " is not a JMH CSV result file!");
+        }
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            List<String> values = split(line);
+            StringBuilder key = new StringBuilder(values.get(benchmark));
+            for (int j = 0; j < columns.size(); ++j) {
+                String value = j < values.size() ? values.get(j) : "";
+                if (columns.get(j).startsWith("Param: ") && !value.isEmpty()) {
+                    key.append(' ').append(columns.get(j).substring(7)).append('=').append(value);
+                }
+            }
+            String errorValue = values.get(error);
+            results.put(key.toString(), new Result(values.get(mode), Double.parseDouble(values.get(score)), errorValue.isEmpty() || "NaN".equals(errorValue) ? 0.0 : Double.parseDouble(errorValue), values.get(unit)));
+        }
+        return results;
+    }
+
+    private static List<String> split(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int j = 0; j < line.length(); ++j) {
+            char c = line.charAt(j);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+}
@@ -0,0 +1,109 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gov.llnl.gnem.jsac.commands.filtering.ContinuousCorrelator;
+import gov.llnl.gnem.jsac.commands.filtering.Convolver;
+import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData;
+
+/**
+ * Convolution and continuous correlation of a trace with a short template.
+ * As in {@link TraceProcessingBenchmark} each invocation works on a snapshot
+ * of the synthetic trace.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CorrelationBenchmark {
+
+    @Param({ "10000", "100000", "1000000" })
+    public int npts;
+
+    @Param({ "64", "1024" })
+    public int templateLength;
+
+    private SacTraceData trace;
+    private float[] template;
+    private Convolver convolver;
+    private ContinuousCorrelator correlator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        trace = SyntheticTraces.trace(npts);
+        template = SyntheticTraces.samples(templateLength, templateLength);
+        convolver = new Convolver(template, true);
+        correlator = new ContinuousCorrelator(template, true);
+    }
+
+    @Benchmark
+    public SacTraceData convolve() {
+        SacTraceData std = trace.snapshot();
+        new Convolver(template, true).convolve(std);
+        return std;
+    }
+
+    /**
+     * As CONVOLVE runs on many traces: the template spectrum is computed once.
+     */
+    @Benchmark
+    public SacTraceData convolveShared() {
+        SacTraceData std = trace.snapshot();
+        convolver.convolve(std);
+        return std;
+    }
+
+    @Benchmark
+    public SacTraceData correlateContinuous() {
+        SacTraceData std = trace.snapshot();
+        new ContinuousCorrelator(template, true).correlate(std);
+        return std;
+    }
+
+    /**
+     * As CORRELATE runs on many traces: the template spectrum is computed once.
+     */
+    @Benchmark
+    public SacTraceData correlateContinuousShared() {
+        SacTraceData std = trace.snapshot();
+        correlator.correlate(std);
+        return std;
+    }
+}
@@ -0,0 +1,110 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gov.llnl.gnem.jsac.io.SACFile;
+import gov.llnl.gnem.jsac.io.SACFileReader;
+import gov.llnl.gnem.jsac.io.SACFileWriter;
+import gov.llnl.gnem.jsac.io.SACHeader;
+
+/**
+ * Reading and writing a single SAC file of increasing length.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SacFileBenchmark {
+
+    @Param({ "1000", "100000", "1000000" })
+    public int npts;
+
+    private Path directory;
+    private Path input;
+    private Path output;
+    private SACHeader header;
+    private float[] data;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("jsac-jmh");
+        input = directory.resolve("input.sac");
+        output = directory.resolve("output.sac");
+        header = SyntheticTraces.header("STA", "BHZ", 0.0, npts);
+        data = SyntheticTraces.samples(npts, npts);
+        write(input);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public SACFile readFile() throws IOException {
+        return SACFileReader.readFile(input);
+    }
+
+    @Benchmark
+    public Path writeFile() throws IOException {
+        return write(output);
+    }
+
+    private Path write(Path path) throws IOException {
+        SACFileWriter writer = new SACFileWriter(path);
+        try {
+            writer.setHeader(new SACHeader(header));
+            writer.write(data);
+        } finally {
+            writer.close();
+        }
+        return path;
+    }
+}
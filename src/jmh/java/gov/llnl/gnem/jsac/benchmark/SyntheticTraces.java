@@ -0,0 +1,98 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.benchmark;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData;
+import gov.llnl.gnem.jsac.io.SACFile;
+import gov.llnl.gnem.jsac.io.SACHeader;
+import gov.llnl.gnem.jsac.io.enums.FileType;
+import gov.llnl.gnem.jsac.io.enums.Iztype;
+
+/**
+ * Builds reproducible synthetic traces for the benchmarks. The samples are a
+ * few sinusoids buried in seeded Gaussian noise so that filters and
+ * correlators do representative work.
+ */
+final class SyntheticTraces {
+
+    static final double DELTA = 0.025;
+
+    private static final double REFERENCE_TIME = 1.6e9;
+
+    private SyntheticTraces() {
+    }
+
+    static float[] samples(int npts, long seed) {
+        Random random = new Random(seed);
+        float[] data = new float[npts];
+        for (int j = 0; j < npts; ++j) {
+            double t = j * DELTA;
+            double signal = Math.sin(2 * Math.PI * 0.7 * t) + 0.5 * Math.sin(2 * Math.PI * 3.1 * t) + 0.25 * Math.sin(2 * Math.PI * 8.3 * t);
+            data[j] = (float) (signal + random.nextGaussian());
+        }
+        return data;
+    }
+
+    static SACHeader header(String station, String channel, double begin, int npts) {
+        SACHeader hdr = new SACHeader();
+        hdr.setDelta(DELTA);
+        hdr.setB(begin);
+        hdr.setNpts(npts);
+        hdr.setE(begin + (npts - 1) * DELTA);
+        hdr.setIftype(FileType.ITIME);
+        hdr.setLeven(1);
+        hdr.setIztype(Iztype.IB);
+        hdr.setReferenceTime(REFERENCE_TIME);
+        hdr.setKnetwk("XX");
+        hdr.setKstnm(station);
+        hdr.setKhole("00");
+        hdr.setKcmpnm(channel);
+        return hdr;
+    }
+
+    static SacTraceData trace(String station, String channel, double begin, int npts, long seed) {
+        SACHeader hdr = header(station, channel, begin, npts);
+        return new SacTraceData(Paths.get(station + "." + channel + ".sac"), new SACFile(hdr, samples(npts, seed)));
+    }
+
+    static SacTraceData trace(int npts) {
+        return trace("STA", "BHZ", 0.0, npts, npts);
+    }
+
+    /**
+     * @return Independent copies of the traces, for benchmarks whose
+     *         operation modifies its input.
+     */
+    static List<SacTraceData> snapshots(List<SacTraceData> traces) {
+        List<SacTraceData> result = new ArrayList<>(traces.size());
+        for (SacTraceData std : traces) {
+            result.add(std.snapshot());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,204 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.oregondsp.signalProcessing.filter.iir.IIRFilter;
+import com.oregondsp.signalProcessing.filter.iir.PassbandType;
+
+import gov.llnl.gnem.jsac.commands.filtering.IIRDesignCache;
+import gov.llnl.gnem.jsac.commands.filtering.SOSFilter;
+import gov.llnl.gnem.jsac.commands.filtering.StackedCorrelator;
+import gov.llnl.gnem.jsac.commands.filtering.Whitener;
+import gov.llnl.gnem.jsac.commands.spectralAnalysis.AnalyticSignal;
+import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData;
+import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData.CutErrorAction;
+import gov.llnl.gnem.jsac.dataAccess.dataObjects.SpectralData.PresentationFormat;
+import gov.llnl.gnem.jsac.util.PartialDataWindow;
+import llnl.gnem.dftt.core.signalprocessing.filter.FilterDesign;
+
+/**
+ * Single-trace operations of {@link SacTraceData}. Each invocation works on a
+ * snapshot of the synthetic trace, so the cost of the copy-on-write sample
+ * copy is included in every score.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TraceProcessingBenchmark {
+
+    private static final int NUMBER_OF_WINDOWS = 16;
+    private static final int WHITEN_ORDER = 6;
+
+    @Param({ "1000", "100000", "1000000" })
+    public int npts;
+
+    private SacTraceData trace;
+    private PartialDataWindow window;
+    private float[] master;
+    private IIRFilter butterworth;
+    private SOSFilter butterworthSections;
+    private StackedCorrelator stackedCorrelator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        trace = SyntheticTraces.trace(npts);
+        master = SyntheticTraces.samples(npts, npts + 1L);
+        window = new PartialDataWindow();
+        window.setStartReference("B");
+        window.setStartOffset(npts * SyntheticTraces.DELTA / 4);
+        window.setEndReference("B");
+        window.setEndOffset(3 * npts * SyntheticTraces.DELTA / 4);
+        window.setEnabled(true);
+        window.validate();
+        IIRDesignCache.Key key = new IIRDesignCache.Key(FilterDesign.Butterworth, 4, PassbandType.BANDPASS, 0.5, 5.0, 0.3, 0.3, SyntheticTraces.DELTA);
+        butterworth = IIRDesignCache.design(key);
+        butterworthSections = IIRDesignCache.designSections(key);
+        stackedCorrelator = new StackedCorrelator(master, true, 2 * npts / (NUMBER_OF_WINDOWS + 1), NUMBER_OF_WINDOWS);
+    }
+
+    @Benchmark
+    public SacTraceData snapshot() {
+        return trace.snapshot();
+    }
+
+    @Benchmark
+    public SacTraceData filterButterworth() {
+        SacTraceData std = trace.snapshot();
+        std.filter(butterworth, false);
+        return std;
+    }
+
+    @Benchmark
+    public SacTraceData filterButterworthTwoPass() {
+        SacTraceData std = trace.snapshot();
+        std.filter(butterworth, true);
+        return std;
+    }
+
+    @Benchmark
+    public SacTraceData filterButterworthSos() {
+        SacTraceData std = trace.snapshot();
+        butterworthSections.filter(Collections.singletonList(std), false);
+        return std;
+    }
+
+    @Benchmark
+    public SacTraceData filterButterworthSosTwoPass() {
+        SacTraceData std = trace.snapshot();
+        butterworthSections.filter(Collections.singletonList(std), true);
+        return std;
+    }
+
+    /**
+     * Filters {@link SOSFilter#MAX_CHANNELS} traces together; divide by that
+     * number to compare with {@link #filterButterworthSosTwoPass()}.
+     */
+    @Benchmark
+    public List<SacTraceData> filterButterworthSosTwoPassInterleaved() {
+        List<SacTraceData> batch = new ArrayList<>();
+        for (int j = 0; j < SOSFilter.MAX_CHANNELS; ++j) {
+            batch.add(trace.snapshot());
+        }
+        butterworthSections.filter(batch, true);
+        return batch;
+    }
+
+    @Benchmark
+    public SacTraceData fft() {
+        SacTraceData std = trace.snapshot();
+        std.FFT(PresentationFormat.AmplitudePhase);
+        return std;
+    }
+
+    @Benchmark
+    public SacTraceData fftRoundTrip() {
+        SacTraceData std = trace.snapshot();
+        std.FFT(PresentationFormat.RealImaginary);
+        std.IFFT();
+        return std;
+    }
+
+    @Benchmark
+    public SacTraceData cut() {
+        SacTraceData std = trace.snapshot();
+        std.cut(window, CutErrorAction.FATAL);
+        return std;
+    }
+
+    /**
+     * Stacks {@value #NUMBER_OF_WINDOWS} half-overlapping windows of a master
+     * trace of the same length.
+     */
+    @Benchmark
+    public SacTraceData correlateStacked() {
+        SacTraceData std = trace.snapshot();
+        int windowLength = 2 * npts / (NUMBER_OF_WINDOWS + 1);
+        new StackedCorrelator(master, true, windowLength, NUMBER_OF_WINDOWS).correlate(std);
+        return std;
+    }
+
+    /**
+     * As CORRELATE runs on many traces: the master spectra are computed once.
+     */
+    @Benchmark
+    public SacTraceData correlateStackedShared() {
+        SacTraceData std = trace.snapshot();
+        stackedCorrelator.correlate(std);
+        return std;
+    }
+
+    @Benchmark
+    public SacTraceData whiten() {
+        SacTraceData std = trace.snapshot();
+        new Whitener(WHITEN_ORDER).whiten(std, false);
+        return std;
+    }
+
+    @Benchmark
+    public SacTraceData envelope() {
+        SacTraceData std = trace.snapshot();
+        AnalyticSignal.transform(std, AnalyticSignal.Quantity.ENVELOPE);
+        return std;
+    }
+}
@@ -0,0 +1,129 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData;
+import gov.llnl.gnem.jsac.io.SACHeader;
+import gov.llnl.gnem.jsac.util.SacHeaderComparator;
+import gov.llnl.gnem.jsac.util.TraceMerger;
+import gov.llnl.gnem.jsac.util.TraceMerger.GapStrategy;
+import gov.llnl.gnem.jsac.util.TraceRotator;
+import gov.llnl.gnem.jsac.util.TraceRotator.RotationStyle;
+import gov.llnl.gnem.jsac.util.TraceRotator.RotationType;
+
+/**
+ * Operations whose cost grows with the number of traces in memory rather than
+ * with their length: MERGE of contiguous segments, ROTATE of horizontal pairs
+ * and SORT by header values.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TraceSetBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int traceCount;
+
+    @Param({ "1000" })
+    public int npts;
+
+    private List<SacTraceData> segments;
+    private List<SacTraceData> horizontals;
+    private List<SACHeader> headers;
+    private SacHeaderComparator comparator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        segments = new ArrayList<>(traceCount);
+        for (int j = 0; j < traceCount; ++j) {
+            segments.add(SyntheticTraces.trace("STA", "BHZ", j * npts * SyntheticTraces.DELTA, npts, j));
+        }
+        Collections.shuffle(segments, new Random(traceCount));
+
+        horizontals = new ArrayList<>(traceCount);
+        for (int j = 0; j < traceCount / 2; ++j) {
+            String station = String.format("S%03d", j);
+            horizontals.add(horizontal(station, "BHN", 0.0, 2L * j));
+            horizontals.add(horizontal(station, "BHE", 90.0, 2L * j + 1));
+        }
+
+        Random random = new Random(traceCount);
+        headers = new ArrayList<>(traceCount);
+        for (int j = 0; j < traceCount; ++j) {
+            SACHeader hdr = SyntheticTraces.header(String.format("S%03d", random.nextInt(traceCount)), "BHZ", 0.0, npts);
+            hdr.setDist(random.nextDouble() * 10000.0);
+            headers.add(hdr);
+        }
+        comparator = new SacHeaderComparator();
+        comparator.addField("KSTNM", true);
+        comparator.addField("DIST", false);
+    }
+
+    private SacTraceData horizontal(String station, String channel, double azimuth, long seed) {
+        SacTraceData std = SyntheticTraces.trace(station, channel, 0.0, npts, seed);
+        std.getSACHeader().setCmpinc(90.0);
+        std.getSACHeader().setCmpaz(azimuth);
+        return std;
+    }
+
+    @Benchmark
+    public SacTraceData merge() {
+        return TraceMerger.merge(SyntheticTraces.snapshots(segments), GapStrategy.ZERO);
+    }
+
+    @Benchmark
+    public List<SacTraceData> rotate() {
+        List<SacTraceData> traces = SyntheticTraces.snapshots(horizontals);
+        TraceRotator.rotateTraces(traces, RotationStyle.NORMAL, RotationType.TO_VALUE, 30.0);
+        return traces;
+    }
+
+    @Benchmark
+    public List<SACHeader> sort() {
+        List<SACHeader> sorted = new ArrayList<>(headers);
+        sorted.sort(comparator);
+        return sorted;
+    }
+}
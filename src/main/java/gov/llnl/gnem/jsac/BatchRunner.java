@@ -0,0 +1,153 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package gov.llnl.gnem.jsac;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gov.llnl.gnem.jsac.commands.SacCommand;
+import gov.llnl.gnem.jsac.commands.SacCommandExecutor;
+import gov.llnl.gnem.jsac.commands.SacCommandParser;
+
+/**
+ * Runs a script of SAC commands without a console or display. Execution stops
+ * at the first command that cannot be parsed, that throws, or that reports an
+ * error to the session, and the result is reported as a process exit status.
+ */
+public class BatchRunner {
+
+    public static final int SUCCESS = 0;
+    public static final int COMMAND_FAILED = 1;
+    public static final int SCRIPT_UNREADABLE = 2;
+
+    private static final Logger log = LoggerFactory.getLogger(BatchRunner.class);
+
+    private final Path script;
+
+    public BatchRunner(Path script) {
+        this.script = script;
+    }
+
+    /**
+     * @return the exit status: {@link #SUCCESS}, {@link #COMMAND_FAILED} or
+     *         {@link #SCRIPT_UNREADABLE}.
+     */
+    public int run() {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(script, StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            log.error("Cannot read batch script {}: {}", script, ex.getMessage());
+            return SCRIPT_UNREADABLE;
+        }
+        int lineNumber = 0;
+        for (String line : lines) {
+            ++lineNumber;
+            for (String cmd : line.trim().split(";")) {
+                String text = cmd.trim();
+                if (!isCommand(text)) {
+                    continue;
+                }
+                if (!runCommand(text, lineNumber)) {
+                    return COMMAND_FAILED;
+                }
+            }
+        }
+        if (!waitForJobs()) {
+            return COMMAND_FAILED;
+        }
+        try {
+            SacCommandExecutor.getInstance().endResultChain();
+        } catch (IllegalStateException ex) {
+            log.error("{}: {}", script, ex.getMessage());
+            return COMMAND_FAILED;
+        }
+        return SUCCESS;
+    }
+
+    /**
+     * Background jobs started by the script must finish before it is done.
+     *
+     * @return false if a job failed.
+     */
+    private boolean waitForJobs() {
+        JobTable jobs = Session.current().getJobs();
+        boolean succeeded = true;
+        for (JobTable.Job job : jobs.list()) {
+            jobs.waitFor(job, TaskMonitor.current());
+            if (job.getState() != JobTable.State.DONE) {
+                log.error("{}: job [{}] '{}' {}: {}", script, job.getId(), job.getCommandLine(), job.getState(), job.getError());
+                succeeded = false;
+            }
+        }
+        jobs.removeFinished();
+        return succeeded;
+    }
+
+    private boolean runCommand(String line, int lineNumber) {
+        boolean background = JobTable.isBackground(line);
+        String text = JobTable.stripBackground(line);
+        SacCommand command;
+        try {
+            command = SacCommandParser.getInstance().parseCommandLine(text);
+        } catch (Exception ex) {
+            log.error("{}:{}: error parsing or preparing command '{}': {}", script, lineNumber, text, ex.getMessage());
+            return false;
+        }
+        if (command == null) {
+            log.error("{}:{}: unrecognized command: {}", script, lineNumber, text);
+            return false;
+        }
+        Session session = Session.current();
+        int errors = session.getErrorCount();
+        try {
+            if (background) {
+                session.getJobs().start(text, command);
+            } else {
+                session.getJobs().runForeground(text, command);
+            }
+        } catch (Exception ex) {
+            log.error("{}:{}: failed executing command '{}': {}", script, lineNumber, text, ex.getMessage());
+            return false;
+        }
+        if (!background && session.getErrorCount() != errors) {
+            log.error("{}:{}: command '{}' failed: {}", script, lineNumber, text, session.getLastError());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return false for blank lines and comments ('*' or '--').
+     */
+    public static boolean isCommand(String text) {
+        return !text.isEmpty() && !text.startsWith("*") && !text.startsWith("--");
+    }
+}
@@ -0,0 +1,78 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Handles Ctrl+C (SIGINT) on the console. The JDK offers this only through
+ * the unsupported sun.misc.Signal API, so it is looked up by reflection: the
+ * build does not depend on it and does not warn about it, and platforms
+ * without it simply keep the default behavior of exiting.
+ */
+final class ConsoleInterrupt {
+
+    private static final Logger log = LoggerFactory.getLogger(ConsoleInterrupt.class);
+
+    private ConsoleInterrupt() {
+    }
+
+    /**
+     * @param action Run on the signal dispatch thread on each Ctrl+C.
+     * @return true if the handler was installed.
+     */
+    static boolean install(Runnable action) {
+        try {
+            Class<?> signalClass = Class.forName("sun.misc.Signal");
+            Class<?> handlerClass = Class.forName("sun.misc.SignalHandler");
+            Object signal = signalClass.getConstructor(String.class).newInstance("INT");
+            Object handler = Proxy.newProxyInstance(handlerClass.getClassLoader(), new Class<?>[] { handlerClass }, (proxy, method, args) -> handle(proxy, method, args, action));
+            signalClass.getMethod("handle", signalClass, handlerClass).invoke(null, signal, handler);
+            return true;
+        } catch (InvocationTargetException ex) {
+            log.debug("Ctrl+C cannot be handled on this platform: {}", ex.getCause().getMessage());
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            log.debug("Ctrl+C cannot be handled on this platform: {}", ex.getMessage());
+        }
+        return false;
+    }
+
+    private static Object handle(Object proxy, Method method, Object[] args, Runnable action) {
+        switch (method.getName()) {
+        case "handle":
+            action.run();
+            return null;
+        case "equals":
+            return proxy == args[0];
+        case "hashCode":
+            return System.identityHashCode(proxy);
+        default:
+            return "Ctrl+C handler";
+        }
+    }
+}
@@ -0,0 +1,262 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gov.llnl.gnem.jsac.commands.Misc;
+import gov.llnl.gnem.jsac.commands.executiveFunction.CompiledMacro;
+import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData;
+import gov.llnl.gnem.jsac.dataAccess.storage.MemoryBudget;
+import gov.llnl.gnem.jsac.dataAccess.storage.StorageMode;
+import gov.llnl.gnem.jsac.io.SACDataEncoding;
+import gov.llnl.gnem.jsac.io.SACFileReader;
+import llnl.gnem.dftt.core.util.StreamKey;
+
+/**
+ * Runs a macro over many files, one file or stream at a time, on a fixed
+ * number of worker threads. Each worker has its own {@link Session}, so
+ * the caller's data is not touched and only the units being processed are in
+ * memory, however many files there are. Workers start with default command
+ * settings, so the commands should set any they rely on.
+ */
+public class FileMapper {
+
+    private static final Logger log = LoggerFactory.getLogger(FileMapper.class);
+
+    public enum Grouping {
+        /** Each file is processed on its own. */
+        FILE,
+        /** Files with the same network, station, channel and location are read together. */
+        STREAM
+    }
+
+    private final CompiledMacro macro;
+    private final List<String> arguments;
+    private final int workers;
+    private final Grouping grouping;
+    private final SACDataEncoding encoding;
+
+    /**
+     * @param commands The lines of a macro to run on each unit.
+     * @param workers  The number of units processed concurrently.
+     * @param grouping How files are combined into units.
+     * @param encoding The encoding of the files.
+     * @throws IllegalArgumentException If the blocks of the macro do not
+     *                                  match.
+     */
+    public FileMapper(List<String> commands, int workers, Grouping grouping, SACDataEncoding encoding) {
+        this(CompiledMacro.compile("MAPFILES", commands), Collections.emptyList(), workers, grouping, encoding);
+    }
+
+    /**
+     * @param macro     The macro to run on each unit.
+     * @param arguments The arguments of the macro.
+     * @param workers   The number of units processed concurrently.
+     * @param grouping  How files are combined into units.
+     * @param encoding  The encoding of the files.
+     */
+    public FileMapper(CompiledMacro macro, List<String> arguments, int workers, Grouping grouping, SACDataEncoding encoding) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("At least one worker is required!");
+        }
+        this.macro = macro;
+        this.arguments = new ArrayList<>(arguments);
+        this.workers = workers;
+        this.grouping = grouping;
+        this.encoding = encoding;
+    }
+
+    public static class Result {
+
+        private final int units;
+        private final int files;
+        private final int failedUnits;
+
+        Result(int units, int files, int failedUnits) {
+            this.units = units;
+            this.files = files;
+            this.failedUnits = failedUnits;
+        }
+
+        public int getUnits() {
+            return units;
+        }
+
+        public int getFiles() {
+            return files;
+        }
+
+        public int getFailedUnits() {
+            return failedUnits;
+        }
+    }
+
+    /**
+     * Processes the files and waits for all units to finish. A unit fails if a
+     * file cannot be read or the macro reports an error, as it does for a
+     * command that is not recognized or throws; the remaining units still
+     * run.
+     *
+     * @param files The files to process.
+     * @return The unit and failure counts.
+     * @throws InterruptedException If the calling thread is interrupted. Units
+     *                              already running are interrupted as well.
+     */
+    public Result map(List<Path> files) throws InterruptedException {
+        AtomicInteger failed = new AtomicInteger();
+        Collection<List<Path>> units = makeUnits(files, failed);
+        Session caller = Session.current();
+        ThreadLocal<Worker> context = ThreadLocal.withInitial(() -> new Worker(caller));
+
+        // Submission blocks once every worker is busy and one more unit per
+        // worker is queued, so reads never run far ahead of processing.
+        Semaphore permits = new Semaphore(2 * workers);
+        ExecutorService executor = Executors.newFixedThreadPool(workers, new WorkerThreadFactory());
+        try {
+            for (List<Path> unit : units) {
+                permits.acquire();
+                executor.execute(() -> {
+                    try {
+                        if (!context.get().process(unit)) {
+                            failed.incrementAndGet();
+                        }
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+            executor.shutdown();
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                // Keep waiting; the loop only exists so that interrupts are seen.
+            }
+        } catch (InterruptedException ex) {
+            executor.shutdownNow();
+            throw ex;
+        }
+        return new Result(units.size(), files.size(), failed.get());
+    }
+
+    private Collection<List<Path>> makeUnits(List<Path> files, AtomicInteger failed) {
+        if (grouping == Grouping.FILE || encoding != SACDataEncoding.BINARY) {
+            List<List<Path>> units = new ArrayList<>(files.size());
+            files.forEach(path -> units.add(Collections.singletonList(path)));
+            return units;
+        }
+        Map<StreamKey, List<Path>> streams = new LinkedHashMap<>();
+        for (Path path : files) {
+            try {
+                StreamKey key = SACFileReader.readHeader(path).getStreamKey();
+                streams.computeIfAbsent(key, k -> new ArrayList<>()).add(path);
+            } catch (IOException ex) {
+                log.warn("Failed reading header of {}: {}", path, ex.getMessage());
+                failed.incrementAndGet();
+            }
+        }
+        return streams.values();
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "FileMapper-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * The session used by one worker thread for all of its units.
+     */
+    private class Worker {
+
+        private final Session session;
+        private final SacDataModel model;
+
+        Worker(Session caller) {
+            session = Session.create(caller.getName() + "/" + Thread.currentThread().getName(), caller.getPathManager().getCurrentDir());
+            session.setOut(caller.getOut());
+            model = session.getDataModel();
+            model.setUndoDepth(0);
+            SacDataModel shared = caller.getDataModel();
+            if (shared.getStorageMode() == StorageMode.SPILL) {
+                MemoryBudget budget = shared.getMemoryBudget();
+                model.setMemoryBudget(budget.getBudgetBytes() / workers, budget.getScratchDirectory());
+            } else {
+                model.setStorageMode(shared.getStorageMode());
+            }
+        }
+
+        boolean process(List<Path> unit) {
+            Session previous = Session.bind(session);
+            try {
+                model.clear();
+                for (Path path : unit) {
+                    SacTraceData std = Misc.createSacFile(path, encoding);
+                    if (std == null) {
+                        return false;
+                    }
+                    model.add(std);
+                }
+                return execute(unit);
+            } finally {
+                model.clear();
+                Session.bind(previous);
+            }
+        }
+
+        private boolean execute(List<Path> unit) {
+            try {
+                int errors = session.getErrorCount();
+                macro.run(arguments);
+                if (session.getErrorCount() != errors) {
+                    log.warn("Failed macro for {}: {}", unit.get(0), session.getLastError());
+                    return false;
+                }
+                return true;
+            } catch (Exception ex) {
+                log.warn("Failed macro for {}: {}", unit.get(0), ex.getMessage());
+                return false;
+            }
+        }
+    }
+}
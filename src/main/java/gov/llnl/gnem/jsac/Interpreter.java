@@ -24,12 +24,12 @@ package gov.llnl.gnem.jsac;
 
 import java.util.NoSuchElementException;
 import java.util.Scanner;
+import java.util.concurrent.CancellationException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import gov.llnl.gnem.jsac.commands.SacCommand;
-import gov.llnl.gnem.jsac.commands.SacCommandExecutor;
 import gov.llnl.gnem.jsac.commands.SacCommandParser;
 
 /**
@@ -44,6 +44,7 @@ public class Interpreter implements Runnable {
 
     @Override
     public void run() {
+        installInterruptHandler();
         displayPrompt();
         while (true) {
             try {
@@ -54,12 +55,20 @@ public class Interpreter implements Runnable {
                     log.info(cmd);
                     if (isCommand(cmd)) {
                         try {
-                            SacCommand command = SacCommandParser.getInstance().parseCommandLine(cmd);
+                            boolean background = JobTable.isBackground(cmd);
+                            String line = JobTable.stripBackground(cmd);
+                            SacCommand command = SacCommandParser.getInstance().parseCommandLine(line);
                             log.trace("Created command.");
                             if (command != null) {
                                 try {
-                                    SacCommandExecutor.getInstance().executeCommand(command);
+                                    if (background) {
+                                        Session.current().getJobs().start(line, command);
+                                    } else {
+                                        Session.current().getJobs().runForeground(line, command);
+                                    }
                                     log.trace("Executed command.");
+                                } catch (CancellationException ex) {
+                                    System.out.println(ex.getMessage());
                                 } catch (Exception ex) {
                                     log.warn("Failed executing command: {}", ex.getMessage());
                                 }
@@ -79,6 +88,25 @@ public class Interpreter implements Runnable {
         }
     }
 
+    /**
+     * Makes Ctrl+C cancel the command running in the foreground. At the
+     * prompt, or if the command is already being cancelled, it exits as
+     * before.
+     */
+    private static void installInterruptHandler() {
+        JobTable jobs = Session.getDefault().getJobs();
+        boolean installed = ConsoleInterrupt.install(() -> {
+            TaskMonitor foreground = jobs.getForeground();
+            if (foreground == null || foreground.isCancelled()) {
+                System.exit(130);
+            }
+            System.out.println();
+            System.out.println("Cancelling " + foreground.getName() + " ...");
+            foreground.cancel();
+        });
+        jobs.setInterruptible(installed);
+    }
+
     private static boolean isCommand(String text) {
         return !text.isEmpty() && !text.startsWith("*") && !text.startsWith("--");
     }
@@ -0,0 +1,393 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gov.llnl.gnem.jsac.commands.SacCommand;
+import gov.llnl.gnem.jsac.commands.SacCommandExecutor;
+
+/**
+ * The command lines a session is running. A line ending in '&amp;' runs as a
+ * background job on its own thread and the caller returns at once; any other
+ * line runs in the foreground on the calling thread. Both kinds take turns on
+ * the session's data, in the order they were submitted, so a foreground command
+ * issued while a job is running waits for it. Job control commands such as
+ * JOBS, WAIT and KILL run immediately.
+ * <p>
+ * Long foreground commands print their progress every
+ * {@value #PROGRESS_INTERVAL_SECONDS} seconds. In a session with an interrupt
+ * handler, see {@link #setInterruptible(boolean)}, they can be cancelled
+ * through {@link #getForeground()}.
+ */
+public class JobTable {
+
+    public static final int PROGRESS_INTERVAL_SECONDS = 5;
+
+    private static final Logger log = LoggerFactory.getLogger(JobTable.class);
+
+    private static final ScheduledExecutorService progressTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "JobProgress");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public enum State {
+        RUNNING, DONE, FAILED, CANCELLED
+    }
+
+    public static class Job {
+
+        private final int id;
+        private final String commandLine;
+        private final TaskMonitor monitor;
+        private final long startMillis;
+        private final CountDownLatch finished;
+        private volatile State state;
+        private volatile String error;
+        private volatile long endMillis;
+
+        private Job(int id, String commandLine) {
+            this.id = id;
+            this.commandLine = commandLine;
+            monitor = new TaskMonitor(commandLine);
+            startMillis = System.currentTimeMillis();
+            finished = new CountDownLatch(1);
+            state = State.RUNNING;
+        }
+
+        private void finish(State finalState, String message) {
+            error = message;
+            endMillis = System.currentTimeMillis();
+            state = finalState;
+            finished.countDown();
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getCommandLine() {
+            return commandLine;
+        }
+
+        public TaskMonitor getMonitor() {
+            return monitor;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        /**
+         * @return The error of a FAILED job, otherwise null.
+         */
+        public String getError() {
+            return error;
+        }
+
+        public double getElapsedSeconds() {
+            long end = state == State.RUNNING ? System.currentTimeMillis() : endMillis;
+            return (end - startMillis) / 1000.0;
+        }
+
+        /**
+         * Waits for the job to finish.
+         *
+         * @param timeout The longest time to wait.
+         * @param unit    The unit of the timeout.
+         * @return true if the job has finished.
+         * @throws InterruptedException If the calling thread is interrupted.
+         */
+        public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+            return finished.await(timeout, unit);
+        }
+
+        /**
+         * @return One line with the job number, state, elapsed time and, while
+         *         it runs, its progress.
+         */
+        public String describe() {
+            String detail;
+            switch (state) {
+            case RUNNING:
+                detail = monitor.describeProgress();
+                break;
+            case FAILED:
+                detail = error;
+                break;
+            default:
+                detail = "";
+            }
+            String line = String.format("[%d] %-9s %8s  %s", id, state, TaskMonitor.formatDuration(getElapsedSeconds()), commandLine);
+            return detail == null || detail.isEmpty() ? line : line + "  (" + detail + ")";
+        }
+    }
+
+    private final Session session;
+    private final ReentrantLock turn;
+    private final Map<Integer, Job> jobs;
+    private int nextId;
+    private volatile TaskMonitor foreground;
+    private volatile boolean interruptible;
+
+    JobTable(Session session) {
+        this.session = session;
+        turn = new ReentrantLock(true);
+        jobs = new LinkedHashMap<>();
+        nextId = 1;
+        foreground = null;
+        interruptible = false;
+    }
+
+    /**
+     * @param interruptible true if something, such as the console's Ctrl+C
+     *                      handler, may cancel the foreground command. Only
+     *                      then does it keep a copy of the data to roll back
+     *                      to when undo is off.
+     */
+    public void setInterruptible(boolean interruptible) {
+        this.interruptible = interruptible;
+    }
+
+    /**
+     * @param text A command line.
+     * @return true if the line asks to run in the background.
+     */
+    public static boolean isBackground(String text) {
+        return text.trim().endsWith("&");
+    }
+
+    /**
+     * @param text A command line.
+     * @return The line without a trailing '&amp;'.
+     */
+    public static String stripBackground(String text) {
+        String trimmed = text.trim();
+        return isBackground(trimmed) ? trimmed.substring(0, trimmed.length() - 1).trim() : trimmed;
+    }
+
+    /**
+     * Runs a command on the calling thread, once the jobs submitted before it
+     * have finished.
+     *
+     * @param commandLine The command line, for progress messages.
+     * @param command     The command.
+     * @throws CancellationException If the command was cancelled. The data
+     *                               are then as they were before it started.
+     */
+    public void runForeground(String commandLine, SacCommand command) {
+        TaskMonitor monitor = new TaskMonitor(commandLine, interruptible);
+        TaskMonitor previous = TaskMonitor.bind(monitor);
+        foreground = monitor;
+        try {
+            if (command.isJobControl()) {
+                SacCommandExecutor.getInstance().executeCommand(command);
+                return;
+            }
+            ScheduledFuture<?> reporter = progressTimer.scheduleAtFixedRate(() -> reportProgress(monitor), PROGRESS_INTERVAL_SECONDS, PROGRESS_INTERVAL_SECONDS, TimeUnit.SECONDS);
+            try {
+                takeTurn(monitor);
+                try {
+                    SacCommandExecutor.getInstance().executeCommand(command);
+                } finally {
+                    turn.unlock();
+                }
+            } finally {
+                reporter.cancel(false);
+            }
+        } finally {
+            foreground = null;
+            TaskMonitor.bind(previous);
+        }
+    }
+
+    /**
+     * Runs a command as a background job of this session. Its output goes to
+     * the session's output, followed by a line reporting how it finished.
+     *
+     * @param commandLine The command line without the trailing '&amp;'.
+     * @param command     The command.
+     * @return The job.
+     */
+    public Job start(String commandLine, SacCommand command) {
+        Job job;
+        synchronized (jobs) {
+            job = new Job(nextId++, commandLine);
+            jobs.put(job.getId(), job);
+        }
+        Thread thread = new Thread(() -> session.run(() -> runJob(job, command)), "SacJob-" + session.getName() + "-" + job.getId());
+        thread.setDaemon(true);
+        thread.start();
+        System.out.println(String.format("[%d] %s", job.getId(), commandLine));
+        return job;
+    }
+
+    private void runJob(Job job, SacCommand command) {
+        TaskMonitor previous = TaskMonitor.bind(job.getMonitor());
+        try {
+            takeTurn(job.getMonitor());
+            int errors = session.getErrorCount();
+            boolean failed;
+            try {
+                SacCommandExecutor.getInstance().executeCommand(command);
+            } finally {
+                // Read before another command can take its turn and report errors.
+                failed = session.getErrorCount() != errors;
+                turn.unlock();
+            }
+            if (failed) {
+                job.finish(State.FAILED, session.getLastError());
+            } else {
+                job.finish(State.DONE, null);
+            }
+        } catch (CancellationException ex) {
+            job.finish(State.CANCELLED, null);
+        } catch (Exception ex) {
+            log.debug(ex.getMessage(), ex);
+            job.finish(State.FAILED, ex.getMessage());
+        } finally {
+            TaskMonitor.bind(previous);
+        }
+        System.out.println(job.describe());
+    }
+
+    private void takeTurn(TaskMonitor monitor) {
+        boolean announced = false;
+        try {
+            while (!turn.tryLock(200, TimeUnit.MILLISECONDS)) {
+                monitor.checkCancelled();
+                if (!announced) {
+                    System.out.println(monitor.getName() + ": waiting for running jobs to finish");
+                    announced = true;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted: " + monitor.getName());
+        }
+        if (monitor.isCancelled()) {
+            turn.unlock();
+            monitor.checkCancelled();
+        }
+    }
+
+    private void reportProgress(TaskMonitor monitor) {
+        String progress = monitor.describeProgress();
+        if (!progress.isEmpty()) {
+            session.run(() -> System.out.println(monitor.getName() + ": " + progress));
+        }
+    }
+
+    /**
+     * @return The monitor of the command running in the foreground, or null.
+     */
+    public TaskMonitor getForeground() {
+        return foreground;
+    }
+
+    /**
+     * @param id A job number.
+     * @return The job, or null if there is no such job.
+     */
+    public Job get(int id) {
+        synchronized (jobs) {
+            return jobs.get(id);
+        }
+    }
+
+    /**
+     * @return The jobs that are running or have finished since they were last
+     *         listed, in the order they were started.
+     */
+    public List<Job> list() {
+        synchronized (jobs) {
+            return new ArrayList<>(jobs.values());
+        }
+    }
+
+    /**
+     * Forgets the jobs that have finished.
+     */
+    public void removeFinished() {
+        synchronized (jobs) {
+            jobs.values().removeIf(job -> job.getState() != State.RUNNING);
+        }
+    }
+
+    /**
+     * Cancels every running job and waits for them to stop.
+     */
+    public void cancelAll() {
+        List<Job> running = list();
+        running.forEach(job -> job.getMonitor().cancel());
+        for (Job job : running) {
+            try {
+                job.await(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        removeFinished();
+    }
+
+    /**
+     * Waits for a job to finish, printing its progress every
+     * {@value #PROGRESS_INTERVAL_SECONDS} seconds.
+     *
+     * @param job    The job.
+     * @param waiter The monitor of the waiting command; cancelling it stops
+     *               the wait but not the job.
+     * @throws CancellationException If the wait was cancelled.
+     */
+    public void waitFor(Job job, TaskMonitor waiter) {
+        long interval = TimeUnit.SECONDS.toNanos(PROGRESS_INTERVAL_SECONDS);
+        long nextReport = System.nanoTime() + interval;
+        try {
+            while (!job.await(200, TimeUnit.MILLISECONDS)) {
+                waiter.checkCancelled();
+                if (System.nanoTime() - nextReport >= 0) {
+                    System.out.println(job.describe());
+                    nextReport += interval;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for job " + job.getId());
+        }
+    }
+}
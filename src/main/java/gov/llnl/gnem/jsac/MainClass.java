@@ -23,6 +23,12 @@
 
 package gov.llnl.gnem.jsac;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.ServiceLoader;
 
 import javax.swing.SwingUtilities;
@@ -37,6 +43,8 @@ import org.slf4j.LoggerFactory;
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.LoggerContext;
 import gov.llnl.gnem.jsac.commands.SacCommandParser;
+import gov.llnl.gnem.jsac.commands.executiveFunction.MemorySacCommand;
+import gov.llnl.gnem.jsac.dataAccess.storage.StorageMode;
 import gov.llnl.gnem.jsac.plots.plot.PlotFrame;
 import llnl.gnem.dftt.core.gui.util.ExceptionDialog;
 import llnl.gnem.dftt.core.util.FileUtil.DriveMapper;
@@ -50,6 +58,11 @@ public class MainClass {
     private static final Logger log = LoggerFactory.getLogger(MainClass.class);
 
     private static ServiceLoader<CommandParser> additionalParsers = ServiceLoader.load(CommandParser.class);
+    private static String batchScript = null;
+    private static Integer serverPort = null;
+    private static ShardedBatch shardedBatch = null;
+    private static String shardFileList = null;
+    private static ShardedBatch.Partitioning shardPartitioning = ShardedBatch.Partitioning.FILE;
  static {
       System.setProperty("org.apache.commons.logging.Log",
                          "org.apache.commons.logging.impl.NoOpLog");
@@ -58,6 +71,18 @@ public class MainClass {
         getCommandLineInfo(args);
         DriveMapper.setupWindowsNFSDriveMap();
 
+        if (batchScript != null) {
+            runBatch(batchScript);
+            return;
+        }
+        if (serverPort != null) {
+            runServer(serverPort);
+            return;
+        }
+        if (shardedBatch != null) {
+            runShards();
+            return;
+        }
         SwingUtilities.invokeLater(() -> {
             try {
                 PlotFrame.getInstance().setVisible(false);
@@ -78,17 +103,117 @@ public class MainClass {
 
     }
 
+    /**
+     * Runs a script without creating any windows and exits with its status.
+     * Commands are instantiated only as the script first uses them.
+     */
+    private static void runBatch(String batchScript) {
+        int status;
+        try {
+            SacCommandParser.getInstance().initialize();
+            // Nothing can interrupt a script or undo its commands, so by
+            // default it keeps no copies of the data; UNDO DEPTH turns them on.
+            SacDataModel.getInstance().setUndoDepth(0);
+            status = new BatchRunner(Paths.get(batchScript)).run();
+        } catch (Exception ex) {
+            log.error(ex.getLocalizedMessage(), ex);
+            status = BatchRunner.COMMAND_FAILED;
+        }
+        System.exit(status);
+    }
+
+    /**
+     * Runs a macro over a file list split across worker JVMs and exits with
+     * {@link BatchRunner#SUCCESS} only if every shard succeeded.
+     */
+    private static void runShards() {
+        int status;
+        try {
+            List<Path> files = ShardedBatch.readFileList(Paths.get(shardFileList));
+            List<ShardedBatch.Shard> shards = ShardedBatch.partition(files, shardPartitioning, shardedBatch.getWorkers());
+            System.out.println(String.format("Running %d files in %d shards", files.size(), shards.size()));
+            long start = System.currentTimeMillis();
+            boolean succeeded = shardedBatch.run(shards);
+            for (ShardedBatch.Shard shard : shards) {
+                System.out.println(String.format("Shard %3d: %6d files %10s %2d attempts %8.1f s  %s", shard.getIndex(), shard.getFileCount(), MemorySacCommand.formatByteCount(shard.getBytes()),
+                        shard.getAttempts(), shard.getSeconds(), shard.isSkipped() ? "skipped" : shard.isSucceeded() ? "done" : "FAILED (" + shard.getExitStatus() + ")"));
+            }
+            System.out.println(String.format("Finished in %4.1f seconds", (System.currentTimeMillis() - start) / 1000.0));
+            status = succeeded ? BatchRunner.SUCCESS : BatchRunner.COMMAND_FAILED;
+        } catch (IOException ex) {
+            log.error("Cannot prepare shards: {}", ex.getMessage());
+            status = BatchRunner.SCRIPT_UNREADABLE;
+        } catch (InterruptedException ex) {
+            status = BatchRunner.COMMAND_FAILED;
+        }
+        System.exit(status);
+    }
+
+    /**
+     * Serves sessions to local clients without creating any windows until the
+     * process is killed.
+     */
+    private static void runServer(int port) {
+        try {
+            SacCommandParser.getInstance().initialize();
+            SessionServer server = new SessionServer(port);
+            System.out.println("JSAC server listening on " + server.getPort());
+            server.serve();
+        } catch (IOException ex) {
+            log.error("Cannot start server on port {}: {}", port, ex.getMessage());
+            System.exit(2);
+        } catch (Exception ex) {
+            log.error(ex.getLocalizedMessage(), ex);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Sets the batch script, server port, or sharded batch if one was
+     * requested. None is set for an interactive session.
+     */
     private static void getCommandLineInfo(String[] args) {
         Options options = new Options();
 
         Option help = new Option("h", "help", false, "Eventually show general help message...");
         Option logLevelOption = new Option("L", "LogLevel", true, "The logging level to use.");
+        Option storageOption = new Option("S", "storage", true, "Where trace samples are held: HEAP (default), OFFHEAP, or SPILL.");
+        Option batchOption = new Option("b", "batch", true, "Run the commands in this script headless, then exit non-zero if any command fails.");
+        Option serverOption = new Option("s", "server", true, "Run headless, serving a session to each local client that connects to this port.");
+        Option shardOption = new Option("m", "shard", true, "Run this macro over the files of --files split across local worker JVMs; remaining arguments are passed to the macro.");
+        Option filesOption = Option.builder().longOpt("files").hasArg().desc("With --shard: file listing the files or wildcard patterns to process, one per line.").build();
+        Option workersOption = Option.builder().longOpt("workers").hasArg().desc("With --shard: the number of worker JVMs (default: processors / 8).").build();
+        Option partitionOption = Option.builder().longOpt("partition").hasArg().desc("With --shard: unit run by the macro, FILE (default), STREAM, or EVENT (directory).").build();
+        Option retriesOption = Option.builder().longOpt("retries").hasArg().desc("With --shard: how often a failed shard is run again (default 1).").build();
+        Option workDirOption = Option.builder().longOpt("workdir").hasArg().desc("With --shard: directory for shard scripts, logs and status (default jsac-shards).").build();
+        Option workerHeapOption = Option.builder().longOpt("worker-heap").hasArg().desc("With --shard: maximum heap of each worker JVM, e.g. 8g.").build();
 
         DefaultParser baseParser = new DefaultParser();
         options.addOption(help);
         options.addOption(logLevelOption);
+        options.addOption(storageOption);
+        options.addOption(batchOption);
+        options.addOption(serverOption);
+        options.addOption(shardOption);
+        options.addOption(filesOption);
+        options.addOption(workersOption);
+        options.addOption(partitionOption);
+        options.addOption(retriesOption);
+        options.addOption(workDirOption);
+        options.addOption(workerHeapOption);
         try {
             CommandLine cmd = baseParser.parse(options, args);
+            if (cmd.hasOption(batchOption.getOpt())) {
+                // Must be set before anything loads AWT.
+                System.setProperty("java.awt.headless", "true");
+                batchScript = cmd.getOptionValue(batchOption.getOpt());
+            } else if (cmd.hasOption(serverOption.getOpt())) {
+                System.setProperty("java.awt.headless", "true");
+                serverPort = Integer.parseInt(cmd.getOptionValue(serverOption.getOpt()));
+            } else if (cmd.hasOption(shardOption.getOpt())) {
+                System.setProperty("java.awt.headless", "true");
+                shardedBatch = createShardedBatch(cmd, shardOption);
+            }
 
             if (cmd.hasOption(logLevelOption.getOpt())) {
                 String level = cmd.getOptionValue(logLevelOption.getOpt());
@@ -98,6 +223,10 @@ public class MainClass {
                     logger.setLevel(Level.toLevel(level));
                 }
             }
+            if (cmd.hasOption(storageOption.getOpt())) {
+                String mode = cmd.getOptionValue(storageOption.getOpt());
+                SacDataModel.getInstance().setStorageMode(StorageMode.valueOf(mode.toUpperCase()));
+            }
             additionalParsers.forEach(f -> f.apply(options, args));
         } catch (Exception ex) {
             log.error(ex.getLocalizedMessage(), ex);
@@ -105,4 +234,34 @@ public class MainClass {
         }
     }
 
+    private static ShardedBatch createShardedBatch(CommandLine cmd, Option shardOption) {
+        shardFileList = cmd.getOptionValue("files");
+        if (shardFileList == null) {
+            throw new IllegalArgumentException("--shard requires --files!");
+        }
+        int workers = Math.max(1, Runtime.getRuntime().availableProcessors() / 8);
+        if (cmd.hasOption("workers")) {
+            workers = Integer.parseInt(cmd.getOptionValue("workers"));
+        }
+        if (cmd.hasOption("partition")) {
+            shardPartitioning = ShardedBatch.Partitioning.valueOf(cmd.getOptionValue("partition").toUpperCase());
+        }
+        ShardedBatch batch = new ShardedBatch(Paths.get(cmd.getOptionValue(shardOption.getOpt())), cmd.getArgList(), Paths.get(cmd.getOptionValue("workdir", "jsac-shards")), workers);
+        if (cmd.hasOption("retries")) {
+            batch.setRetries(Integer.parseInt(cmd.getOptionValue("retries")));
+        }
+        if (cmd.hasOption("worker-heap")) {
+            batch.addWorkerJvmOptions(Arrays.asList("-Xmx" + cmd.getOptionValue("worker-heap")));
+        }
+        List<String> workerOptions = new ArrayList<>();
+        for (String opt : new String[] { "L", "S" }) {
+            if (cmd.hasOption(opt)) {
+                workerOptions.add("-" + opt);
+                workerOptions.add(cmd.getOptionValue(opt));
+            }
+        }
+        batch.addWorkerOptions(workerOptions);
+        return batch;
+    }
+
 }
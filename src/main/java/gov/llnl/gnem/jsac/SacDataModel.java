@@ -23,27 +23,48 @@
 package gov.llnl.gnem.jsac;
 
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.math.NumberUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.oregondsp.signalProcessing.filter.iir.IIRFilter;
 import com.oregondsp.signalProcessing.filter.iir.PassbandType;
 
 import gov.llnl.gnem.jsac.commands.dataFile.CutErrSacCommand;
 import gov.llnl.gnem.jsac.commands.dataFile.CutImSacCommand;
 import gov.llnl.gnem.jsac.commands.dataFile.CutSacCommand;
+import gov.llnl.gnem.jsac.commands.dataFile.ReadEstimate;
+import gov.llnl.gnem.jsac.commands.executiveFunction.MemorySacCommand;
 import gov.llnl.gnem.jsac.commands.filtering.ContinuousCorrelator;
 import gov.llnl.gnem.jsac.commands.filtering.Convolver;
+import gov.llnl.gnem.jsac.commands.filtering.FIRDesign;
+import gov.llnl.gnem.jsac.commands.filtering.IIRDesignCache;
+import gov.llnl.gnem.jsac.commands.filtering.MatchedFilterDetector;
+import gov.llnl.gnem.jsac.commands.filtering.MatchedFilterDetector.Detection;
+import gov.llnl.gnem.jsac.commands.filtering.Resampler;
+import gov.llnl.gnem.jsac.commands.filtering.SOSFilter;
+import gov.llnl.gnem.jsac.commands.filtering.SpectralWhitener;
 import gov.llnl.gnem.jsac.commands.filtering.StackedCorrelator;
 import gov.llnl.gnem.jsac.commands.filtering.Whitener;
+import gov.llnl.gnem.jsac.commands.spectralAnalysis.AnalyticSignal;
 import gov.llnl.gnem.jsac.commands.spectralAnalysis.HilbertTransformer;
 import gov.llnl.gnem.jsac.commands.spectralAnalysis.HilbertTransformerType;
 import gov.llnl.gnem.jsac.commands.unary.Differentiator;
@@ -51,6 +72,11 @@ import gov.llnl.gnem.jsac.commands.unary.DifferentiatorType;
 import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData;
 import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData.CutErrorAction;
 import gov.llnl.gnem.jsac.dataAccess.dataObjects.SpectralData;
+import gov.llnl.gnem.jsac.dataAccess.storage.HeapSampleStore;
+import gov.llnl.gnem.jsac.dataAccess.storage.MemoryBudget;
+import gov.llnl.gnem.jsac.dataAccess.storage.OffHeapArena;
+import gov.llnl.gnem.jsac.dataAccess.storage.SampleStoreFactory;
+import gov.llnl.gnem.jsac.dataAccess.storage.StorageMode;
 import gov.llnl.gnem.jsac.io.SACHeader;
 import gov.llnl.gnem.jsac.util.PartialDataWindow;
 import gov.llnl.gnem.jsac.util.SacHeaderComparator;
@@ -66,50 +92,401 @@ public class SacDataModel {
 
     private static final Logger log = LoggerFactory.getLogger(SacDataModel.class);
 
+    /**
+     * How the data in memory relate to the result cache entry named by
+     * {@link SacDataModel#getProvenance()}.
+     */
+    public enum ResultState {
+        /** The data are the result, and storing it is not needed. */
+        CURRENT,
+        /** The data are the result, which is not in the cache yet. */
+        UNSTORED,
+        /** The result is in the cache but not loaded; the data are older. */
+        DEFERRED
+    }
+
     private final List<SacTraceData> traces;
+    private StorageMode storageMode;
+    private SampleStoreFactory storage;
+    private final Map<String, List<SacTraceData>> checkpoints;
+    private final Deque<List<SacTraceData>> undoSnapshots;
+    private List<SacTraceData> pendingUndoSnapshot;
+    private int undoDepth;
+    private String provenance;
+    private ResultState resultState;
 
     private SacDataModel() {
         traces = new ArrayList<>();
+        storageMode = StorageMode.HEAP;
+        storage = HeapSampleStore.FACTORY;
+        checkpoints = new LinkedHashMap<>();
+        undoSnapshots = new ArrayDeque<>();
+        pendingUndoSnapshot = null;
+        undoDepth = 1;
+        provenance = null;
+        resultState = ResultState.CURRENT;
     }
 
+    /**
+     * Removes all traces from the data set. Their samples stay readable, since
+     * some callers go on to build the new data set from them, but no longer
+     * count against the memory budget.
+     */
     public void clear() {
+        traces.forEach(SacTraceData::releaseStorage);
+        traces.clear();
+        provenance = null;
+        resultState = ResultState.CURRENT;
+        if (storageMode == StorageMode.OFFHEAP) {
+            // Native memory of the old arena is released once no trace refers to it.
+            storage = new OffHeapArena();
+        }
+    }
+
+    private List<SacTraceData> snapshot(List<SacTraceData> source) {
+        return source.parallelStream().map(SacTraceData::snapshot).collect(Collectors.toList());
+    }
+
+    private boolean matchesSnapshot(List<SacTraceData> snapshot) {
+        boolean unchanged = snapshot.size() == traces.size();
+        for (int j = 0; unchanged && j < snapshot.size(); ++j) {
+            unchanged = traces.get(j).isUnchangedSince(snapshot.get(j));
+        }
+        return unchanged;
+    }
+
+    private static void discard(List<SacTraceData> snapshot) {
+        snapshot.forEach(SacTraceData::discard);
+    }
+
+    private void replaceTraces(List<SacTraceData> replacement) {
+        Set<SacTraceData> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+        kept.addAll(replacement);
+        for (SacTraceData std : traces) {
+            if (!kept.contains(std)) {
+                std.releaseStorage();
+                std.discard();
+            }
+        }
         traces.clear();
+        provenance = null;
+        resultState = ResultState.CURRENT;
+        replacement.parallelStream().forEach(this::adopt);
+        traces.addAll(replacement);
+        notifyViewsDataChanged();
+    }
+
+    /**
+     * Saves the current data set under a name. Samples are shared with the
+     * traces in memory and copied only when either side modifies them.
+     *
+     * @param name The checkpoint name. An existing checkpoint with the same
+     *             name is replaced.
+     */
+    public void checkpoint(String name) {
+        List<SacTraceData> previous = checkpoints.put(name, snapshot(traces));
+        if (previous != null) {
+            discard(previous);
+        }
+    }
+
+    /**
+     * Replaces the data set in memory with a checkpoint, which remains
+     * available for later restores.
+     *
+     * @param name The checkpoint name.
+     * @return false if there is no such checkpoint.
+     */
+    public boolean restore(String name) {
+        List<SacTraceData> saved = checkpoints.get(name);
+        if (saved == null) {
+            return false;
+        }
+        recordUndoPoint();
+        replaceTraces(snapshot(saved));
+        return true;
+    }
+
+    public boolean deleteCheckpoint(String name) {
+        List<SacTraceData> previous = checkpoints.remove(name);
+        if (previous != null) {
+            discard(previous);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return The checkpoint names and the number of traces in each.
+     */
+    public Map<String, Integer> getCheckpoints() {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        checkpoints.forEach((name, saved) -> result.put(name, saved.size()));
+        return result;
+    }
+
+    /**
+     * Remembers the current data set so that {@link #undo()} can return to it.
+     * Only the most recent {@link #getUndoDepth()} states are kept.
+     */
+    public void recordUndoPoint() {
+        if (undoDepth > 0) {
+            pushUndoSnapshot(snapshot(traces));
+        }
+    }
+
+    private void pushUndoSnapshot(List<SacTraceData> snapshot) {
+        undoSnapshots.push(snapshot);
+        while (undoSnapshots.size() > undoDepth) {
+            discard(undoSnapshots.removeLast());
+        }
+    }
+
+    /**
+     * Takes a provisional undo point before a command runs. The command
+     * executor calls {@link #closeUndoPoint()} afterwards. Without undo
+     * history the snapshot is only needed to roll back a command that can be
+     * cancelled, so none is taken otherwise.
+     */
+    public void openUndoPoint() {
+        if (undoDepth > 0 || TaskMonitor.isCancellable()) {
+            pendingUndoSnapshot = snapshot(traces);
+        }
+    }
+
+    /**
+     * Keeps the provisional undo point if the data set changed since it was
+     * taken, and discards it otherwise so that commands that only inspect the
+     * data do not use up the undo history.
+     */
+    public void closeUndoPoint() {
+        List<SacTraceData> pending = pendingUndoSnapshot;
+        pendingUndoSnapshot = null;
+        if (pending == null) {
+            return;
+        }
+        if (undoDepth == 0 || matchesSnapshot(pending)) {
+            discard(pending);
+        } else {
+            pushUndoSnapshot(pending);
+        }
+    }
+
+    /**
+     * @return Marks recording the headers and sample revisions of the data
+     *         set, for {@link #isUnchangedSince(List)}. The samples are not
+     *         shared or copied.
+     */
+    public List<SacTraceData.Mark> markTraces() {
+        return traces.stream().map(SacTraceData::mark).collect(Collectors.toList());
+    }
+
+    public boolean isUnchangedSince(List<SacTraceData.Mark> marks) {
+        boolean unchanged = marks.size() == traces.size();
+        for (int j = 0; unchanged && j < marks.size(); ++j) {
+            unchanged = traces.get(j).isUnchangedSince(marks.get(j));
+        }
+        return unchanged;
+    }
+
+    /**
+     * @return The result cache key of the chain of commands that produced the
+     *         data in memory, or null if the data did not come from such a
+     *         chain.
+     */
+    public String getProvenance() {
+        return provenance;
+    }
+
+    public ResultState getResultState() {
+        return resultState;
+    }
+
+    /**
+     * @param provenance The result cache key of the chain of commands, or null
+     *                   if the data did not come from such a chain.
+     * @param state      How the data in memory relate to that result.
+     */
+    public void setProvenance(String provenance, ResultState state) {
+        this.provenance = provenance;
+        resultState = provenance != null ? state : ResultState.CURRENT;
+    }
+
+    /**
+     * Replaces the data set with traces loaded from the result cache.
+     *
+     * @param cached The traces.
+     * @param key    The key under which they were found.
+     */
+    public void replaceWithCachedResult(List<SacTraceData> cached, String key) {
+        replaceTraces(cached);
+        provenance = key;
+    }
+
+    /**
+     * Returns the data set to the state saved by the provisional undo point,
+     * for a command that was cancelled part way through. The storage of the
+     * traces the command produced is released.
+     */
+    public void rollbackUndoPoint() {
+        List<SacTraceData> pending = pendingUndoSnapshot;
+        pendingUndoSnapshot = null;
+        if (pending != null) {
+            replaceTraces(pending);
+        }
+    }
+
+    /**
+     * Returns the data set to the state saved by the most recent undo point.
+     *
+     * @return false if there is nothing to undo.
+     */
+    public boolean undo() {
+        List<SacTraceData> saved = undoSnapshots.poll();
+        if (saved == null) {
+            return false;
+        }
+        replaceTraces(saved);
+        return true;
+    }
+
+    public int getUndoDepth() {
+        return undoDepth;
+    }
+
+    public void setUndoDepth(int depth) {
+        undoDepth = Math.max(0, depth);
+        while (undoSnapshots.size() > undoDepth) {
+            discard(undoSnapshots.removeLast());
+        }
+    }
+
+    public StorageMode getStorageMode() {
+        return storageMode;
+    }
+
+    /**
+     * Selects where the samples of traces added to the model are held. Traces
+     * already in memory are migrated to the new storage. SPILL mode uses the
+     * default memory budget; see {@link #setMemoryBudget(long, Path)}.
+     *
+     * @param mode The storage mode.
+     */
+    public void setStorageMode(StorageMode mode) {
+        switch (mode) {
+        case OFFHEAP:
+            setStorage(mode, new OffHeapArena());
+            break;
+        case SPILL:
+            setStorage(mode, MemoryBudget.createDefault());
+            break;
+        default:
+            setStorage(mode, HeapSampleStore.FACTORY);
+        }
+    }
+
+    /**
+     * Keeps trace samples on the heap but limits the number of bytes held
+     * there. When the budget is exceeded the least-recently-used traces are
+     * spilled to memory-mapped files in the scratch directory.
+     *
+     * @param budgetBytes      The maximum number of sample bytes to hold on the
+     *                         heap.
+     * @param scratchDirectory The directory for spill files.
+     */
+    public void setMemoryBudget(long budgetBytes, Path scratchDirectory) {
+        setStorage(StorageMode.SPILL, new MemoryBudget(budgetBytes, scratchDirectory));
+    }
+
+    /**
+     * @return The active memory budget, or null if the model is not in SPILL
+     *         mode.
+     */
+    public MemoryBudget getMemoryBudget() {
+        return storageMode == StorageMode.SPILL ? (MemoryBudget) storage : null;
+    }
+
+    private void setStorage(StorageMode mode, SampleStoreFactory factory) {
+        storageMode = mode;
+        storage = factory;
+        traces.parallelStream().forEach(std -> std.setStorage(storage));
+    }
+
+    public SampleStoreFactory getStorage() {
+        return storage;
+    }
+
+    /**
+     * Moves the samples of a trace that is about to be added into the storage
+     * used by the model. Readers call this as each file is read so that a
+     * memory budget takes effect before the whole data set is in memory.
+     *
+     * @param std The trace.
+     * @return The same trace.
+     */
+    public SacTraceData adopt(SacTraceData std) {
+        std.setStorage(storage);
+        return std;
     }
 
     public void setSingleSeismogram(SacTraceData data) {
+        traces.stream().filter(std -> std != data).forEach(SacTraceData::releaseStorage);
         traces.clear();
-        traces.add(data);
+        provenance = null;
+        resultState = ResultState.CURRENT;
+        traces.add(adopt(data));
     }
 
     public void addAll(List<SacTraceData> data, Double elapsedSeconds) {
+        addAll(data, elapsedSeconds, null);
+    }
+
+    /**
+     * Adds traces produced by a read and prints the read summary.
+     *
+     * @param data           The traces.
+     * @param elapsedSeconds The time taken by the read.
+     * @param estimate       The pre-flight estimate for the read, or null.
+     */
+    public void addAll(List<SacTraceData> data, Double elapsedSeconds, ReadEstimate estimate) {
         int added = 0;
+        long addedBytes = 0;
         PartialDataWindow pdw = CutSacCommand.getPartialDataWindow();
         if (pdw.isEnabled()) {
             CutErrorAction action = CutErrSacCommand.getErrorAction();
 
             for (SacTraceData std : data) {
                 if (std.cut(pdw, action)) {
-                    traces.add(std);
+                    traces.add(adopt(std));
                     ++added;
+                    addedBytes += std.getSampleBytes();
                 } else {
                     String msg = String.format("Cut failed for %s.", std.getFilename());
                     log.warn(msg);
+                    std.releaseStorage();
+                    std.discard();
                 }
             }
         } else {
             added = data.size();
+            data.parallelStream().forEach(this::adopt);
             traces.addAll(data);
+            addedBytes = data.stream().mapToLong(SacTraceData::getSampleBytes).sum();
         }
         String tmp = added == 1 ? "file" : "files";
         String msg = String.format("\n%d %s added in %4.1f seconds", added, tmp, elapsedSeconds);
         System.out.println(msg);
+        if (estimate != null) {
+            System.out.println(String.format("Estimated %s of samples in %d traces, actual %s in %d traces",
+                    MemorySacCommand.formatByteCount(estimate.getSampleBytes()), estimate.getTraceCount(), MemorySacCommand.formatByteCount(addedBytes), added));
+        }
         System.out.println("SAC>");
     }
 
     public void cutFilesInMemory() {
         CutErrorAction action = CutErrSacCommand.getErrorAction();
         PartialDataWindow pdw = CutImSacCommand.getPartialDataWindow();
-        traces.parallelStream().forEach(std -> {
+        forEachTrace(std -> {
             cutSingleTrace(std, pdw, action);
         });
     }
@@ -129,13 +506,179 @@ public class SacDataModel {
         return new ArrayList<>(traces);
     }
 
+    /**
+     * Applies an operation to every trace in memory in parallel, reporting
+     * each finished trace to the calling thread's {@link TaskMonitor}. Once
+     * the monitor is cancelled no further traces are started, and a
+     * CancellationException is thrown when those already started are done.
+     *
+     * @param operation The operation.
+     */
+    public void forEachTrace(Consumer<SacTraceData> operation) {
+        TaskMonitor monitor = TaskMonitor.current();
+        monitor.checkCancelled();
+        monitor.begin(traces.size());
+        traces.parallelStream().forEach(std -> {
+            if (!monitor.isCancelled()) {
+                operation.accept(std);
+                monitor.worked();
+            }
+        });
+        monitor.checkCancelled();
+    }
+
+    /**
+     * Maps every trace in memory in parallel and combines the results with an
+     * associative operator, reporting progress and honouring cancellation as
+     * {@link #forEachTrace(Consumer)} does.
+     *
+     * @param mapper   The per-trace computation.
+     * @param identity The identity of the combiner.
+     * @param combiner Combines two results without modifying either.
+     * @return The combined result.
+     */
+    public <T> T reduceTraces(Function<SacTraceData, T> mapper, T identity, BinaryOperator<T> combiner) {
+        TaskMonitor monitor = TaskMonitor.current();
+        monitor.checkCancelled();
+        monitor.begin(traces.size());
+        T result = traces.parallelStream().filter(std -> !monitor.isCancelled()).map(std -> {
+            T value = mapper.apply(std);
+            monitor.worked();
+            return value;
+        }).reduce(identity, combiner);
+        monitor.checkCancelled();
+        return result;
+    }
+
+    /**
+     * Applies an operation to groups of traces in parallel, reporting progress
+     * and honouring cancellation as {@link #forEachTrace(Consumer)} does.
+     *
+     * @param batches   The groups of traces.
+     * @param operation The operation, applied to one group at a time.
+     */
+    public void forEachBatch(List<List<SacTraceData>> batches, Consumer<List<SacTraceData>> operation) {
+        TaskMonitor monitor = TaskMonitor.current();
+        monitor.checkCancelled();
+        monitor.begin(batches.stream().mapToInt(List::size).sum());
+        batches.parallelStream().forEach(batch -> {
+            if (!monitor.isCancelled()) {
+                operation.accept(batch);
+                batch.forEach(std -> monitor.worked());
+            }
+        });
+        monitor.checkCancelled();
+    }
+
+    /**
+     * @return The data model of the current session.
+     */
     public static SacDataModel getInstance() {
-        return SacDataModelHolder.INSTANCE;
+        return Session.current().getDataModel();
+    }
+
+    /**
+     * @return An empty model holding samples on the heap. Sessions create their
+     *         own.
+     */
+    public static SacDataModel create() {
+        return new SacDataModel();
     }
 
+    /**
+     * Applies an IIR filter to every trace with the OregonDSP filters.
+     */
     public void applyFilter(FilterDesign design, int order, PassbandType passband, double cutoff1, double cutoff2, double epsilon, double transitionBW, boolean twoPass) {
-        traces.parallelStream().forEach(std -> {
-            std.filter(design, order, passband, cutoff1, cutoff2, epsilon, transitionBW, twoPass);
+        applyFilter(design, order, passband, cutoff1, cutoff2, epsilon, transitionBW, twoPass, false);
+    }
+
+    /**
+     * Applies an IIR filter to every trace. The filter is taken from the
+     * {@link IIRDesignCache} once for each distinct sample interval.
+     *
+     * @param sections true to use the {@link SOSFilter} engine instead of the
+     *                 OregonDSP filters. The filter commands do not offer it
+     *                 until it has been compared with them.
+     */
+    public void applyFilter(FilterDesign design, int order, PassbandType passband, double cutoff1, double cutoff2, double epsilon, double transitionBW, boolean twoPass, boolean sections) {
+        if (sections) {
+            applySectionFilter(design, order, passband, cutoff1, cutoff2, epsilon, transitionBW, twoPass);
+            return;
+        }
+        IIRDesignCache designs = IIRDesignCache.getInstance();
+        Map<Double, IIRDesignCache.Key> keys = new HashMap<>();
+        for (SacTraceData std : traces) {
+            SACHeader header = std.getSACHeader();
+            if (header.isEvenlySampled() && !keys.containsKey(header.getDelta())) {
+                keys.put(header.getDelta(), designs.prepare(new IIRDesignCache.Key(design, order, passband, cutoff1, cutoff2, epsilon, transitionBW, header.getDelta())));
+            }
+        }
+        forEachTrace(std -> {
+            // Unevenly sampled traces are rejected by filter().
+            IIRDesignCache.Key key = keys.get(std.getSACHeader().getDelta());
+            IIRFilter filt = key != null ? designs.borrow(key) : null;
+            try {
+                std.filter(filt, twoPass);
+            } finally {
+                if (filt != null) {
+                    designs.giveBack(key, filt);
+                }
+            }
+        });
+        notifyViewsDataChanged();
+    }
+
+    /**
+     * Filters with the {@link SOSFilter} engine. Traces with the same sample
+     * interval and length are filtered together, up to
+     * {@link SOSFilter#MAX_CHANNELS} at a time.
+     */
+    private void applySectionFilter(FilterDesign design, int order, PassbandType passband, double cutoff1, double cutoff2, double epsilon, double transitionBW, boolean twoPass) {
+        IIRDesignCache designs = IIRDesignCache.getInstance();
+        Map<Double, SOSFilter> filters = new HashMap<>();
+        Map<List<Object>, List<SacTraceData>> groups = new LinkedHashMap<>();
+        for (SacTraceData std : traces) {
+            SACHeader header = std.getSACHeader();
+            if (!header.isEvenlySampled()) {
+                throw new IllegalStateException("ERROR 1306: Illegal operation on unevenly spaced file");
+            }
+            filters.computeIfAbsent(header.getDelta(), delta -> designs.getSections(new IIRDesignCache.Key(design, order, passband, cutoff1, cutoff2, epsilon, transitionBW, delta)));
+            groups.computeIfAbsent(Arrays.asList(header.getDelta(), header.getNpts()), k -> new ArrayList<>()).add(std);
+        }
+
+        // Narrower batches when there are too few traces to keep every thread busy.
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        List<List<SacTraceData>> batches = new ArrayList<>();
+        for (List<SacTraceData> group : groups.values()) {
+            int width = Math.max(1, Math.min(SOSFilter.MAX_CHANNELS, group.size() / parallelism));
+            for (int j = 0; j < group.size(); j += width) {
+                batches.add(group.subList(j, Math.min(group.size(), j + width)));
+            }
+        }
+        forEachBatch(batches, batch -> filters.get(batch.get(0).getSACHeader().getDelta()).filter(batch, twoPass));
+        notifyViewsDataChanged();
+    }
+
+    /**
+     * Applies a linear-phase FIR filter to every trace, designed once for each
+     * distinct sample interval. The group delay of the filter, (ntaps - 1) / 2
+     * samples, is dropped from each end of the full convolution, so each trace
+     * keeps its NPTS and B and the output keeps the timing of the input.
+     */
+    public void applyFIR(FIRDesign.Method method, PassbandType passband, double cutoff1, double cutoff2, int ntaps, FIRDesign.Window window, double transitionBW) {
+        Map<Double, Convolver> designs = new HashMap<>();
+        for (SacTraceData std : traces) {
+            SACHeader header = std.getSACHeader();
+            if (!header.isEvenlySampled()) {
+                throw new IllegalStateException("ERROR 1306: Illegal operation on unevenly spaced file");
+            }
+            designs.computeIfAbsent(header.getDelta(), delta -> new Convolver(FIRDesign.design(method, passband, cutoff1, cutoff2, ntaps, window, transitionBW, delta), false));
+        }
+        int delay = (ntaps - 1) / 2;
+        forEachTrace(std -> {
+            float[] x = std.getData();
+            float[] y = designs.get(std.getSACHeader().getDelta()).convolve(x);
+            std.setData(Arrays.copyOfRange(y, delay, delay + x.length));
         });
         notifyViewsDataChanged();
     }
@@ -145,14 +688,14 @@ public class SacDataModel {
     }
 
     public void applyTaper(TaperType taperType, double taperPercent) {
-        traces.parallelStream().forEach(std -> {
+        forEachTrace(std -> {
             std.applyTaper(taperType, taperPercent);
         });
         notifyViewsDataChanged();
     }
 
     public void removeMean() {
-        traces.parallelStream().forEach(std -> {
+        forEachTrace(std -> {
             std.removeMean();
         });
         notifyViewsDataChanged();
@@ -209,21 +752,22 @@ public class SacDataModel {
     }
 
     public void squareTraceData() {
-        traces.parallelStream().forEach(std -> {
+        forEachTrace(std -> {
             std.squareData();
         });
         notifyViewsDataChanged();
     }
 
     public void removeTrend() {
-        traces.parallelStream().forEach(std -> {
+        forEachTrace(std -> {
             std.removeTrend();
         });
         notifyViewsDataChanged();
     }
 
     public void applyHilbert(HilbertTransformerType type) {
-        traces.parallelStream().forEach(std -> {
+        checkEvenlySampled();
+        forEachTrace(std -> {
             parallelHilbert(type, std);
         });
         notifyViewsDataChanged();
@@ -234,46 +778,44 @@ public class SacDataModel {
         H.transform(std);
     }
 
-    public void convolve(float[] template, boolean centered) {
-
-        traces.parallelStream().forEach(std -> {
-            parallelConvolution(template, centered, std);
-        });
+    /**
+     * Replaces every trace with a quantity derived from its spectral analytic
+     * signal.
+     *
+     * @param quantity The instantaneous quantity to keep.
+     */
+    public void applyAnalyticSignal(AnalyticSignal.Quantity quantity) {
+        checkEvenlySampled();
+        forEachTrace(std -> AnalyticSignal.transform(std, quantity));
         notifyViewsDataChanged();
-
     }
 
-    public void parallelConvolution(float[] template, boolean centered, SacTraceData std) {
+    public void convolve(float[] template, boolean centered) {
+
+        // One template spectrum shared by all traces.
         Convolver convolver = new Convolver(template, centered);
-        convolver.convolve(std);
+        forEachTrace(convolver::convolve);
+        notifyViewsDataChanged();
+
     }
 
     public void whiten(boolean common, boolean filterDesign, int N) {
-        List<double[]> correlationFunctions = new ArrayList<>();
-
-        traces.parallelStream().forEach(std -> {
-            correlationFunctions.add(parallelWhiten(N, std, common));
-        });
-
         if (common) {
-            double[] avgCorrelation = new double[N + 1];
-            for (double[] correlationFunction : correlationFunctions) {
-                for (int i = 0; i <= N; i++) {
-                    avgCorrelation[i] += correlationFunction[i];
-                }
-            }
+            double[] avgCorrelation = reduceTraces(std -> Whitener.autocorrelate(std.getData(), N), new double[N + 1], Whitener::sum);
 
             double[] reflectionCoefficients = new double[N];
 
             double[] predictor = Whitener.generatePredictor(avgCorrelation, reflectionCoefficients);
-            traces.parallelStream().forEach(std -> {
+            forEachTrace(std -> {
                 Whitener.applyPredictor(std, predictor);
             });
+        } else {
+            forEachTrace(std -> new Whitener(N).whiten(std, false));
         }
 
         //Offset the start times to account for the order N clipping off the
         // front of the trace
-        traces.parallelStream().forEach(std -> {
+        forEachTrace(std -> {
             SACHeader header = std.getSACHeader();
             header.setB(header.getB() + N * header.getDelta());
         });
@@ -281,20 +823,30 @@ public class SacDataModel {
         notifyViewsDataChanged();
     }
 
-    public double[] parallelWhiten(int N, SacTraceData std, boolean common) {
-        Whitener whitener = new Whitener(N);
-        return whitener.whiten(std, common);
+    /**
+     * Flattens the amplitude spectrum of every trace within a band, keeping
+     * the trace length and timing.
+     *
+     * @param lowFrequency  Lower edge of the band (Hz).
+     * @param highFrequency Upper edge of the band (Hz).
+     * @param width         Width of the amplitude smoothing and edge tapers (Hz).
+     */
+    public void whitenSpectrum(double lowFrequency, double highFrequency, double width) {
+        checkEvenlySampled();
+        SpectralWhitener whitener = new SpectralWhitener(lowFrequency, highFrequency, width);
+        forEachTrace(whitener::whiten);
+        notifyViewsDataChanged();
     }
 
     public void smooth(int halfWidth) {
-        traces.parallelStream().forEach(std -> {
+        forEachTrace(std -> {
             std.smooth(halfWidth);
         });
         notifyViewsDataChanged();
     }
 
     public void interpolate(Double delta, Integer npts) {
-        for (SacTraceData std : traces) {
+        forEachTrace(std -> {
             if (delta != null && delta > 0) {
                 std.interpolate(1.0 / delta);
             } else if (npts != null && npts > 1) {
@@ -302,61 +854,122 @@ public class SacDataModel {
                 double requestedDelta = lengthInSeconds / npts;
                 std.interpolate(1.0 / requestedDelta);
             }
-        }
+        });
         // Don't update view. The current view update code doesn't expect the data length to change.
     }
 
-    public void computeEnvelope() {
-        traces.parallelStream().forEach(std -> {
-            std.computeEnvelope();
+    /**
+     * Decimates every trace by an integer factor, in one stage for each prime
+     * factor of it.
+     *
+     * @param filter If false, keep every factor'th sample without an
+     *               anti-alias filter.
+     */
+    public void decimate(int factor, boolean filter) {
+        checkEvenlySampled();
+        List<Resampler> stages = filter ? Resampler.decimation(factor) : Collections.singletonList(Resampler.subsampler(factor));
+        forEachTrace(std -> {
+            for (Resampler stage : stages) {
+                stage.resample(std);
+            }
         });
+        // Don't update view. The current view update code doesn't expect the data length to change.
+    }
+
+    /**
+     * Resamples every trace by the rational factor up / down.
+     */
+    public void resample(int up, int down) {
+        checkEvenlySampled();
+        Resampler resampler = Resampler.rational(up, down);
+        forEachTrace(resampler::resample);
+        // Don't update view. The current view update code doesn't expect the data length to change.
+    }
+
+    /**
+     * Resamples every trace to a new sample interval, with one resampler for
+     * each sample interval in memory.
+     */
+    public void resample(double newDelta) {
+        checkEvenlySampled();
+        Map<Double, Resampler> resamplers = new HashMap<>();
+        for (SacTraceData std : traces) {
+            resamplers.computeIfAbsent(std.getSACHeader().getDelta(), delta -> {
+                int[] ratio = Resampler.ratio(delta, newDelta);
+                return Resampler.rational(ratio[0], ratio[1]);
+            });
+        }
+        forEachTrace(std -> resamplers.get(std.getSACHeader().getDelta()).resample(std));
+        // Don't update view. The current view update code doesn't expect the data length to change.
+    }
+
+    /**
+     * Refuses before any trace is changed if one of them is unevenly sampled.
+     */
+    private void checkEvenlySampled() {
+        for (SacTraceData std : traces) {
+            if (!std.getSACHeader().isEvenlySampled()) {
+                throw new IllegalStateException("ERROR 1306: Illegal operation on unevenly spaced file");
+            }
+        }
+    }
+
+    public void computeEnvelope(HilbertTransformerType type) {
+        checkEvenlySampled();
+        forEachTrace(std -> new HilbertTransformer(type).envelope(std));
         notifyViewsDataChanged();
     }
 
     public void squareRootTraceData() {
-        traces.parallelStream().filter(std -> (std.isNonNegative())).forEachOrdered(std -> {
-            std.squareRoot();
+        forEachTrace(std -> {
+            if (std.isNonNegative()) {
+                std.squareRoot();
+            }
         });
         notifyViewsDataChanged();
     }
 
     public void absTraceData() {
-        traces.parallelStream().forEach(std -> {
+        forEachTrace(std -> {
             std.abs();
         });
         notifyViewsDataChanged();
     }
 
     public void logTraceData() {
-        traces.parallelStream().filter(std -> (std.isPositive())).forEachOrdered(std -> {
-            std.log();
+        forEachTrace(std -> {
+            if (std.isPositive()) {
+                std.log();
+            }
         });
         notifyViewsDataChanged();
     }
 
     public void log10TraceData() {
-        traces.parallelStream().filter(std -> (std.isPositive())).forEachOrdered(std -> {
-            std.log10();
+        forEachTrace(std -> {
+            if (std.isPositive()) {
+                std.log10();
+            }
         });
         notifyViewsDataChanged();
     }
 
     public void expTraceData() {
-        traces.parallelStream().forEach(std -> {
+        forEachTrace(std -> {
             std.exp();
         });
         notifyViewsDataChanged();
     }
 
     public void exp10TraceData() {
-        traces.parallelStream().forEach(std -> {
+        forEachTrace(std -> {
             std.exp10();
         });
         notifyViewsDataChanged();
     }
 
     public void differentiate(DifferentiatorType type) {
-        traces.parallelStream().forEach(std -> {
+        forEachTrace(std -> {
             parallelDifferentiation(type, std);
         });
         notifyViewsDataChanged();
@@ -369,7 +982,7 @@ public class SacDataModel {
     }
 
     public void reverseData() {
-        traces.parallelStream().forEach(std -> {
+        forEachTrace(std -> {
             std.reverse();
         });
         notifyViewsDataChanged();
@@ -395,7 +1008,7 @@ public class SacDataModel {
             Collections.sort(tmp, Collections.reverseOrder());
             for (int jdx : tmp) {
                 if (jdx >= 0 && jdx < traces.size()) {
-                    traces.remove(jdx);
+                    traces.remove(jdx).releaseStorage();
                 }
             }
         }
@@ -432,14 +1045,14 @@ public class SacDataModel {
     }
 
     public void integrate() {
-        traces.parallelStream().forEach(std -> {
+        forEachTrace(std -> {
             std.integrate(false);
         });
         notifyViewsDataChanged();
     }
 
     public void computeFFT(boolean removeMean, SpectralData.PresentationFormat format) {
-        traces.parallelStream().forEach(std -> {
+        forEachTrace(std -> {
             transformSingleTrace(removeMean, std, format);
         });
     }
@@ -452,7 +1065,7 @@ public class SacDataModel {
     }
 
     public void computeIFFT() {
-        traces.parallelStream().forEach(std -> {
+        forEachTrace(std -> {
             inverseTransformSingleTrace(std);
         });
     }
@@ -462,13 +1075,13 @@ public class SacDataModel {
     }
 
     public void divOmega() {
-        traces.parallelStream().forEach(std -> {
+        forEachTrace(std -> {
             std.divOmega();
         });
     }
 
     public void mulOmega() {
-        traces.parallelStream().forEach(std -> {
+        forEachTrace(std -> {
             std.mulOmega();
         });
     }
@@ -488,7 +1101,7 @@ public class SacDataModel {
     }
 
     public void add(SacTraceData std) {
-        traces.add(std);
+        traces.add(adopt(std));
     }
 
     public List<SacTraceData> getPlottableData() {
@@ -543,34 +1156,83 @@ public class SacDataModel {
         return null;
     }
 
-    private static class SacDataModelHolder {
-
-        private static final SacDataModel INSTANCE = new SacDataModel();
-    }
-
     public void correlate(float[] master, boolean normalize, boolean useSubwindows, int windowLength, int numberOfWindows) {
 
         if (!useSubwindows) {
-            traces.parallelStream().forEach(std -> {
-                parallelContinuousCorrelate(master, normalize, std);
-            });
+            // One template spectrum shared by all traces.
+            ContinuousCorrelator correlator = new ContinuousCorrelator(master, normalize);
+            forEachTrace(correlator::correlate);
         } else {
-            traces.parallelStream().forEach(std -> {
-                parallelStackedCorrelate(master, normalize, windowLength, numberOfWindows, std);
-            });
+            // The master window spectra are computed once for all traces.
+            StackedCorrelator correlator = new StackedCorrelator(master, normalize, windowLength, numberOfWindows);
+            forEachTrace(correlator::correlate);
         }
         notifyViewsDataChanged();
 
     }
 
-    public void parallelContinuousCorrelate(float[] master, boolean normalize, SacTraceData std) {
-        ContinuousCorrelator correlator = new ContinuousCorrelator(master, normalize);
-        correlator.correlate(std);
+    /**
+     * Scans the traces in memory with templates and optionally marks the
+     * detections on them.
+     *
+     * @param templateFiles Templates read from files.
+     * @param fileNumbers   The numbers, starting from 1, of traces in memory
+     *                      to use as templates rather than scan.
+     * @param threshold     The detection threshold, in MADs above the median.
+     * @param firstMarker   The first T marker to write detections to, or -1
+     *                      to leave the headers alone.
+     * @return The detections.
+     */
+    public List<Detection> detect(List<SacTraceData> templateFiles, List<Integer> fileNumbers, double threshold, int firstMarker) {
+        List<SacTraceData> templateTraces = new ArrayList<>(templateFiles);
+        Set<SacTraceData> inMemory = new HashSet<>();
+        for (int number : fileNumbers) {
+            if (number < 1 || number > traces.size()) {
+                throw new IllegalArgumentException("No file number " + number + " in memory");
+            }
+            inMemory.add(traces.get(number - 1));
+        }
+        templateTraces.addAll(inMemory);
+        List<SacTraceData> continuous = new ArrayList<>();
+        for (SacTraceData std : traces) {
+            if (!inMemory.contains(std)) {
+                continuous.add(std);
+            }
+        }
+
+        List<Detection> detections = new MatchedFilterDetector(threshold).detect(continuous, MatchedFilterDetector.groupByEvent(templateTraces));
+        if (firstMarker >= 0) {
+            markDetections(detections, firstMarker);
+            notifyViewsDataChanged();
+        }
+        return detections;
     }
 
-    public void parallelStackedCorrelate(float[] master, boolean normalize, int windowLength, int numberOfWindows, SacTraceData std) {
-        StackedCorrelator correlator = new StackedCorrelator(master, normalize, windowLength, numberOfWindows, std.getNsamp());
-        correlator.correlate(std);
+    /**
+     * Writes the strongest detections on each trace to its markers from
+     * firstMarker up, in order of time, with the template name in KTn.
+     */
+    private static void markDetections(List<Detection> detections, int firstMarker) {
+        Map<SacTraceData, List<PairT<Double, Detection>>> arrivals = new HashMap<>();
+        for (Detection detection : detections) {
+            List<SacTraceData> detected = detection.getTraces();
+            for (int j = 0; j < detected.size(); ++j) {
+                arrivals.computeIfAbsent(detected.get(j), std -> new ArrayList<>()).add(new PairT<>(detection.getArrival(j), detection));
+            }
+        }
+        int nmarkers = 10 - firstMarker;
+        arrivals.forEach((std, picks) -> {
+            picks.sort((a, b) -> Double.compare(b.getSecond().getCorrelation(), a.getSecond().getCorrelation()));
+            List<PairT<Double, Detection>> kept = new ArrayList<>(picks.subList(0, Math.min(nmarkers, picks.size())));
+            kept.sort((a, b) -> Double.compare(a.getFirst(), b.getFirst()));
+            SACHeader header = std.getSACHeader();
+            Double reference = header.getReferenceTime();
+            for (int j = 0; j < kept.size(); ++j) {
+                String name = kept.get(j).getSecond().getTemplate();
+                header.setT(firstMarker + j, kept.get(j).getFirst() - (reference == null ? 0.0 : reference));
+                header.setKt(firstMarker + j, name.length() > 8 ? name.substring(0, 8) : name);
+            }
+        });
     }
 
 }
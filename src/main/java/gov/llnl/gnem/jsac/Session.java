@@ -0,0 +1,247 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac;
+
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import gov.llnl.gnem.jsac.commands.SacCommandParser;
+import gov.llnl.gnem.jsac.util.PathManager;
+
+/**
+ * Everything one SAC pipeline changes as it runs: the data in memory, the
+ * command history, the working directory and the settings that commands keep
+ * between invocations. Commands find these through {@link #current()}, which
+ * is the session bound to the calling thread, or the default session used by
+ * the console when none is bound. Any number of sessions can run at the same
+ * time on different threads.
+ */
+public class Session {
+
+    private static final ThreadLocal<Session> bound = new ThreadLocal<>();
+
+    private final String name;
+    private final SacDataModel dataModel;
+    private final SacCommandParser parser;
+    private final PathManager pathManager;
+    private final Map<Class<?>, Object> settings;
+    private final JobTable jobs;
+    private final AtomicInteger errorCount;
+    private volatile String lastError;
+    private volatile PrintStream out;
+
+    private Session(String name, Path currentDir) {
+        this.name = name;
+        dataModel = SacDataModel.create();
+        parser = SacCommandParser.create();
+        pathManager = PathManager.create(currentDir);
+        settings = new ConcurrentHashMap<>();
+        jobs = new JobTable(this);
+        errorCount = new AtomicInteger();
+        lastError = null;
+    }
+
+    /**
+     * Creates a session with no data, no history and default settings. Its
+     * working directory starts as that of the current session.
+     *
+     * @param name A name for messages.
+     * @return The new session.
+     */
+    public static Session create(String name) {
+        return create(name, current().getPathManager().getCurrentDir());
+    }
+
+    /**
+     * Creates a session with no data, no history and default settings.
+     *
+     * @param name       A name for messages.
+     * @param currentDir The initial working directory.
+     * @return The new session.
+     */
+    public static Session create(String name, Path currentDir) {
+        return new Session(name, currentDir);
+    }
+
+    /**
+     * @return The session bound to the calling thread, or the default session.
+     */
+    public static Session current() {
+        Session session = bound.get();
+        return session != null ? session : getDefault();
+    }
+
+    /**
+     * @return The session used by the console and by threads with no bound
+     *         session.
+     */
+    public static Session getDefault() {
+        return SessionHolder.INSTANCE;
+    }
+
+    /**
+     * Binds the session to the calling thread. Prefer {@link #run(Runnable)}
+     * or {@link #call(Callable)} where the work fits in one call.
+     *
+     * @param session The session, or null to return to the default session.
+     * @return The session that was bound before, or null.
+     */
+    public static Session bind(Session session) {
+        Session previous = bound.get();
+        if (session == null) {
+            bound.remove();
+        } else {
+            bound.set(session);
+        }
+        return previous;
+    }
+
+    /**
+     * Runs work with this session bound to the calling thread.
+     *
+     * @param work The work.
+     */
+    public void run(Runnable work) {
+        Session previous = bind(this);
+        try {
+            work.run();
+        } finally {
+            bind(previous);
+        }
+    }
+
+    /**
+     * Calls work with this session bound to the calling thread.
+     *
+     * @param work The work.
+     * @return The result of the work.
+     * @throws Exception If the work throws.
+     */
+    public <T> T call(Callable<T> work) throws Exception {
+        Session previous = bind(this);
+        try {
+            return work.call();
+        } finally {
+            bind(previous);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public SacDataModel getDataModel() {
+        return dataModel;
+    }
+
+    public SacCommandParser getParser() {
+        return parser;
+    }
+
+    public PathManager getPathManager() {
+        return pathManager;
+    }
+
+    /**
+     * @return The command lines this session is running in the foreground and
+     *         in the background.
+     */
+    public JobTable getJobs() {
+        return jobs;
+    }
+
+    /**
+     * @return Where this session's command output goes, or null for the
+     *         process's standard output.
+     */
+    public PrintStream getOut() {
+        return out;
+    }
+
+    /**
+     * Sends this session's command output to a stream. This takes effect for
+     * output written through System.out once {@link SessionOutput#install()}
+     * has been called.
+     *
+     * @param out The stream, or null for the process's standard output.
+     */
+    public void setOut(PrintStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Records that a command failed without throwing, for example a READ that
+     * found no files or a line of a macro that failed. The command still
+     * reports the failure to the user itself. Batch runs compare
+     * {@link #getErrorCount()} before and after each command to decide
+     * whether it succeeded.
+     *
+     * @param message A description of the failure.
+     */
+    public void reportError(String message) {
+        lastError = message;
+        errorCount.incrementAndGet();
+    }
+
+    /**
+     * @return The number of errors reported since the session was created.
+     */
+    public int getErrorCount() {
+        return errorCount.get();
+    }
+
+    /**
+     * @return The most recently reported error, or null.
+     */
+    public String getLastError() {
+        return lastError;
+    }
+
+    /**
+     * Returns this session's instance of a settings class, creating it on
+     * first use. Commands keep the options that persist between invocations
+     * in such an object rather than in static fields.
+     *
+     * @param type    The settings class, used as the key.
+     * @param factory Creates the settings with their default values.
+     * @return The settings.
+     */
+    public <T> T getSettings(Class<T> type, Supplier<T> factory) {
+        return type.cast(settings.computeIfAbsent(type, k -> factory.get()));
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private static class SessionHolder {
+
+        private static final Session INSTANCE = new Session("default", PathManager.initialDirectory());
+    }
+}
@@ -0,0 +1,146 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Submits command lines to a {@link SessionServer} on this machine. Run as a
+ * program it sends the lines of each script named on the command line, or of
+ * standard input if there are none, to one session, printing the output as it
+ * arrives. It stops at the first line that fails and exits with the same
+ * status values as {@link BatchRunner}.
+ *
+ * <pre>
+ * java -cp jsac.jar gov.llnl.gnem.jsac.SessionClient 7070 prep.m pick.m
+ * </pre>
+ */
+public class SessionClient implements Closeable {
+
+    /** Exit status when the server cannot be reached or drops the connection. */
+    public static final int SERVER_UNREACHABLE = 3;
+
+    private final Socket socket;
+    private final BufferedReader in;
+    private final PrintWriter out;
+
+    /**
+     * Connects to a server and starts a new session on it.
+     *
+     * @param port The port the server listens on.
+     * @throws IOException If no server listens on the port.
+     */
+    public SessionClient(int port) throws IOException {
+        socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true);
+    }
+
+    /**
+     * Runs one command line in the session.
+     *
+     * @param line   The command line.
+     * @param output Receives the output of the commands.
+     * @return null if the line succeeded, otherwise the error.
+     * @throws IOException If the connection is lost.
+     */
+    public String submit(String line, PrintStream output) throws IOException {
+        out.println(line);
+        String reply;
+        while ((reply = in.readLine()) != null) {
+            if (reply.equals(SessionServer.STATUS_OK)) {
+                return null;
+            } else if (reply.startsWith(SessionServer.STATUS_FAILED)) {
+                return reply.substring(SessionServer.STATUS_FAILED.length());
+            }
+            output.println(reply);
+        }
+        throw new IOException("The server closed the connection");
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1 || !args[0].matches("\\d+")) {
+            System.err.println("Usage: SessionClient port [script ...]");
+            System.exit(BatchRunner.SCRIPT_UNREADABLE);
+        }
+        List<String> lines = new ArrayList<>();
+        try {
+            if (args.length == 1) {
+                BufferedReader stdin = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+                lines.addAll(stdin.lines().collect(Collectors.toList()));
+            }
+            for (int j = 1; j < args.length; ++j) {
+                lines.addAll(Files.readAllLines(Paths.get(args[j]), StandardCharsets.UTF_8));
+            }
+        } catch (IOException ex) {
+            System.err.println("Cannot read script: " + ex.getMessage());
+            System.exit(BatchRunner.SCRIPT_UNREADABLE);
+        }
+        System.exit(run(Integer.parseInt(args[0]), lines));
+    }
+
+    private static int run(int port, List<String> lines) {
+        SessionClient client;
+        try {
+            client = new SessionClient(port);
+        } catch (IOException ex) {
+            System.err.println("No JSAC server on port " + port + ": " + ex.getMessage());
+            return SERVER_UNREACHABLE;
+        }
+        try (SessionClient c = client) {
+            for (String line : lines) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                String error = c.submit(line, System.out);
+                if (error != null) {
+                    System.err.println(error);
+                    return BatchRunner.COMMAND_FAILED;
+                }
+            }
+            return BatchRunner.SUCCESS;
+        } catch (IOException ex) {
+            System.err.println(ex.getMessage());
+            return SERVER_UNREACHABLE;
+        }
+    }
+}
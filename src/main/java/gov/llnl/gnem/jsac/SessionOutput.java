@@ -0,0 +1,84 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac;
+
+import java.io.PrintStream;
+
+/**
+ * Replacement for System.out that sends each write to the output stream of
+ * the session bound to the writing thread. Commands print their results with
+ * System.out, so this is what lets several sessions in one process each see
+ * only their own output. Threads whose session has no stream of its own write
+ * to the original standard output.
+ */
+public class SessionOutput extends PrintStream {
+
+    private final PrintStream console;
+
+    private SessionOutput(PrintStream console) {
+        super(console, true);
+        this.console = console;
+    }
+
+    /**
+     * Replaces System.out with a routing stream. Calling it again has no
+     * effect.
+     */
+    public static synchronized void install() {
+        if (!(System.out instanceof SessionOutput)) {
+            System.setOut(new SessionOutput(System.out));
+        }
+    }
+
+    private PrintStream target() {
+        PrintStream out = Session.current().getOut();
+        return out != null ? out : console;
+    }
+
+    @Override
+    public void write(int b) {
+        target().write(b);
+    }
+
+    @Override
+    public void write(byte[] buf, int off, int len) {
+        PrintStream target = target();
+        target.write(buf, off, len);
+        target.flush();
+    }
+
+    @Override
+    public void flush() {
+        target().flush();
+    }
+
+    @Override
+    public void close() {
+        // The console and the session streams are closed by their owners.
+    }
+
+    @Override
+    public boolean checkError() {
+        return target().checkError();
+    }
+}
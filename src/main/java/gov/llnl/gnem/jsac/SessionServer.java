@@ -0,0 +1,210 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gov.llnl.gnem.jsac.commands.SacCommand;
+import gov.llnl.gnem.jsac.commands.SacCommandParser;
+import gov.llnl.gnem.jsac.commands.executiveFunction.QuitSacCommand;
+
+/**
+ * Keeps JSAC resident and runs command lines sent over a loopback TCP
+ * connection, so that scripts do not pay for JVM startup and share the
+ * process-wide caches. Each connection gets its own {@link Session} and its
+ * own thread, and any number of clients can be connected at once.
+ * <p>
+ * The protocol is line based, in UTF-8. The client sends a command line,
+ * which may hold several commands separated by ';'. The server streams the
+ * output of the commands and then a status line: {@link #STATUS_OK}, or
+ * {@link #STATUS_FAILED} followed by the error. The rest of a line is skipped
+ * after a failure. QUIT ends the session and closes the connection instead of
+ * stopping the server. {@link SessionClient} implements the client side.
+ */
+public class SessionServer implements Closeable {
+
+    public static final String STATUS_OK = "#JSAC OK";
+    public static final String STATUS_FAILED = "#JSAC FAILED ";
+
+    private static final Logger log = LoggerFactory.getLogger(SessionServer.class);
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections;
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final Set<Socket> openSockets = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Binds the server to the loopback interface. No connections are accepted
+     * until {@link #serve()} or {@link #start()} is called.
+     *
+     * @param port The port, or 0 for any free port.
+     * @throws IOException If the port cannot be bound.
+     */
+    public SessionServer(int port) throws IOException {
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        connections = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "SessionServer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Accepts connections on the calling thread until the server is closed.
+     */
+    public void serve() {
+        SessionOutput.install();
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                openSockets.add(socket);
+                connectionCount.incrementAndGet();
+                connections.execute(new Connection(socket));
+            } catch (IOException ex) {
+                if (!serverSocket.isClosed()) {
+                    log.warn("Failed accepting connection: {}", ex.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Accepts connections on a daemon thread.
+     */
+    public void start() {
+        Thread thread = new Thread(this::serve, "SessionServer-accept");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops accepting connections and closes those that are open.
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket socket : openSockets) {
+            socket.close();
+        }
+        connections.shutdownNow();
+    }
+
+    private class Connection implements Runnable {
+
+        private final Socket socket;
+        private final Session session;
+        private boolean quit = false;
+
+        Connection(Socket socket) {
+            this.socket = socket;
+            session = Session.create("client-" + connectionCount.get());
+        }
+
+        @Override
+        public void run() {
+            log.debug("Session {} connected from port {}", session, socket.getPort());
+            Session previous = Session.bind(session);
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                    PrintStream out = new PrintStream(socket.getOutputStream(), true, StandardCharsets.UTF_8.name())) {
+                session.setOut(out);
+                String line;
+                while (!quit && (line = in.readLine()) != null) {
+                    String error = runLine(line);
+                    out.println(error == null ? STATUS_OK : STATUS_FAILED + error);
+                }
+            } catch (IOException ex) {
+                log.debug("Session {} lost its connection: {}", session, ex.getMessage());
+            } finally {
+                session.getJobs().cancelAll();
+                session.setOut(null);
+                session.getDataModel().clear();
+                Session.bind(previous);
+                openSockets.remove(socket);
+                try {
+                    socket.close();
+                } catch (IOException ex) {
+                    log.trace(ex.getMessage(), ex);
+                }
+                log.debug("Session {} closed", session);
+            }
+        }
+
+        /**
+         * @return null if every command succeeded, otherwise the error.
+         */
+        private String runLine(String line) {
+            for (String cmd : line.trim().split(";")) {
+                String text = cmd.trim();
+                if (!BatchRunner.isCommand(text)) {
+                    continue;
+                }
+                boolean background = JobTable.isBackground(text);
+                text = JobTable.stripBackground(text);
+                SacCommand command;
+                try {
+                    command = SacCommandParser.getInstance().parseCommandLine(text);
+                } catch (Exception ex) {
+                    return "Error parsing or preparing command '" + text + "': " + ex.getMessage();
+                }
+                if (command == null) {
+                    return "Unrecognized command: " + text;
+                }
+                if (command instanceof QuitSacCommand) {
+                    quit = true;
+                    return null;
+                }
+                try {
+                    if (background) {
+                        session.getJobs().start(text, command);
+                    } else {
+                        session.getJobs().runForeground(text, command);
+                    }
+                } catch (Exception ex) {
+                    return "Failed executing command '" + text + "': " + ex.getMessage();
+                }
+            }
+            return null;
+        }
+    }
+}
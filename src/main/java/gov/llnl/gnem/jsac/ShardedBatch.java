@@ -0,0 +1,446 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gov.llnl.gnem.jsac.commands.TokenListParser;
+import gov.llnl.gnem.jsac.io.SACFileReader;
+import gov.llnl.gnem.jsac.util.FileFinder;
+
+/**
+ * Runs a macro over a list of files split across several JSAC processes on
+ * the local host, so that a large job is not limited by the heap and garbage
+ * collector of a single JVM. The files are grouped into units (a file, a
+ * stream, or an event directory), the units are dealt out to one shard per
+ * worker so that each shard has about the same number of bytes to read, and
+ * each shard is run as a batch script in its own JVM. In the script every
+ * unit is read on its own and the macro is run on it.
+ * <p>
+ * Each shard has a directory under the work directory holding its script,
+ * the worker output, and the command profile of the worker. A worker exits
+ * with a non-zero status if any command in its script fails or reports an
+ * error, such as a file that cannot be read, and the shard is then run again
+ * up to the retry limit. The
+ * outcome of every shard is written to status.csv in the work directory, and
+ * shards that succeeded are skipped when the same job is resumed.
+ */
+public class ShardedBatch {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardedBatch.class);
+
+    private static final String DONE_MARKER = "DONE";
+    private static final int FILES_PER_READ = 100;
+
+    public enum Partitioning {
+        /** Each file is a unit. */
+        FILE,
+        /** Files with the same network, station, channel and location form a unit. */
+        STREAM,
+        /** Files in the same directory, normally one per event, form a unit. */
+        EVENT
+    }
+
+    /**
+     * The units assigned to one worker and the outcome of running them.
+     */
+    public static class Shard {
+
+        private final int index;
+        private final List<List<Path>> units;
+        private long bytes;
+        private int attempts;
+        private int exitStatus;
+        private double seconds;
+        private boolean skipped;
+
+        Shard(int index) {
+            this.index = index;
+            units = new ArrayList<>();
+            bytes = 0;
+            attempts = 0;
+            exitStatus = -1;
+            seconds = 0;
+            skipped = false;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public List<List<Path>> getUnits() {
+            return Collections.unmodifiableList(units);
+        }
+
+        public int getFileCount() {
+            return units.stream().mapToInt(List::size).sum();
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        /**
+         * @return The exit status of the last attempt, or -1 if the worker
+         *         could not be started.
+         */
+        public int getExitStatus() {
+            return exitStatus;
+        }
+
+        public double getSeconds() {
+            return seconds;
+        }
+
+        /**
+         * @return true if the shard succeeded in an earlier run of the job.
+         */
+        public boolean isSkipped() {
+            return skipped;
+        }
+
+        public boolean isSucceeded() {
+            return skipped || exitStatus == BatchRunner.SUCCESS;
+        }
+    }
+
+    private final Path macro;
+    private final List<String> macroArguments;
+    private final Path workDirectory;
+    private final int workers;
+    private int retries;
+    private final List<String> workerJvmOptions;
+    private final List<String> workerOptions;
+    private final Set<Process> running;
+
+    /**
+     * @param macro          The macro to run on each unit.
+     * @param macroArguments Arguments passed to the macro.
+     * @param workDirectory  The directory in which the shard directories and
+     *                       the status file are created.
+     * @param workers        The number of worker JVMs, which is also the
+     *                       number of shards.
+     */
+    public ShardedBatch(Path macro, List<String> macroArguments, Path workDirectory, int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("At least one worker is required!");
+        }
+        this.macro = macro.toAbsolutePath().normalize();
+        this.macroArguments = new ArrayList<>(macroArguments);
+        this.workDirectory = workDirectory.toAbsolutePath().normalize();
+        this.workers = workers;
+        retries = 1;
+        workerJvmOptions = new ArrayList<>();
+        workerOptions = new ArrayList<>();
+        running = ConcurrentHashMap.newKeySet();
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    /**
+     * @param retries How many times a failed shard is run again.
+     */
+    public void setRetries(int retries) {
+        this.retries = Math.max(0, retries);
+    }
+
+    /**
+     * @param options Options for the worker JVMs, e.g. -Xmx8g.
+     */
+    public void addWorkerJvmOptions(List<String> options) {
+        workerJvmOptions.addAll(options);
+    }
+
+    /**
+     * @param options JSAC command line options for the workers, e.g. -S SPILL.
+     */
+    public void addWorkerOptions(List<String> options) {
+        workerOptions.addAll(options);
+    }
+
+    /**
+     * Reads a list of files, one file name or wildcard pattern per line.
+     * Relative names are resolved against the current directory. Blank lines
+     * and lines starting with '*' or '--' are ignored.
+     *
+     * @param listFile The list.
+     * @return The matching files in the order listed.
+     * @throws IOException If the list cannot be read.
+     */
+    public static List<Path> readFileList(Path listFile) throws IOException {
+        Path cwd = Paths.get("").toAbsolutePath();
+        List<Path> files = new ArrayList<>();
+        for (String line : Files.readAllLines(listFile, StandardCharsets.UTF_8)) {
+            String text = line.trim();
+            if (BatchRunner.isCommand(text)) {
+                new FileFinder(cwd, text).findMatches().forEach(p -> files.add(p.toAbsolutePath().normalize()));
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Groups files into units and deals the units out to shards, largest
+     * first, always to the shard with the fewest bytes so far.
+     *
+     * @param files        The files.
+     * @param partitioning How files are combined into units.
+     * @param shardCount   The maximum number of shards.
+     * @return The non-empty shards.
+     */
+    public static List<Shard> partition(List<Path> files, Partitioning partitioning, int shardCount) {
+        Map<Object, List<Path>> grouped = new LinkedHashMap<>();
+        for (Path path : files) {
+            grouped.computeIfAbsent(unitKey(path, partitioning), k -> new ArrayList<>()).add(path);
+        }
+        List<List<Path>> units = new ArrayList<>(grouped.values());
+        Map<List<Path>, Long> unitBytes = new IdentityHashMap<>();
+        units.forEach(unit -> unitBytes.put(unit, unit.stream().mapToLong(ShardedBatch::sizeOf).sum()));
+        // Stable, so units of equal size keep their order and the result is reproducible.
+        units.sort(Comparator.comparing(unitBytes::get, Comparator.reverseOrder()));
+
+        List<Shard> shards = new ArrayList<>();
+        for (int j = 0; j < Math.min(shardCount, units.size()); ++j) {
+            shards.add(new Shard(j + 1));
+        }
+        for (List<Path> unit : units) {
+            Shard smallest = shards.get(0);
+            for (Shard shard : shards) {
+                if (shard.bytes < smallest.bytes) {
+                    smallest = shard;
+                }
+            }
+            smallest.units.add(unit);
+            smallest.bytes += unitBytes.get(unit);
+        }
+        return shards;
+    }
+
+    private static Object unitKey(Path path, Partitioning partitioning) {
+        switch (partitioning) {
+        case STREAM:
+            try {
+                return SACFileReader.readHeader(path).getStreamKey();
+            } catch (IOException ex) {
+                // The worker reports the file as unreadable.
+                log.warn("Failed reading header of {}: {}", path, ex.getMessage());
+                return path;
+            }
+        case EVENT:
+            return path.toAbsolutePath().normalize().getParent();
+        case FILE:
+        default:
+            return path;
+        }
+    }
+
+    private static long sizeOf(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException ex) {
+            return 0;
+        }
+    }
+
+    /**
+     * Runs a worker for each shard, all at the same time, and waits for them
+     * to finish.
+     *
+     * @param shards The shards, from {@link #partition(List, Partitioning, int)}.
+     * @return true if every shard succeeded.
+     * @throws IOException          If the work directory or a shard script
+     *                              cannot be written.
+     * @throws InterruptedException If the calling thread is interrupted. The
+     *                              workers are killed.
+     */
+    public boolean run(List<Shard> shards) throws IOException, InterruptedException {
+        Files.createDirectories(workDirectory);
+        for (Shard shard : shards) {
+            writeScript(shard);
+        }
+        Thread killWorkers = new Thread(() -> running.forEach(Process::destroyForcibly));
+        Runtime.getRuntime().addShutdownHook(killWorkers);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(workers, shards.size())));
+        try {
+            for (Shard shard : shards) {
+                executor.execute(() -> runShard(shard));
+            }
+            executor.shutdown();
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                // Keep waiting; the loop only exists so that interrupts are seen.
+            }
+        } catch (InterruptedException ex) {
+            executor.shutdownNow();
+            running.forEach(Process::destroyForcibly);
+            throw ex;
+        } finally {
+            Runtime.getRuntime().removeShutdownHook(killWorkers);
+            writeStatus(shards);
+        }
+        return shards.stream().allMatch(Shard::isSucceeded);
+    }
+
+    private Path shardDirectory(Shard shard) {
+        return workDirectory.resolve(String.format("shard-%03d", shard.index));
+    }
+
+    /**
+     * Writes the shard script, or marks the shard as skipped if an identical
+     * script already ran to completion.
+     */
+    private void writeScript(Shard shard) throws IOException {
+        Path dir = shardDirectory(shard);
+        Files.createDirectories(dir);
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("* Shard %d: %d files in %d units", shard.index, shard.getFileCount(), shard.units.size()));
+        lines.add(scriptLine("PROFILE ON FILE", Collections.singletonList(dir.resolve("profile.csv").toString()), Collections.emptyList()));
+        String macroLine = scriptLine("MACRO", Collections.singletonList(macro.toString()), macroArguments);
+        for (List<Path> unit : shard.units) {
+            for (int j = 0; j < unit.size(); j += FILES_PER_READ) {
+                List<String> names = new ArrayList<>();
+                unit.subList(j, Math.min(unit.size(), j + FILES_PER_READ)).forEach(p -> names.add(p.toString()));
+                lines.add(scriptLine(j == 0 ? "READ" : "READ MORE", names, Collections.emptyList()));
+            }
+            lines.add(macroLine);
+        }
+
+        Path script = dir.resolve("script.sac");
+        Path done = dir.resolve(DONE_MARKER);
+        if (Files.exists(done) && Files.isRegularFile(script) && Files.readAllLines(script, StandardCharsets.UTF_8).equals(lines)) {
+            shard.skipped = true;
+            return;
+        }
+        Files.deleteIfExists(done);
+        Files.write(script, lines, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Builds a script line with every path quoted, so that spaces and commas
+     * in the paths survive {@link TokenListParser#tokenizeString(String)}. A
+     * line may use only one kind of quote, so double quotes are used unless
+     * something on the line already contains one.
+     *
+     * @throws IOException if a path contains both kinds of quote.
+     */
+    private static String scriptLine(String command, List<String> paths, List<String> arguments) throws IOException {
+        boolean doubleQuoted = Stream.concat(paths.stream(), arguments.stream()).anyMatch(s -> s.contains("\""));
+        char quote = doubleQuoted ? '\'' : '"';
+        StringBuilder line = new StringBuilder(command);
+        for (String path : paths) {
+            if (path.indexOf(quote) >= 0) {
+                throw new IOException("Cannot quote " + path + " in a shard script");
+            }
+            line.append(' ').append(quote).append(path).append(quote);
+        }
+        arguments.forEach(argument -> line.append(' ').append(argument));
+        return line.toString();
+    }
+
+    private void runShard(Shard shard) {
+        if (shard.skipped) {
+            return;
+        }
+        Path dir = shardDirectory(shard);
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(workerJvmOptions);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(MainClass.class.getName());
+        command.addAll(workerOptions);
+        command.add("-b");
+        command.add(dir.resolve("script.sac").toString());
+
+        File output = dir.resolve("worker.log").toFile();
+        long start = System.currentTimeMillis();
+        while (shard.attempts <= retries && !Thread.currentThread().isInterrupted()) {
+            ++shard.attempts;
+            try {
+                Process process = new ProcessBuilder(command).directory(new File(System.getProperty("user.dir")))
+                        .redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.appendTo(output)).start();
+                running.add(process);
+                try {
+                    shard.exitStatus = process.waitFor();
+                } finally {
+                    running.remove(process);
+                }
+            } catch (IOException ex) {
+                log.error("Cannot start worker for shard {}: {}", shard.index, ex.getMessage());
+                shard.exitStatus = -1;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (shard.exitStatus == BatchRunner.SUCCESS) {
+                try {
+                    Files.write(dir.resolve(DONE_MARKER), new byte[0]);
+                } catch (IOException ex) {
+                    log.warn("Cannot mark shard {} as done: {}", shard.index, ex.getMessage());
+                }
+                break;
+            }
+            log.warn("Shard {} failed with status {} on attempt {}; see {}", shard.index, shard.exitStatus, shard.attempts, output);
+        }
+        shard.seconds = (System.currentTimeMillis() - start) / 1000.0;
+    }
+
+    private void writeStatus(List<Shard> shards) {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(workDirectory.resolve("status.csv"), StandardCharsets.UTF_8))) {
+            out.println("shard,units,files,bytes,attempts,status,seconds,directory");
+            for (Shard shard : shards) {
+                out.println(String.format("%d,%d,%d,%d,%d,%s,%.1f,%s", shard.index, shard.units.size(), shard.getFileCount(), shard.bytes, shard.attempts,
+                        shard.skipped ? "SKIPPED" : shard.isSucceeded() ? "DONE" : "FAILED(" + shard.exitStatus + ")", shard.seconds, shardDirectory(shard)));
+            }
+        } catch (IOException ex) {
+            log.error("Cannot write shard status: {}", ex.getMessage());
+        }
+    }
+}
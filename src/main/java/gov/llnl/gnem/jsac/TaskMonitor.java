@@ -0,0 +1,191 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac;
+
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress and cancellation of one command line. The thread running the
+ * command binds the monitor; per-trace loops report each trace they finish and
+ * stop starting new traces once the monitor is cancelled. Cancellation is
+ * cooperative: a trace that is being processed always finishes.
+ */
+public class TaskMonitor {
+
+    private static final ThreadLocal<TaskMonitor> bound = new ThreadLocal<>();
+
+    private final String name;
+    private final boolean cancellable;
+    private final AtomicInteger done;
+    private volatile int total;
+    private volatile long passStart;
+    private volatile boolean cancelled;
+
+    public TaskMonitor(String name) {
+        this(name, true);
+    }
+
+    /**
+     * @param name        The command line being monitored.
+     * @param cancellable false if nothing can cancel the command, so that it
+     *                    need not be prepared to roll back.
+     */
+    public TaskMonitor(String name, boolean cancellable) {
+        this.name = name;
+        this.cancellable = cancellable;
+        done = new AtomicInteger();
+        total = 0;
+        passStart = System.nanoTime();
+        cancelled = false;
+    }
+
+    /**
+     * @return The monitor bound to the calling thread, or a new monitor that
+     *         nothing can cancel.
+     */
+    public static TaskMonitor current() {
+        TaskMonitor monitor = bound.get();
+        return monitor != null ? monitor : new TaskMonitor("", false);
+    }
+
+    /**
+     * @return true if a monitor that can be cancelled is bound to the calling
+     *         thread.
+     */
+    public static boolean isCancellable() {
+        TaskMonitor monitor = bound.get();
+        return monitor != null && monitor.cancellable;
+    }
+
+    /**
+     * Binds the monitor to the calling thread.
+     *
+     * @param monitor The monitor, or null to unbind.
+     * @return The monitor that was bound before, or null.
+     */
+    public static TaskMonitor bind(TaskMonitor monitor) {
+        TaskMonitor previous = bound.get();
+        if (monitor == null) {
+            bound.remove();
+        } else {
+            bound.set(monitor);
+        }
+        return previous;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Starts a pass over a number of traces. Commands that make several passes
+     * over the data report the progress of the current one.
+     *
+     * @param traceCount The number of traces in the pass.
+     */
+    public void begin(int traceCount) {
+        done.set(0);
+        total = traceCount;
+        passStart = System.nanoTime();
+    }
+
+    /**
+     * Records one more finished trace.
+     */
+    public void worked() {
+        done.incrementAndGet();
+    }
+
+    public int getDone() {
+        return done.get();
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * Asks the command to stop at the next trace or command boundary.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @throws CancellationException If the monitor has been cancelled.
+     */
+    public void checkCancelled() {
+        if (cancelled) {
+            throw new CancellationException(name.isEmpty() ? "Cancelled" : "Cancelled: " + name);
+        }
+    }
+
+    /**
+     * @return The number of traces per second in the current pass.
+     */
+    public double getRate() {
+        double seconds = (System.nanoTime() - passStart) / 1.0e9;
+        return seconds > 0 ? done.get() / seconds : 0.0;
+    }
+
+    /**
+     * @return The estimated seconds left in the current pass, or -1 if no
+     *         trace has finished yet.
+     */
+    public double getSecondsLeft() {
+        double rate = getRate();
+        return rate > 0 ? (total - done.get()) / rate : -1;
+    }
+
+    /**
+     * @return Traces done, rate and estimated time left, or an empty string if
+     *         no pass over the traces has started.
+     */
+    public String describeProgress() {
+        int count = total;
+        if (count == 0) {
+            return "";
+        }
+        double secondsLeft = getSecondsLeft();
+        return String.format(Locale.ROOT, "%d/%d traces, %.1f traces/s, ETA %s", done.get(), count, getRate(), secondsLeft < 0 ? "unknown" : formatDuration(secondsLeft));
+    }
+
+    /**
+     * @param seconds A duration.
+     * @return The duration as h:mm:ss, or m:ss under an hour.
+     */
+    public static String formatDuration(double seconds) {
+        long rounded = Math.round(seconds);
+        long hours = TimeUnit.SECONDS.toHours(rounded);
+        long minutes = TimeUnit.SECONDS.toMinutes(rounded) % 60;
+        long secs = rounded % 60;
+        return hours > 0 ? String.format(Locale.ROOT, "%d:%02d:%02d", hours, minutes, secs) : String.format(Locale.ROOT, "%d:%02d", minutes, secs);
+    }
+}
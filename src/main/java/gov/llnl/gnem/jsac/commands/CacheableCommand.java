@@ -0,0 +1,61 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands;
+
+/**
+ * A command whose effect on the data in memory is determined entirely by its
+ * parameters, the files it reads, and the data it starts from. While the
+ * result cache is enabled the executor looks up the result of such a command
+ * in the cache instead of running it, provided the data in memory were
+ * themselves produced by a chain of cacheable commands.
+ */
+public interface CacheableCommand extends SacCommand {
+
+    /**
+     * Called after {@link #initialize(String[])} and before
+     * {@link #execute()}.
+     *
+     * @return A normalized description of the parameters and input files of
+     *         this invocation, or null if the result cannot be cached.
+     */
+    String getCacheKey();
+
+    /**
+     * @return true if the result does not depend on the data in memory before
+     *         the command runs, as with a READ that replaces them. Such a
+     *         command starts a chain and is always run; its own result is not
+     *         cached.
+     */
+    default boolean replacesData() {
+        return false;
+    }
+
+    /**
+     * @return false if {@link #execute()} returned without producing its
+     *         result, e.g. because a READ was refused. Such a result is not
+     *         cached.
+     */
+    default boolean producedResult() {
+        return true;
+    }
+}
@@ -0,0 +1,91 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event for one command. Only {@link CommandProfiler} refers
+ * to this class, and only when the running JVM has JFR, so that JSAC still
+ * runs on Java 8 builds without it.
+ */
+@Name("gov.llnl.gnem.jsac.Command")
+@Label("JSAC Command")
+@Category("JSAC")
+@Description("Execution of one SAC command")
+class CommandEvent extends Event {
+
+    @Label("Command")
+    String command;
+
+    @Label("Session")
+    String session;
+
+    @Label("Traces")
+    @Description("Traces in memory when the command finished")
+    int traces;
+
+    @Label("Samples")
+    @Description("Samples in memory when the command finished")
+    long samples;
+
+    @Label("CPU Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long cpuTime;
+
+    @Label("Allocated")
+    @DataAmount(DataAmount.BYTES)
+    long allocated;
+
+    /**
+     * @return A started event, or null if no recording wants it.
+     */
+    static Object startIfEnabled() {
+        CommandEvent event = new CommandEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    static void finish(Object started, CommandProfiler.Measurement measurement) {
+        CommandEvent event = (CommandEvent) started;
+        event.end();
+        if (event.shouldCommit()) {
+            event.command = measurement.getCommand();
+            event.session = measurement.getSession();
+            event.traces = measurement.getTraces();
+            event.samples = measurement.getSamples();
+            event.cpuTime = measurement.getCpuNanos();
+            event.allocated = measurement.getAllocatedBytes();
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,397 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.Session;
+import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData;
+
+/**
+ * Measures the commands run by {@link SacCommandExecutor}. While profiling is
+ * on (PROFILE ON) the wall time, CPU time, allocation and data size of every
+ * command are summed by command name. Independently, each command is emitted
+ * as a {@link CommandEvent} whenever a flight recording has that event
+ * enabled.
+ * <p>
+ * CPU time and allocation are those of the thread that runs the command. Work
+ * a command hands to other threads shows only in its wall time, and a MACRO
+ * includes the commands it runs. Each session has its own profiler.
+ * <p>
+ * Caches consulted by a command, such as the filter design cache, report their
+ * hits and misses through {@link #recordCacheLookup(boolean)}.
+ */
+public class CommandProfiler {
+
+    private static final Logger log = LoggerFactory.getLogger(CommandProfiler.class);
+
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private static final boolean jfrAvailable = isJfrAvailable();
+    // The innermost command being measured on each thread.
+    private static final ThreadLocal<Measurement> current = new ThreadLocal<>();
+
+    private final Map<String, CommandStats> stats = new HashMap<>();
+    private volatile boolean enabled = false;
+    private volatile Path exitReport = null;
+    private Thread exitHook = null;
+
+    /**
+     * @return The profiler of the current session.
+     */
+    public static CommandProfiler getInstance() {
+        return Session.current().getSettings(CommandProfiler.class, CommandProfiler::new);
+    }
+
+    private static boolean isJfrAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException | LinkageError ex) {
+            return false;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public synchronized void clear() {
+        stats.clear();
+    }
+
+    /**
+     * Called before a command runs.
+     *
+     * @return The measurement to pass to {@link #stop(Measurement)}, or null
+     *         if neither profiling nor a recording wants this command.
+     */
+    Measurement start(SacCommand command) {
+        Object event = jfrAvailable ? CommandEvent.startIfEnabled() : null;
+        if (!enabled && event == null) {
+            return null;
+        }
+        Measurement measurement = new Measurement(command, event, current.get());
+        current.set(measurement);
+        return measurement;
+    }
+
+    /**
+     * Counts a cache lookup against the command running on the calling thread
+     * and the commands, such as a MACRO, that it runs within. Lookups made
+     * while no command is measured are ignored.
+     *
+     * @param hit true if the cache had the entry.
+     */
+    public static void recordCacheLookup(boolean hit) {
+        for (Measurement m = current.get(); m != null; m = m.outer) {
+            if (hit) {
+                ++m.cacheHits;
+            } else {
+                ++m.cacheMisses;
+            }
+        }
+    }
+
+    /**
+     * Called after a command has run, whether or not it succeeded.
+     */
+    void stop(Measurement measurement) {
+        if (measurement == null) {
+            return;
+        }
+        current.set(measurement.outer);
+        measurement.finish();
+        if (measurement.event != null) {
+            CommandEvent.finish(measurement.event, measurement);
+        }
+        if (enabled) {
+            synchronized (this) {
+                stats.computeIfAbsent(measurement.command, CommandStats::new).add(measurement);
+            }
+        }
+    }
+
+    /**
+     * @return The totals for each command, most time consuming first.
+     */
+    public synchronized List<CommandStats> getReport() {
+        List<CommandStats> result = new ArrayList<>();
+        for (CommandStats s : stats.values()) {
+            result.add(s.copy());
+        }
+        result.sort(Comparator.comparingLong(CommandStats::getWallNanos).reversed());
+        return result;
+    }
+
+    /**
+     * Writes the report as JSON if the file name ends with ".json" and as CSV
+     * otherwise.
+     *
+     * @param file The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public void write(Path file) throws IOException {
+        List<CommandStats> report = getReport();
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            if (file.getFileName().toString().toLowerCase().endsWith(".json")) {
+                writeJson(report, out);
+            } else {
+                writeCsv(report, out);
+            }
+        }
+    }
+
+    /**
+     * Writes the report when the JVM exits.
+     *
+     * @param file The file to write, or null to cancel.
+     */
+    public synchronized void writeAtExit(Path file) {
+        exitReport = file;
+        if (file != null && exitHook == null) {
+            exitHook = new Thread(() -> {
+                Path target = exitReport;
+                if (target != null) {
+                    try {
+                        write(target);
+                    } catch (IOException ex) {
+                        log.warn("Cannot write profile to {}: {}", target, ex.getMessage());
+                    }
+                }
+            }, "CommandProfiler-exit");
+            Runtime.getRuntime().addShutdownHook(exitHook);
+        }
+    }
+
+    private static void writeCsv(Collection<CommandStats> report, PrintWriter out) {
+        out.println("command,calls,wall_s,cpu_s,allocated_bytes,max_traces,samples,samples_per_s,cache_hits,cache_misses");
+        for (CommandStats s : report) {
+            out.println(String.format(Locale.ROOT, "%s,%d,%.6f,%.6f,%d,%d,%d,%.1f,%d,%d", s.getCommand(), s.getCalls(), s.getWallSeconds(), s.getCpuSeconds(), s.getAllocatedBytes(), s.getMaxTraces(),
+                    s.getSamples(), s.getSamplesPerSecond(), s.getCacheHits(), s.getCacheMisses()));
+        }
+    }
+
+    private static void writeJson(Collection<CommandStats> report, PrintWriter out) {
+        out.println("[");
+        for (Iterator<CommandStats> it = report.iterator(); it.hasNext();) {
+            CommandStats s = it.next();
+            out.print(String.format(Locale.ROOT,
+                    "  {\"command\": \"%s\", \"calls\": %d, \"wallSeconds\": %.6f, \"cpuSeconds\": %.6f, \"allocatedBytes\": %d, \"maxTraces\": %d, \"samples\": %d, \"samplesPerSecond\": %.1f, \"cacheHits\": %d, \"cacheMisses\": %d}",
+                    s.getCommand().replace("\\", "\\\\").replace("\"", "\\\""), s.getCalls(), s.getWallSeconds(), s.getCpuSeconds(), s.getAllocatedBytes(), s.getMaxTraces(), s.getSamples(),
+                    s.getSamplesPerSecond(), s.getCacheHits(), s.getCacheMisses()));
+            out.println(it.hasNext() ? "," : "");
+        }
+        out.println("]");
+    }
+
+    private static long cpuNanos() {
+        return threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : 0;
+    }
+
+    private static long allocatedBytes() {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+            if (hotspot.isThreadAllocatedMemorySupported() && hotspot.isThreadAllocatedMemoryEnabled()) {
+                return hotspot.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * One run of one command.
+     */
+    static class Measurement {
+
+        private final String command;
+        private final String session;
+        private final Object event;
+        private final Measurement outer;
+        private final long startWall;
+        private final long startCpu;
+        private final long startAllocated;
+        private long wallNanos;
+        private long cpuNanos;
+        private long allocatedBytes;
+        private int traces;
+        private long samples;
+        private long cacheHits;
+        private long cacheMisses;
+
+        Measurement(SacCommand command, Object event, Measurement outer) {
+            // Commands list their names in no particular order; the longest is the full name.
+            Collection<String> names = command.getCommandNames();
+            this.command = names.stream().reduce((a, b) -> b.length() > a.length() ? b : a).orElse(command.getClass().getSimpleName());
+            this.session = Session.current().getName();
+            this.event = event;
+            this.outer = outer;
+            startAllocated = allocatedBytes();
+            startCpu = cpuNanos();
+            startWall = System.nanoTime();
+        }
+
+        void finish() {
+            wallNanos = System.nanoTime() - startWall;
+            cpuNanos = cpuNanos() - startCpu;
+            allocatedBytes = allocatedBytes() - startAllocated;
+            List<SacTraceData> data = SacDataModel.getInstance().getData();
+            traces = data.size();
+            samples = data.stream().mapToLong(SacTraceData::getSampleCount).sum();
+        }
+
+        String getCommand() {
+            return command;
+        }
+
+        String getSession() {
+            return session;
+        }
+
+        int getTraces() {
+            return traces;
+        }
+
+        long getSamples() {
+            return samples;
+        }
+
+        long getCpuNanos() {
+            return cpuNanos;
+        }
+
+        long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+    }
+
+    /**
+     * Totals for one command name. Traces and samples are those in memory when
+     * each call finished, which for most commands is the data they processed.
+     */
+    public static class CommandStats {
+
+        private final String command;
+        private int calls;
+        private long wallNanos;
+        private long cpuNanos;
+        private long allocatedBytes;
+        private int maxTraces;
+        private long samples;
+        private long cacheHits;
+        private long cacheMisses;
+
+        CommandStats(String command) {
+            this.command = command;
+        }
+
+        private void add(Measurement measurement) {
+            ++calls;
+            wallNanos += measurement.wallNanos;
+            cpuNanos += measurement.cpuNanos;
+            allocatedBytes += measurement.allocatedBytes;
+            maxTraces = Math.max(maxTraces, measurement.traces);
+            samples += measurement.samples;
+            cacheHits += measurement.cacheHits;
+            cacheMisses += measurement.cacheMisses;
+        }
+
+        private CommandStats copy() {
+            CommandStats result = new CommandStats(command);
+            result.calls = calls;
+            result.wallNanos = wallNanos;
+            result.cpuNanos = cpuNanos;
+            result.allocatedBytes = allocatedBytes;
+            result.maxTraces = maxTraces;
+            result.samples = samples;
+            result.cacheHits = cacheHits;
+            result.cacheMisses = cacheMisses;
+            return result;
+        }
+
+        public String getCommand() {
+            return command;
+        }
+
+        public int getCalls() {
+            return calls;
+        }
+
+        public long getWallNanos() {
+            return wallNanos;
+        }
+
+        public double getWallSeconds() {
+            return wallNanos / 1.0e9;
+        }
+
+        public double getCpuSeconds() {
+            return cpuNanos / 1.0e9;
+        }
+
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        public int getMaxTraces() {
+            return maxTraces;
+        }
+
+        public long getSamples() {
+            return samples;
+        }
+
+        public double getSamplesPerSecond() {
+            return wallNanos > 0 ? samples / getWallSeconds() : 0;
+        }
+
+        public long getCacheHits() {
+            return cacheHits;
+        }
+
+        public long getCacheMisses() {
+            return cacheMisses;
+        }
+    }
+}
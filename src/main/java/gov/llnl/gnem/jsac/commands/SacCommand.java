@@ -43,4 +43,21 @@ public interface SacCommand {
     public default Collection<String> getCommandNames() {
         return new ArrayList<>();
     }
+
+    /**
+     * @return false for commands that never change the data in memory, or that
+     *         manage snapshots themselves, so that no undo point is taken
+     *         before they run.
+     */
+    public default boolean isUndoable() {
+        return true;
+    }
+
+    /**
+     * @return true for commands that manage jobs rather than data. They run at
+     *         once even while a background job of the session is running.
+     */
+    public default boolean isJobControl() {
+        return false;
+    }
 }
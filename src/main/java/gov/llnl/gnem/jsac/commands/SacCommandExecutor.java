@@ -23,9 +23,17 @@
 
 package gov.llnl.gnem.jsac.commands;
 
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.TaskMonitor;
+import gov.llnl.gnem.jsac.dataAccess.cache.ResultCache;
+import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData;
+
 /**
  *
  * @author dodge1
@@ -34,16 +42,44 @@ public class SacCommandExecutor {
 
     private static final Logger log = LoggerFactory.getLogger(SacCommandExecutor.SacCommandExecutorHolder.class);
 
+    // Per thread, because workers may run commands against their own models.
+    private final ThreadLocal<int[]> nesting;
+
     private SacCommandExecutor() {
+        nesting = ThreadLocal.withInitial(() -> new int[1]);
     }
 
     public static SacCommandExecutor getInstance() {
         return SacCommandExecutorHolder.INSTANCE;
     }
 
+    /**
+     * Runs a command. If the command is cancelled through the calling thread's
+     * {@link TaskMonitor}, the data are returned to their state before the
+     * outermost command started and the CancellationException is rethrown.
+     *
+     * @param command The command.
+     */
     public void executeCommand(SacCommand command) {
+        // Commands run from within a macro stop at the next command once cancelled.
+        TaskMonitor.current().checkCancelled();
         long start = System.currentTimeMillis();
-        command.execute();
+        // Commands run from within a macro are undone together with the macro.
+        int[] depth = nesting.get();
+        boolean undoable = depth[0] == 0 && command.isUndoable();
+        CommandProfiler profiler = CommandProfiler.getInstance();
+        CommandProfiler.Measurement measurement = profiler.start(command);
+        ++depth[0];
+        try {
+            if (ResultCache.getInstance().isEnabled()) {
+                executeWithCache(command, undoable);
+            } else {
+                execute(command::execute, undoable);
+            }
+        } finally {
+            --depth[0];
+            profiler.stop(measurement);
+        }
         long end = System.currentTimeMillis();
         double elapsed = (end - start) / 1000.0;
         if (elapsed >= 1.0) {
@@ -52,6 +88,121 @@ public class SacCommandExecutor {
         }
     }
 
+    private static void execute(Runnable work, boolean undoable) {
+        if (!undoable) {
+            work.run();
+            return;
+        }
+        SacDataModel model = SacDataModel.getInstance();
+        model.openUndoPoint();
+        boolean cancelled = false;
+        try {
+            work.run();
+        } catch (CancellationException ex) {
+            cancelled = true;
+            throw ex;
+        } finally {
+            if (cancelled) {
+                model.rollbackUndoPoint();
+            } else {
+                model.closeUndoPoint();
+            }
+        }
+    }
+
+    /**
+     * Follows a chain of cacheable commands through the result cache. A READ
+     * starts the chain and is always run. A following step whose result is in
+     * the cache is skipped, and only the result of the last skipped step is
+     * loaded, once a step has to be run or another command needs the data.
+     * With undo on, found results are loaded at once so that every step has
+     * its undo point. A computed result is stored only when the chain ends.
+     */
+    private void executeWithCache(SacCommand command, boolean undoable) {
+        SacDataModel model = SacDataModel.getInstance();
+        String commandKey = null;
+        boolean replacesData = false;
+        if (command instanceof CacheableCommand) {
+            CacheableCommand cacheable = (CacheableCommand) command;
+            commandKey = cacheable.getCacheKey();
+            replacesData = cacheable.replacesData();
+        }
+        String provenance = model.getProvenance();
+        if (commandKey != null && replacesData) {
+            endResultChain();
+            model.setProvenance(null, SacDataModel.ResultState.CURRENT);
+            // Reading the files is about as fast as loading them from the cache.
+            execute(command::execute, undoable);
+            if (((CacheableCommand) command).producedResult()) {
+                model.setProvenance(ResultCache.key(commandKey), SacDataModel.ResultState.CURRENT);
+            }
+            return;
+        }
+        if (commandKey != null && provenance != null) {
+            String key = ResultCache.key(provenance, commandKey);
+            boolean found = ResultCache.getInstance().contains(key);
+            CommandProfiler.recordCacheLookup(found);
+            if (found) {
+                model.setProvenance(key, SacDataModel.ResultState.DEFERRED);
+                if (model.getUndoDepth() > 0) {
+                    execute(() -> loadDeferredResult(model), undoable);
+                }
+                return;
+            }
+            loadDeferredResult(model);
+            model.setProvenance(null, SacDataModel.ResultState.CURRENT);
+            execute(command::execute, undoable);
+            boolean produced = ((CacheableCommand) command).producedResult();
+            model.setProvenance(produced ? key : null, SacDataModel.ResultState.UNSTORED);
+            return;
+        }
+
+        endResultChain();
+        List<SacTraceData.Mark> before = provenance != null ? model.markTraces() : null;
+        try {
+            execute(command::execute, undoable);
+        } finally {
+            // Commands run from within a macro update the provenance themselves.
+            if (before != null && provenance.equals(model.getProvenance()) && !model.isUnchangedSince(before)) {
+                model.setProvenance(null, SacDataModel.ResultState.CURRENT);
+            }
+        }
+    }
+
+    /**
+     * Brings the data in memory up to date with the chain of cached commands
+     * that produced them, and stores the result of the chain in the result
+     * cache if it was computed. Called before any command that is not part of
+     * the chain, and where a chain ends without one, e.g. at the end of a
+     * script.
+     *
+     * @throws IllegalStateException If a result found in the cache could not
+     *                               be loaded, e.g. because another process
+     *                               evicted it in the meantime.
+     */
+    public void endResultChain() {
+        SacDataModel model = SacDataModel.getInstance();
+        loadDeferredResult(model);
+        if (model.getResultState() == SacDataModel.ResultState.UNSTORED) {
+            ResultCache.getInstance().store(model.getProvenance(), model.getData());
+            model.setProvenance(model.getProvenance(), SacDataModel.ResultState.CURRENT);
+        }
+    }
+
+    private static void loadDeferredResult(SacDataModel model) {
+        if (model.getResultState() != SacDataModel.ResultState.DEFERRED) {
+            return;
+        }
+        String key = model.getProvenance();
+        List<SacTraceData> cached = ResultCache.getInstance().load(key);
+        if (cached == null) {
+            model.setProvenance(null, SacDataModel.ResultState.CURRENT);
+            throw new IllegalStateException("Result cache entry " + key + " could not be loaded; the data in memory are those before the cached commands");
+        }
+        model.replaceWithCachedResult(cached, key);
+        System.out.println(String.format("%d %s taken from the result cache", cached.size(), cached.size() == 1 ? "trace" : "traces"));
+    }
+
     private static class SacCommandExecutorHolder {
 
         private static final SacCommandExecutor INSTANCE = new SacCommandExecutor();
@@ -22,57 +22,109 @@
  */
 package gov.llnl.gnem.jsac.commands;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 import java.util.ServiceLoader;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
 
 import org.apache.commons.lang3.math.NumberUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gov.llnl.gnem.jsac.Session;
 
 /**
+ * Turns command lines into command objects. A new command object is created
+ * for every command line, so that commands keep no state between invocations
+ * other than the settings they store in the current {@link Session}. Each
+ * session has its own parser and command history.
  *
  * @author dodge1
  */
 public class SacCommandParser {
 
-    private final Map<String, SacCommand> cmdStringMap;
+    private static final Logger log = LoggerFactory.getLogger(SacCommandParser.class);
+
+    /**
+     * Maps command names to implementing classes so that a command class is
+     * only loaded the first time it is used.
+     */
+    public static final String COMMAND_INDEX = "command-index.properties";
+
     private final List<String> history;
 
     private SacCommandParser() {
-        cmdStringMap = new HashMap<>();
         history = new ArrayList<>();
     }
 
-    public List<String> getHistory() {
+    /**
+     * @return A parser with an empty history. Sessions create their own.
+     */
+    public static SacCommandParser create() {
+        return new SacCommandParser();
+    }
+
+    /**
+     * @return The parser of the current session.
+     */
+    public static SacCommandParser getInstance() {
+        return Session.current().getParser();
+    }
+
+    public synchronized List<String> getHistory() {
         return new ArrayList<>(history);
     }
 
-    public void initialize()  {
-        ServiceLoader<SacCommand> commands = ServiceLoader.load(SacCommand.class);
-        for (SacCommand command : commands) {
-            if (command == null || command instanceof NullSacCommand) {
-                continue;
-            }
-            Collection<String> strings = command.getCommandNames();
-            for (String s : strings) {
-                cmdStringMap.put(s, command);
-            }
-        }
+    /**
+     * Reads the command index. No command class is loaded until it is first
+     * used; if the index cannot be read every command is loaded now.
+     */
+    public void initialize() {
+        Registry.INSTANCE.readIndex();
+    }
+
+    /**
+     * Loads every registered command class that has not been used yet.
+     */
+    public void loadAll() {
+        Registry.INSTANCE.instantiateAll();
+    }
+
+    /**
+     * @return the names of all commands known to the index, without loading them.
+     */
+    public Set<String> getIndexedCommandNames() {
+        return Registry.INSTANCE.getIndexedNames();
     }
 
+    /**
+     * @return the number of distinct command classes loaded so far.
+     */
+    public int getLoadedCommandCount() {
+        return Registry.INSTANCE.getLoadedClassCount();
+    }
+
+    /**
+     * @param cmd A command name.
+     * @return A new instance of the command, or null if there is none by that
+     *         name.
+     */
     public SacCommand getHelpString(String cmd) {
-        return cmdStringMap.get(cmd);
+        return Registry.INSTANCE.create(cmd);
     }
 
     public Map<String, Set<String>> getCommandMap() {
         Map<String, Set<String>> pkgMethodMap = new TreeMap<>();
-        for (String cmd : cmdStringMap.keySet()) {
-            SacCommand sc = cmdStringMap.get(cmd);
+        for (SacCommand sc : Registry.INSTANCE.instantiateAll()) {
             if (sc != null) {
                 String tmp = sc.toString();
                 String[] parts = tmp.split("@");
@@ -104,10 +156,6 @@ public class SacCommandParser {
         return pkgMethodMap;
     }
 
-    public static SacCommandParser getInstance() {
-        return SacCommandParserHolder.INSTANCE;
-    }
-
     private String processRepeatRequest(String text) {
         int n = history.size();
         String tmp = text.trim();
@@ -139,30 +187,146 @@ public class SacCommandParser {
         return text;
     }
 
-    private static class SacCommandParserHolder {
-
-        private static final SacCommandParser INSTANCE = new SacCommandParser();
-    }
-
     public SacCommand parseCommandLine(String text) {
-        //Process possible repeats of previous commands...
-        if (text.trim().indexOf("!") == 0) {
-            text = processRepeatRequest(text);
+        synchronized (this) {
+            //Process possible repeats of previous commands...
+            if (text.trim().indexOf("!") == 0) {
+                text = processRepeatRequest(text);
+            }
+            history.add(text); // add to history list
         }
-        history.add(text); // add to history list
+        return createCommand(text);
+    }
 
-        String[] tokens = TokenListParser.tokenizeString(text);
+    /**
+     * Parses a command line without recording it in the history or expanding
+     * repeat requests.
+     *
+     * @param text The command line.
+     * @return The initialized command, or null if the command is not known.
+     */
+    public SacCommand createCommand(String text) {
+        return createCommand(TokenListParser.tokenizeString(text));
+    }
+
+    /**
+     * Creates a command from a command line that has already been tokenized,
+     * for callers that run the same line many times.
+     *
+     * @param tokens The tokens of the command line. They are not modified.
+     * @return The initialized command, or null if the command is not known.
+     */
+    public SacCommand createCommand(String[] tokens) {
         if (tokens.length < 1) {
             return new NullSacCommand();
         } else {
             String cmdName = tokens[0].toUpperCase();
-            SacCommand cmd = cmdStringMap.get(cmdName);
+            SacCommand cmd = Registry.INSTANCE.create(cmdName);
             if (cmd != null) {
-                cmd.initialize(tokens);
+                cmd.initialize(tokens.clone());
                 return cmd;
             }
         }
         return null;
     }
 
+    /**
+     * The command classes known to the process, shared by all parsers.
+     */
+    private static class Registry {
+
+        private static final Registry INSTANCE = new Registry();
+
+        private final Map<String, String> commandIndex = new HashMap<>();
+        private final Map<String, Class<? extends SacCommand>> classes = new HashMap<>();
+        private boolean indexRead = false;
+        private boolean allLoaded = false;
+
+        synchronized void readIndex() {
+            if (indexRead) {
+                return;
+            }
+            indexRead = true;
+            try (InputStream in = SacCommandParser.class.getResourceAsStream(COMMAND_INDEX)) {
+                if (in != null) {
+                    Properties properties = new Properties();
+                    properties.load(in);
+                    for (String name : properties.stringPropertyNames()) {
+                        commandIndex.put(name, properties.getProperty(name).trim());
+                    }
+                }
+            } catch (IOException ex) {
+                log.warn("Failed reading command index: {}", ex.getMessage());
+                commandIndex.clear();
+            }
+            if (commandIndex.isEmpty()) {
+                instantiateAll();
+            }
+        }
+
+        synchronized Set<String> getIndexedNames() {
+            readIndex();
+            return new TreeSet<>(commandIndex.keySet());
+        }
+
+        synchronized int getLoadedClassCount() {
+            return new HashSet<>(classes.values()).size();
+        }
+
+        SacCommand create(String name) {
+            Class<? extends SacCommand> type = find(name);
+            if (type == null) {
+                return null;
+            }
+            try {
+                return type.getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException ex) {
+                throw new IllegalStateException("Cannot create command " + type.getName(), ex);
+            }
+        }
+
+        private synchronized Class<? extends SacCommand> find(String name) {
+            readIndex();
+            Class<? extends SacCommand> type = classes.get(name);
+            if (type != null) {
+                return type;
+            }
+            String className = commandIndex.get(name);
+            if (className != null) {
+                try {
+                    type = Class.forName(className).asSubclass(SacCommand.class);
+                } catch (ClassNotFoundException | ClassCastException ex) {
+                    throw new IllegalStateException("Cannot load command class " + className, ex);
+                }
+                classes.put(name, type);
+                return type;
+            }
+            if (!allLoaded) {
+                // Not in the index, possibly a command contributed by another jar.
+                instantiateAll();
+                return classes.get(name);
+            }
+            return null;
+        }
+
+        synchronized List<SacCommand> instantiateAll() {
+            List<SacCommand> result = new ArrayList<>();
+            ServiceLoader<SacCommand> commands = ServiceLoader.load(SacCommand.class);
+            for (SacCommand command : commands) {
+                if (command == null || command instanceof NullSacCommand) {
+                    continue;
+                }
+                result.add(command);
+                String className = command.getClass().getName();
+                for (String s : command.getCommandNames()) {
+                    String owner = commandIndex.get(s);
+                    if (owner == null || owner.equals(className)) {
+                        classes.put(s, command.getClass());
+                    }
+                }
+            }
+            allLoaded = true;
+            return result;
+        }
+    }
 }
@@ -50,7 +50,7 @@ import llnl.gnem.dftt.core.util.StreamKey;
 public class MergeSacCommand implements SacCommand {
 
     private static final List<AttributeDescriptor> descriptors = new ArrayList<>();
-    private static GapStrategy gapStrategy = GapStrategy.ZERO;
+    private GapStrategy gapStrategy = GapStrategy.ZERO;
     private final List<Path> pathsToMerge;
 
     static {
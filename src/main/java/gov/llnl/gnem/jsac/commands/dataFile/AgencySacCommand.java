@@ -62,6 +62,11 @@ public class AgencySacCommand implements SacCommand {
         }
     }
 
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
     @Override
     public Collection<String> getCommandNames() {
         String[] names = {"AGENCY"};
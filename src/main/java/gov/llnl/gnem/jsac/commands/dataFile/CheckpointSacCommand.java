@@ -0,0 +1,105 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.dataFile;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.commands.SacCommand;
+
+/**
+ * Saves the data in memory under a name so that it can be brought back with
+ * RESTORE.
+ */
+public class CheckpointSacCommand implements SacCommand {
+
+    private final List<String> mytokens;
+
+    public CheckpointSacCommand() {
+        mytokens = new ArrayList<>();
+    }
+
+    @Override
+    public void initialize(String[] tokens) {
+        mytokens.clear();
+        mytokens.addAll(Arrays.asList(tokens));
+        mytokens.remove(0); // Don't need the command name anymore.
+    }
+
+    @Override
+    public void execute() {
+        SacDataModel model = SacDataModel.getInstance();
+        if (mytokens.isEmpty()) {
+            Map<String, Integer> checkpoints = model.getCheckpoints();
+            if (checkpoints.isEmpty()) {
+                System.out.println("No checkpoints have been saved.");
+            }
+            checkpoints.forEach((name, count) -> System.out.println(String.format("%-20s %d %s", name, count, count == 1 ? "file" : "files")));
+        } else if (mytokens.get(0).equalsIgnoreCase("DELETE")) {
+            for (String name : mytokens.subList(1, mytokens.size())) {
+                if (!model.deleteCheckpoint(name)) {
+                    System.out.println(String.format("No checkpoint named %s!", name));
+                }
+            }
+        } else if (mytokens.size() == 1) {
+            model.checkpoint(mytokens.get(0));
+        } else {
+            System.out.println("CHECKPOINT takes a single name!");
+        }
+    }
+
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
+    @Override
+    public String getHelpString() {
+        return "SUMMARY\n"
+                + "	Saves the data in memory so that it can later be restored.\n"
+                + "\n"
+                + "SYNTAX\n"
+                + "	CHECKPOINT {name|DELETE name ...}\n"
+                + "INPUT\n"
+                + "	name:	The name to save the data under. An existing checkpoint with the same name is replaced.\n"
+                + "	DELETE name:	Delete one or more checkpoints.\n"
+                + "	none:	List the saved checkpoints.\n"
+                + "DESCRIPTION\n"
+                + "	The headers of all files in memory are copied, but the data samples are shared with the files in memory. A file's samples are only copied when they are next modified, so a checkpoint costs memory in proportion to what changes after it is taken. Checkpoints are kept when new data are read. See also RESTORE and UNDO.\n"
+                + "EXAMPLES\n"
+                + "		SAC> READ *.sac\n"
+                + "		SAC> CHECKPOINT raw\n"
+                + "		SAC> BANDPASS C 1 5\n"
+                + "		SAC> RESTORE raw\n";
+    }
+
+    @Override
+    public Collection<String> getCommandNames() {
+        String[] names = { "CHECKPOINT" };
+        return new ArrayList<>(Arrays.asList(names));
+    }
+}
@@ -28,6 +28,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
+import gov.llnl.gnem.jsac.Session;
 import gov.llnl.gnem.jsac.commands.SacCommand;
 import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData.CutErrorAction;
 
@@ -38,7 +39,15 @@ import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData.CutErrorAction;
 public class CutErrSacCommand implements SacCommand {
 
     
-    private static CutErrorAction errorAction = CutErrorAction.FILLZ;
+    /**
+     * Options that persist between invocations. Each session has its own.
+     */
+    private static class Settings {
+
+        CutErrorAction errorAction = CutErrorAction.FILLZ;
+    }
+
+    private final Settings settings = Session.current().getSettings(Settings.class, Settings::new);
     private final List<String> mytokens;
 
     public CutErrSacCommand() {
@@ -46,7 +55,7 @@ public class CutErrSacCommand implements SacCommand {
     }
 
     public static CutErrorAction getErrorAction() {
-        return errorAction;
+        return Session.current().getSettings(Settings.class, Settings::new).errorAction;
     }
 
     @Override
@@ -64,7 +73,7 @@ public class CutErrSacCommand implements SacCommand {
         } else {
             String token = mytokens.remove(0).toUpperCase();
             try {
-                errorAction = CutErrorAction.valueOf(token);
+                settings.errorAction = CutErrorAction.valueOf(token);
             } catch (IllegalArgumentException ex) {
                 System.out.println("Option " + token + " is not a legal CUTERR option!");
             }
@@ -85,6 +94,11 @@ public class CutErrSacCommand implements SacCommand {
                 + "			difference between bad cut and file begin and end.";
     }
 
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
     @Override
     public Collection<String> getCommandNames() {
         String[] names = {"CUTERR"};
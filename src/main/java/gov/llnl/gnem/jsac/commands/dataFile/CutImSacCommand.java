@@ -28,6 +28,7 @@ import java.util.Arrays;
 import java.util.Collection;
 
 import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.Session;
 import gov.llnl.gnem.jsac.commands.SacCommand;
 import gov.llnl.gnem.jsac.util.PartialDataWindow;
 
@@ -37,15 +38,21 @@ import gov.llnl.gnem.jsac.util.PartialDataWindow;
  */
 public class CutImSacCommand extends PDWSetterBase implements SacCommand {
 
-    private static final PartialDataWindow pdw = new PartialDataWindow();
+    /**
+     * Options that persist between invocations. Each session has its own.
+     */
+    private static class Settings {
+
+        final PartialDataWindow pdw = new PartialDataWindow();
+    }
 
     public CutImSacCommand() {
-        super("CUTIM", pdw);
+        super("CUTIM", getPartialDataWindow());
     }
 
     public static PartialDataWindow getPartialDataWindow()
     {
-        return pdw;
+        return Session.current().getSettings(Settings.class, Settings::new).pdw;
     }
     
     @Override
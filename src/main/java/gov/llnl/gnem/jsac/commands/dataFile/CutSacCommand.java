@@ -27,6 +27,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 
+import gov.llnl.gnem.jsac.Session;
 import gov.llnl.gnem.jsac.commands.SacCommand;
 import gov.llnl.gnem.jsac.util.PartialDataWindow;
 
@@ -35,15 +36,21 @@ import gov.llnl.gnem.jsac.util.PartialDataWindow;
  * @author dodge1
  */
 public class CutSacCommand extends PDWSetterBase implements SacCommand {
-    private static final PartialDataWindow pdw = new PartialDataWindow();
+    /**
+     * Options that persist between invocations. Each session has its own.
+     */
+    private static class Settings {
+
+        final PartialDataWindow pdw = new PartialDataWindow();
+    }
 
     public CutSacCommand() {
-        super("CUT",pdw);
+        super("CUT", getPartialDataWindow());
     }
 
     public static PartialDataWindow getPartialDataWindow()
     {
-        return pdw;
+        return Session.current().getSettings(Settings.class, Settings::new).pdw;
     }
     
     
@@ -105,6 +112,11 @@ public class CutSacCommand extends PDWSetterBase implements SacCommand {
                 + "	Tn:	User defined time picks (n = 0,1...9)";
     }
 
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
     @Override
     public Collection<String> getCommandNames() {
         String[] names = {"CUT"};
@@ -33,6 +33,7 @@ import java.util.List;
 import java.util.Map;
 
 import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.Session;
 import gov.llnl.gnem.jsac.commands.AttributeDescriptor;
 import gov.llnl.gnem.jsac.commands.SacCommand;
 import gov.llnl.gnem.jsac.commands.TokenListParser;
@@ -86,18 +87,26 @@ public class FuncgenSacCommand implements SacCommand {
         IMPULSE, STEP, BOXCAR, TRIANGLE, SINE, LINE, QUADRATIC, CUBIC, SEISMOGRAM, SEIS
     }
 
-    private static FunctionType functionType = FunctionType.IMPULSE;
-    private static int npts = 100;
-    private static double delta = 1.0;
-    private static double begin = 0.0;
-    private static double frequency = 0.05;
-    private static double phase = 0.0;
-    private static double slope = 1.0;
-    private static double intercept = 1.0;
-    private static double aCoeff = 1;
-    private static double bCoeff = 1;
-    private static double cCoeff = 1;
-    private static double dCoeff = 1;
+    /**
+     * Options that persist between invocations. Each session has its own.
+     */
+    private static class Settings {
+
+        FunctionType functionType = FunctionType.IMPULSE;
+        int npts = 100;
+        double delta = 1.0;
+        double begin = 0.0;
+        double frequency = 0.05;
+        double phase = 0.0;
+        double slope = 1.0;
+        double intercept = 1.0;
+        double aCoeff = 1;
+        double bCoeff = 1;
+        double cCoeff = 1;
+        double dCoeff = 1;
+    }
+
+    private final Settings settings = Session.current().getSettings(Settings.class, Settings::new);
 
     public FuncgenSacCommand() {
     }
@@ -110,10 +119,10 @@ public class FuncgenSacCommand implements SacCommand {
         }
         FunctionType type = getType(parsedTokens);
         if (type != null) {
-            functionType = type;
+            settings.functionType = type;
         }
 
-        List<Object> funcParams = parsedTokens.get(functionType.name());
+        List<Object> funcParams = parsedTokens.get(settings.functionType.name());
         maybeSetTypeParams(funcParams);
 
         maybeSetNpts(parsedTokens.get("NPTS"));
@@ -125,7 +134,7 @@ public class FuncgenSacCommand implements SacCommand {
     @Override
     public void execute() {
         SacDataModel.getInstance().clear();
-        switch (functionType) {
+        switch (settings.functionType) {
         case IMPULSE:
         case STEP:
         case BOXCAR:
@@ -151,40 +160,40 @@ public class FuncgenSacCommand implements SacCommand {
     private SacTraceData createTraceData() {
         float[] data = createFunction();
         SACHeader hdr = new SACHeader();
-        hdr.setDelta(delta);
-        hdr.setB(begin);
-        hdr.setNpts(npts);
-        hdr.setE(begin + (npts - 1) * delta);
+        hdr.setDelta(settings.delta);
+        hdr.setB(settings.begin);
+        hdr.setNpts(settings.npts);
+        hdr.setE(settings.begin + (settings.npts - 1) * settings.delta);
         hdr.setIftype(FileType.ITIME);
         hdr.setLeven(1);
         hdr.setIztype(Iztype.IDAY);
         hdr.setKstnm("sta");
         hdr.setKcmpnm("Q");
-        String kevnm = String.format("FUNCGEN: %s", functionType);
+        String kevnm = String.format("FUNCGEN: %s", settings.functionType);
         hdr.setKevnm(kevnm);
         SACFile sf = new SACFile(hdr, data);
-        return new SacTraceData(Paths.get(functionType.toString()), sf);
+        return new SacTraceData(Paths.get(settings.functionType.toString()), sf);
     }
 
     private float[] createFunction() {
-        float[] data = new float[npts];
-        switch (functionType) {
+        float[] data = new float[settings.npts];
+        switch (settings.functionType) {
         case IMPULSE: {
-            int pos = npts / 2;
+            int pos = settings.npts / 2;
             data[pos] = 1.0f;
             break;
         }
         case STEP: {
-            int pos = npts / 2;
-            for (int j = pos; j < npts; ++j) {
+            int pos = settings.npts / 2;
+            for (int j = pos; j < settings.npts; ++j) {
                 data[j] = 1.0f;
             }
             break;
         }
         case BOXCAR: {
 
-            int p1 = npts / 3;
-            int p2 = 2 * npts / 3;
+            int p1 = settings.npts / 3;
+            int p2 = 2 * settings.npts / 3;
 
             for (int j = p1; j < p2; ++j) {
                 data[j] = 1;
@@ -192,8 +201,8 @@ public class FuncgenSacCommand implements SacCommand {
             break;
         }
         case TRIANGLE: {
-            int s = npts / 6;
-            int c = npts / 2;
+            int s = settings.npts / 6;
+            int c = settings.npts / 2;
 
             data[c] = 1.0f;
             for (int is = 1; is < s; is++) {
@@ -203,28 +212,28 @@ public class FuncgenSacCommand implements SacCommand {
             break;
         }
         case SINE: {
-            double phaseInRadians = Math.toRadians(phase);
-            for (int j = 0; j < npts; ++j) {
-                double t = j * delta;
-                data[j] = (float) Math.sin(phaseInRadians + 2 * Math.PI * frequency * t);
+            double phaseInRadians = Math.toRadians(settings.phase);
+            for (int j = 0; j < settings.npts; ++j) {
+                double t = j * settings.delta;
+                data[j] = (float) Math.sin(phaseInRadians + 2 * Math.PI * settings.frequency * t);
             }
             break;
         }
         case LINE:
-            for (int j = 0; j < npts; ++j) {
-                data[j] = (float) (intercept + j * slope);
+            for (int j = 0; j < settings.npts; ++j) {
+                data[j] = (float) (settings.intercept + j * settings.slope);
             }
             break;
         case QUADRATIC: {
-            for (int j = 0; j < npts; ++j) {
-                double t = j * delta;
-                data[j] = (float) (aCoeff * t * t + bCoeff * t + cCoeff);
+            for (int j = 0; j < settings.npts; ++j) {
+                double t = j * settings.delta;
+                data[j] = (float) (settings.aCoeff * t * t + settings.bCoeff * t + settings.cCoeff);
             }
         }
         case CUBIC: {
-            for (int j = 0; j < npts; ++j) {
-                double t = j * delta;
-                data[j] = (float) (aCoeff * t * t * t + bCoeff * t * t + cCoeff * t + dCoeff);
+            for (int j = 0; j < settings.npts; ++j) {
+                double t = j * settings.delta;
+                data[j] = (float) (settings.aCoeff * t * t * t + settings.bCoeff * t * t + settings.cCoeff * t + settings.dCoeff);
             }
         }
         case SEIS:
@@ -240,33 +249,33 @@ public class FuncgenSacCommand implements SacCommand {
     private void maybeSetNpts(List<Object> values) {
         if (values != null && values.size() == 1) {
             Integer v = (Integer) values.get(0);
-            npts = v;
+            settings.npts = v;
         }
     }
 
     private void maybeSetDelta(List<Object> values) {
         if (values != null && values.size() == 1) {
             Double v = (Double) values.get(0);
-            delta = v;
+            settings.delta = v;
         }
     }
 
     private void maybeSetBegin(List<Object> values) {
         if (values != null && values.size() == 1) {
             Double v = (Double) values.get(0);
-            begin = v;
+            settings.begin = v;
         }
     }
 
     private void maybeSetTypeParams(List<Object> funcParams) {
 
-        switch (functionType) {
+        switch (settings.functionType) {
         case SINE: {
             if (funcParams != null && funcParams.size() == 2) {
                 Float v1 = (Float) funcParams.get(0);
                 Float v2 = (Float) funcParams.get(1);
-                frequency = v1 != null ? v1 : frequency;
-                phase = v2 != null ? v2 : phase;
+                settings.frequency = v1 != null ? v1 : settings.frequency;
+                settings.phase = v2 != null ? v2 : settings.phase;
             }
             break;
         }
@@ -274,8 +283,8 @@ public class FuncgenSacCommand implements SacCommand {
             if (funcParams != null && funcParams.size() == 2) {
                 Float v1 = (Float) funcParams.get(0);
                 Float v2 = (Float) funcParams.get(1);
-                slope = v1 != null ? v1 : slope;
-                intercept = v2 != null ? v2 : intercept;
+                settings.slope = v1 != null ? v1 : settings.slope;
+                settings.intercept = v2 != null ? v2 : settings.intercept;
             }
             break;
         }
@@ -285,9 +294,9 @@ public class FuncgenSacCommand implements SacCommand {
                 Float v1 = (Float) funcParams.get(0);
                 Float v2 = (Float) funcParams.get(1);
                 Float v3 = (Float) funcParams.get(2);
-                aCoeff = v1 != null ? v1 : aCoeff;
-                bCoeff = v2 != null ? v2 : bCoeff;
-                cCoeff = v3 != null ? v3 : cCoeff;
+                settings.aCoeff = v1 != null ? v1 : settings.aCoeff;
+                settings.bCoeff = v2 != null ? v2 : settings.bCoeff;
+                settings.cCoeff = v3 != null ? v3 : settings.cCoeff;
             }
             break;
         }
@@ -297,10 +306,10 @@ public class FuncgenSacCommand implements SacCommand {
                 Float v2 = (Float) funcParams.get(1);
                 Float v3 = (Float) funcParams.get(2);
                 Float v4 = (Float) funcParams.get(3);
-                aCoeff = v1 != null ? v1 : aCoeff;
-                bCoeff = v2 != null ? v2 : bCoeff;
-                cCoeff = v3 != null ? v3 : cCoeff;
-                dCoeff = v4 != null ? v4 : dCoeff;
+                settings.aCoeff = v1 != null ? v1 : settings.aCoeff;
+                settings.bCoeff = v2 != null ? v2 : settings.bCoeff;
+                settings.cCoeff = v3 != null ? v3 : settings.cCoeff;
+                settings.dCoeff = v4 != null ? v4 : settings.dCoeff;
             }
             break;
         }
@@ -170,6 +170,11 @@ public class LhSacCommand implements SacCommand {
         System.out.flush();
     }
 
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
     @Override
     public Collection<String> getCommandNames() {
         String[] names = {"LH", "LISTHEADER"};
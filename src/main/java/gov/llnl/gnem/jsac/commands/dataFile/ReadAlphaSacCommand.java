@@ -47,7 +47,7 @@ import gov.llnl.gnem.jsac.util.PathManager;
  */
 public class ReadAlphaSacCommand implements SacCommand {
 
-    private static String requestedDir;
+    private String requestedDir;
     private final List<String> mytokens;
     private String cwd;
     private boolean readmore = false;
@@ -95,13 +95,18 @@ public class ReadCSSSacCommand implements SacCommand {
         Path path = PathManager.getInstance().resolveAndValidateFile(wfdiscFile);
         try {
             long start = System.currentTimeMillis();
-            List<SacTraceData> data = CssProcessor.readCSS(path.toString(), PathType.FilePathPlusRel);
+            ReadEstimate estimate = ReadEstimate.forWfdisc(path);
+            if (!estimate.admit("READCSS", more)) {
+                return;
+            }
             if (!more) {
                 SacDataModel.getInstance().clear();
             }
+            SacDataModel model = SacDataModel.getInstance();
+            List<SacTraceData> data = CssProcessor.readCSS(path.toString(), PathType.FilePathPlusRel, model::adopt);
             long end = System.currentTimeMillis();
             double elapsed = (end - start) / 1000.0;
-            SacDataModel.getInstance().addAll(data, elapsed);
+            SacDataModel.getInstance().addAll(data, elapsed, estimate);
         } catch (Exception ex) {
             Logger.getLogger(ReadCSSSacCommand.class.getName()).log(Level.SEVERE, null, ex);
         }
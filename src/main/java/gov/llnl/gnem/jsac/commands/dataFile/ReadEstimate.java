@@ -0,0 +1,194 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.dataFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.Session;
+import gov.llnl.gnem.jsac.commands.executiveFunction.MemorySacCommand;
+import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData;
+import gov.llnl.gnem.jsac.dataAccess.storage.StorageMode;
+import gov.llnl.gnem.jsac.io.MiniSeedHeaderScanner;
+import gov.llnl.gnem.jsac.io.SACDataEncoding;
+import gov.llnl.gnem.jsac.io.SACFileReader;
+import gov.llnl.gnem.jsac.io.css.CssProcessor;
+
+/**
+ * Memory needed by a pending read, computed from file headers or metadata
+ * before any waveform data is loaded. The read commands use it to decide,
+ * according to the {@link AdmissionPolicy}, whether the read should proceed.
+ */
+public class ReadEstimate {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadEstimate.class);
+
+    /** Approximate heap used by a trace apart from its samples. */
+    private static final long TRACE_OVERHEAD_BYTES = 4096;
+    /** Width of one value in a SAC alphanumeric file. */
+    private static final long ALPHA_BYTES_PER_VALUE = 15;
+
+    /**
+     * Admission policy for the session. Each session has its own.
+     */
+    private static class Settings {
+
+        AdmissionPolicy policy = AdmissionPolicy.WARN;
+    }
+
+    private long traceCount;
+    private long valueCount;
+
+    private ReadEstimate(long traceCount, long valueCount) {
+        this.traceCount = traceCount;
+        this.valueCount = valueCount;
+    }
+
+    public static ReadEstimate empty() {
+        return new ReadEstimate(0, 0);
+    }
+
+    public static ReadEstimate forSacFiles(List<Path> paths, SACDataEncoding encoding) {
+        long values = paths.parallelStream().mapToLong(path -> countSacValues(path, encoding)).sum();
+        return new ReadEstimate(paths.size(), values);
+    }
+
+    private static long countSacValues(Path path, SACDataEncoding encoding) {
+        try {
+            if (encoding == SACDataEncoding.ALPHANUMERIC) {
+                return Files.size(path) / ALPHA_BYTES_PER_VALUE;
+            }
+            return SACFileReader.countValues(path);
+        } catch (IOException | RuntimeException ex) {
+            log.debug("Could not scan header of {}: {}", path, ex.getMessage());
+            return 0;
+        }
+    }
+
+    public static ReadEstimate forMiniSeedFiles(List<Path> paths) {
+        ReadEstimate result = empty();
+        for (Path path : paths) {
+            MiniSeedHeaderScanner scanner = new MiniSeedHeaderScanner();
+            try {
+                scanner.scan(path);
+            } catch (IOException ex) {
+                log.debug("Could not scan headers of {}: {}", path, ex.getMessage());
+            }
+            result.add(new ReadEstimate(scanner.getChannelCount(), scanner.getSampleCount()));
+        }
+        return result;
+    }
+
+    public static ReadEstimate forWfdisc(Path wfdisc) {
+        try {
+            List<Long> counts = CssProcessor.readSampleCounts(wfdisc.toString());
+            return new ReadEstimate(counts.size(), counts.stream().mapToLong(Long::longValue).sum());
+        } catch (IOException ex) {
+            log.debug("Could not scan {}: {}", wfdisc, ex.getMessage());
+            return empty();
+        }
+    }
+
+    public void add(ReadEstimate other) {
+        traceCount += other.traceCount;
+        valueCount += other.valueCount;
+    }
+
+    public long getTraceCount() {
+        return traceCount;
+    }
+
+    public long getValueCount() {
+        return valueCount;
+    }
+
+    /**
+     * @return The number of bytes needed to hold the samples.
+     */
+    public long getSampleBytes() {
+        return 4 * valueCount;
+    }
+
+    /**
+     * @return The estimated heap needed, including per-trace overhead.
+     */
+    public long getBytes() {
+        return getSampleBytes() + TRACE_OVERHEAD_BYTES * traceCount;
+    }
+
+    private static Settings settings() {
+        return Session.current().getSettings(Settings.class, Settings::new);
+    }
+
+    public static AdmissionPolicy getPolicy() {
+        return settings().policy;
+    }
+
+    public static void setPolicy(AdmissionPolicy policy) {
+        settings().policy = policy;
+    }
+
+    /**
+     * Compares the estimate with the heap that will be available for the read
+     * and applies the admission policy.
+     *
+     * @param commandName The read command, for messages.
+     * @param readMore    true if the data in memory is kept.
+     * @return false if the read must not proceed.
+     */
+    public boolean admit(String commandName, boolean readMore) {
+        SacDataModel model = SacDataModel.getInstance();
+        if (model.getMemoryBudget() != null) {
+            return true;
+        }
+        Runtime runtime = Runtime.getRuntime();
+        long available = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+        if (!readMore && model.getStorageMode() == StorageMode.HEAP) {
+            available += model.getData().stream().mapToLong(SacTraceData::getSampleBytes).sum();
+        }
+        if (getBytes() <= available) {
+            return true;
+        }
+
+        String msg = String.format("%s needs an estimated %s for %d traces but only %s is available", commandName,
+                MemorySacCommand.formatByteCount(getBytes()), traceCount, MemorySacCommand.formatByteCount(available));
+        switch (getPolicy()) {
+        case REFUSE:
+            System.out.println(msg + ". Nothing was read (see MEMORY ADMISSION).");
+            return false;
+        case SPILL:
+            System.out.println(msg + ". Switching to SPILL storage.");
+            model.setStorageMode(StorageMode.SPILL);
+            return true;
+        default:
+            log.warn(msg + ".");
+            return true;
+        }
+    }
+}
@@ -51,7 +51,7 @@ public class ReadGseSacCommand implements SacCommand {
 
     private static final Logger log = LoggerFactory.getLogger(ReadGseSacCommand.class);
 
-    private static String requestedDir;
+    private String requestedDir;
     private final List<String> mytokens;
     private  String cwd;
     private boolean readmore = false;
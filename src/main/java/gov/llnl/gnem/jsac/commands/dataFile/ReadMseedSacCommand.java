@@ -32,6 +32,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 import edu.iris.dmc.seedcodec.CodecException;
 import edu.sc.seis.seisFile.mseed.SeedFormatException;
@@ -50,7 +51,7 @@ import llnl.gnem.dftt.core.waveform.merge.NamedIntWaveform;
  */
 public class ReadMseedSacCommand implements SacCommand {
 
-    private static String requestedDir;
+    private String requestedDir;
     private final List<String> mytokens;
     private String cwd;
     private boolean readmore = false;
@@ -85,44 +86,52 @@ public class ReadMseedSacCommand implements SacCommand {
             System.out.println("The READMSEED comand requires at least one argument!");
             return;
         }
+        long start = System.currentTimeMillis();
+        List<Path> paths = new ArrayList<>();
+        for (String regExString : mytokens) {
+            paths.addAll(new FileFinder(Paths.get(requestedDir), regExString).findMatches());
+        }
+        ReadEstimate estimate = ReadEstimate.forMiniSeedFiles(paths);
+        if (!estimate.admit("READMSEED", readmore)) {
+            return;
+        }
         if (!readmore) {
             SacDataModel.getInstance().clear();
         }
 
-        long start = System.currentTimeMillis();
-        List<SacTraceData> results = new ArrayList<>();
-        for (String regExString : mytokens) {
-            List<Path> paths = new FileFinder(Paths.get(requestedDir), regExString).findMatches();
-            results.addAll(getResults(paths));
-
-        }
+        List<SacTraceData> results = getResults(paths);
         long end = System.currentTimeMillis();
         double elapsed = (end - start) / 1000.0;
-        SacDataModel.getInstance().addAll(results, elapsed);
+        SacDataModel.getInstance().addAll(results, elapsed, estimate);
 
     }
 
     private List<SacTraceData> getResults(List<Path> filesToRead) {
+        // Worker threads have no session bound, so the model is looked up and
+        // the output written on the calling thread.
+        SacDataModel model = SacDataModel.getInstance();
+        List<List<SacTraceData>> perFile = filesToRead.parallelStream().map(path -> processOnePath(model, path)).collect(Collectors.toList());
         List<SacTraceData> results = new ArrayList<>();
-
-        filesToRead.parallelStream().forEach(path -> {
-            results.addAll(processOnePath(path));
-        });
-
+        for (int j = 0; j < perFile.size(); ++j) {
+            if (perFile.get(j) != null) {
+                System.out.println(filesToRead.get(j));
+                results.addAll(perFile.get(j));
+            }
+        }
         return results;
     }
 
-    private List<SacTraceData> processOnePath(Path path) {
+    private List<SacTraceData> processOnePath(SacDataModel model, Path path) {
         List<SacTraceData> result = new ArrayList<>();
         try {
             Path parent = path.getParent();
             Collection<NamedIntWaveform> waveforms = MiniSeedReader.readMiniSeed(path.toString());
-            System.out.println(path);
             for (NamedIntWaveform niw : waveforms) {
-                result.add(new SacTraceData(niw, parent));
+                result.add(model.adopt(new SacTraceData(niw, parent)));
             }
         } catch (IOException | SeedFormatException | CodecException ex) {
             Logger.getLogger(ReadMseedSacCommand.class.getName()).log(Level.SEVERE, null, ex);
+            return null;
         }
         return result;
 
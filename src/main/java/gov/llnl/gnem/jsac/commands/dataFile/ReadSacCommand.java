@@ -23,6 +23,7 @@
 
 package gov.llnl.gnem.jsac.commands.dataFile;
 
+import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -33,25 +34,30 @@ import java.util.Objects;
 import java.util.stream.Collectors;
 
 import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.Session;
+import gov.llnl.gnem.jsac.commands.CacheableCommand;
 import gov.llnl.gnem.jsac.commands.Misc;
-import gov.llnl.gnem.jsac.commands.SacCommand;
+import gov.llnl.gnem.jsac.dataAccess.cache.ResultCache;
 import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData;
 import gov.llnl.gnem.jsac.io.SACDataEncoding;
 import gov.llnl.gnem.jsac.util.FileFinder;
 import gov.llnl.gnem.jsac.util.FileUtil;
+import gov.llnl.gnem.jsac.util.PartialDataWindow;
 import gov.llnl.gnem.jsac.util.PathManager;
 
 /**
  *
  * @author dodge1
  */
-public class ReadSacCommand implements SacCommand {
+public class ReadSacCommand implements CacheableCommand {
 
-    private static String requestedDir;
+    private String requestedDir;
     private final List<String> mytokens;
     private String cwd;
     private boolean readmore = false;
     private SACDataEncoding encoding;
+    private List<List<Path>> matches;
+    private boolean completed;
 
     public ReadSacCommand() {
         mytokens = new ArrayList<>();
@@ -61,6 +67,8 @@ public class ReadSacCommand implements SacCommand {
     @Override
     public void initialize(String[] tokens) {
         mytokens.clear();
+        matches = null;
+        completed = false;
         cwd = PathManager.getInstance().getCurrentDir().toString();
         readmore = false;
         mytokens.addAll(Arrays.asList(tokens));
@@ -81,28 +89,88 @@ public class ReadSacCommand implements SacCommand {
     @Override
     public void execute() {
         if (mytokens.isEmpty()) {
-            System.out.println("The READ comand requires at least one argument!");
+            reportError("The READ comand requires at least one argument!");
+            return;
+        }
+        long start = System.currentTimeMillis();
+        List<List<Path>> matches = findMatches();
+        for (int j = 0; j < matches.size(); ++j) {
+            if (matches.get(j).isEmpty()) {
+                reportError(String.format("READ: no files match %s", mytokens.get(j)));
+            }
+        }
+        ReadEstimate estimate = ReadEstimate.empty();
+        matches.forEach(paths -> estimate.add(ReadEstimate.forSacFiles(paths, encoding)));
+        if (!estimate.admit("READ", readmore)) {
             return;
         }
         if (!readmore) {
             SacDataModel.getInstance().clear();
         }
-        long start = System.currentTimeMillis();
         List<SacTraceData> results = new ArrayList<>();
-        mytokens.stream().map(regExString -> new FileFinder(Paths.get(requestedDir), regExString).findMatches()).forEachOrdered(paths -> {
+        matches.forEach(paths -> {
             results.addAll(getResults(paths));
         });
         long end = System.currentTimeMillis();
         double elapsed = (end - start) / 1000.0;
-        SacDataModel.getInstance().addAll(results, elapsed);
+        SacDataModel.getInstance().addAll(results, elapsed, estimate);
+        completed = true;
+
+    }
 
+    private List<List<Path>> findMatches() {
+        if (matches == null) {
+            matches = mytokens.stream().map(regExString -> new FileFinder(Paths.get(requestedDir), regExString).findMatches()).collect(Collectors.toList());
+        }
+        return matches;
+    }
+
+    @Override
+    public String getCacheKey() {
+        if (mytokens.isEmpty()) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder("READ ").append(readmore ? "MORE " : "").append(encoding);
+        PartialDataWindow pdw = CutSacCommand.getPartialDataWindow();
+        if (pdw.isEnabled()) {
+            sb.append(" CUT ").append(pdw).append(' ').append(CutErrSacCommand.getErrorAction());
+        }
+        try {
+            for (List<Path> paths : findMatches()) {
+                for (Path path : paths) {
+                    sb.append('\n').append(ResultCache.describeFile(path));
+                }
+            }
+        } catch (IOException ex) {
+            return null;
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public boolean replacesData() {
+        return !readmore;
+    }
+
+    @Override
+    public boolean producedResult() {
+        return completed;
     }
 
     private List<SacTraceData> getResults(List<Path> filesToRead) {
-        List<SacTraceData> results = new ArrayList<>(filesToRead.parallelStream().map(t->Misc.createSacFile(t,encoding)).filter(Objects::nonNull).collect(Collectors.toList()));
+        SacDataModel model = SacDataModel.getInstance();
+        List<SacTraceData> results = new ArrayList<>(filesToRead.parallelStream().map(t->Misc.createSacFile(t,encoding)).filter(Objects::nonNull).map(model::adopt).collect(Collectors.toList()));
+        if (results.size() < filesToRead.size()) {
+            reportError(String.format("READ: failed reading %d of %d files", filesToRead.size() - results.size(), filesToRead.size()));
+        }
         return results;
     }
 
+    private static void reportError(String message) {
+        System.out.println(message);
+        Session.current().reportError(message);
+    }
+
 
     @Override
     public String getHelpString() {
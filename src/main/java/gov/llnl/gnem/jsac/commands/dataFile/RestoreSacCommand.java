@@ -0,0 +1,87 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.dataFile;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.commands.SacCommand;
+
+/**
+ * Replaces the data in memory with a checkpoint saved by CHECKPOINT.
+ */
+public class RestoreSacCommand implements SacCommand {
+
+    private final List<String> mytokens;
+
+    public RestoreSacCommand() {
+        mytokens = new ArrayList<>();
+    }
+
+    @Override
+    public void initialize(String[] tokens) {
+        mytokens.clear();
+        mytokens.addAll(Arrays.asList(tokens));
+        mytokens.remove(0); // Don't need the command name anymore.
+    }
+
+    @Override
+    public void execute() {
+        if (mytokens.size() != 1) {
+            System.out.println("RESTORE requires the name of a checkpoint!");
+            return;
+        }
+        String name = mytokens.get(0);
+        if (!SacDataModel.getInstance().restore(name)) {
+            System.out.println(String.format("No checkpoint named %s!", name));
+        }
+    }
+
+    @Override
+    public boolean isUndoable() {
+        // The model records the undo point itself.
+        return false;
+    }
+
+    @Override
+    public String getHelpString() {
+        return "SUMMARY\n"
+                + "	Replaces the data in memory with a saved checkpoint.\n"
+                + "\n"
+                + "SYNTAX\n"
+                + "	RESTORE name\n"
+                + "INPUT\n"
+                + "	name:	The name of a checkpoint saved with CHECKPOINT.\n"
+                + "DESCRIPTION\n"
+                + "	The restore is immediate: no files are read and no data samples are copied. The checkpoint itself is kept, so it may be restored again later. The data replaced by RESTORE can be brought back with UNDO.\n";
+    }
+
+    @Override
+    public Collection<String> getCommandNames() {
+        String[] names = { "RESTORE" };
+        return new ArrayList<>(Arrays.asList(names));
+    }
+}
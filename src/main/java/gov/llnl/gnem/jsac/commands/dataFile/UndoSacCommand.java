@@ -0,0 +1,105 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.dataFile;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.math.NumberUtils;
+
+import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.commands.AttributeDescriptor;
+import gov.llnl.gnem.jsac.commands.SacCommand;
+import gov.llnl.gnem.jsac.commands.TokenListParser;
+import gov.llnl.gnem.jsac.commands.ValuePossibilities;
+
+/**
+ * Returns the data in memory to the state before the last command that
+ * changed it.
+ */
+public class UndoSacCommand implements SacCommand {
+
+    private static final List<AttributeDescriptor> descriptors = new ArrayList<>();
+
+    private Integer depth;
+
+    static {
+        descriptors.add(new AttributeDescriptor("DEPTH", ValuePossibilities.ONE_VALUE, String.class));
+    }
+
+    @Override
+    public void initialize(String[] tokens) {
+        depth = null;
+        Map<String, List<Object>> parsedTokens = TokenListParser.parseTokens(descriptors, tokens);
+        List<Object> values = parsedTokens.remove("DEPTH");
+        if (values != null && values.size() == 1) {
+            String tmp = (String) values.get(0);
+            if (NumberUtils.isDigits(tmp)) {
+                depth = Integer.parseInt(tmp);
+            } else {
+                System.out.println(String.format("Could not interpret (%s) as an undo depth!", tmp));
+            }
+        }
+    }
+
+    @Override
+    public void execute() {
+        SacDataModel model = SacDataModel.getInstance();
+        if (depth != null) {
+            model.setUndoDepth(depth);
+            return;
+        }
+        if (!model.undo()) {
+            System.out.println("Nothing to undo.");
+        }
+    }
+
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
+    @Override
+    public String getHelpString() {
+        return "SUMMARY\n"
+                + "	Undoes the last command that changed the data in memory.\n"
+                + "\n"
+                + "SYNTAX\n"
+                + "	UNDO {DEPTH n}\n"
+                + "INPUT\n"
+                + "	DEPTH n:	Set the number of commands that can be undone. 0 turns undo off.\n"
+                + "DEFAULT VALUES\n"
+                + "	UNDO DEPTH 1\n"
+                + "DESCRIPTION\n"
+                + "	Before each command the headers of the files in memory are copied and their data samples are shared, as with CHECKPOINT. If the command leaves the data unchanged this copy is dropped. A macro is undone as a whole. Keeping an undo point costs memory for every file whose samples are later modified, so large data sets may want UNDO DEPTH 0. Batch scripts, including the scripts of sharded workers, start with UNDO DEPTH 0. At the interactive prompt and in background jobs a command that can be cancelled with Ctrl+C or KILL still keeps the copy while it runs, so that cancelling it restores the data, even with UNDO DEPTH 0.\n";
+    }
+
+    @Override
+    public Collection<String> getCommandNames() {
+        String[] names = { "UNDO" };
+        return new ArrayList<>(Arrays.asList(names));
+    }
+}
@@ -35,6 +35,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.Session;
 import gov.llnl.gnem.jsac.commands.AttributeDescriptor;
 import gov.llnl.gnem.jsac.commands.SacCommand;
 import gov.llnl.gnem.jsac.commands.TokenListParser;
@@ -67,7 +68,15 @@ public class AK135SacCommand implements SacCommand {
     }
 
     private final List<String> phaseNames;
-    private static String targetField = "T0";
+    /**
+     * Options that persist between invocations. Each session has its own.
+     */
+    private static class Settings {
+
+        String targetField = "T0";
+    }
+
+    private final Settings settings = Session.current().getSettings(Settings.class, Settings::new);
     private final Map<String, SinglePhaseTraveltimeCalculator> phaseCalculatorMap;
     private static final Collection<String> allowableNames = new ArrayList<>();
     static {
@@ -99,7 +108,7 @@ public class AK135SacCommand implements SacCommand {
         for (String header : refs) {
             List<Object> objs = parsedTokens.remove(header);
             if (objs != null) {
-                targetField = header;
+                settings.targetField = header;
                 break;
             }
         }
@@ -117,7 +126,7 @@ public class AK135SacCommand implements SacCommand {
 
     @Override
     public void execute() {
-        if (!phaseCalculatorMap.isEmpty() && targetField != null) {
+        if (!phaseCalculatorMap.isEmpty() && settings.targetField != null) {
             List<SacTraceData> data = SacDataModel.getInstance().getData();
             for (SacTraceData std : data) {
                 SACHeader hdr = std.getSACHeader();
@@ -129,7 +138,7 @@ public class AK135SacCommand implements SacCommand {
                         if (depth == null) {
                             depth = 15.0; // mid-crustal
                         }
-                        int index = Integer.parseInt(targetField.substring(1));
+                        int index = Integer.parseInt(settings.targetField.substring(1));
                         for (String phase : phaseCalculatorMap.keySet()) {
                             if (index > 9) {
                                 break;
@@ -0,0 +1,158 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.executiveFunction;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gov.llnl.gnem.jsac.commands.AttributeDescriptor;
+import gov.llnl.gnem.jsac.commands.SacCommand;
+import gov.llnl.gnem.jsac.commands.TokenListParser;
+import gov.llnl.gnem.jsac.commands.ValuePossibilities;
+import gov.llnl.gnem.jsac.dataAccess.cache.ResultCache;
+
+/**
+ * Enables, disables, clears, and reports on the on-disk result cache.
+ */
+public class CacheSacCommand implements SacCommand {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheSacCommand.class);
+
+    private static final Path DEFAULT_DIRECTORY = Paths.get(System.getProperty("user.home"), ".jsac", "cache");
+    private static final long DEFAULT_SIZE = 2L << 30;
+
+    private static final List<AttributeDescriptor> descriptors = new ArrayList<>();
+
+    private boolean enable;
+    private boolean disable;
+    private boolean clear;
+    private Path directory;
+    private Long size;
+
+    static {
+        descriptors.add(new AttributeDescriptor("ON", ValuePossibilities.NO_VALUE, null));
+        descriptors.add(new AttributeDescriptor("OFF", ValuePossibilities.NO_VALUE, null));
+        descriptors.add(new AttributeDescriptor("CLEAR", ValuePossibilities.NO_VALUE, null));
+        descriptors.add(new AttributeDescriptor("DIR", ValuePossibilities.ONE_VALUE, String.class));
+        descriptors.add(new AttributeDescriptor("SIZE", ValuePossibilities.ONE_VALUE, String.class));
+    }
+
+    @Override
+    public void initialize(String[] tokens) {
+        directory = null;
+        size = null;
+        Map<String, List<Object>> parsedTokens = TokenListParser.parseTokens(descriptors, tokens);
+        enable = parsedTokens.remove("ON") != null;
+        disable = parsedTokens.remove("OFF") != null;
+        clear = parsedTokens.remove("CLEAR") != null;
+
+        List<Object> values = parsedTokens.remove("DIR");
+        if (values != null && values.size() == 1) {
+            directory = Paths.get((String) values.get(0));
+        }
+
+        values = parsedTokens.remove("SIZE");
+        if (values != null && values.size() == 1) {
+            String tmp = (String) values.get(0);
+            try {
+                size = MemorySacCommand.parseByteCount(tmp);
+            } catch (NumberFormatException ex) {
+                log.warn("Could not interpret ({}) as a byte count!", tmp);
+            }
+        }
+    }
+
+    @Override
+    public void execute() {
+        ResultCache cache = ResultCache.getInstance();
+        if (disable) {
+            cache.disable();
+        } else if (enable || (cache.isEnabled() && (directory != null || size != null))) {
+            Path dir = directory != null ? directory : cache.isEnabled() ? cache.getDirectory() : DEFAULT_DIRECTORY;
+            long maxBytes = size != null ? size : cache.isEnabled() ? cache.getMaxBytes() : DEFAULT_SIZE;
+            try {
+                cache.enable(dir, maxBytes);
+            } catch (IOException ex) {
+                System.out.println(String.format("Could not create cache directory %s: %s", dir, ex.getMessage()));
+                return;
+            }
+        }
+        if (clear) {
+            cache.clear();
+        }
+
+        if (!cache.isEnabled()) {
+            System.out.println("Result cache: OFF");
+            return;
+        }
+        System.out.println(String.format("Result cache: ON (directory %s, limit %s)", cache.getDirectory(), MemorySacCommand.formatByteCount(cache.getMaxBytes())));
+        System.out.println(String.format("Entries: %d using %s", cache.getEntryCount(), MemorySacCommand.formatByteCount(cache.getSizeBytes())));
+        System.out.println(String.format("Hits: %d, misses: %d, loads: %d, stores: %d, evictions: %d", cache.getHitCount(), cache.getMissCount(), cache.getLoadCount(), cache.getStoreCount(), cache.getEvictionCount()));
+    }
+
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
+    @Override
+    public Collection<String> getCommandNames() {
+        String[] names = { "CACHE" };
+        return new ArrayList<>(Arrays.asList(names));
+    }
+
+    @Override
+    public String getHelpString() {
+        return "SUMMARY\n"
+                + "	Controls the on-disk cache of processing results.\n"
+                + "\n"
+                + "SYNTAX\n"
+                + "	CACHE {ON|OFF},{DIR dir},{SIZE v},{CLEAR}\n"
+                + "INPUT\n"
+                + "	ON:	Enable the cache.\n"
+                + "	OFF:	Disable the cache. Entries already stored are kept.\n"
+                + "	DIR dir:	Directory that holds the cache entries.\n"
+                + "	SIZE v:	Limit the total size of the entries to v. v may have a K, M, or G suffix, e.g. 500M.\n"
+                + "	CLEAR:	Delete all entries.\n"
+                + "DEFAULT VALUES\n"
+                + "	CACHE OFF DIR ~/.jsac/cache SIZE 2G\n"
+                + "DESCRIPTION\n"
+                + "	Without options this command reports the state of the cache. While the cache is enabled, the data produced by a chain of commands that starts with READ and continues with any of RMEAN, RTREND, TAPER, TRANSFER, BANDPASS, BANDREJECT, HIGHPASS, LOWPASS, FIRFILTER, DECIMATE, and RESAMPLE are stored when the chain ends, under a key computed from the path, size, and modification time of every input file (including response files) and the parameters of every command in the chain. The chain ends at the next READ, at any other command, or at the end of a batch script. When the same chain is later run over unchanged files, in this or any other session that uses the same directory, the steps whose results are in the cache are skipped and only the last of those results is loaded. The files read by READ are not cached themselves. Any other command that modifies the data ends the chain until the next READ.\n"
+                + "	When the entries take up more than the size limit, the least recently used ones are deleted. Only evenly sampled time series are cached.\n"
+                + "EXAMPLES\n"
+                + "	SAC> CACHE ON SIZE 10G\n"
+                + "	SAC> READ *.BHZ.sac\n"
+                + "	SAC> RMEAN\n"
+                + "	SAC> TRANSFER FROM POLEZERO TO VEL FREQ 0.01 0.02 8 10\n"
+                + "	SAC> BP CO 1 5\n";
+    }
+}
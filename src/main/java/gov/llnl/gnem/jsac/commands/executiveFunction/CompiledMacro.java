@@ -0,0 +1,648 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.executiveFunction;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gov.llnl.gnem.jsac.BatchRunner;
+import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.Session;
+import gov.llnl.gnem.jsac.commands.SacCommand;
+import gov.llnl.gnem.jsac.commands.SacCommandExecutor;
+import gov.llnl.gnem.jsac.commands.SacCommandParser;
+import gov.llnl.gnem.jsac.commands.TokenListParser;
+import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData;
+import gov.llnl.gnem.jsac.util.FileFinder;
+import gov.llnl.gnem.jsac.util.PathManager;
+
+/**
+ * A SAC macro parsed once into a list of instructions. Block statements become
+ * conditional jumps, and command lines with no variables or header references
+ * are tokenized at compile time. Macros read from files are cached and only
+ * compiled again when the file changes, so neither repeated MACRO calls nor
+ * long loops read or tokenize the text again.
+ * <p>
+ * Within a macro:
+ * <ul>
+ * <li>$1$, $2$, ... are the arguments in order. $KEYS name ... declares
+ * keyword arguments, given as "name value" pairs and used as $name$.
+ * $DEFAULT name value gives one a value when it is not passed.</li>
+ * <li>&amp;n,field&amp; is the value of a header field of file n in memory,
+ * counting from 1, or of the file with that name.</li>
+ * <li>DO var LIST v1 v2 ..., DO var FROM a TO b [BY c] and DO var WILD
+ * pattern ... repeat the lines up to ENDDO with $var$ set to each value.
+ * WHILE a op b repeats them while the test holds. BREAK leaves the innermost
+ * loop.</li>
+ * <li>IF a op b [THEN], ELSEIF a op b [THEN], ELSE and ENDIF select lines.
+ * op is LT, LE, GT, GE, EQ or NE. Numbers are compared as numbers and anything else as
+ * text.</li>
+ * </ul>
+ * A command that fails is reported and the macro continues. An error in the
+ * macro itself, such as an unknown variable, stops it.
+ */
+public class CompiledMacro {
+
+    private static final Logger log = LoggerFactory.getLogger(CompiledMacro.class);
+
+    private static final Pattern VARIABLE = Pattern.compile("\\$(\\w+)\\$");
+    private static final Pattern HEADER_VALUE = Pattern.compile("&([^,&\\s]+),(\\w+)&");
+
+    private static final Map<Path, CompiledMacro> compiled = new ConcurrentHashMap<>();
+
+    private final String source;
+    private final FileTime modified;
+    private final List<Instruction> program = new ArrayList<>();
+    private final List<String> keys = new ArrayList<>();
+    private final Map<String, String> defaults = new HashMap<>();
+
+    private CompiledMacro(String source, FileTime modified) {
+        this.source = source;
+        this.modified = modified;
+    }
+
+    /**
+     * Returns the compiled form of a macro file, compiling it if it has not
+     * been seen or has changed since it was compiled.
+     *
+     * @param file The macro file.
+     * @return The compiled macro.
+     * @throws IOException              If the file cannot be read.
+     * @throws IllegalArgumentException If the blocks of the macro do not
+     *                                  match.
+     */
+    public static CompiledMacro compile(Path file) throws IOException {
+        Path key = file.toAbsolutePath().normalize();
+        FileTime modified = Files.getLastModifiedTime(key);
+        CompiledMacro macro = compiled.get(key);
+        if (macro == null || !macro.modified.equals(modified)) {
+            macro = compile(key.toString(), Files.readAllLines(key, StandardCharsets.UTF_8), modified);
+            compiled.put(key, macro);
+        }
+        return macro;
+    }
+
+    /**
+     * Compiles macro text that does not come from a file. The result is not
+     * cached.
+     *
+     * @param source A name for messages.
+     * @param lines  The lines of the macro.
+     * @return The compiled macro.
+     * @throws IllegalArgumentException If the blocks of the macro do not
+     *                                  match.
+     */
+    public static CompiledMacro compile(String source, List<String> lines) {
+        return compile(source, lines, null);
+    }
+
+    private static CompiledMacro compile(String source, List<String> lines, FileTime modified) {
+        CompiledMacro macro = new CompiledMacro(source, modified);
+        Compiler compiler = macro.new Compiler();
+        int lineNumber = 0;
+        for (String line : lines) {
+            ++lineNumber;
+            for (String statement : line.trim().split(";")) {
+                String text = statement.trim();
+                if (BatchRunner.isCommand(text)) {
+                    compiler.add(text, lineNumber);
+                }
+            }
+        }
+        compiler.finish();
+        return macro;
+    }
+
+    /**
+     * @return The number of instructions, for diagnostics.
+     */
+    public int size() {
+        return program.size();
+    }
+
+    /**
+     * Runs the macro in the current session.
+     *
+     * @param arguments The arguments that followed the macro name.
+     */
+    public void run(List<String> arguments) {
+        Run run = new Run(bindArguments(arguments));
+        int pc = 0;
+        while (pc < program.size()) {
+            pc = program.get(pc).execute(run, pc);
+        }
+    }
+
+    private Map<String, String> bindArguments(List<String> arguments) {
+        Map<String, String> variables = new HashMap<>(defaults);
+        for (int j = 0; j < arguments.size(); ++j) {
+            variables.put(Integer.toString(j + 1), arguments.get(j));
+        }
+        Map<String, String> given = new HashMap<>();
+        String key = null;
+        for (String argument : arguments) {
+            String name = argument.toUpperCase();
+            if (keys.contains(name)) {
+                key = name;
+                given.put(key, "");
+            } else if (key != null) {
+                given.merge(key, argument, (value, more) -> value.isEmpty() ? more : value + " " + more);
+            }
+        }
+        variables.putAll(given);
+        return variables;
+    }
+
+    private String location(int line) {
+        return source + ":" + line;
+    }
+
+    /**
+     * Reports a line that failed. The macro goes on with the next line.
+     */
+    private static void fail(String message) {
+        log.warn(message);
+        Session.current().reportError(message);
+    }
+
+    /**
+     * Builds the instruction list, keeping track of the blocks that are open.
+     */
+    private class Compiler {
+
+        private final Deque<Block> blocks = new ArrayDeque<>();
+
+        void add(String text, int line) {
+            String[] words = text.split("\\s+");
+            String keyword = words[0].toUpperCase();
+            List<String> rest = Arrays.asList(words).subList(1, words.length);
+            switch (keyword) {
+            case "$KEYS":
+                rest.forEach(k -> keys.add(k.toUpperCase()));
+                break;
+            case "$DEFAULT":
+                require(rest.size() >= 2, line, "$DEFAULT needs a name and a value");
+                defaults.put(rest.get(0).toUpperCase(), String.join(" ", rest.subList(1, rest.size())));
+                break;
+            case "DO":
+                require(rest.size() >= 3, line, "DO needs a variable, LIST, FROM or WILD, and values");
+                DoLoop loop = new DoLoop(line, rest.get(0).toUpperCase(), rest.get(1).toUpperCase(), String.join(" ", rest.subList(2, rest.size())));
+                require(Arrays.asList("LIST", "FROM", "WILD").contains(loop.kind), line, "DO loops are LIST, FROM or WILD, not " + loop.kind);
+                blocks.push(new Block(keyword, line, program.size()));
+                blocks.peek().loop = loop;
+                program.add(loop);
+                break;
+            case "WHILE":
+                blocks.push(new Block(keyword, line, program.size()));
+                blocks.peek().test = emitTest(rest, line);
+                break;
+            case "ENDDO":
+                closeLoop(line);
+                break;
+            case "BREAK":
+                breakLoop(line);
+                break;
+            case "IF":
+                blocks.push(new Block(keyword, line, program.size()));
+                blocks.peek().test = emitTest(withoutThen(rest), line);
+                break;
+            case "ELSEIF":
+            case "ELSE": {
+                Block block = blocks.peek();
+                require(block != null && block.keyword.equals("IF") && block.test != null, line, keyword + " without IF");
+                Jump exit = new Jump(line);
+                block.exits.add(exit);
+                program.add(exit);
+                block.test.falseTarget = program.size();
+                block.test = keyword.equals("ELSE") ? null : emitTest(withoutThen(rest), line);
+                break;
+            }
+            case "ENDIF": {
+                Block block = blocks.poll();
+                require(block != null && block.keyword.equals("IF"), line, "ENDIF without IF");
+                block.close(program.size());
+                break;
+            }
+            default:
+                program.add(new Command(line, text));
+            }
+        }
+
+        /**
+         * SAC writes IF and ELSEIF tests with a trailing THEN, which is
+         * optional here.
+         */
+        private List<String> withoutThen(List<String> condition) {
+            if (!condition.isEmpty() && condition.get(condition.size() - 1).equalsIgnoreCase("THEN")) {
+                return condition.subList(0, condition.size() - 1);
+            }
+            return condition;
+        }
+
+        private Test emitTest(List<String> condition, int line) {
+            require(!condition.isEmpty(), line, "missing test");
+            Test test = new Test(line, String.join(" ", condition));
+            program.add(test);
+            return test;
+        }
+
+        private void closeLoop(int line) {
+            Block block = blocks.poll();
+            require(block != null && !block.keyword.equals("IF"), line, "ENDDO without DO or WHILE");
+            if (block.keyword.equals("DO")) {
+                program.add(new NextIteration(line, block.start));
+            } else {
+                Jump repeat = new Jump(line);
+                repeat.target = block.start;
+                program.add(repeat);
+            }
+            block.close(program.size());
+        }
+
+        private void breakLoop(int line) {
+            for (Block block : blocks) {
+                if (!block.keyword.equals("IF")) {
+                    Jump exit = block.keyword.equals("DO") ? new LeaveDo(line) : new Jump(line);
+                    block.exits.add(exit);
+                    program.add(exit);
+                    return;
+                }
+            }
+            require(false, line, "BREAK outside a loop");
+        }
+
+        void finish() {
+            Block block = blocks.peek();
+            if (block != null) {
+                throw new IllegalArgumentException(location(block.line) + ": " + block.keyword + " is not closed");
+            }
+        }
+
+        private void require(boolean condition, int line, String message) {
+            if (!condition) {
+                throw new IllegalArgumentException(location(line) + ": " + message);
+            }
+        }
+    }
+
+    private static class Block {
+
+        final String keyword;
+        final int line;
+        final int start;
+        final List<Jump> exits = new ArrayList<>();
+        Test test;
+        DoLoop loop;
+
+        Block(String keyword, int line, int start) {
+            this.keyword = keyword;
+            this.line = line;
+            this.start = start;
+        }
+
+        void close(int end) {
+            if (test != null) {
+                test.falseTarget = end;
+            }
+            if (loop != null) {
+                loop.end = end;
+            }
+            exits.forEach(exit -> exit.target = end);
+        }
+    }
+
+    /**
+     * The state of one run of the macro.
+     */
+    private class Run {
+
+        final Map<String, String> variables;
+        final Deque<Iterator<String>> loops = new ArrayDeque<>();
+        final String[] lastText = new String[program.size()];
+        final String[][] lastTokens = new String[program.size()][];
+
+        Run(Map<String, String> variables) {
+            this.variables = variables;
+        }
+
+        String substitute(String text, int line) {
+            if (text.indexOf('$') >= 0) {
+                text = replace(VARIABLE, text, m -> {
+                    String value = variables.get(m.group(1).toUpperCase());
+                    if (value == null) {
+                        throw new IllegalStateException(location(line) + ": $" + m.group(1) + "$ has no value");
+                    }
+                    return value;
+                });
+            }
+            if (text.indexOf('&') >= 0) {
+                text = replace(HEADER_VALUE, text, m -> headerValue(m.group(1), m.group(2), line));
+            }
+            return text;
+        }
+
+        private String headerValue(String file, String field, int line) {
+            List<SacTraceData> data = SacDataModel.getInstance().getData();
+            SacTraceData std = null;
+            if (NumberUtils.isDigits(file)) {
+                int index = Integer.parseInt(file) - 1;
+                std = index >= 0 && index < data.size() ? data.get(index) : null;
+            } else {
+                for (SacTraceData candidate : data) {
+                    Path name = candidate.getFilename().getFileName();
+                    if (name != null && name.toString().equals(file)) {
+                        std = candidate;
+                        break;
+                    }
+                }
+            }
+            if (std == null) {
+                throw new IllegalStateException(location(line) + ": no file " + file + " in memory");
+            }
+            Object value = std.getSACHeader().getValue(field);
+            if (value == null) {
+                throw new IllegalStateException(location(line) + ": " + field + " is not a header field or is not set in file " + file);
+            }
+            return value.toString().trim();
+        }
+    }
+
+    private static String replace(Pattern pattern, String text, Function<Matcher, String> replacer) {
+        Matcher matcher = pattern.matcher(text);
+        StringBuffer result = new StringBuffer();
+        while (matcher.find()) {
+            matcher.appendReplacement(result, Matcher.quoteReplacement(replacer.apply(matcher)));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    private abstract static class Instruction {
+
+        final int line;
+
+        Instruction(int line) {
+            this.line = line;
+        }
+
+        /**
+         * @return The index of the next instruction to run.
+         */
+        abstract int execute(Run run, int pc);
+    }
+
+    private class Command extends Instruction {
+
+        private final String text;
+        private final String[] tokens;
+
+        Command(int line, String text) {
+            super(line);
+            this.text = text;
+            boolean fixed = text.indexOf('$') < 0 && text.indexOf('&') < 0;
+            tokens = fixed ? TokenListParser.tokenizeString(text) : null;
+        }
+
+        @Override
+        int execute(Run run, int pc) {
+            String[] commandTokens = tokens;
+            String expanded = text;
+            if (commandTokens == null) {
+                expanded = run.substitute(text, line);
+                // Lines that do not change between loop passes are tokenized once.
+                if (!expanded.equals(run.lastText[pc])) {
+                    run.lastText[pc] = expanded;
+                    run.lastTokens[pc] = TokenListParser.tokenizeString(expanded);
+                }
+                commandTokens = run.lastTokens[pc];
+            }
+            try {
+                SacCommand command = SacCommandParser.getInstance().createCommand(commandTokens);
+                if (command == null) {
+                    fail(String.format("%s: unrecognized command: %s", location(line), expanded));
+                } else {
+                    SacCommandExecutor.getInstance().executeCommand(command);
+                }
+            } catch (CancellationException ex) {
+                throw ex;
+            } catch (Exception ex) {
+                fail(String.format("%s: failed command: %s: %s", location(line), expanded, ex.getMessage()));
+            }
+            return pc + 1;
+        }
+    }
+
+    private class Test extends Instruction {
+
+        private final String condition;
+        int falseTarget;
+
+        Test(int line, String condition) {
+            super(line);
+            this.condition = condition;
+        }
+
+        @Override
+        int execute(Run run, int pc) {
+            return holds(run) ? pc + 1 : falseTarget;
+        }
+
+        private boolean holds(Run run) {
+            String[] words = TokenListParser.tokenizeString(run.substitute(condition, line));
+            if (words.length != 3) {
+                throw new IllegalStateException(location(line) + ": a test must be 'value op value', not '" + String.join(" ", words) + "'");
+            }
+            int comparison;
+            if (NumberUtils.isParsable(words[0]) && NumberUtils.isParsable(words[2])) {
+                comparison = Double.compare(Double.parseDouble(words[0]), Double.parseDouble(words[2]));
+            } else {
+                comparison = words[0].compareTo(words[2]);
+            }
+            switch (words[1].toUpperCase()) {
+            case "LT":
+                return comparison < 0;
+            case "LE":
+                return comparison <= 0;
+            case "GT":
+                return comparison > 0;
+            case "GE":
+                return comparison >= 0;
+            case "EQ":
+                return comparison == 0;
+            case "NE":
+                return comparison != 0;
+            default:
+                throw new IllegalStateException(location(line) + ": unknown test " + words[1]);
+            }
+        }
+    }
+
+    private static class Jump extends Instruction {
+
+        int target;
+
+        Jump(int line) {
+            super(line);
+        }
+
+        @Override
+        int execute(Run run, int pc) {
+            return target;
+        }
+    }
+
+    /**
+     * BREAK out of a DO loop, which also drops the loop's values.
+     */
+    private static class LeaveDo extends Jump {
+
+        LeaveDo(int line) {
+            super(line);
+        }
+
+        @Override
+        int execute(Run run, int pc) {
+            run.loops.pop();
+            return target;
+        }
+    }
+
+    private class DoLoop extends Instruction {
+
+        private final String variable;
+        private final String kind;
+        private final String values;
+        int end;
+
+        DoLoop(int line, String variable, String kind, String values) {
+            super(line);
+            this.variable = variable;
+            this.kind = kind;
+            this.values = values;
+        }
+
+        @Override
+        int execute(Run run, int pc) {
+            Iterator<String> iterator = expand(run).iterator();
+            run.loops.push(iterator);
+            return advance(run) ? pc + 1 : end(run);
+        }
+
+        boolean advance(Run run) {
+            Iterator<String> iterator = run.loops.peek();
+            if (iterator.hasNext()) {
+                run.variables.put(variable, iterator.next());
+                return true;
+            }
+            return false;
+        }
+
+        private int end(Run run) {
+            run.loops.pop();
+            return end;
+        }
+
+        private List<String> expand(Run run) {
+            String[] words = TokenListParser.tokenizeString(run.substitute(values, line));
+            List<String> result = new ArrayList<>();
+            switch (kind) {
+            case "LIST":
+                result.addAll(Arrays.asList(words));
+                break;
+            case "WILD":
+                Path dir = PathManager.getInstance().getCurrentDir();
+                for (String pattern : words) {
+                    new FileFinder(dir, pattern).findMatches().forEach(p -> result.add(p.toString()));
+                }
+                break;
+            default:
+                result.addAll(range(words));
+            }
+            return result;
+        }
+
+        private List<String> range(String[] words) {
+            boolean valid = (words.length == 3 || words.length == 5) && words[1].equalsIgnoreCase("TO") && (words.length == 3 || words[3].equalsIgnoreCase("BY"));
+            for (int j = 0; valid && j < words.length; j += 2) {
+                valid = NumberUtils.isParsable(words[j]);
+            }
+            if (!valid) {
+                throw new IllegalStateException(location(line) + ": expected DO " + variable + " FROM a TO b [BY c]");
+            }
+            double from = Double.parseDouble(words[0]);
+            double to = Double.parseDouble(words[2]);
+            double by = words.length == 5 ? Double.parseDouble(words[4]) : 1.0;
+            if (by == 0 || (to - from) / by < 0) {
+                return new ArrayList<>();
+            }
+            boolean integral = from == Math.rint(from) && by == Math.rint(by);
+            List<String> result = new ArrayList<>();
+            long count = (long) Math.floor((to - from) / by + 1e-9) + 1;
+            for (long j = 0; j < count; ++j) {
+                double value = from + j * by;
+                result.add(integral ? Long.toString(Math.round(value)) : Double.toString(value));
+            }
+            return result;
+        }
+    }
+
+    private class NextIteration extends Instruction {
+
+        private final int start;
+
+        NextIteration(int line, int start) {
+            super(line);
+            this.start = start;
+        }
+
+        @Override
+        int execute(Run run, int pc) {
+            DoLoop loop = (DoLoop) program.get(start);
+            if (loop.advance(run)) {
+                return start + 1;
+            }
+            run.loops.pop();
+            return pc + 1;
+        }
+    }
+}
@@ -71,6 +71,11 @@ public class HelpSacCommand implements SacCommand {
         }
     }
 
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
     @Override
     public Collection<String> getCommandNames() {
         String[] names = { "HELP", "H" };
@@ -48,6 +48,11 @@ public class HistorySacCommand implements SacCommand {
         }
     }
 
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
     @Override
     public Collection<String> getCommandNames() {
         String[] names = {"H", "HISTORY"};
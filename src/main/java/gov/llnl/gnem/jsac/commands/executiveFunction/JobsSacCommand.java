@@ -0,0 +1,94 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.executiveFunction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import gov.llnl.gnem.jsac.JobTable;
+import gov.llnl.gnem.jsac.JobTable.Job;
+import gov.llnl.gnem.jsac.Session;
+import gov.llnl.gnem.jsac.commands.SacCommand;
+
+/**
+ * Lists the background jobs of the session with their progress.
+ */
+public class JobsSacCommand implements SacCommand {
+
+    @Override
+    public void initialize(String[] tokens) {
+        if (tokens.length > 1) {
+            throw new IllegalArgumentException("JOBS takes no options!");
+        }
+    }
+
+    @Override
+    public void execute() {
+        JobTable table = Session.current().getJobs();
+        List<Job> jobs = table.list();
+        if (jobs.isEmpty()) {
+            System.out.println("No jobs.");
+            return;
+        }
+        for (Job job : jobs) {
+            System.out.println(job.describe());
+        }
+        table.removeFinished();
+    }
+
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
+    @Override
+    public boolean isJobControl() {
+        return true;
+    }
+
+    @Override
+    public Collection<String> getCommandNames() {
+        String[] names = { "JOBS" };
+        return new ArrayList<>(Arrays.asList(names));
+    }
+
+    @Override
+    public String getHelpString() {
+        return "SUMMARY\n"
+                + "	Lists the commands running in the background.\n"
+                + "\n"
+                + "SYNTAX\n"
+                + "	JOBS\n"
+                + "DESCRIPTION\n"
+                + "	A command line ending in & runs as a background job and the prompt returns at once. Jobs and the commands typed after them take turns on the data in memory, in the order they were entered, so a command typed while a job is running waits for it.\n"
+                + "	JOBS prints one line per job with its number, state (RUNNING, DONE, FAILED or CANCELLED), elapsed time and command. Running jobs also show the traces done in the current pass, the rate in traces per second and the estimated time left. Finished jobs are listed once and then forgotten.\n"
+                + "	See WAIT and KILL.\n"
+                + "EXAMPLES\n"
+                + "		SAC> TRANSFER FROM EVALRESP TO VEL FREQ 0.01 0.02 8 10 &\n"
+                + "		[1] TRANSFER FROM EVALRESP TO VEL FREQ 0.01 0.02 8 10\n"
+                + "		SAC> JOBS\n"
+                + "		[1] RUNNING       1:05  TRANSFER FROM EVALRESP TO VEL FREQ 0.01 0.02 8 10  (312/1200 traces, 4.8 traces/s, ETA 3:05)\n";
+    }
+}
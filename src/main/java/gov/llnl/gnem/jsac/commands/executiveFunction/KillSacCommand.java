@@ -0,0 +1,117 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.executiveFunction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import gov.llnl.gnem.jsac.JobTable;
+import gov.llnl.gnem.jsac.JobTable.Job;
+import gov.llnl.gnem.jsac.JobTable.State;
+import gov.llnl.gnem.jsac.Session;
+import gov.llnl.gnem.jsac.commands.SacCommand;
+
+/**
+ * Cancels background jobs of the session.
+ */
+public class KillSacCommand implements SacCommand {
+
+    private final List<Integer> jobIds = new ArrayList<>();
+    private boolean all;
+
+    @Override
+    public void initialize(String[] tokens) {
+        jobIds.clear();
+        all = false;
+        if (tokens.length == 2 && tokens[1].equalsIgnoreCase("ALL")) {
+            all = true;
+            return;
+        }
+        if (tokens.length < 2) {
+            throw new IllegalArgumentException("KILL requires a job number or ALL!");
+        }
+        for (int j = 1; j < tokens.length; ++j) {
+            jobIds.add(WaitSacCommand.parseJobId(tokens[j]));
+        }
+    }
+
+    @Override
+    public void execute() {
+        JobTable table = Session.current().getJobs();
+        List<Job> jobs = new ArrayList<>();
+        if (all) {
+            jobs.addAll(table.list());
+        } else {
+            for (int id : jobIds) {
+                Job job = table.get(id);
+                if (job == null) {
+                    System.out.println("No job " + id);
+                } else {
+                    jobs.add(job);
+                }
+            }
+        }
+        for (Job job : jobs) {
+            if (job.getState() == State.RUNNING) {
+                job.getMonitor().cancel();
+                System.out.println(String.format("[%d] cancelling %s", job.getId(), job.getCommandLine()));
+            }
+        }
+    }
+
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
+    @Override
+    public boolean isJobControl() {
+        return true;
+    }
+
+    @Override
+    public Collection<String> getCommandNames() {
+        String[] names = { "KILL" };
+        return new ArrayList<>(Arrays.asList(names));
+    }
+
+    @Override
+    public String getHelpString() {
+        return "SUMMARY\n"
+                + "	Cancels background jobs.\n"
+                + "\n"
+                + "SYNTAX\n"
+                + "	KILL n {n ...}|ALL\n"
+                + "INPUT\n"
+                + "	n:	The number of a job, as shown by JOBS.\n"
+                + "	ALL:	Cancel every running job.\n"
+                + "DESCRIPTION\n"
+                + "	Cancellation is cooperative: traces already being processed are finished, no further traces are started, and the data in memory are then returned to their state before the job started. A job that is still waiting for its turn is removed without running. The job is reported as CANCELLED when it has stopped.\n"
+                + "	Ctrl+C cancels the command running in the foreground in the same way. Pressing it again while that command is stopping, or pressing it at the prompt, exits JSAC.\n"
+                + "EXAMPLES\n"
+                + "		SAC> KILL 2\n"
+                + "		[2] cancelling TRANSFER FROM EVALRESP TO VEL FREQ 0.01 0.02 8 10\n";
+    }
+}
@@ -23,23 +23,18 @@
 
 package gov.llnl.gnem.jsac.commands.executiveFunction;
 
-import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
-
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import gov.llnl.gnem.jsac.commands.AttributeDescriptor;
 import gov.llnl.gnem.jsac.commands.SacCommand;
-import gov.llnl.gnem.jsac.commands.SacCommandExecutor;
-import gov.llnl.gnem.jsac.commands.SacCommandParser;
 import gov.llnl.gnem.jsac.commands.TokenListParser;
+import gov.llnl.gnem.jsac.util.PathManager;
 
 /**
  *
@@ -47,9 +42,8 @@ import gov.llnl.gnem.jsac.commands.TokenListParser;
  */
 public class MacroSacCommand implements SacCommand {
 
-    private static final Logger log = LoggerFactory.getLogger(MacroSacCommand.class);
-
     private String macroFileName = null;
+    private final List<String> arguments = new ArrayList<>();
     private static final List<AttributeDescriptor> descriptors = new ArrayList<>();
 
     @Override
@@ -58,28 +52,27 @@ public class MacroSacCommand implements SacCommand {
         if (parsedTokens.isEmpty()) {
             return;
         }
-        List<Object> arguments = parsedTokens.get(TokenListParser.LEFT_OVER_TOKENS);
-        macroFileName = (String) arguments.get(0);
+        List<Object> values = parsedTokens.get(TokenListParser.LEFT_OVER_TOKENS);
+        macroFileName = (String) values.get(0);
+        for (int j = 1; j < values.size(); ++j) {
+            arguments.add(values.get(j).toString());
+        }
     }
 
+    /**
+     * @throws IllegalStateException    If the macro file does not exist.
+     * @throws IllegalArgumentException If the macro has a syntax error.
+     * @throws UncheckedIOException     If the macro file cannot be read.
+     */
     @Override
     public void execute() {
-        try (Scanner scanner = new Scanner(new File(macroFileName))) {
-            while (scanner.hasNextLine()) {
-                String text = scanner.nextLine().trim();
-                SacCommand command = SacCommandParser.getInstance().parseCommandLine(text);
-                if (command != null) {
-                    try {
-                        SacCommandExecutor.getInstance().executeCommand(command);
-                    } catch (Exception ex) {
-                        log.warn("Failed command: " + text);
-                    }
-                }
-
-            }
-        } catch (FileNotFoundException ex) {
-            log.warn("File not found: " + macroFileName);
+        CompiledMacro macro;
+        try {
+            macro = CompiledMacro.compile(PathManager.getInstance().resolveAndValidateFile(macroFileName));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot read macro " + macroFileName + ": " + ex.getMessage(), ex);
         }
+        macro.run(arguments);
     }
 
     @Override
@@ -97,6 +90,37 @@ public class MacroSacCommand implements SacCommand {
                 + "	MACRO name {arguments}\n"
                 + "INPUT\n"
                 + "	name:	The name of the SAC macro to execute.\n"
-                + "	arguments:	The arguments (if any) of the macro.";
+                + "	arguments:	The arguments (if any) of the macro.\n"
+                + "\n"
+                + "DESCRIPTION\n"
+                + "	A macro is compiled the first time it is run and again only when the file changes.\n"
+                + "	Commands may be separated by ';'. Lines starting with '*' are comments.\n"
+                + "\n"
+                + "	$1$, $2$, ...		The arguments in order.\n"
+                + "	$KEYS name ...		Declares keyword arguments, passed as: MACRO file name value ... and used as $name$.\n"
+                + "	$DEFAULT name value	The value of a keyword argument that is not passed.\n"
+                + "	&n,field&		The value of a header field of file n in memory (from 1), or of the file with that name.\n"
+                + "	DO var LIST v1 v2 ...	Repeats the lines up to ENDDO with $var$ set to each value in turn.\n"
+                + "	DO var FROM a TO b [BY c]\n"
+                + "	DO var WILD pattern ...	Loops over the files that match the patterns.\n"
+                + "	WHILE a op b		Repeats the lines up to ENDDO while the test holds.\n"
+                + "	BREAK			Leaves the innermost loop.\n"
+                + "	IF a op b [THEN] / ELSEIF a op b [THEN] / ELSE / ENDIF\n"
+                + "				Runs the lines of the first branch whose test holds. op is LT, LE, GT, GE, EQ or NE.\n"
+                + "				Values that are numbers are compared as numbers, others as text.\n"
+                + "\n"
+                + "	A command that fails is reported and the macro continues, but a batch run of the\n"
+                + "	macro ends with a failure status.\n"
+                + "\n"
+                + "EXAMPLES\n"
+                + "	$KEYS FREQ\n"
+                + "	$DEFAULT FREQ 2\n"
+                + "	DO file WILD *.BHZ.sac\n"
+                + "	  READ $file$\n"
+                + "	  IF &1,DEPMAX& GT 0.5\n"
+                + "	    LOWPASS CORNER $FREQ$\n"
+                + "	  ENDIF\n"
+                + "	  WRITE OVER\n"
+                + "	ENDDO";
     }
 }
@@ -0,0 +1,205 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.executiveFunction;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gov.llnl.gnem.jsac.FileMapper;
+import gov.llnl.gnem.jsac.FileMapper.Grouping;
+import gov.llnl.gnem.jsac.commands.AttributeDescriptor;
+import gov.llnl.gnem.jsac.commands.SacCommand;
+import gov.llnl.gnem.jsac.commands.TokenListParser;
+import gov.llnl.gnem.jsac.commands.ValuePossibilities;
+import gov.llnl.gnem.jsac.io.SACDataEncoding;
+import gov.llnl.gnem.jsac.util.FileFinder;
+import gov.llnl.gnem.jsac.util.FileUtil;
+import gov.llnl.gnem.jsac.util.PathManager;
+
+/**
+ * Runs a macro separately on each file (or each stream) of a file list, using
+ * a fixed number of workers that each have their own data model.
+ */
+public class MapFilesSacCommand implements SacCommand {
+
+    private static final Logger log = LoggerFactory.getLogger(MapFilesSacCommand.class);
+
+    private static final List<AttributeDescriptor> descriptors = new ArrayList<>();
+
+    private int workers;
+    private Grouping grouping;
+    private SACDataEncoding encoding;
+    private String requestedDir;
+    private String macroFileName;
+    private final List<String> patterns;
+
+    static {
+        descriptors.add(new AttributeDescriptor("WORKERS", ValuePossibilities.ONE_VALUE, Integer.class));
+        descriptors.add(new AttributeDescriptor("GROUP", ValuePossibilities.ONE_VALUE, String.class));
+    }
+
+    public MapFilesSacCommand() {
+        patterns = new ArrayList<>();
+    }
+
+    @Override
+    public void initialize(String[] tokens) {
+        workers = Runtime.getRuntime().availableProcessors();
+        grouping = Grouping.FILE;
+        encoding = SACDataEncoding.BINARY;
+        requestedDir = null;
+        macroFileName = null;
+        patterns.clear();
+
+        Map<String, List<Object>> parsedTokens = TokenListParser.parseTokens(descriptors, tokens);
+
+        List<Object> values = parsedTokens.remove("WORKERS");
+        if (values != null && values.size() == 1) {
+            int tmp = (Integer) values.get(0);
+            if (tmp > 0) {
+                workers = tmp;
+            } else {
+                log.warn("WORKERS must be positive! Using {}.", workers);
+            }
+        }
+
+        values = parsedTokens.remove("GROUP");
+        if (values != null && values.size() == 1) {
+            String tmp = (String) values.get(0);
+            try {
+                grouping = Grouping.valueOf(tmp.toUpperCase());
+            } catch (IllegalArgumentException ex) {
+                log.warn("Unrecognized grouping ({})! Valid values are FILE or STREAM.", tmp);
+            }
+        }
+
+        List<Object> leftOver = parsedTokens.remove(TokenListParser.LEFT_OVER_TOKENS);
+        if (leftOver == null) {
+            return;
+        }
+        List<String> mytokens = new ArrayList<>();
+        leftOver.forEach(t -> mytokens.add((String) t));
+        encoding = FileUtil.maybeGetDataEncodingList(mytokens);
+        requestedDir = FileUtil.maybeGetRequestedDir(mytokens);
+        if (requestedDir == null) {
+            requestedDir = PathManager.getInstance().getCurrentDir().toString();
+        }
+        if (!mytokens.isEmpty()) {
+            macroFileName = mytokens.remove(0);
+            patterns.addAll(mytokens);
+        }
+    }
+
+    @Override
+    public void execute() {
+        if (macroFileName == null || patterns.isEmpty()) {
+            System.out.println("MAPFILES requires a macro and at least one file!");
+            return;
+        }
+        CompiledMacro macro;
+        try {
+            macro = CompiledMacro.compile(PathManager.getInstance().resolveAndValidateFile(macroFileName));
+        } catch (IllegalStateException | IllegalArgumentException | IOException ex) {
+            System.out.println("Cannot read macro " + macroFileName + ": " + ex.getMessage());
+            return;
+        }
+
+        List<Path> files = new ArrayList<>();
+        for (String pattern : patterns) {
+            files.addAll(new FileFinder(Paths.get(requestedDir), pattern).findMatches());
+        }
+        if (files.isEmpty()) {
+            System.out.println("No files matched!");
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        try {
+            FileMapper.Result result = new FileMapper(macro, Collections.emptyList(), workers, grouping, encoding).map(files);
+            double elapsed = (System.currentTimeMillis() - start) / 1000.0;
+            System.out.println(String.format("MAPFILES processed %d files in %d units with %d workers in %4.1f seconds (%d units failed)",
+                    result.getFiles(), result.getUnits(), workers, elapsed, result.getFailedUnits()));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            System.out.println("MAPFILES interrupted!");
+        }
+    }
+
+    @Override
+    public boolean isUndoable() {
+        // Works on private data models; the data in memory is not changed.
+        return false;
+    }
+
+    @Override
+    public Collection<String> getCommandNames() {
+        String[] names = { "MAPFILES" };
+        return new ArrayList<>(Arrays.asList(names));
+    }
+
+    @Override
+    public String getHelpString() {
+        return "SUMMARY\n"
+                + "Runs a macro independently on each file of a file list, several files at a time.\n"
+                + "\n"
+                + "SYNTAX\n"
+                + "	MAPFILES [WORKERS n] [GROUP FILE|STREAM] [ALPHA] [DIR name] macro filelist\n"
+                + "\n"
+                + "INPUT\n"
+                + "	WORKERS n:	The number of files (or streams) processed at the same time.\n"
+                + "	GROUP FILE:	Run the macro once per file.\n"
+                + "	GROUP STREAM:	Read all files with the same network, station, channel and location together and run the macro once per stream.\n"
+                + "	ALPHA:	The files are SAC alphanumeric files. Streams cannot be grouped for these.\n"
+                + "	DIR name:	Find the files in this directory instead of the current directory.\n"
+                + "	macro:	The macro to run. It should process the data in memory and write the results.\n"
+                + "	filelist:	One or more file names or wildcard patterns.\n"
+                + "\n"
+                + "DEFAULT VALUES\n"
+                + "	MAPFILES WORKERS <number of processors> GROUP FILE\n"
+                + "\n"
+                + "DESCRIPTION\n"
+                + "	Each worker reads its files into a private data model, runs the macro on them and discards them before\n"
+                + "	taking the next file, so memory use depends on the number of workers rather than on the number of files.\n"
+                + "	Files are read only when a worker takes them. The data in memory before MAPFILES is not changed.\n"
+                + "	The macro may use DO, WHILE and IF blocks and header references such as &1,NPTS&, as with MACRO.\n"
+                + "	A command that fails is reported and the macro goes on, as with MACRO, but the file counts as failed.\n"
+                + "	A file whose macro fails does not stop the others; the number of failures is reported at the end.\n"
+                + "	Each worker has its own session, so command settings that persist between invocations (for example\n"
+                + "	the CUT window) start at their defaults in every worker. The macro should set any it depends on.\n"
+                + "\n"
+                + "EXAMPLES\n"
+                + "	MAPFILES WORKERS 8 DIR /data/raw prep.m *.BHZ.sac\n"
+                + "	where prep.m contains\n"
+                + "	RMEAN; TAPER; BANDPASS CORNERS 1 5; WRITE DIR /data/prep";
+    }
+}
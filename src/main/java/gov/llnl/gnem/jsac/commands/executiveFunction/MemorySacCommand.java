@@ -0,0 +1,245 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.executiveFunction;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.Session;
+import gov.llnl.gnem.jsac.commands.AttributeDescriptor;
+import gov.llnl.gnem.jsac.commands.SacCommand;
+import gov.llnl.gnem.jsac.commands.TokenListParser;
+import gov.llnl.gnem.jsac.commands.ValuePossibilities;
+import gov.llnl.gnem.jsac.commands.dataFile.AdmissionPolicy;
+import gov.llnl.gnem.jsac.commands.dataFile.ReadEstimate;
+import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData;
+import gov.llnl.gnem.jsac.dataAccess.storage.MemoryBudget;
+import gov.llnl.gnem.jsac.dataAccess.storage.OffHeapArena;
+import gov.llnl.gnem.jsac.dataAccess.storage.StorageMode;
+
+/**
+ * Reports how trace samples are held in memory and controls the memory budget
+ * beyond which traces are spilled to scratch files.
+ */
+public class MemorySacCommand implements SacCommand {
+
+    private static final Logger log = LoggerFactory.getLogger(MemorySacCommand.class);
+
+    /**
+     * Options that persist between invocations. Each session has its own.
+     */
+    private static class Settings {
+
+        Path scratchDirectory = Paths.get(System.getProperty("java.io.tmpdir"));
+    }
+
+    private final Settings settings = Session.current().getSettings(Settings.class, Settings::new);
+    private static final List<AttributeDescriptor> descriptors = new ArrayList<>();
+
+    private Long requestedBudget;
+    private boolean disableBudget;
+    private boolean scratchChanged;
+    private boolean listTraces;
+
+    static {
+        descriptors.add(new AttributeDescriptor("BUDGET", ValuePossibilities.ONE_VALUE, String.class));
+        descriptors.add(new AttributeDescriptor("SCRATCH", ValuePossibilities.ONE_VALUE, String.class));
+        descriptors.add(new AttributeDescriptor("ADMISSION", ValuePossibilities.ONE_VALUE, String.class));
+        descriptors.add(new AttributeDescriptor("LIST", ValuePossibilities.NO_VALUE, null));
+    }
+
+    @Override
+    public void initialize(String[] tokens) {
+        requestedBudget = null;
+        disableBudget = false;
+        scratchChanged = false;
+        listTraces = false;
+
+        Map<String, List<Object>> parsedTokens = TokenListParser.parseTokens(descriptors, tokens);
+
+        List<Object> values = parsedTokens.remove("BUDGET");
+        if (values != null && values.size() == 1) {
+            String tmp = (String) values.get(0);
+            if (tmp.equalsIgnoreCase("OFF")) {
+                disableBudget = true;
+            } else {
+                try {
+                    requestedBudget = parseByteCount(tmp);
+                } catch (NumberFormatException ex) {
+                    log.warn("Could not interpret ({}) as a byte count!", tmp);
+                }
+            }
+        }
+
+        values = parsedTokens.remove("SCRATCH");
+        if (values != null && values.size() == 1) {
+            Path tmp = Paths.get((String) values.get(0));
+            if (Files.isDirectory(tmp) && Files.isWritable(tmp)) {
+                settings.scratchDirectory = tmp;
+                scratchChanged = true;
+            } else {
+                log.warn("Scratch directory ({}) does not exist or is not writable!", tmp);
+            }
+        }
+
+        values = parsedTokens.remove("ADMISSION");
+        if (values != null && values.size() == 1) {
+            String tmp = (String) values.get(0);
+            try {
+                ReadEstimate.setPolicy(AdmissionPolicy.valueOf(tmp.toUpperCase()));
+            } catch (IllegalArgumentException ex) {
+                log.warn("Unrecognized admission policy ({})! Valid values are REFUSE, WARN, or SPILL.", tmp);
+            }
+        }
+
+        listTraces = parsedTokens.remove("LIST") != null;
+    }
+
+    @Override
+    public void execute() {
+        SacDataModel model = SacDataModel.getInstance();
+        if (disableBudget) {
+            if (model.getStorageMode() == StorageMode.SPILL) {
+                model.setStorageMode(StorageMode.HEAP);
+            }
+        } else if (requestedBudget != null) {
+            model.setMemoryBudget(requestedBudget, settings.scratchDirectory);
+        } else if (scratchChanged && model.getMemoryBudget() != null) {
+            model.setMemoryBudget(model.getMemoryBudget().getBudgetBytes(), settings.scratchDirectory);
+        }
+
+        System.out.println(String.format("Storage mode: %s, read admission: %s", model.getStorageMode(), ReadEstimate.getPolicy()));
+        List<SacTraceData> data = model.getData();
+        MemoryBudget budget = model.getMemoryBudget();
+        if (budget != null) {
+            System.out.println(String.format("Budget:   %s (scratch directory %s)", formatByteCount(budget.getBudgetBytes()), budget.getScratchDirectory()));
+            System.out.println(String.format("Resident: %s in %d traces", formatByteCount(budget.getResidentBytes()), budget.getResidentCount()));
+            System.out.println(String.format("Spilled:  %s in %d traces", formatByteCount(budget.getSpilledBytes()), budget.getSpilledCount()));
+            System.out.println(String.format("Spills:   %d, faults: %d", budget.getSpillCount(), budget.getFaultCount()));
+        } else {
+            long total = data.stream().mapToLong(SacTraceData::getSampleBytes).sum();
+            System.out.println(String.format("Resident: %s in %d traces", formatByteCount(total), data.size()));
+            if (model.getStorage() instanceof OffHeapArena) {
+                OffHeapArena arena = (OffHeapArena) model.getStorage();
+                System.out.println(String.format("Off-heap: %s reserved in %d segments, %s allocated",
+                        formatByteCount(arena.getReservedBytes()), arena.getSegmentCount(), formatByteCount(arena.getAllocatedBytes())));
+            }
+        }
+
+        if (listTraces) {
+            int j = 1;
+            for (SacTraceData std : data) {
+                System.out.println(String.format("%4d\t%-10s %10s\t%s", j++, std.isSampleDataResident() ? "resident" : "spilled", formatByteCount(std.getSampleBytes()), std.getFilename()));
+            }
+        }
+    }
+
+    /**
+     * Parses a byte count with an optional K, M, or G suffix (powers of 1024).
+     *
+     * @param value The string to parse, e.g. 512M.
+     * @return The number of bytes.
+     */
+    public static long parseByteCount(String value) {
+        String tmp = value.trim().toUpperCase();
+        long multiplier = 1;
+        if (tmp.endsWith("B")) {
+            tmp = tmp.substring(0, tmp.length() - 1);
+        }
+        if (tmp.endsWith("K")) {
+            multiplier = 1L << 10;
+        } else if (tmp.endsWith("M")) {
+            multiplier = 1L << 20;
+        } else if (tmp.endsWith("G")) {
+            multiplier = 1L << 30;
+        }
+        if (multiplier > 1) {
+            tmp = tmp.substring(0, tmp.length() - 1);
+        }
+        double result = Double.parseDouble(tmp) * multiplier;
+        if (result < 0) {
+            throw new NumberFormatException("Negative byte count: " + value);
+        }
+        return (long) result;
+    }
+
+    public static String formatByteCount(long bytes) {
+        if (bytes < 1L << 10) {
+            return String.format("%d B", bytes);
+        } else if (bytes < 1L << 20) {
+            return String.format("%.1f KB", bytes / 1024.0);
+        } else if (bytes < 1L << 30) {
+            return String.format("%.1f MB", bytes / (1024.0 * 1024));
+        }
+        return String.format("%.2f GB", bytes / (1024.0 * 1024 * 1024));
+    }
+
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
+    @Override
+    public Collection<String> getCommandNames() {
+        String[] names = { "MEMORY" };
+        return new ArrayList<>(Arrays.asList(names));
+    }
+
+    @Override
+    public String getHelpString() {
+        return "SUMMARY\n"
+                + "	Reports memory used by trace samples and controls the memory budget.\n"
+                + "\n"
+                + "SYNTAX\n"
+                + "	MEMORY {BUDGET v|OFF},{SCRATCH dir},{ADMISSION REFUSE|WARN|SPILL},{LIST}\n"
+                + "INPUT\n"
+                + "	BUDGET v:	Limit the sample bytes held in memory to v. v may have a K, M, or G suffix, e.g. 512M.\n"
+                + "	BUDGET OFF:	Remove the budget and hold all samples in memory.\n"
+                + "	SCRATCH dir:	Directory in which spill files are created.\n"
+                + "	ADMISSION REFUSE:	Refuse reads whose estimated size exceeds the available memory.\n"
+                + "	ADMISSION WARN:	Warn about such reads but proceed.\n"
+                + "	ADMISSION SPILL:	Switch to a memory budget (three quarters of the maximum heap) before such reads.\n"
+                + "	LIST:	Also list the size and residency of each trace.\n"
+                + "DEFAULT VALUES\n"
+                + "	MEMORY BUDGET OFF SCRATCH (system temporary directory) ADMISSION WARN\n"
+                + "DESCRIPTION\n"
+                + "	Without options this command reports the storage mode, the number of sample bytes held in memory and, when a budget is active, the bytes spilled to disk along with the number of spills and faults. When a budget is set, the least recently used traces are written to memory-mapped scratch files whenever the budget is exceeded. A spilled trace is read back into memory (a fault) the next time it is modified; read-only operations use the mapped file directly. The scratch files are removed automatically.\n"
+                + "	Before loading any data, READ, READCSS, and READMSEED estimate the memory required from the SAC headers, wfdisc rows, or miniSEED record headers. If the estimate exceeds the available memory the ADMISSION policy decides whether the read proceeds. The estimate and the actual figures are included in the read summary.\n"
+                + "EXAMPLES\n"
+                + "	To keep at most 2 gigabytes of samples in memory:\n"
+                + "\n"
+                + "		SAC> MEMORY BUDGET 2G SCRATCH /scratch\n"
+                + "		SAC> READ *.sac\n"
+                + "		SAC> MEMORY LIST\n";
+    }
+}
@@ -0,0 +1,146 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.executiveFunction;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import gov.llnl.gnem.jsac.commands.CommandProfiler;
+import gov.llnl.gnem.jsac.commands.CommandProfiler.CommandStats;
+import gov.llnl.gnem.jsac.commands.SacCommand;
+import gov.llnl.gnem.jsac.util.PathManager;
+
+/**
+ * Turns command profiling on and off and reports the totals collected by
+ * {@link CommandProfiler}.
+ */
+public class ProfileSacCommand implements SacCommand {
+
+    private enum Action {
+        ON, OFF, REPORT, CLEAR, STATUS
+    }
+
+    private Action action;
+    private Path file;
+
+    @Override
+    public void initialize(String[] tokens) {
+        action = Action.STATUS;
+        file = null;
+        List<String> mytokens = new ArrayList<>(Arrays.asList(tokens));
+        mytokens.remove(0); // Don't need the command name anymore.
+        if (mytokens.isEmpty()) {
+            return;
+        }
+        String token = mytokens.remove(0).toUpperCase();
+        try {
+            action = Action.valueOf(token);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Option " + token + " is not a legal PROFILE option!");
+        }
+        if (mytokens.size() == 2 && mytokens.get(0).equalsIgnoreCase("FILE")) {
+            file = PathManager.getInstance().resolvePath(mytokens.get(1));
+        } else if (!mytokens.isEmpty()) {
+            throw new IllegalArgumentException("Expected FILE name but got: " + String.join(" ", mytokens));
+        }
+    }
+
+    @Override
+    public void execute() {
+        CommandProfiler profiler = CommandProfiler.getInstance();
+        switch (action) {
+        case ON:
+            profiler.setEnabled(true);
+            if (file != null) {
+                profiler.writeAtExit(file);
+            }
+            break;
+        case OFF:
+            profiler.setEnabled(false);
+            break;
+        case CLEAR:
+            profiler.clear();
+            break;
+        case REPORT:
+            printReport(profiler.getReport());
+            if (file != null) {
+                try {
+                    profiler.write(file);
+                } catch (IOException ex) {
+                    throw new IllegalStateException("Cannot write profile to " + file + ": " + ex.getMessage(), ex);
+                }
+            }
+            break;
+        default:
+            System.out.println("Profiling is " + (profiler.isEnabled() ? "ON" : "OFF"));
+        }
+    }
+
+    private static void printReport(List<CommandStats> report) {
+        System.out.println(String.format("%-12s %7s %10s %10s %10s %7s %12s %12s %13s", "Command", "Calls", "Wall (s)", "CPU (s)", "Allocated", "Traces", "Samples", "Samples/s", "Cache hit/miss"));
+        for (CommandStats s : report) {
+            System.out.println(String.format("%-12s %7d %10.3f %10.3f %10s %7d %12d %12.4g %13s", s.getCommand(), s.getCalls(), s.getWallSeconds(), s.getCpuSeconds(),
+                    MemorySacCommand.formatByteCount(s.getAllocatedBytes()), s.getMaxTraces(), s.getSamples(), s.getSamplesPerSecond(), s.getCacheHits() + "/" + s.getCacheMisses()));
+        }
+    }
+
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
+    @Override
+    public Collection<String> getCommandNames() {
+        String[] names = { "PROFILE" };
+        return new ArrayList<>(Arrays.asList(names));
+    }
+
+    @Override
+    public String getHelpString() {
+        return "SUMMARY\n"
+                + "	Measures the time and memory used by each command.\n"
+                + "\n"
+                + "SYNTAX\n"
+                + "	PROFILE {ON {FILE name}|OFF|REPORT {FILE name}|CLEAR}\n"
+                + "INPUT\n"
+                + "	ON:	Start adding up the cost of each command by command name.\n"
+                + "	ON FILE name:	Also write the totals to the file when JSAC exits.\n"
+                + "	OFF:	Stop profiling. The totals are kept.\n"
+                + "	REPORT:	List the totals, most time consuming command first.\n"
+                + "	REPORT FILE name:	Also write them to the file, as JSON if the name ends in .json and as CSV otherwise.\n"
+                + "	CLEAR:	Discard the totals.\n"
+                + "DEFAULT VALUES\n"
+                + "	PROFILE OFF\n"
+                + "DESCRIPTION\n"
+                + "	For each command the report gives the number of calls, wall time, CPU time, bytes allocated, the largest number of traces in memory after a call, the samples in memory summed over the calls, and samples per second of wall time, and the hits and misses in caches such as the filter design cache and the result cache. CPU time and allocation are counted only for the thread that runs the command, so work done on other threads appears only in the wall time. A MACRO includes the commands it runs, which are also reported on their own.\n"
+                + "	Independently of PROFILE, every command is emitted as a gov.llnl.gnem.jsac.Command event to Java Flight Recorder when a recording enables it, for example with -XX:StartFlightRecording.\n"
+                + "EXAMPLES\n"
+                + "		SAC> PROFILE ON FILE profile.csv\n"
+                + "		SAC> MACRO prep.m\n"
+                + "		SAC> PROFILE REPORT\n";
+    }
+}
@@ -44,6 +44,11 @@ public class QuitSacCommand implements SacCommand {
         System.exit(0);
     }
 
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
     @Override
     public Collection<String> getCommandNames() {
         String[] names = {"Q", "QUIT","END","DONE","EXIT"};
@@ -0,0 +1,117 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.executiveFunction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import gov.llnl.gnem.jsac.JobTable;
+import gov.llnl.gnem.jsac.JobTable.Job;
+import gov.llnl.gnem.jsac.Session;
+import gov.llnl.gnem.jsac.TaskMonitor;
+import gov.llnl.gnem.jsac.commands.SacCommand;
+
+/**
+ * Waits for background jobs of the session to finish.
+ */
+public class WaitSacCommand implements SacCommand {
+
+    private final List<Integer> jobIds = new ArrayList<>();
+
+    @Override
+    public void initialize(String[] tokens) {
+        jobIds.clear();
+        for (int j = 1; j < tokens.length; ++j) {
+            jobIds.add(parseJobId(tokens[j]));
+        }
+    }
+
+    static int parseJobId(String token) {
+        String text = token.startsWith("%") ? token.substring(1) : token;
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Expected a job number but got: " + token);
+        }
+    }
+
+    @Override
+    public void execute() {
+        JobTable table = Session.current().getJobs();
+        List<Job> jobs = new ArrayList<>();
+        if (jobIds.isEmpty()) {
+            jobs.addAll(table.list());
+        } else {
+            for (int id : jobIds) {
+                Job job = table.get(id);
+                if (job == null) {
+                    System.out.println("No job " + id);
+                } else {
+                    jobs.add(job);
+                }
+            }
+        }
+        TaskMonitor waiter = TaskMonitor.current();
+        for (Job job : jobs) {
+            table.waitFor(job, waiter);
+            System.out.println(job.describe());
+        }
+        table.removeFinished();
+    }
+
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
+    @Override
+    public boolean isJobControl() {
+        return true;
+    }
+
+    @Override
+    public Collection<String> getCommandNames() {
+        String[] names = { "WAIT" };
+        return new ArrayList<>(Arrays.asList(names));
+    }
+
+    @Override
+    public String getHelpString() {
+        return "SUMMARY\n"
+                + "	Waits for background jobs to finish.\n"
+                + "\n"
+                + "SYNTAX\n"
+                + "	WAIT {n ...}\n"
+                + "INPUT\n"
+                + "	n:	The number of a job, as shown by JOBS.\n"
+                + "DEFAULT VALUES\n"
+                + "	With no job numbers, WAIT waits for all jobs.\n"
+                + "DESCRIPTION\n"
+                + "	The progress of the job being waited for is printed every few seconds, and its final state once it finishes. Ctrl+C stops waiting without cancelling the job; use KILL for that.\n"
+                + "EXAMPLES\n"
+                + "		SAC> CORRELATE MASTER 1 NUMBER 10 LENGTH 2.5 &\n"
+                + "		SAC> WAIT\n";
+    }
+}
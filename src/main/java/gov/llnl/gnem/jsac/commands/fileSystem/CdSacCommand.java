@@ -56,6 +56,11 @@ public class CdSacCommand implements SacCommand {
         }
     }
 
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
     @Override
     public Collection<String> getCommandNames() {
         String[] names = {"CD", "CHDIR"};
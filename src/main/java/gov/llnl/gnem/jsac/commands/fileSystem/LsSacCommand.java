@@ -65,6 +65,11 @@ public class LsSacCommand implements SacCommand {
 
     }
 
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
     @Override
     public Collection<String> getCommandNames() {
         String[] names = {"LS"};
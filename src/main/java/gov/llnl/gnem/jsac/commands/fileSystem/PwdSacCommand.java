@@ -47,6 +47,11 @@ public class PwdSacCommand implements SacCommand {
          System.out.println(userDirectory);
     }
 
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
     @Override
     public Collection<String> getCommandNames() {
         String[] names = {"PWD"};
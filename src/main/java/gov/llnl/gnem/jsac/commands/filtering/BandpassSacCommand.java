@@ -33,10 +33,10 @@ import java.util.Set;
 import com.oregondsp.signalProcessing.filter.iir.PassbandType;
 
 import gov.llnl.gnem.jsac.SacDataModel;
-import gov.llnl.gnem.jsac.commands.SacCommand;
+import gov.llnl.gnem.jsac.commands.CacheableCommand;
 import gov.llnl.gnem.jsac.commands.TokenListParser;
 
-public class BandpassSacCommand extends IIRSacCommand implements SacCommand {
+public class BandpassSacCommand extends IIRSacCommand implements CacheableCommand {
 
     @Override
     public void initialize(String[] tokens) {
@@ -51,14 +51,14 @@ public class BandpassSacCommand extends IIRSacCommand implements SacCommand {
         List<Object> parameters = maybeGetCorners(parsedTokens);
         if (parameters != null && parameters.size() == 2) {
 
-            cutoff1 = (double) parameters.get(0);
-            if (cutoff1 <= 0.0) {
+            settings.cutoff1 = (double) parameters.get(0);
+            if (settings.cutoff1 <= 0.0) {
                 System.out.println("Corner frequency must be greater than 0.0, reset to " + NOMINAL_CUTOFF);
-                cutoff1 = NOMINAL_CUTOFF;
+                settings.cutoff1 = NOMINAL_CUTOFF;
             }
-            cutoff2 = (double) parameters.get(1);
-            if (cutoff2 <= 0.0) {
-                cutoff2 = NOMINAL_HIGH_CUTOFF;
+            settings.cutoff2 = (double) parameters.get(1);
+            if (settings.cutoff2 <= 0.0) {
+                settings.cutoff2 = NOMINAL_HIGH_CUTOFF;
                 System.out.println("Corner frequency must be greater than 0.0, reset to " + NOMINAL_HIGH_CUTOFF);
             }
         }
@@ -67,7 +67,12 @@ public class BandpassSacCommand extends IIRSacCommand implements SacCommand {
 
     @Override
     public void execute() {
-        SacDataModel.getInstance().applyFilter(design, order, PassbandType.BANDPASS, cutoff1, cutoff2, epsilon, transitionBW, twoPass);
+        SacDataModel.getInstance().applyFilter(settings.design, settings.order, PassbandType.BANDPASS, settings.cutoff1, settings.cutoff2, settings.epsilon, settings.transitionBW, settings.twoPass);
+    }
+
+    @Override
+    public String getCacheKey() {
+        return getFilterKey(PassbandType.BANDPASS);
     }
 
     @Override
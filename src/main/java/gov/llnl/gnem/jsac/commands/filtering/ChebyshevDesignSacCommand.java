@@ -130,6 +130,11 @@ public class ChebyshevDesignSacCommand implements SacCommand {
 
     }
 
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
     @Override
     public Collection<String> getCommandNames() {
         String[] names = { "CHEBYSHEVDESIGN", "CHD" };
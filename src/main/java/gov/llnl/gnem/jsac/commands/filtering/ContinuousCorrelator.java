@@ -22,66 +22,75 @@
  */
 package gov.llnl.gnem.jsac.commands.filtering;
 
-import java.util.Arrays;
-
-import com.oregondsp.signalProcessing.Sequence;
-import com.oregondsp.signalProcessing.filter.fir.OverlapAdd;
-
 import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData;
 
+/**
+ * Cross-correlates traces with a template of any length, by convolution with
+ * the reversed template. Output sample k holds the correlation with the
+ * template aligned to start at input sample k - (template length - 1).
+ * <p>
+ * Normalized correlations are divided by the norm of the template and the
+ * norm of the input under it, the latter taken from running sums of the
+ * squared input, so that they lie between -1 and 1 at a cost that does not
+ * depend on the template length. Where the template hangs off either end only
+ * the overlapping input counts.
+ * <p>
+ * One instance can correlate any number of traces at the same time.
+ */
 public class ContinuousCorrelator {
 	
-	private final OverlapAdd overlapAdd;
-	private final float[]    template;
-	private final int        blockSize;
+	/** Input energies this small relative to the total are treated as zero. */
+	private static final double ENERGY_EPSILON = 1.0e-12;
+	
+	private final Convolver  convolver;
+	private final int        n;
+	private final boolean    normalize;
+	private final double     templateNorm;
 	
 	
 	public ContinuousCorrelator( float[] template, boolean normalize ) {
 		
-		int fftsize = 128;
-		while ( fftsize < 2*template.length - 1 ) {
-			fftsize *= 2;
-		}
-		
-		blockSize = fftsize - template.length;
-		
-		float[] tmp = template.clone();
-		Sequence.reverse( tmp );
-		
-		overlapAdd    = new OverlapAdd( tmp, blockSize );
-		this.template = template;
-		
-		if ( normalize ) {
-			tmp = new float[ template.length ];
-			Arrays.fill( tmp, 1.0f );
-                        new OverlapAdd( tmp, blockSize );
+		n = template.length;
+		float[] reversed = new float[ n ];
+		double energy = 0.0;
+		for ( int i = 0;  i < n;  i++ ) {
+			reversed[i] = template[ n-1-i ];
+			energy     += (double) template[i] * template[i];
 		}
 		
+		convolver      = new Convolver( reversed, false );
+		this.normalize = normalize;
+		templateNorm   = Math.sqrt( energy );
 	}
 	
 	
 	public void correlate( SacTraceData std ) {
+		std.setData( correlate( std.getData() ) );
+	}
+	
+	
+	/**
+	 * @param x The samples to correlate with the template.
+	 * @return  The correlation, of length x.length + template length - 1.
+	 */
+	public float[] correlate( float[] x ) {
 		
-		float[] x      = std.getData();
-		int     n      = template.length;
-		int     m      = x.length;
-		int     ntotal = m + n -1;
-		float[] block  = new float[ blockSize ];
-		
-		float[] y  = new float[ ntotal ];
+		float[] y = convolver.convolve( x );
 		
-		int ptr = 0;
-		int nRemaining = m;
-		while ( ptr < m ) {
-			Arrays.fill( block, 0.0f );
-			System.arraycopy( x, ptr, block, 0, Math.min( blockSize, nRemaining ) );
-			overlapAdd.filter( block, 0, block, 0 );     
-			System.arraycopy( block, 0, y, ptr, Math.min( blockSize, ntotal-ptr ) );
-			ptr += blockSize;
-			nRemaining -= blockSize;
+		if ( normalize ) {
+			int      m      = x.length;
+			double[] energy = new double[ m+1 ];           // energy[i] is the sum of x[j]^2 for j < i
+			for ( int i = 0;  i < m;  i++ ) {
+				energy[i+1] = energy[i] + (double) x[i] * x[i];
+			}
+			double floor = ENERGY_EPSILON * energy[m];
+			for ( int k = 0;  k < y.length;  k++ ) {
+				double e = energy[ Math.min( k+1, m ) ] - energy[ Math.max( k-n+1, 0 ) ];
+				y[k] = e > floor && templateNorm > 0.0 ? (float) ( y[k] / ( templateNorm * Math.sqrt( e ) ) ) : 0.0f;
+			}
 		}
 		
-		std.setData( y );
+		return y;
 	}
 
 }
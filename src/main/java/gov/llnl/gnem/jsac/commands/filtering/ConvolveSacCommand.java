@@ -30,6 +30,7 @@ import java.util.List;
 import java.util.Map;
 
 import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.Session;
 import gov.llnl.gnem.jsac.commands.AttributeDescriptor;
 import gov.llnl.gnem.jsac.commands.SacCommand;
 import gov.llnl.gnem.jsac.commands.TokenListParser;
@@ -51,13 +52,21 @@ public class ConvolveSacCommand implements SacCommand {
         descriptors.add(new AttributeDescriptor("CENTERED", ValuePossibilities.ONE_VALUE, String.class));
     }
 
-    private static int pulseIndex = 1;
-    private static String filePath = null;
-    private static double v = -1.0;
-    private static boolean centered = false;
-    private static float[] template = null;
-    private static List<SacTraceData> traceData = null;
-    private static double delta;
+    /**
+     * Options that persist between invocations. Each session has its own.
+     */
+    private static class Settings {
+
+        boolean centered = false;
+    }
+
+    private final Settings settings = Session.current().getSettings(Settings.class, Settings::new);
+    private int pulseIndex = 1;
+    private String filePath = null;
+    private double v = -1.0;
+    private float[] template = null;
+    private List<SacTraceData> traceData = null;
+    private double delta;
 
     public ConvolveSacCommand() {
 
@@ -146,7 +155,7 @@ public class ConvolveSacCommand implements SacCommand {
             }
             String offon = (String) parameters.get(0);
             if (offon.toUpperCase().equals("ON")) {
-                centered = true;
+                settings.centered = true;
             }
         }
 
@@ -179,7 +188,7 @@ public class ConvolveSacCommand implements SacCommand {
 
     @Override
     public void execute() {
-        SacDataModel.getInstance().convolve(template, centered);
+        SacDataModel.getInstance().convolve(template, settings.centered);
     }
 
     @Override
@@ -24,49 +24,102 @@ package gov.llnl.gnem.jsac.commands.filtering;
 
 import java.util.Arrays;
 
-import com.oregondsp.signalProcessing.filter.fir.OverlapAdd;
+import com.oregondsp.signalProcessing.fft.RDFT;
 
 import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData;
 import gov.llnl.gnem.jsac.io.SACHeader;
 
 
+/**
+ * Convolves traces with a template. Short templates are applied with a direct
+ * sum; longer ones by FFT overlap-add, with an FFT size chosen from the
+ * template length. The template spectrum is computed once and never changes,
+ * so one instance may convolve any number of traces at the same time; each
+ * thread gets its own FFT and work arrays.
+ */
 public class Convolver {
 	
-	private static final int   BLOCKSIZE = 1500;
+	/** Templates up to this length are applied in the time domain. */
+	public static final int DIRECT_LENGTH = 48;
+	
+	private static final int MIN_LOG2_FFT_SIZE = 10;
 	
-	private final OverlapAdd overlapAdd;
 	private final float[]    template;
 	private final boolean    centered;
+	private final int        log2nfft;
+	private final int        blockSize;
+	private final float[]    templateSpectrum;
+	
+	private final ThreadLocal<Scratch> scratch;
+	
+	
+	/**
+	 * The FFT and work arrays of one thread.
+	 */
+	private static class Scratch {
+		
+		final RDFT    fft;
+		final float[] block;
+		final float[] spectrum;
+		
+		Scratch( int log2nfft ) {
+			fft      = new RDFT( log2nfft );
+			block    = new float[ 1 << log2nfft ];
+			spectrum = new float[ 1 << log2nfft ];
+		}
+	}
+	
 	
 	public Convolver(  float[] template, boolean centered ) {
-		overlapAdd = new OverlapAdd( template, BLOCKSIZE );
 		this.template = template.clone();
 		this.centered = centered;
+		if ( template.length <= DIRECT_LENGTH ) {
+			log2nfft         = 0;
+			blockSize        = 0;
+			templateSpectrum = null;
+			scratch          = null;
+		} else {
+			log2nfft         = log2FFTSize( template.length );
+			blockSize        = blockSize( template.length );
+			scratch          = ThreadLocal.withInitial( () -> new Scratch( log2nfft ) );
+			Scratch s        = scratch.get();
+			templateSpectrum = new float[ 1 << log2nfft ];
+			Arrays.fill( s.block, 0.0f );
+			System.arraycopy( template, 0, s.block, 0, template.length );
+			s.fft.evaluate( s.block, templateSpectrum );
+		}
+	}
+	
+	
+	/**
+	 * @param n The template length.
+	 * @return  The base 2 logarithm of the FFT size: the next power of two of
+	 *          at least four times the template length, so that most of each
+	 *          transform carries new samples.
+	 */
+	static int log2FFTSize( int n ) {
+		int log2nfft = MIN_LOG2_FFT_SIZE;
+		while ( ( 1 << log2nfft ) < 4*n ) {
+			log2nfft++;
+		}
+		return log2nfft;
+	}
+	
+	
+	/**
+	 * @param n The template length.
+	 * @return  The number of input samples per FFT block.
+	 */
+	static int blockSize( int n ) {
+		return ( 1 << log2FFTSize( n ) ) - n + 1;
 	}
 	
 	
 	public void convolve( SacTraceData std ) {
 		
-		float[] x     = std.getData();
 		int n         = template.length;
-		int m         = x.length;
-		int ntotal    = m + n -1;
-		float[] block = new float[ BLOCKSIZE ];
-		
-		float[] y  = new float[ ntotal ];
 		
-		int ptr = 0;
-		int nRemaining = m;
-		while ( ptr < m ) {
-			Arrays.fill( block, 0.0f );
-			System.arraycopy( x, ptr, block, 0, Math.min( BLOCKSIZE, nRemaining ) );
-			overlapAdd.filter( block, 0, block, 0 );     
-			System.arraycopy( block, 0, y, ptr, Math.min( BLOCKSIZE, ntotal-ptr ) );
-			ptr += BLOCKSIZE;
-			nRemaining -= BLOCKSIZE;
-		}
-		
-		std.setData( y );
+		std.setData( convolve( std.getData() ) );
 		if ( centered ) {
 			SACHeader header = std.getSACHeader();
 			int nhalf = n/2;
@@ -74,5 +127,60 @@ public class Convolver {
 		}
 		
 	}
+	
+	
+	/**
+	 * @param x The samples to convolve.
+	 * @return  The full convolution with the template, of length x.length +
+	 *          template length - 1.
+	 */
+	public float[] convolve( float[] x ) {
+		return templateSpectrum == null ? direct( x ) : overlapAdd( x );
+	}
+	
+	
+	private float[] direct( float[] x ) {
+		int n      = template.length;
+		int m      = x.length;
+		float[] y  = new float[ m + n - 1 ];
+		for ( int k = 0;  k < y.length;  k++ ) {
+			int jmin   = Math.max( 0, k - m + 1 );
+			int jmax   = Math.min( n - 1, k );
+			double sum = 0.0;
+			for ( int j = jmin;  j <= jmax;  j++ ) {
+				sum += template[j] * x[k-j];
+			}
+			y[k] = (float) sum;
+		}
+		return y;
+	}
+	
+	
+	/**
+	 * Each block of input is transformed, multiplied by the template spectrum
+	 * and added back into the output, whose tail holds the overlap with the
+	 * next block.
+	 */
+	private float[] overlapAdd( float[] x ) {
+		Scratch s     = scratch.get();
+		int m         = x.length;
+		int ntotal    = m + template.length - 1;
+		int nfft      = 1 << log2nfft;
+		float[] y     = new float[ ntotal ];
+		
+		for ( int ptr = 0;  ptr < m;  ptr += blockSize ) {
+			int nin = Math.min( blockSize, m - ptr );
+			System.arraycopy( x, ptr, s.block, 0, nin );
+			Arrays.fill( s.block, nin, nfft, 0.0f );
+			s.fft.evaluate( s.block, s.spectrum );
+			RDFT.dftProduct( templateSpectrum, s.spectrum, 1.0f );
+			s.fft.evaluateInverse( s.spectrum, s.block );
+			int nout = Math.min( nfft, ntotal - ptr );
+			for ( int i = 0;  i < nout;  i++ ) {
+				y[ptr+i] += s.block[i];
+			}
+		}
+		return y;
+	}
 
 }
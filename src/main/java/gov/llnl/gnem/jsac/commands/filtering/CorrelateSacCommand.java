@@ -31,6 +31,7 @@ import java.util.List;
 import java.util.Map;
 
 import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.Session;
 import gov.llnl.gnem.jsac.commands.AttributeDescriptor;
 import gov.llnl.gnem.jsac.commands.SacCommand;
 import gov.llnl.gnem.jsac.commands.TokenListParser;
@@ -54,11 +55,19 @@ public class CorrelateSacCommand implements SacCommand {
 
     private static final float EPS = 1.0e-5f;
 
-    private static boolean normalize = false;
-    private static int numberOfWindows = 1;
-    private static double windowLength = -1.0;
-    private static boolean useSubwindows = false;
-    private static float[] master;
+    /**
+     * Options that persist between invocations. Each session has its own.
+     */
+    private static class Settings {
+
+        boolean normalize = false;
+        int numberOfWindows = 1;
+        double windowLength = -1.0;
+        boolean useSubwindows = false;
+        float[] master;
+    }
+
+    private final Settings settings = Session.current().getSettings(Settings.class, Settings::new);
     private final List<SacTraceData> traceData;
 
     private double delta;
@@ -105,13 +114,13 @@ public class CorrelateSacCommand implements SacCommand {
 
             try {
                 int filePtr = Integer.parseInt(token);
-                master = traceData.get(filePtr).getData();
+                settings.master = traceData.get(filePtr).getData();
                 masterFound = true;
             } catch (NumberFormatException nfe) {
 
                 for (SacTraceData std : traceData) {
                     if (std.getFilename().endsWith(token)) {
-                        master = std.getData();
+                        settings.master = std.getData();
                         masterFound = true;
                     }
                 }
@@ -136,8 +145,8 @@ public class CorrelateSacCommand implements SacCommand {
                     throw new IllegalStateException("File sampling interval does not match data sampling interval: " + header.getDelta());
                 }
 
-                master = new float[header.getNpts()];
-                reader.read(master);
+                settings.master = new float[header.getNpts()];
+                reader.read(settings.master);
                 reader.close();
 
             } catch (IOException e) {
@@ -148,21 +157,21 @@ public class CorrelateSacCommand implements SacCommand {
 
         if (parsedTokens.containsKey("NORMALIZED")) {
 
-            List<Object> parameters = parsedTokens.get("FILE");
+            List<Object> parameters = parsedTokens.get("NORMALIZED");
             String token = (String) parameters.get(0);
 
-            if (token.equals("ON")) {
-                normalize = true;
-            } else if (token.equals("OFF")) {
-                normalize = false;
+            if (token.equalsIgnoreCase("ON")) {
+                settings.normalize = true;
+            } else if (token.equalsIgnoreCase("OFF")) {
+                settings.normalize = false;
             } else {
-                normalize = false;
+                settings.normalize = false;
             }
         }
 
         if (parsedTokens.containsKey("NUMBER")) {
             List<Object> parameters = parsedTokens.get("NUMBER");
-            numberOfWindows = (int) parameters.get(0);
+            settings.numberOfWindows = (int) parameters.get(0);
         }
 
         if (parsedTokens.containsKey("LENGTH")) {
@@ -171,18 +180,18 @@ public class CorrelateSacCommand implements SacCommand {
             String token = (String) parameters.get(0);
             try {
 
-                windowLength = Double.parseDouble(token);
-                useSubwindows = true;
+                settings.windowLength = Double.parseDouble(token);
+                settings.useSubwindows = true;
 
             } catch (NumberFormatException nfe) {
 
                 if (token.equals("ON")) {
-                    useSubwindows = true;
-                    if (windowLength == -1.0) {
+                    settings.useSubwindows = true;
+                    if (settings.windowLength == -1.0) {
                         throw new IllegalStateException("No prior window length, use LENGTH v");
                     }
                 } else if (token.equals("OFF")) {
-                    useSubwindows = false;
+                    settings.useSubwindows = false;
                 }
 
             }
@@ -194,9 +203,9 @@ public class CorrelateSacCommand implements SacCommand {
     @Override
     public void execute() {
 
-        int windowLengthInSamples = (int) Math.round(windowLength / delta);
+        int windowLengthInSamples = (int) Math.round(settings.windowLength / delta);
 
-        SacDataModel.getInstance().correlate(master, normalize, useSubwindows, windowLengthInSamples, numberOfWindows);
+        SacDataModel.getInstance().correlate(settings.master, settings.normalize, settings.useSubwindows, windowLengthInSamples, settings.numberOfWindows);
 
     }
 
@@ -0,0 +1,196 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.filtering;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.Session;
+import gov.llnl.gnem.jsac.commands.AttributeDescriptor;
+import gov.llnl.gnem.jsac.commands.SacCommand;
+import gov.llnl.gnem.jsac.commands.TokenListParser;
+import gov.llnl.gnem.jsac.commands.ValuePossibilities;
+import gov.llnl.gnem.jsac.commands.filtering.MatchedFilterDetector.Detection;
+import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData;
+import gov.llnl.gnem.jsac.io.SACFile;
+import gov.llnl.gnem.jsac.io.SACFileReader;
+import gov.llnl.gnem.jsac.io.SACHeader;
+import gov.llnl.gnem.jsac.util.PathManager;
+import llnl.gnem.dftt.core.util.TimeT;
+
+public class DetectSacCommand implements SacCommand {
+
+    private static final List<AttributeDescriptor> descriptors = new ArrayList<>();
+
+    static {
+        descriptors.add(new AttributeDescriptor("FILES", ValuePossibilities.ONE_OR_MORE, String.class));
+        descriptors.add(new AttributeDescriptor("MEMORY", ValuePossibilities.ONE_OR_MORE, Integer.class));
+        descriptors.add(new AttributeDescriptor("THRESHOLD", ValuePossibilities.ONE_VALUE, Double.class));
+        descriptors.add(new AttributeDescriptor("MARK", ValuePossibilities.ONE_VALUE, String.class));
+    }
+
+    private static final double NOMINAL_THRESHOLD = 9.0;
+
+    /**
+     * Options that persist between invocations. Each session has its own.
+     */
+    private static class Settings {
+
+        List<String> files = new ArrayList<>();
+        List<Integer> fileNumbers = new ArrayList<>();
+        double threshold = NOMINAL_THRESHOLD;
+        int firstMarker = -1;
+    }
+
+    private final Settings settings = Session.current().getSettings(Settings.class, Settings::new);
+
+    public static void resetDefaults() {
+        Settings defaults = Session.current().getSettings(Settings.class, Settings::new);
+        defaults.files = new ArrayList<>();
+        defaults.fileNumbers = new ArrayList<>();
+        defaults.threshold = NOMINAL_THRESHOLD;
+        defaults.firstMarker = -1;
+    }
+
+    @Override
+    public void initialize(String[] tokens) {
+        Map<String, List<Object>> parsedTokens = TokenListParser.parseTokens(descriptors, tokens);
+
+        List<Object> parameters = TokenListParser.getObjects(parsedTokens, "FILES");
+        if (parameters != null) {
+            settings.files = new ArrayList<>();
+            for (Object value : parameters) {
+                settings.files.add((String) value);
+            }
+        }
+
+        parameters = TokenListParser.getObjects(parsedTokens, "MEMORY");
+        if (parameters != null) {
+            settings.fileNumbers = new ArrayList<>();
+            for (Object value : parameters) {
+                settings.fileNumbers.add((Integer) value);
+            }
+        }
+
+        parameters = TokenListParser.getObjects(parsedTokens, "THRESHOLD");
+        if (parameters != null && !parameters.isEmpty()) {
+            double threshold = (double) parameters.get(0);
+            if (threshold <= 0.0) {
+                throw new IllegalArgumentException("THRESHOLD must be greater than 0.0");
+            }
+            settings.threshold = threshold;
+        }
+
+        parameters = TokenListParser.getObjects(parsedTokens, "MARK");
+        if (parameters != null && !parameters.isEmpty()) {
+            String marker = ((String) parameters.get(0)).toUpperCase();
+            if (marker.equals("OFF")) {
+                settings.firstMarker = -1;
+            } else if (marker.matches("T[0-9]")) {
+                settings.firstMarker = marker.charAt(1) - '0';
+            } else {
+                throw new IllegalArgumentException("Invalid marker: " + marker + " Only T0 - T9 or OFF are allowed.");
+            }
+        }
+    }
+
+    @Override
+    public void execute() {
+        if (settings.files.isEmpty() && settings.fileNumbers.isEmpty()) {
+            throw new IllegalStateException("No templates: use FILES or MEMORY");
+        }
+        List<SacTraceData> templates = new ArrayList<>();
+        for (String file : settings.files) {
+            templates.add(readTemplate(PathManager.getInstance().resolvePath(file)));
+        }
+        List<Detection> detections = SacDataModel.getInstance().detect(templates, settings.fileNumbers, settings.threshold, settings.firstMarker);
+
+        System.out.println(String.format("%-16s %-26s %8s %8s %6s", "TEMPLATE", "TIME", "CC", "MAD", "NCHAN"));
+        for (Detection detection : detections) {
+            Double reference = detection.getTraces().get(0).getSACHeader().getReferenceTime();
+            String time = reference != null ? new TimeT(detection.getTime()).toString() : String.format("%.4f", detection.getTime());
+            System.out.println(String.format("%-16s %-26s %8.4f %8.2f %6d", detection.getTemplate(), time, detection.getCorrelation(), detection.getMadMultiple(), detection.getTraces().size()));
+        }
+        System.out.println(detections.size() + " detections");
+    }
+
+    private static SacTraceData readTemplate(Path path) {
+        try {
+            SACFileReader reader = new SACFileReader(path);
+            SACHeader header = reader.getHeader();
+            float[] data = new float[header.getNpts()];
+            reader.read(data);
+            reader.close();
+            return new SacTraceData(path, new SACFile(header, data));
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read template " + path, e);
+        }
+    }
+
+    @Override
+    public Collection<String> getCommandNames() {
+        String[] names = { "DETECT" };
+        return new ArrayList<>(Arrays.asList(names));
+    }
+
+    @Override
+    public String getHelpString() {
+        return "SUMMARY\n"
+                + "	Scans the data in memory with a set of templates and reports where they match.\n"
+                + "\n"
+                + "SYNTAX\n"
+                + "	DETECT {FILES f1 f2 ...} {MEMORY n1 n2 ...} {THRESHOLD v} {MARK Tn|OFF}\n"
+                + "INPUT\n"
+                + "	FILES f1 f2 ...:	Read templates from these SAC files.\n"
+                + "	MEMORY n1 n2 ...:	Use these files in memory, numbered from 1, as templates. They are not scanned.\n"
+                + "	THRESHOLD v:		Report peaks more than v median absolute deviations (MADs) above the median.\n"
+                + "	MARK Tn:		Write detections to the headers of the scanned files, starting with marker Tn.\n"
+                + "	MARK OFF:		Leave the headers alone.\n"
+                + "DEFAULT VALUES\n"
+                + "	DETECT THRESHOLD 9 MARK OFF\n"
+                + "DESCRIPTION\n"
+                + "	Template files with the same KEVNM form one multichannel template; files without KEVNM are templates\n"
+                + "	on their own. Each template channel is matched to the file in memory with the same KNETWK, KSTNM,\n"
+                + "	KHOLE and KCMPNM, so each scanned channel must appear only once. All files must have the same DELTA.\n"
+                + "\n"
+                + "	For each template the normalized cross-correlation of every channel is computed by FFT, shifted by\n"
+                + "	the moveout between the template channels and averaged, over the times at which every channel of\n"
+                + "	the template lies within its data. Peaks of the average above the threshold, and at least one\n"
+                + "	template length apart, are printed as a table: template, time of the start of its earliest channel,\n"
+                + "	mean correlation, MADs above the median and number of channels. The median and MAD are those of\n"
+                + "	successive chunks of about " + MatchedFilterDetector.CHUNK_LENGTH + " samples.\n"
+                + "\n"
+                + "	The spectra of the data are computed once per chunk and shared by all templates, and the templates\n"
+                + "	are scanned in parallel, so memory use does not grow with the length of the data. With MARK, each\n"
+                + "	scanned file gets its strongest detections, in time order, in the markers from Tn up, with the\n"
+                + "	template name in KTn.\n"
+                + "HEADER CHANGES\n"
+                + "	Tn, KTn with MARK";
+    }
+}
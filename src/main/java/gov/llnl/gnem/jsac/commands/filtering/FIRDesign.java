@@ -0,0 +1,391 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.filtering;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.oregondsp.signalProcessing.filter.iir.PassbandType;
+
+/**
+ * Designs linear-phase FIR filters with an odd number of taps, either by
+ * windowing the ideal (sinc) impulse response or with the Parks-McClellan
+ * (Remez exchange) equiripple algorithm. Corner frequencies are in Hz; for
+ * windowed designs they are the points of half amplitude, and for equiripple
+ * designs the centres of the transition bands. Lowpass filters use cutoff2
+ * and highpass filters cutoff1, as for the IIR commands.
+ * <p>
+ * The group delay of every design is (ntaps - 1) / 2 samples.
+ */
+public class FIRDesign {
+
+    public enum Method {
+        SINC, EQUIRIPPLE
+    }
+
+    public enum Window {
+        HAMMING, HANNING, BLACKMAN, RECTANGLE
+    }
+
+    private static final int GRID_DENSITY = 16;
+    private static final int MAX_ITERATIONS = 250;
+
+    private FIRDesign() {
+    }
+
+    /**
+     * @param ntaps The number of taps.
+     * @param delta The sample interval in seconds.
+     * @return The transition bandwidth in Hz used when none is given: about
+     *         that of a Hamming-windowed design of the same length.
+     */
+    public static double defaultTransitionBW(int ntaps, double delta) {
+        return 3.3 / (ntaps * delta);
+    }
+
+    /**
+     * Designs a filter for one sample interval.
+     *
+     * @param transitionBW The transition bandwidth of equiripple designs in
+     *                     Hz, or 0 for {@link #defaultTransitionBW(int, double)}.
+     * @return The taps.
+     */
+    public static float[] design(Method method, PassbandType passband, double cutoff1, double cutoff2, int ntaps, Window window, double transitionBW, double delta) {
+        double nyquist = 0.5 / delta;
+        if (passband != PassbandType.LOWPASS && cutoff1 >= nyquist || passband != PassbandType.HIGHPASS && cutoff2 >= nyquist) {
+            throw new IllegalArgumentException(String.format("Corner frequencies must be below the Nyquist frequency (%s Hz)", nyquist));
+        }
+        if (method == Method.EQUIRIPPLE) {
+            return equiripple(passband, cutoff1, cutoff2, ntaps, transitionBW > 0 ? transitionBW : defaultTransitionBW(ntaps, delta), delta);
+        }
+        return windowedSinc(passband, cutoff1, cutoff2, ntaps, window, delta);
+    }
+
+    /**
+     * Designs a windowed-sinc filter.
+     *
+     * @param passband The passband type.
+     * @param cutoff1  The lower corner in Hz.
+     * @param cutoff2  The upper corner in Hz.
+     * @param ntaps    The number of taps, which must be odd.
+     * @param window   The taper applied to the ideal response.
+     * @param delta    The sample interval in seconds.
+     * @return The taps.
+     */
+    public static float[] windowedSinc(PassbandType passband, double cutoff1, double cutoff2, int ntaps, Window window, double delta) {
+        checkTaps(ntaps);
+        int half = ntaps / 2;
+        double f1 = cutoff1 * delta;
+        double f2 = cutoff2 * delta;
+        float[] taps = new float[ntaps];
+        for (int n = 0; n < ntaps; ++n) {
+            int k = n - half;
+            double impulse = k == 0 ? 1.0 : 0.0;
+            double h;
+            switch (passband) {
+            case LOWPASS:
+                h = idealLowpass(f2, k);
+                break;
+            case HIGHPASS:
+                h = impulse - idealLowpass(f1, k);
+                break;
+            case BANDPASS:
+                h = idealLowpass(f2, k) - idealLowpass(f1, k);
+                break;
+            case BANDREJECT:
+                h = impulse - idealLowpass(f2, k) + idealLowpass(f1, k);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported passband: " + passband);
+            }
+            taps[n] = (float) (h * window(window, n, ntaps));
+        }
+        return taps;
+    }
+
+    /**
+     * Designs an equiripple filter with equal weight in all bands.
+     *
+     * @param passband     The passband type.
+     * @param cutoff1      The lower corner in Hz.
+     * @param cutoff2      The upper corner in Hz.
+     * @param ntaps        The number of taps, which must be odd.
+     * @param transitionBW The width of each transition band in Hz.
+     * @param delta        The sample interval in seconds.
+     * @return The taps.
+     */
+    public static float[] equiripple(PassbandType passband, double cutoff1, double cutoff2, int ntaps, double transitionBW, double delta) {
+        checkTaps(ntaps);
+        double nyquist = 0.5 / delta;
+        double tw = transitionBW / 2.0;
+        List<double[]> bands = new ArrayList<>();
+        switch (passband) {
+        case LOWPASS:
+            bands.add(new double[] { 0.0, cutoff2 - tw, 1.0 });
+            bands.add(new double[] { cutoff2 + tw, nyquist, 0.0 });
+            break;
+        case HIGHPASS:
+            bands.add(new double[] { 0.0, cutoff1 - tw, 0.0 });
+            bands.add(new double[] { cutoff1 + tw, nyquist, 1.0 });
+            break;
+        case BANDPASS:
+        case BANDREJECT:
+            double inner = passband == PassbandType.BANDPASS ? 1.0 : 0.0;
+            bands.add(new double[] { 0.0, cutoff1 - tw, 1.0 - inner });
+            bands.add(new double[] { cutoff1 + tw, cutoff2 - tw, inner });
+            bands.add(new double[] { cutoff2 + tw, nyquist, 1.0 - inner });
+            break;
+        default:
+            throw new IllegalArgumentException("Unsupported passband: " + passband);
+        }
+        for (double[] band : bands) {
+            if (band[0] >= band[1]) {
+                throw new IllegalArgumentException(String.format("Transition bandwidth %s Hz does not fit between the corners and 0 to %s Hz", transitionBW, nyquist));
+            }
+            band[0] *= delta;
+            band[1] *= delta;
+        }
+        return remez(ntaps, bands);
+    }
+
+    private static void checkTaps(int ntaps) {
+        if (ntaps < 1 || ntaps % 2 == 0) {
+            throw new IllegalArgumentException("The number of taps must be odd and positive: " + ntaps);
+        }
+    }
+
+    private static double idealLowpass(double fc, int k) {
+        return k == 0 ? 2.0 * fc : Math.sin(2.0 * Math.PI * fc * k) / (Math.PI * k);
+    }
+
+    private static double window(Window window, int n, int ntaps) {
+        if (ntaps == 1) {
+            return 1.0;
+        }
+        double x = 2.0 * Math.PI * n / (ntaps - 1);
+        switch (window) {
+        case HAMMING:
+            return 0.54 - 0.46 * Math.cos(x);
+        case HANNING:
+            return 0.5 - 0.5 * Math.cos(x);
+        case BLACKMAN:
+            return 0.42 - 0.5 * Math.cos(x) + 0.08 * Math.cos(2.0 * x);
+        default:
+            return 1.0;
+        }
+    }
+
+    /**
+     * The Parks-McClellan algorithm for a symmetric filter of odd length,
+     * whose amplitude response is a cosine polynomial of degree (ntaps - 1) /
+     * 2.
+     *
+     * @param bands Lower edge, upper edge (cycles per sample) and desired
+     *              amplitude of each band.
+     */
+    private static float[] remez(int ntaps, List<double[]> bands) {
+        int r = ntaps / 2 + 1;
+
+        // Dense grid over the bands, with points in proportion to their widths.
+        double total = 0.0;
+        for (double[] band : bands) {
+            total += band[1] - band[0];
+        }
+        int ngrid = 0;
+        int[] points = new int[bands.size()];
+        for (int b = 0; b < bands.size(); ++b) {
+            double[] band = bands.get(b);
+            points[b] = Math.max(2, (int) Math.ceil(GRID_DENSITY * r * (band[1] - band[0]) / total));
+            ngrid += points[b];
+        }
+        double[] x = new double[ngrid];
+        double[] desired = new double[ngrid];
+        for (int b = 0, g = 0; b < bands.size(); ++b) {
+            double[] band = bands.get(b);
+            for (int j = 0; j < points[b]; ++j, ++g) {
+                x[g] = Math.cos(2.0 * Math.PI * (band[0] + (band[1] - band[0]) * j / (points[b] - 1)));
+                desired[g] = band[2];
+            }
+        }
+        if (ngrid < r + 1) {
+            throw new IllegalArgumentException("Too few frequencies in the bands for " + ntaps + " taps");
+        }
+
+        int[] extremal = new int[r + 1];
+        for (int i = 0; i <= r; ++i) {
+            extremal[i] = (int) ((long) i * (ngrid - 1) / r);
+        }
+
+        double[] nodes = new double[r];
+        double[] values = new double[r];
+        double[] weights = new double[r];
+        double[] error = new double[ngrid];
+        for (int iteration = 0; iteration < MAX_ITERATIONS; ++iteration) {
+            double[] xe = new double[r + 1];
+            for (int i = 0; i <= r; ++i) {
+                xe[i] = x[extremal[i]];
+            }
+            double[] b = barycentricWeights(xe, r + 1);
+            double num = 0.0;
+            double den = 0.0;
+            for (int i = 0; i <= r; ++i) {
+                num += b[i] * desired[extremal[i]];
+                den += (i % 2 == 0 ? 1.0 : -1.0) * b[i];
+            }
+            double ripple = num / den;
+
+            for (int i = 0; i < r; ++i) {
+                nodes[i] = xe[i];
+                values[i] = desired[extremal[i]] - (i % 2 == 0 ? 1.0 : -1.0) * ripple;
+            }
+            double[] w = barycentricWeights(nodes, r);
+            System.arraycopy(w, 0, weights, 0, r);
+
+            double maxError = 0.0;
+            for (int g = 0; g < ngrid; ++g) {
+                error[g] = desired[g] - interpolate(x[g], nodes, values, weights);
+                maxError = Math.max(maxError, Math.abs(error[g]));
+            }
+
+            int[] next = exchange(extremal, error, ripple);
+            if (Arrays.equals(next, extremal) || maxError - Math.abs(ripple) <= 1.0e-6 * maxError) {
+                break;
+            }
+            extremal = next;
+        }
+
+        // Sample the amplitude response and invert the cosine series.
+        int half = ntaps / 2;
+        double[] amplitude = new double[half + 1];
+        for (int m = 0; m <= half; ++m) {
+            amplitude[m] = interpolate(Math.cos(2.0 * Math.PI * m / ntaps), nodes, values, weights);
+        }
+        float[] taps = new float[ntaps];
+        for (int k = 0; k <= half; ++k) {
+            double sum = amplitude[0];
+            for (int m = 1; m <= half; ++m) {
+                sum += 2.0 * amplitude[m] * Math.cos(2.0 * Math.PI * m * k / ntaps);
+            }
+            taps[half + k] = (float) (sum / ntaps);
+            taps[half - k] = taps[half + k];
+        }
+        return taps;
+    }
+
+    /**
+     * Weights 1 / prod(x[i] - x[j]), scaled by a common factor, computed with
+     * logarithms because the products overflow for long filters.
+     */
+    private static double[] barycentricWeights(double[] x, int n) {
+        double[] logs = new double[n];
+        double[] signs = new double[n];
+        double largest = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; ++i) {
+            double sum = 0.0;
+            double sign = 1.0;
+            for (int j = 0; j < n; ++j) {
+                if (j != i) {
+                    double d = x[i] - x[j];
+                    sum -= Math.log(Math.abs(d));
+                    if (d < 0) {
+                        sign = -sign;
+                    }
+                }
+            }
+            logs[i] = sum;
+            signs[i] = sign;
+            largest = Math.max(largest, sum);
+        }
+        double[] result = new double[n];
+        for (int i = 0; i < n; ++i) {
+            result[i] = signs[i] * Math.exp(logs[i] - largest);
+        }
+        return result;
+    }
+
+    private static double interpolate(double x, double[] nodes, double[] values, double[] weights) {
+        double num = 0.0;
+        double den = 0.0;
+        for (int i = 0; i < nodes.length; ++i) {
+            double d = x - nodes[i];
+            if (d == 0.0) {
+                return values[i];
+            }
+            double t = weights[i] / d;
+            num += t * values[i];
+            den += t;
+        }
+        return num / den;
+    }
+
+    /**
+     * Moves each extremal frequency to the largest error of the expected sign
+     * between its neighbours, then lets a larger extremum beyond either end
+     * displace the one at the other end.
+     *
+     * @return The grid indices of the new extremal frequencies.
+     */
+    private static int[] exchange(int[] extremal, double[] error, double ripple) {
+        int count = extremal.length;
+        int last = error.length - 1;
+        double sign0 = ripple < 0 ? -1.0 : 1.0;
+        int[] next = new int[count];
+        int lower = 0;
+        for (int j = 0; j < count; ++j) {
+            double sign = j % 2 == 0 ? sign0 : -sign0;
+            int upper = j < count - 1 ? extremal[j + 1] - 1 : last;
+            int best = Math.max(extremal[j], lower);
+            for (int g = lower; g <= upper; ++g) {
+                if (sign * error[g] > sign * error[best]) {
+                    best = g;
+                }
+            }
+            next[j] = best;
+            lower = best + 1;
+        }
+
+        double firstSign = sign0;
+        double lastSign = (count - 1) % 2 == 0 ? sign0 : -sign0;
+        int before = -1;
+        for (int g = 0; g < next[0]; ++g) {
+            if (-firstSign * error[g] > Math.abs(error[next[count - 1]]) && (before < 0 || Math.abs(error[g]) > Math.abs(error[before]))) {
+                before = g;
+            }
+        }
+        int after = -1;
+        for (int g = next[count - 1] + 1; g <= last; ++g) {
+            if (-lastSign * error[g] > Math.abs(error[next[0]]) && (after < 0 || Math.abs(error[g]) > Math.abs(error[after]))) {
+                after = g;
+            }
+        }
+        if (before >= 0 && (after < 0 || Math.abs(error[before]) >= Math.abs(error[after]))) {
+            System.arraycopy(next, 0, next, 1, count - 1);
+            next[0] = before;
+        } else if (after >= 0) {
+            System.arraycopy(next, 1, next, 0, count - 1);
+            next[count - 1] = after;
+        }
+        return next;
+    }
+}
@@ -0,0 +1,227 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.filtering;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.oregondsp.signalProcessing.filter.iir.PassbandType;
+
+import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.Session;
+import gov.llnl.gnem.jsac.commands.AttributeDescriptor;
+import gov.llnl.gnem.jsac.commands.CacheableCommand;
+import gov.llnl.gnem.jsac.commands.TokenListParser;
+import gov.llnl.gnem.jsac.commands.ValuePossibilities;
+
+public class FIRFilterSacCommand implements CacheableCommand {
+
+    private static final List<AttributeDescriptor> descriptors = new ArrayList<>();
+
+    static {
+        descriptors.add(new AttributeDescriptor("BANDPASS", ValuePossibilities.NO_VALUE, null));
+        descriptors.add(new AttributeDescriptor("BP", ValuePossibilities.NO_VALUE, null));
+        descriptors.add(new AttributeDescriptor("LOWPASS", ValuePossibilities.NO_VALUE, null));
+        descriptors.add(new AttributeDescriptor("LP", ValuePossibilities.NO_VALUE, null));
+        descriptors.add(new AttributeDescriptor("HIGHPASS", ValuePossibilities.NO_VALUE, null));
+        descriptors.add(new AttributeDescriptor("HP", ValuePossibilities.NO_VALUE, null));
+        descriptors.add(new AttributeDescriptor("BANDREJECT", ValuePossibilities.NO_VALUE, null));
+        descriptors.add(new AttributeDescriptor("BR", ValuePossibilities.NO_VALUE, null));
+        descriptors.add(new AttributeDescriptor("SINC", ValuePossibilities.NO_VALUE, null));
+        descriptors.add(new AttributeDescriptor("EQUIRIPPLE", ValuePossibilities.NO_VALUE, null));
+        descriptors.add(new AttributeDescriptor("EQ", ValuePossibilities.NO_VALUE, null));
+        descriptors.add(new AttributeDescriptor("WINDOW", ValuePossibilities.ONE_VALUE, String.class));
+        descriptors.add(new AttributeDescriptor("W", ValuePossibilities.ONE_VALUE, String.class));
+        descriptors.add(new AttributeDescriptor("NTAPS", ValuePossibilities.ONE_VALUE, Integer.class));
+        descriptors.add(new AttributeDescriptor("N", ValuePossibilities.ONE_VALUE, Integer.class));
+        descriptors.add(new AttributeDescriptor("TRANBW", ValuePossibilities.ONE_VALUE, Double.class));
+        descriptors.add(new AttributeDescriptor("T", ValuePossibilities.ONE_VALUE, Double.class));
+        descriptors.add(new AttributeDescriptor("CORNERS", ValuePossibilities.ONE_OR_MORE, Double.class));
+        descriptors.add(new AttributeDescriptor("C", ValuePossibilities.ONE_OR_MORE, Double.class));
+    }
+
+    private static final int NOMINAL_TAPS = 101;
+    private static final double NOMINAL_CUTOFF = 0.1;
+    private static final double NOMINAL_HIGH_CUTOFF = 0.4;
+
+    /**
+     * Options that persist between invocations. Each session has its own.
+     */
+    private static class Settings {
+
+        PassbandType passband = PassbandType.BANDPASS;
+        FIRDesign.Method method = FIRDesign.Method.SINC;
+        FIRDesign.Window window = FIRDesign.Window.HAMMING;
+        int ntaps = NOMINAL_TAPS;
+        double cutoff1 = NOMINAL_CUTOFF;
+        double cutoff2 = NOMINAL_HIGH_CUTOFF;
+        double transitionBW = 0.0;
+    }
+
+    private final Settings settings = Session.current().getSettings(Settings.class, Settings::new);
+
+    public static void resetDefaults() {
+        Settings defaults = Session.current().getSettings(Settings.class, Settings::new);
+        defaults.passband = PassbandType.BANDPASS;
+        defaults.method = FIRDesign.Method.SINC;
+        defaults.window = FIRDesign.Window.HAMMING;
+        defaults.ntaps = NOMINAL_TAPS;
+        defaults.cutoff1 = NOMINAL_CUTOFF;
+        defaults.cutoff2 = NOMINAL_HIGH_CUTOFF;
+        defaults.transitionBW = 0.0;
+    }
+
+    @Override
+    public void initialize(String[] tokens) {
+        Map<String, List<Object>> parsedTokens = TokenListParser.parseTokens(descriptors, tokens);
+
+        Set<String> keys = new HashSet<>();
+        for (String value : parsedTokens.keySet()) {
+            keys.add(value.toUpperCase());
+        }
+        if (keys.contains("BANDPASS") || keys.contains("BP")) {
+            settings.passband = PassbandType.BANDPASS;
+        } else if (keys.contains("LOWPASS") || keys.contains("LP")) {
+            settings.passband = PassbandType.LOWPASS;
+        } else if (keys.contains("HIGHPASS") || keys.contains("HP")) {
+            settings.passband = PassbandType.HIGHPASS;
+        } else if (keys.contains("BANDREJECT") || keys.contains("BR")) {
+            settings.passband = PassbandType.BANDREJECT;
+        }
+
+        if (keys.contains("EQUIRIPPLE") || keys.contains("EQ")) {
+            settings.method = FIRDesign.Method.EQUIRIPPLE;
+        } else if (keys.contains("SINC")) {
+            settings.method = FIRDesign.Method.SINC;
+        }
+
+        List<Object> parameters = TokenListParser.getObjects(parsedTokens, "WINDOW", "W");
+        if (parameters != null && !parameters.isEmpty()) {
+            String name = ((String) parameters.get(0)).toUpperCase();
+            try {
+                settings.window = FIRDesign.Window.valueOf(name);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown window " + name + ", expected one of " + Arrays.toString(FIRDesign.Window.values()));
+            }
+        }
+
+        parameters = TokenListParser.getObjects(parsedTokens, "NTAPS", "N");
+        if (parameters != null && !parameters.isEmpty()) {
+            int ntaps = (int) parameters.get(0);
+            if (ntaps < 3) {
+                throw new IllegalArgumentException("The number of taps must be at least 3");
+            }
+            if (ntaps % 2 == 0) {
+                ++ntaps;
+                System.out.println("The number of taps must be odd, using " + ntaps);
+            }
+            settings.ntaps = ntaps;
+        }
+
+        parameters = TokenListParser.getObjects(parsedTokens, "TRANBW", "T");
+        if (parameters != null && !parameters.isEmpty()) {
+            double tbw = (double) parameters.get(0);
+            if (tbw < 0.0) {
+                throw new IllegalArgumentException("Transition bandwidth must not be negative");
+            }
+            settings.transitionBW = tbw;
+        }
+
+        parameters = TokenListParser.getObjects(parsedTokens, "CORNERS", "C");
+        if (parameters != null && !parameters.isEmpty()) {
+            for (Object value : parameters) {
+                if ((double) value <= 0.0) {
+                    throw new IllegalArgumentException("Corner frequencies must be greater than 0.0");
+                }
+            }
+            if (parameters.size() >= 2) {
+                settings.cutoff1 = (double) parameters.get(0);
+                settings.cutoff2 = (double) parameters.get(1);
+            } else if (settings.passband == PassbandType.LOWPASS) {
+                settings.cutoff2 = (double) parameters.get(0);
+            } else if (settings.passband == PassbandType.HIGHPASS) {
+                settings.cutoff1 = (double) parameters.get(0);
+            } else {
+                throw new IllegalArgumentException("Bandpass and bandreject filters need two corner frequencies");
+            }
+        }
+        if ((settings.passband == PassbandType.BANDPASS || settings.passband == PassbandType.BANDREJECT) && settings.cutoff1 >= settings.cutoff2) {
+            throw new IllegalArgumentException("The first corner frequency must be below the second");
+        }
+    }
+
+    @Override
+    public void execute() {
+        SacDataModel.getInstance().applyFIR(settings.method, settings.passband, settings.cutoff1, settings.cutoff2, settings.ntaps, settings.window, settings.transitionBW);
+    }
+
+    @Override
+    public String getCacheKey() {
+        return String.format("FIRFILTER %s %s %s %s %d %s %s", settings.method, settings.passband, settings.cutoff1, settings.cutoff2, settings.ntaps, settings.window, settings.transitionBW);
+    }
+
+    @Override
+    public Collection<String> getCommandNames() {
+        String[] names = { "FIRFILTER", "FILTER" };
+        return new ArrayList<>(Arrays.asList(names));
+    }
+
+    @Override
+    public String getHelpString() {
+        return "SUMMARY\n"
+                + "	Designs and applies a linear-phase FIR filter.\n"
+                + "\n"
+                + "SYNTAX\n"
+                + "FIRFILTER {BP|LP|HP|BR}\n"
+                + "          {SINC|[EQ]UIRIPPLE}\n"
+                + "          {[C]ORNERS v1 {v2}}\n"
+                + "          {[N]TAPS n}\n"
+                + "          {[W]INDOW HAMMING|HANNING|BLACKMAN|RECTANGLE}\n"
+                + "          {[T]RANBW v}\n"
+                + "INPUT\n"
+                + "	BP|LP|HP|BR:	Bandpass, lowpass, highpass or bandreject.\n"
+                + "	SINC:	Window the ideal impulse response.\n"
+                + "	EQUIRIPPLE:	Parks-McClellan design with equal ripple in all bands.\n"
+                + "	CORNERS v1 v2:	Corner frequencies in Hz. LP and HP take a single corner.\n"
+                + "	NTAPS n:	Number of taps, made odd if necessary.\n"
+                + "	WINDOW type:	Window for SINC designs.\n"
+                + "	TRANBW v:	Width of each EQUIRIPPLE transition band in Hz, centred on\n"
+                + "		the corners. 0 chooses about 3.3 / (NTAPS * DELTA).\n"
+                + "DESCRIPTION\n"
+                + "	FILTER is a synonym for FIRFILTER. The filter is designed once for each\n"
+                + "	sample interval in memory. Up to " + Convolver.DIRECT_LENGTH + " taps are applied directly,\n"
+                + "	longer filters by FFT overlap-add with a block size chosen from the number\n"
+                + "	of taps. The filters are symmetric, with a delay of (NTAPS - 1) / 2\n"
+                + "	samples. That many samples are dropped from each end of the output, so\n"
+                + "	that NPTS and B are unchanged and arrivals keep their times.\n"
+                + "	This is not SAC's FIR command, which applies coefficients read from a\n"
+                + "	file. That command is not implemented.\n"
+                + "DEFAULT VALUES\n"
+                + "     FIRFILTER BP SINC CORNERS 0.1 0.4 NTAPS 101 WINDOW HAMMING TRANBW 0";
+    }
+}
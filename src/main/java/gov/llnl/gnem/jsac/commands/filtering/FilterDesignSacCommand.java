@@ -312,6 +312,11 @@ public class FilterDesignSacCommand implements SacCommand {
 
     }
 
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
     @Override
     public Collection<String> getCommandNames() {
         String[] names = { "FILTERDESIGN", "FD" };
@@ -31,10 +31,10 @@ import java.util.Map;
 import com.oregondsp.signalProcessing.filter.iir.PassbandType;
 
 import gov.llnl.gnem.jsac.SacDataModel;
-import gov.llnl.gnem.jsac.commands.SacCommand;
+import gov.llnl.gnem.jsac.commands.CacheableCommand;
 import gov.llnl.gnem.jsac.commands.TokenListParser;
 
-public class HighpassSacCommand extends IIRSacCommand implements SacCommand {
+public class HighpassSacCommand extends IIRSacCommand implements CacheableCommand {
 
     @Override
     public void initialize(String[] tokens) {
@@ -48,14 +48,19 @@ public class HighpassSacCommand extends IIRSacCommand implements SacCommand {
                 System.out.println("Corner frequency must be greater than 0.0, reset to " + NOMINAL_CUTOFF);
                 c = NOMINAL_CUTOFF;
             }
-            cutoff1 = c;
+            settings.cutoff1 = c;
         }
 
     }
 
     @Override
     public void execute() {
-        SacDataModel.getInstance().applyFilter(design, order, PassbandType.HIGHPASS, cutoff1, cutoff2, epsilon, transitionBW, twoPass);
+        SacDataModel.getInstance().applyFilter(settings.design, settings.order, PassbandType.HIGHPASS, settings.cutoff1, settings.cutoff2, settings.epsilon, settings.transitionBW, settings.twoPass);
+    }
+
+    @Override
+    public String getCacheKey() {
+        return getFilterKey(PassbandType.HIGHPASS);
     }
 
     @Override
@@ -0,0 +1,307 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.filtering;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import com.oregondsp.signalProcessing.filter.iir.Butterworth;
+import com.oregondsp.signalProcessing.filter.iir.ChebyshevI;
+import com.oregondsp.signalProcessing.filter.iir.ChebyshevII;
+import com.oregondsp.signalProcessing.filter.iir.IIRFilter;
+import com.oregondsp.signalProcessing.filter.iir.PassbandType;
+
+import gov.llnl.gnem.jsac.commands.CommandProfiler;
+import llnl.gnem.dftt.core.signalprocessing.filter.FilterDesign;
+
+/**
+ * Keeps the digital IIR filters designed for the filter commands, so that
+ * traces with the same sample interval, and later commands with the same
+ * options, do not design them again. A designed OregonDSP filter carries the
+ * state of the trace it is applied to, so each design is kept as a pool of
+ * instances: a trace borrows one, resets its state, and gives it back when
+ * done. A new instance is designed only when all of them are in use. A
+ * {@link SOSFilter}, used when the second-order-section engine is selected,
+ * holds no state, so one instance serves every trace.
+ * <p>
+ * Callers look each design up once per command with {@link #prepare(Key)} or
+ * {@link #getSections(Key)}, which is what {@link CommandProfiler} reports as
+ * a hit or a miss. The least recently used designs are dropped beyond a fixed
+ * number.
+ */
+public class IIRDesignCache {
+
+    private static final int MAX_DESIGNS = 64;
+
+    /**
+     * The options that determine a digital filter.
+     */
+    public static final class Key {
+
+        private final FilterDesign design;
+        private final int order;
+        private final PassbandType passband;
+        private final double cutoff1;
+        private final double cutoff2;
+        private final double epsilon;
+        private final double transitionBW;
+        private final double delta;
+
+        public Key(FilterDesign design, int order, PassbandType passband, double cutoff1, double cutoff2, double epsilon, double transitionBW, double delta) {
+            this.design = design;
+            this.order = order;
+            this.passband = passband;
+            this.cutoff1 = cutoff1;
+            this.cutoff2 = cutoff2;
+            this.epsilon = epsilon;
+            this.transitionBW = transitionBW;
+            this.delta = delta;
+        }
+
+        public FilterDesign getDesign() {
+            return design;
+        }
+
+        public int getOrder() {
+            return order;
+        }
+
+        public PassbandType getPassband() {
+            return passband;
+        }
+
+        public double getCutoff1() {
+            return cutoff1;
+        }
+
+        public double getCutoff2() {
+            return cutoff2;
+        }
+
+        public double getEpsilon() {
+            return epsilon;
+        }
+
+        public double getTransitionBW() {
+            return transitionBW;
+        }
+
+        public double getDelta() {
+            return delta;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(design, order, passband, cutoff1, cutoff2, epsilon, transitionBW, delta);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return design == other.design
+                    && order == other.order
+                    && passband == other.passband
+                    && Double.compare(cutoff1, other.cutoff1) == 0
+                    && Double.compare(cutoff2, other.cutoff2) == 0
+                    && Double.compare(epsilon, other.epsilon) == 0
+                    && Double.compare(transitionBW, other.transitionBW) == 0
+                    && Double.compare(delta, other.delta) == 0;
+        }
+    }
+
+    private final Map<Key, Deque<IIRFilter>> designs;
+    private final Map<Key, SOSFilter> sections;
+    private long hitCount;
+    private long missCount;
+    private long designCount;
+
+    IIRDesignCache() {
+        designs = new LinkedHashMap<Key, Deque<IIRFilter>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Deque<IIRFilter>> eldest) {
+                return size() > MAX_DESIGNS;
+            }
+        };
+        sections = new LinkedHashMap<Key, SOSFilter>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, SOSFilter> eldest) {
+                return size() > MAX_DESIGNS;
+            }
+        };
+    }
+
+    public static IIRDesignCache getInstance() {
+        return IIRDesignCacheHolder.INSTANCE;
+    }
+
+    /**
+     * Designs a filter without consulting the cache.
+     *
+     * @param key The filter options.
+     * @return The filter, with its state reset.
+     */
+    public static IIRFilter design(Key key) {
+        switch (key.design) {
+        case Butterworth:
+            return new Butterworth(key.order, key.passband, key.cutoff1, key.cutoff2, key.delta);
+        case Chebyshev1:
+            return new ChebyshevI(key.order, key.epsilon, key.passband, key.cutoff1, key.cutoff2, key.delta);
+        case Chebyshev2:
+            return new ChebyshevII(key.order, key.epsilon, 1.0 + key.transitionBW, key.passband, key.cutoff1, key.cutoff2, key.delta);
+        default:
+            throw new IllegalArgumentException("Unsupported design: " + key.design);
+        }
+    }
+
+    /**
+     * Designs a second-order-section filter without consulting the cache.
+     *
+     * @param key The filter options.
+     * @return The filter.
+     */
+    public static SOSFilter designSections(Key key) {
+        return SOSFilter.design(key.design, key.order, key.passband, key.cutoff1, key.cutoff2, key.epsilon, key.transitionBW, key.delta);
+    }
+
+    /**
+     * Makes sure that a design is available, designing it now if necessary,
+     * and reports the lookup to the profiler.
+     *
+     * @param key The filter options.
+     * @return The key, for convenience.
+     */
+    public Key prepare(Key key) {
+        boolean hit;
+        synchronized (this) {
+            Deque<IIRFilter> pool = designs.get(key);
+            hit = pool != null;
+            if (hit) {
+                ++hitCount;
+            } else {
+                ++missCount;
+            }
+        }
+        CommandProfiler.recordCacheLookup(hit);
+        if (!hit) {
+            giveBack(key, newInstance(key));
+        }
+        return key;
+    }
+
+    /**
+     * @param key The filter options.
+     * @return A filter for the exclusive use of the caller, with its state
+     *         reset. Pass it to {@link #giveBack(Key, IIRFilter)} when done.
+     */
+    public IIRFilter borrow(Key key) {
+        IIRFilter filter;
+        synchronized (this) {
+            Deque<IIRFilter> pool = designs.get(key);
+            filter = pool != null ? pool.poll() : null;
+        }
+        if (filter == null) {
+            return newInstance(key);
+        }
+        filter.initialize();
+        return filter;
+    }
+
+    public void giveBack(Key key, IIRFilter filter) {
+        synchronized (this) {
+            designs.computeIfAbsent(key, k -> new ArrayDeque<>()).push(filter);
+        }
+    }
+
+    private IIRFilter newInstance(Key key) {
+        synchronized (this) {
+            ++designCount;
+        }
+        return design(key);
+    }
+
+    /**
+     * Returns a second-order-section design, designing it now if necessary,
+     * and reports the lookup to the profiler.
+     *
+     * @param key The filter options.
+     * @return The filter, which may be shared by any number of threads.
+     */
+    public SOSFilter getSections(Key key) {
+        SOSFilter filter;
+        synchronized (this) {
+            filter = sections.get(key);
+            if (filter != null) {
+                ++hitCount;
+            } else {
+                ++missCount;
+            }
+        }
+        CommandProfiler.recordCacheLookup(filter != null);
+        if (filter == null) {
+            filter = designSections(key);
+            synchronized (this) {
+                sections.put(key, filter);
+            }
+        }
+        return filter;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return The number of OregonDSP filters designed, including extra
+     *         instances for concurrent use.
+     */
+    public synchronized long getDesignCount() {
+        return designCount;
+    }
+
+    public synchronized void clear() {
+        designs.clear();
+        sections.clear();
+    }
+
+    private static class IIRDesignCacheHolder {
+
+        private static final IIRDesignCache INSTANCE = new IIRDesignCache();
+    }
+}
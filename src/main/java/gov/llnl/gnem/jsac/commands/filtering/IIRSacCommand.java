@@ -32,6 +32,7 @@ import com.oregondsp.signalProcessing.filter.iir.AnalogChebyshevI;
 import com.oregondsp.signalProcessing.filter.iir.AnalogChebyshevII;
 import com.oregondsp.signalProcessing.filter.iir.PassbandType;
 
+import gov.llnl.gnem.jsac.Session;
 import gov.llnl.gnem.jsac.commands.AttributeDescriptor;
 import gov.llnl.gnem.jsac.commands.ValuePossibilities;
 import llnl.gnem.dftt.core.signalprocessing.filter.FilterDesign;
@@ -66,28 +67,45 @@ public class IIRSacCommand {
     protected static final double NOMINAL_CUTOFF = 0.1;
     protected static final double NOMINAL_HIGH_CUTOFF = 0.4;
 
-    protected static FilterDesign design;
-    protected static int order = NOMINAL_ORDER;
-    protected static PassbandType passband;
-    protected static double cutoff1 = NOMINAL_CUTOFF; // not used for LP
-    protected static double cutoff2 = NOMINAL_HIGH_CUTOFF; // not used for HP
-    protected static double attenuation = 30.0;
-    protected static double transitionBW = 0.3;
-    protected static boolean twoPass = false;
-    protected static double epsilon;
+    /**
+     * Filter options that persist between invocations and are shared by the
+     * IIR filter commands. Each session has its own.
+     */
+    protected static class Settings {
+
+        FilterDesign design;
+        int order = NOMINAL_ORDER;
+        PassbandType passband;
+        double cutoff1 = NOMINAL_CUTOFF; // not used for LP
+        double cutoff2 = NOMINAL_HIGH_CUTOFF; // not used for HP
+        double attenuation = 30.0;
+        double transitionBW = 0.3;
+        boolean twoPass = false;
+        double epsilon;
+    }
+
+    protected final Settings settings = Session.current().getSettings(Settings.class, Settings::new);
 
     public IIRSacCommand() {
-        design = null;
     }
 
     public static void resetDefaults() {
-        design = null;
-        order = NOMINAL_ORDER;
-        cutoff1 = NOMINAL_CUTOFF;
-        cutoff2 = NOMINAL_HIGH_CUTOFF;
-        attenuation = 30.0;
-        transitionBW = 0.3;
-        twoPass = false;
+        Settings defaults = Session.current().getSettings(Settings.class, Settings::new);
+        defaults.design = null;
+        defaults.order = NOMINAL_ORDER;
+        defaults.cutoff1 = NOMINAL_CUTOFF;
+        defaults.cutoff2 = NOMINAL_HIGH_CUTOFF;
+        defaults.attenuation = 30.0;
+        defaults.transitionBW = 0.3;
+        defaults.twoPass = false;
+    }
+
+    /**
+     * @param passband The passband of the filter being applied.
+     * @return A result cache key for the filter described by the settings.
+     */
+    protected String getFilterKey(PassbandType passband) {
+        return String.format("IIR %s %s %d %s %s %s %s %b", settings.design, passband, settings.order, settings.cutoff1, settings.cutoff2, settings.epsilon, settings.transitionBW, settings.twoPass);
     }
 
     protected Map<String, List<Object>> initialParsing(Map<String, List<Object>> parsedTokens) {
@@ -100,7 +118,7 @@ public class IIRSacCommand {
         }
 
         if (keys.contains("BUTTER") || keys.contains("BU")) {
-            design = FilterDesign.Butterworth;
+            settings.design = FilterDesign.Butterworth;
             designSpecified = true;
         }
 
@@ -109,7 +127,7 @@ public class IIRSacCommand {
                 System.out.println("Cannot specify more than one design type, ignoring request for Bessel filter");
             } else {
                 System.out.println("Bessel filters not implemented, using Butterworth");
-                design = FilterDesign.Butterworth;
+                settings.design = FilterDesign.Butterworth;
                 designSpecified = true;
             }
         }
@@ -118,7 +136,7 @@ public class IIRSacCommand {
             if (designSpecified) {
                 System.out.println("Cannot specify more than one design type, ignoring request for Chebyshev type 1 filter");
             } else {
-                design = FilterDesign.Chebyshev1;
+                settings.design = FilterDesign.Chebyshev1;
                 designSpecified = true;
             }
         }
@@ -127,58 +145,58 @@ public class IIRSacCommand {
             if (designSpecified) {
                 System.out.println("Cannot specify more than one design type, ignoring request for Chebyshev type 2 filter");
             } else {
-                design = FilterDesign.Chebyshev2;
+                settings.design = FilterDesign.Chebyshev2;
                 designSpecified = true;
             }
         }
 
-        if (design == null) {
-            design = FilterDesign.Butterworth;
+        if (settings.design == null) {
+            settings.design = FilterDesign.Butterworth;
             designSpecified = true;
         }
 
         List<Object> parameters = maybeGetNPoles(parsedTokens);
         if (parameters != null && !parameters.isEmpty()) {
-            order = (int) parameters.get(0);
-            if (order < 1) {
+            settings.order = (int) parameters.get(0);
+            if (settings.order < 1) {
                 System.out.println("Order must be greater than 0, reset to " + NOMINAL_ORDER);
-                order = NOMINAL_ORDER;
+                settings.order = NOMINAL_ORDER;
             }
         }
 
-        if (design == FilterDesign.Chebyshev1 || design == FilterDesign.Chebyshev2) {
+        if (settings.design == FilterDesign.Chebyshev1 || settings.design == FilterDesign.Chebyshev2) {
 
             parameters = maybeGetAttenuation(parsedTokens);
             if (parameters != null && !parameters.isEmpty()) {
-                attenuation = (double) parameters.get(0);
+                settings.attenuation = (double) parameters.get(0);
             }
 
             parameters = maybeGetTransitionBandwidth(parsedTokens);
             if (parameters != null && !parameters.isEmpty()) {
-                transitionBW = (double) parameters.get(0);
+                settings.transitionBW = (double) parameters.get(0);
             }
 
             AnalogPrototypeInspector inspector = null;
 
-            if (design == FilterDesign.Chebyshev1) {
+            if (settings.design == FilterDesign.Chebyshev1) {
 
-                double[] cp = ChebyshevParameters.calculateEpsilon(attenuation, transitionBW, order);
-                epsilon = cp[0];
+                double[] cp = ChebyshevParameters.calculateEpsilon(settings.attenuation, settings.transitionBW, settings.order);
+                settings.epsilon = cp[0];
 
-                AnalogChebyshevI ACI = new AnalogChebyshevI(order, epsilon);
+                AnalogChebyshevI ACI = new AnalogChebyshevI(settings.order, settings.epsilon);
                 inspector = new AnalogPrototypeInspector(ACI);
 
-            } else if (design == FilterDesign.Chebyshev2) {
+            } else if (settings.design == FilterDesign.Chebyshev2) {
 
-                epsilon = 1.0 / Math.sqrt(attenuation * attenuation - 1.0);
+                settings.epsilon = 1.0 / Math.sqrt(settings.attenuation * settings.attenuation - 1.0);
 
-                AnalogChebyshevII ACII = new AnalogChebyshevII(order, epsilon);
-                inspector = new AnalogPrototypeInspector(ACII.lptolp(1.0 + transitionBW));
+                AnalogChebyshevII ACII = new AnalogChebyshevII(settings.order, settings.epsilon);
+                inspector = new AnalogPrototypeInspector(ACII.lptolp(1.0 + settings.transitionBW));
             }
 
             if (inspector != null) {
                 System.out.println("Response at analog prototype passband edge:  " + inspector.getMagnitude(1.0));
-                System.out.println("Response at analog prototype stopband edge:  " + inspector.getMagnitude(1.0 + transitionBW));
+                System.out.println("Response at analog prototype stopband edge:  " + inspector.getMagnitude(1.0 + settings.transitionBW));
             }
         }
 
@@ -187,10 +205,10 @@ public class IIRSacCommand {
             int passes = (int) parameters.get(0);
             switch (passes) {
             case 1:
-                twoPass = false;
+                settings.twoPass = false;
                 break;
             case 2:
-                twoPass = true;
+                settings.twoPass = true;
                 break;
             default:
                 System.out.println("Number of passes must be 1 or 2");
@@ -34,10 +34,10 @@ import org.slf4j.LoggerFactory;
 import com.oregondsp.signalProcessing.filter.iir.PassbandType;
 
 import gov.llnl.gnem.jsac.SacDataModel;
-import gov.llnl.gnem.jsac.commands.SacCommand;
+import gov.llnl.gnem.jsac.commands.CacheableCommand;
 import gov.llnl.gnem.jsac.commands.TokenListParser;
 
-public class LowpassSacCommand extends IIRSacCommand implements SacCommand {
+public class LowpassSacCommand extends IIRSacCommand implements CacheableCommand {
     private static final Logger log = LoggerFactory.getLogger(LowpassSacCommand.class);
 
     @Override
@@ -53,7 +53,7 @@ public class LowpassSacCommand extends IIRSacCommand implements SacCommand {
                 log.warn("Corner frequency must be greater than 0.0, reset to {}", NOMINAL_CUTOFF);
                 c = NOMINAL_CUTOFF;
             }
-            cutoff2 = c;
+            settings.cutoff2 = c;
         }
 
     }
@@ -61,10 +61,15 @@ public class LowpassSacCommand extends IIRSacCommand implements SacCommand {
     @Override
     public void execute() {
 
-        SacDataModel.getInstance().applyFilter(design, order, PassbandType.LOWPASS, cutoff1, cutoff2, epsilon, transitionBW, twoPass);
+        SacDataModel.getInstance().applyFilter(settings.design, settings.order, PassbandType.LOWPASS, settings.cutoff1, settings.cutoff2, settings.epsilon, settings.transitionBW, settings.twoPass);
 
     }
 
+    @Override
+    public String getCacheKey() {
+        return getFilterKey(PassbandType.LOWPASS);
+    }
+
     @Override
     public Collection<String> getCommandNames() {
         String[] names = { "LP", "LOWPASS" };
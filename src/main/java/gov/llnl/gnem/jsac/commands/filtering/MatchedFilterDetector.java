@@ -0,0 +1,558 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.filtering;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.oregondsp.signalProcessing.fft.RDFT;
+
+import gov.llnl.gnem.jsac.TaskMonitor;
+import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData;
+import gov.llnl.gnem.jsac.io.SACHeader;
+
+/**
+ * Scans continuous traces with many multichannel templates. Each template
+ * channel is correlated with the continuous trace of the same network,
+ * station, location and channel, the normalized correlations are averaged
+ * across channels with the moveout of the template, and peaks of the average
+ * that stand out from its median by a multiple of its median absolute
+ * deviation (MAD) are reported.
+ * <p>
+ * The continuous data are processed in chunks of time. The spectra of the
+ * overlapping blocks of each continuous trace in a chunk are computed once and
+ * shared by all templates; templates are then scanned in parallel, each thread
+ * with its own FFT and work arrays. Memory use depends on the chunk length
+ * and the number of channels, not the length of the data. The median and MAD
+ * are those of the chunk.
+ */
+public class MatchedFilterDetector {
+
+    private static final Logger log = LoggerFactory.getLogger(MatchedFilterDetector.class);
+
+    /** The approximate number of detection times in each chunk. */
+    public static final int CHUNK_LENGTH = 1 << 18;
+
+    private static final double EPS = 1.0e-5;
+
+    /** Input energies this small relative to the chunk total are treated as zero. */
+    private static final double ENERGY_EPSILON = 1.0e-12;
+
+    /**
+     * Traces of one event, recorded on one or more channels.
+     */
+    public static class Template {
+
+        private final String name;
+        private final List<SacTraceData> channels;
+
+        public Template(String name, List<SacTraceData> channels) {
+            this.name = name;
+            this.channels = channels;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<SacTraceData> getChannels() {
+            return channels;
+        }
+    }
+
+    /**
+     * A peak of the channel-averaged correlation of one template.
+     */
+    public static class Detection {
+
+        private final String template;
+        private final double time;
+        private final double correlation;
+        private final double madMultiple;
+        private final List<SacTraceData> traces;
+        private final double[] arrivals;
+
+        Detection(String template, double time, double correlation, double madMultiple, List<SacTraceData> traces, double[] arrivals) {
+            this.template = template;
+            this.time = time;
+            this.correlation = correlation;
+            this.madMultiple = madMultiple;
+            this.traces = traces;
+            this.arrivals = arrivals;
+        }
+
+        public String getTemplate() {
+            return template;
+        }
+
+        /**
+         * @return The epoch time of the start of the earliest template channel.
+         */
+        public double getTime() {
+            return time;
+        }
+
+        /**
+         * @return The mean normalized correlation across channels.
+         */
+        public double getCorrelation() {
+            return correlation;
+        }
+
+        /**
+         * @return How many MADs the correlation lies above the median.
+         */
+        public double getMadMultiple() {
+            return madMultiple;
+        }
+
+        /**
+         * @return The continuous traces that contributed.
+         */
+        public List<SacTraceData> getTraces() {
+            return traces;
+        }
+
+        /**
+         * @param j The index of a trace in {@link #getTraces()}.
+         * @return The epoch time on that trace of the start of its template.
+         */
+        public double getArrival(int j) {
+            return arrivals[j];
+        }
+    }
+
+    /**
+     * One continuous trace, and the block spectra and running energy of the
+     * current chunk.
+     */
+    private static class Channel {
+
+        final SacTraceData trace;
+        final float[] data;
+        final int gridOffset;
+        int lagStart;
+        float[][] spectra;
+        double[] energy;
+        double energyFloor;
+
+        Channel(SacTraceData trace, int gridOffset) {
+            this.trace = trace;
+            this.data = trace.getData();
+            this.gridOffset = gridOffset;
+        }
+    }
+
+    private static class TemplateChannel {
+
+        final Channel channel;
+        final int length;
+        final int offset;
+        final float[] spectrum;
+        final double norm;
+
+        TemplateChannel(Channel channel, int length, int offset, float[] spectrum, double norm) {
+            this.channel = channel;
+            this.length = length;
+            this.offset = offset;
+            this.spectrum = spectrum;
+            this.norm = norm;
+        }
+    }
+
+    private static class Candidate {
+
+        final int index;
+        final double correlation;
+        final double madMultiple;
+
+        Candidate(int index, double correlation, double madMultiple) {
+            this.index = index;
+            this.correlation = correlation;
+            this.madMultiple = madMultiple;
+        }
+    }
+
+    private static class PreparedTemplate {
+
+        final String name;
+        final List<TemplateChannel> channels = new ArrayList<>();
+        final List<Candidate> candidates = Collections.synchronizedList(new ArrayList<>());
+        int span;
+        int gridStart = Integer.MIN_VALUE;
+        int gridEnd = Integer.MAX_VALUE;
+
+        PreparedTemplate(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * The FFT and work arrays of one thread.
+     */
+    private static class Scratch {
+
+        final RDFT fft;
+        final float[] block;
+        final float[] spectrum;
+
+        Scratch(int log2nfft) {
+            fft = new RDFT(log2nfft);
+            block = new float[1 << log2nfft];
+            spectrum = new float[1 << log2nfft];
+        }
+    }
+
+    private final double threshold;
+
+    /**
+     * @param threshold The number of MADs above the median at which a peak
+     *                  is reported.
+     */
+    public MatchedFilterDetector(double threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * Groups template traces into templates by event name. Traces without
+     * one are templates on their own, named after their files.
+     */
+    public static List<Template> groupByEvent(List<SacTraceData> traces) {
+        Map<String, List<SacTraceData>> groups = new LinkedHashMap<>();
+        for (SacTraceData std : traces) {
+            String name = std.getSACHeader().getKevnm();
+            if (name == null || name.isEmpty()) {
+                name = std.getFilename().getFileName().toString();
+            }
+            groups.computeIfAbsent(name, k -> new ArrayList<>()).add(std);
+        }
+        List<Template> templates = new ArrayList<>();
+        groups.forEach((name, channels) -> templates.add(new Template(name, channels)));
+        return templates;
+    }
+
+    /**
+     * @return The key that matches template channels to continuous traces.
+     */
+    static String channelKey(SacTraceData std) {
+        SACHeader header = std.getSACHeader();
+        return String.format("%s.%s.%s.%s", field(header.getKnetwk()), field(header.getKstnm()), field(header.getKhole()), field(header.getKcmpnm())).toUpperCase();
+    }
+
+    private static String field(String value) {
+        return value == null ? "" : value.trim();
+    }
+
+    private static double startTime(SacTraceData std) {
+        SACHeader header = std.getSACHeader();
+        Double reference = header.getReferenceTime();
+        return (reference == null ? 0.0 : reference) + header.getB();
+    }
+
+    /**
+     * @param continuous The continuous traces, at most one per channel.
+     * @param templates  The templates.
+     * @return The detections, in order of time within each template.
+     */
+    public List<Detection> detect(List<SacTraceData> continuous, List<Template> templates) {
+
+        if (continuous.isEmpty()) {
+            throw new IllegalStateException("No continuous data in memory");
+        }
+        double delta = continuous.get(0).getSACHeader().getDelta();
+        double gridTime = Double.MAX_VALUE;
+        for (SacTraceData std : continuous) {
+            checkSampling(std, delta);
+            gridTime = Math.min(gridTime, startTime(std));
+        }
+
+        Map<String, Channel> channels = new LinkedHashMap<>();
+        int gridLength = 0;
+        for (SacTraceData std : continuous) {
+            int gridOffset = (int) Math.round((startTime(std) - gridTime) / delta);
+            Channel channel = new Channel(std, gridOffset);
+            if (channels.put(channelKey(std), channel) != null) {
+                throw new IllegalStateException("More than one continuous trace for channel " + channelKey(std));
+            }
+            gridLength = Math.max(gridLength, gridOffset + channel.data.length);
+        }
+
+        int maxLength = longestChannel(templates, delta);
+        if (maxLength == 0) {
+            return new ArrayList<>();
+        }
+        int log2nfft = Convolver.log2FFTSize(maxLength);
+        int hop = (1 << log2nfft) - maxLength + 1;
+        ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(() -> new Scratch(log2nfft));
+
+        List<PreparedTemplate> prepared = new ArrayList<>();
+        int maxOffset = 0;
+        for (Template template : templates) {
+            PreparedTemplate p = prepare(template, channels, gridTime, delta, scratch.get());
+            if (p != null) {
+                prepared.add(p);
+                for (TemplateChannel tc : p.channels) {
+                    maxOffset = Math.max(maxOffset, tc.offset);
+                }
+            }
+        }
+
+        int chunk = Math.max(1, CHUNK_LENGTH / hop) * hop;
+        int nchunks = (gridLength + chunk - 1) / chunk;
+        TaskMonitor monitor = TaskMonitor.current();
+        monitor.checkCancelled();
+        monitor.begin(nchunks * prepared.size());
+        for (int g0 = 0; g0 < gridLength; g0 += chunk) {
+            int start = g0;
+            int length = Math.min(chunk, gridLength - g0);
+            int nlags = length + maxOffset;
+            channels.values().parallelStream().forEach(channel -> transform(channel, start - channel.gridOffset, nlags, hop, maxLength, scratch.get()));
+            prepared.parallelStream().forEach(p -> {
+                if (!monitor.isCancelled()) {
+                    scan(p, start, length, hop, scratch.get());
+                    monitor.worked();
+                }
+            });
+            monitor.checkCancelled();
+        }
+        for (Channel channel : channels.values()) {
+            channel.spectra = null;
+            channel.energy = null;
+        }
+
+        List<Detection> detections = new ArrayList<>();
+        for (PreparedTemplate p : prepared) {
+            detections.addAll(decluster(p, gridTime, delta));
+        }
+        return detections;
+    }
+
+    private static int longestChannel(List<Template> templates, double delta) {
+        int longest = 0;
+        for (Template template : templates) {
+            for (SacTraceData std : template.getChannels()) {
+                checkSampling(std, delta);
+                longest = Math.max(longest, std.getSACHeader().getNpts());
+            }
+        }
+        return longest;
+    }
+
+    private static void checkSampling(SacTraceData std, double delta) {
+        SACHeader header = std.getSACHeader();
+        if (!header.isEvenlySampled()) {
+            throw new IllegalStateException("ERROR 1306: Illegal operation on unevenly spaced file");
+        }
+        if (Math.abs(header.getDelta() - delta) > EPS * delta) {
+            throw new IllegalStateException("A data file has an inconsistent sampling interval, delta: " + header.getDelta());
+        }
+    }
+
+    private PreparedTemplate prepare(Template template, Map<String, Channel> channels, double gridTime, double delta, Scratch s) {
+        PreparedTemplate p = new PreparedTemplate(template.getName());
+        double earliest = Double.MAX_VALUE;
+        for (SacTraceData std : template.getChannels()) {
+            if (channels.containsKey(channelKey(std))) {
+                earliest = Math.min(earliest, startTime(std));
+            }
+        }
+        for (SacTraceData std : template.getChannels()) {
+            Channel channel = channels.get(channelKey(std));
+            if (channel == null) {
+                log.warn("No continuous data for channel {} of template {}", channelKey(std), template.getName());
+                continue;
+            }
+            float[] x = std.getData();
+            double energy = 0.0;
+            for (float v : x) {
+                energy += (double) v * v;
+            }
+            if (x.length == 0 || energy == 0.0) {
+                log.warn("Channel {} of template {} is empty", channelKey(std), template.getName());
+                continue;
+            }
+            int offset = (int) Math.round((startTime(std) - earliest) / delta);
+            Arrays.fill(s.block, 0.0f);
+            System.arraycopy(x, 0, s.block, 0, x.length);
+            float[] spectrum = new float[s.block.length];
+            s.fft.evaluate(s.block, spectrum);
+            p.channels.add(new TemplateChannel(channel, x.length, offset, spectrum, Math.sqrt(energy)));
+            p.span = Math.max(p.span, offset + x.length);
+            // Detection times at which this channel's template lies within its data.
+            p.gridStart = Math.max(p.gridStart, channel.gridOffset - offset);
+            p.gridEnd = Math.min(p.gridEnd, channel.gridOffset + channel.data.length - x.length - offset + 1);
+        }
+        if (p.channels.isEmpty()) {
+            log.warn("Template {} has no channels in common with the continuous data", template.getName());
+            return null;
+        }
+        return p;
+    }
+
+    /**
+     * Computes the spectra of the blocks that give the correlations at lags
+     * lagStart to lagStart + nlags - 1, and the running energy under them.
+     */
+    private static void transform(Channel channel, int lagStart, int nlags, int hop, int maxLength, Scratch s) {
+        int nfft = s.block.length;
+        int m = channel.data.length;
+        int nblocks = (nlags + hop - 1) / hop;
+        channel.lagStart = lagStart;
+        channel.spectra = new float[nblocks][];
+        for (int b = 0; b < nblocks; ++b) {
+            int first = lagStart + b * hop;
+            if (first >= m || first + nfft <= 0) {
+                continue;
+            }
+            Arrays.fill(s.block, 0.0f);
+            int from = Math.max(first, 0);
+            int to = Math.min(first + nfft, m);
+            System.arraycopy(channel.data, from, s.block, from - first, to - from);
+            channel.spectra[b] = new float[nfft];
+            s.fft.evaluate(s.block, channel.spectra[b]);
+        }
+        // energy[i] is the sum of squares of the samples before lagStart + i.
+        int nenergy = nblocks * hop + maxLength;
+        double[] energy = new double[nenergy + 1];
+        for (int i = 0; i < nenergy; ++i) {
+            int j = lagStart + i;
+            double v = j >= 0 && j < m ? channel.data[j] : 0.0;
+            energy[i + 1] = energy[i] + v * v;
+        }
+        channel.energy = energy;
+        channel.energyFloor = ENERGY_EPSILON * energy[nenergy];
+    }
+
+    private void scan(PreparedTemplate p, int g0, int length, int hop, Scratch s) {
+        int first = Math.max(g0, p.gridStart);
+        int last = Math.min(g0 + length, p.gridEnd);
+        if (first >= last) {
+            return;
+        }
+        double[] stack = new double[last - first];
+        for (TemplateChannel tc : p.channels) {
+            Channel channel = tc.channel;
+            // Lag on this channel of detection time first, relative to lagStart.
+            int r0 = first + tc.offset - channel.gridOffset - channel.lagStart;
+            int r1 = r0 + stack.length;
+            for (int b = r0 / hop; b * hop < r1; ++b) {
+                System.arraycopy(channel.spectra[b], 0, s.spectrum, 0, s.spectrum.length);
+                RDFT.dftProduct(tc.spectrum, s.spectrum, -1.0f);
+                s.fft.evaluateInverse(s.spectrum, s.block);
+                int i0 = Math.max(r0, b * hop);
+                int i1 = Math.min(r1, (b + 1) * hop);
+                for (int r = i0; r < i1; ++r) {
+                    double e = channel.energy[r + tc.length] - channel.energy[r];
+                    if (e > channel.energyFloor) {
+                        stack[r - r0] += s.block[r - b * hop] / (tc.norm * Math.sqrt(e));
+                    }
+                }
+            }
+        }
+        int nchannels = p.channels.size();
+        for (int k = 0; k < stack.length; ++k) {
+            stack[k] /= nchannels;
+        }
+        findPeaks(p, first, stack);
+    }
+
+    /**
+     * Records the largest value of each run of the stack above the threshold.
+     */
+    private void findPeaks(PreparedTemplate p, int first, double[] stack) {
+        double[] sorted = stack.clone();
+        Arrays.sort(sorted);
+        double median = median(sorted);
+        for (int k = 0; k < sorted.length; ++k) {
+            sorted[k] = Math.abs(stack[k] - median);
+        }
+        Arrays.sort(sorted);
+        double mad = median(sorted);
+        if (!(mad > 0.0)) {
+            return;
+        }
+        double level = median + threshold * mad;
+        int best = -1;
+        for (int k = 0; k <= stack.length; ++k) {
+            if (k < stack.length && stack[k] > level) {
+                if (best < 0 || stack[k] > stack[best]) {
+                    best = k;
+                }
+            } else if (best >= 0) {
+                p.candidates.add(new Candidate(first + best, stack[best], (stack[best] - median) / mad));
+                best = -1;
+            }
+        }
+    }
+
+    private static double median(double[] sorted) {
+        int n = sorted.length;
+        return n % 2 == 1 ? sorted[n / 2] : 0.5 * (sorted[n / 2 - 1] + sorted[n / 2]);
+    }
+
+    /**
+     * Keeps the largest of any candidates closer together than the span of
+     * the template, including those either side of a chunk boundary.
+     */
+    private static List<Detection> decluster(PreparedTemplate p, double gridTime, double delta) {
+        List<Candidate> candidates = new ArrayList<>(p.candidates);
+        candidates.sort(Comparator.comparingDouble((Candidate c) -> c.correlation).reversed());
+        List<Candidate> kept = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            boolean isolated = true;
+            for (Candidate k : kept) {
+                if (Math.abs(k.index - candidate.index) < p.span) {
+                    isolated = false;
+                    break;
+                }
+            }
+            if (isolated) {
+                kept.add(candidate);
+            }
+        }
+        kept.sort(Comparator.comparingInt(c -> c.index));
+
+        List<SacTraceData> traces = new ArrayList<>();
+        for (TemplateChannel tc : p.channels) {
+            traces.add(tc.channel.trace);
+        }
+        List<Detection> detections = new ArrayList<>();
+        for (Candidate k : kept) {
+            double time = gridTime + k.index * delta;
+            double[] arrivals = new double[p.channels.size()];
+            for (int j = 0; j < arrivals.length; ++j) {
+                arrivals[j] = time + p.channels.get(j).offset * delta;
+            }
+            detections.add(new Detection(p.name, time, k.correlation, k.madMultiple, traces, arrivals));
+        }
+        return detections;
+    }
+}
@@ -0,0 +1,264 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.filtering;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.oregondsp.signalProcessing.filter.iir.PassbandType;
+
+import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData;
+import gov.llnl.gnem.jsac.io.SACHeader;
+
+/**
+ * Changes the sample rate of traces by a rational factor up / down with a
+ * polyphase FIR filter. Conceptually the data are upsampled by inserting up -
+ * 1 zeros between samples, lowpass filtered and then downsampled by keeping
+ * every down'th sample; only the products with nonzero input samples that
+ * contribute to kept outputs are computed. The filter is a Blackman-windowed
+ * sinc whose delay is removed, so B does not change.
+ * <p>
+ * The taps are never modified, so one instance can resample any number of
+ * traces at the same time.
+ */
+public class Resampler {
+
+    /** The largest numerator or denominator found for a requested interval. */
+    public static final int MAX_FACTOR = 1000;
+
+    /** Blackman window transition bandwidth times the number of taps. */
+    private static final double BLACKMAN_WIDTH = 5.5;
+
+    /** Passband edge as a fraction of the output Nyquist frequency. */
+    private static final double PASSBAND = 0.8;
+
+    private static final double RATIO_TOLERANCE = 1.0e-6;
+
+    private final int up;
+    private final int down;
+    private final int delay;
+    private final float[][] phases;
+
+    private Resampler(int up, int down, float[] taps) {
+        this.up = up;
+        this.down = down;
+        delay = taps.length / 2;
+        phases = new float[up][];
+        for (int phase = 0; phase < up; ++phase) {
+            float[] h = new float[(taps.length - phase + up - 1) / up];
+            for (int j = 0; j < h.length; ++j) {
+                h[j] = taps[phase + j * up];
+            }
+            phases[phase] = h;
+        }
+    }
+
+    /**
+     * @param up   The upsampling factor.
+     * @param down The downsampling factor.
+     * @return A resampler from delta to delta * down / up, whose filter passes
+     *         80% of the lower of the two Nyquist frequencies.
+     */
+    public static Resampler rational(int up, int down) {
+        if (up < 1 || down < 1) {
+            throw new IllegalArgumentException("Resampling factors must be positive: " + up + "/" + down);
+        }
+        int divisor = gcd(up, down);
+        up /= divisor;
+        down /= divisor;
+        if (up == 1 && down == 1) {
+            return new Resampler(1, 1, new float[] { 1.0f });
+        }
+        int r = Math.max(up, down);
+        double passEdge = 0.5 * PASSBAND / r;
+        return new Resampler(up, down, lowpass(passEdge, 1.0 / r - passEdge, up));
+    }
+
+    /**
+     * Decimation by a composite factor is done in stages, one for each prime
+     * factor, largest first. Only the last stage needs a sharp filter: the
+     * earlier ones need only keep what they alias from the final passband,
+     * so their filters are short.
+     *
+     * @param factor The decimation factor.
+     * @return The stages, to be applied in order.
+     */
+    public static List<Resampler> decimation(int factor) {
+        if (factor < 1) {
+            throw new IllegalArgumentException("Decimation factor must be positive: " + factor);
+        }
+        List<Integer> factors = primeFactors(factor);
+        List<Resampler> stages = new ArrayList<>();
+        int remaining = factor;
+        for (int r : factors) {
+            remaining /= r;
+            double passEdge = 0.5 * PASSBAND / (r * remaining);
+            stages.add(new Resampler(1, r, lowpass(passEdge, 1.0 / r - passEdge, 1)));
+        }
+        return stages;
+    }
+
+    /**
+     * @param factor The decimation factor.
+     * @return A resampler that keeps every factor'th sample without filtering.
+     */
+    public static Resampler subsampler(int factor) {
+        if (factor < 1) {
+            throw new IllegalArgumentException("Decimation factor must be positive: " + factor);
+        }
+        return new Resampler(1, factor, new float[] { 1.0f });
+    }
+
+    /**
+     * @param delta    The current sample interval.
+     * @param newDelta The requested sample interval.
+     * @return up and down, the smallest factors with delta * down / up equal
+     *         to newDelta to within one part in a million.
+     */
+    public static int[] ratio(double delta, double newDelta) {
+        if (!(delta > 0.0) || !(newDelta > 0.0)) {
+            throw new IllegalArgumentException("Sample intervals must be positive");
+        }
+        double target = delta / newDelta;
+        // Convergents of the continued fraction of target.
+        long p0 = 0, q0 = 1, p1 = 1, q1 = 0;
+        double x = target;
+        while (true) {
+            long a = (long) Math.floor(x);
+            long p = a * p1 + p0;
+            long q = a * q1 + q0;
+            if (p > MAX_FACTOR || q > MAX_FACTOR) {
+                break;
+            }
+            p0 = p1;
+            q0 = q1;
+            p1 = p;
+            q1 = q;
+            if (Math.abs((double) p / q - target) <= RATIO_TOLERANCE * target || x == a) {
+                return new int[] { (int) p, (int) q };
+            }
+            x = 1.0 / (x - a);
+        }
+        throw new IllegalArgumentException(String.format("Cannot resample from %s to %s with factors of at most %d", delta, newDelta, MAX_FACTOR));
+    }
+
+    public int getUp() {
+        return up;
+    }
+
+    public int getDown() {
+        return down;
+    }
+
+    /**
+     * @return The number of taps in the longest phase of the filter.
+     */
+    public int getTapsPerPhase() {
+        return phases[0].length;
+    }
+
+    /**
+     * Resamples a trace in place. B is unchanged; DELTA, NPTS and E are
+     * updated.
+     */
+    public void resample(SacTraceData std) {
+        SACHeader header = std.getSACHeader();
+        if (!header.isEvenlySampled()) {
+            throw new IllegalStateException("ERROR 1306: Illegal operation on unevenly spaced file");
+        }
+        float[] y = resample(std.getData());
+        double delta = header.getDelta() * down / up;
+        header.setDelta(delta);
+        std.setData(y);
+        header.setE(header.getB() + (y.length - 1) * delta);
+    }
+
+    /**
+     * @param x The input samples.
+     * @return The output samples, of which there are ceil(x.length * up /
+     *         down). Output sample m lies at the time of input sample m *
+     *         down / up.
+     */
+    public float[] resample(float[] x) {
+        int n = x.length;
+        int m = (int) (((long) n * up + down - 1) / down);
+        float[] y = new float[m];
+        for (int k = 0; k < m; ++k) {
+            // Position in the upsampled sequence of the filter output aligned with output k.
+            long t = (long) k * down + delay;
+            int phase = (int) (t % up);
+            long newest = t / up;
+            float[] h = phases[phase];
+            int jmin = (int) Math.max(0, newest - (n - 1));
+            int jmax = (int) Math.min(h.length - 1, newest);
+            double sum = 0.0;
+            for (int j = jmin; j <= jmax; ++j) {
+                sum += h[j] * x[(int) (newest - j)];
+            }
+            y[k] = (float) sum;
+        }
+        return y;
+    }
+
+    /**
+     * @param passEdge The passband edge in cycles per upsampled sample.
+     * @param stopEdge The stopband edge in cycles per upsampled sample.
+     * @param gain     The gain, which restores the amplitude lost to the
+     *                 zeros inserted by upsampling.
+     */
+    private static float[] lowpass(double passEdge, double stopEdge, int gain) {
+        int ntaps = (int) Math.ceil(BLACKMAN_WIDTH / (stopEdge - passEdge)) | 1;
+        float[] taps = FIRDesign.windowedSinc(PassbandType.LOWPASS, 0.0, 0.5 * (passEdge + stopEdge), ntaps, FIRDesign.Window.BLACKMAN, 1.0);
+        double sum = 0.0;
+        for (float tap : taps) {
+            sum += tap;
+        }
+        for (int j = 0; j < ntaps; ++j) {
+            taps[j] = (float) (taps[j] * gain / sum);
+        }
+        return taps;
+    }
+
+    static List<Integer> primeFactors(int n) {
+        List<Integer> factors = new ArrayList<>();
+        for (int p = 2; (long) p * p <= n; ++p) {
+            while (n % p == 0) {
+                factors.add(0, p);
+                n /= p;
+            }
+        }
+        if (n > 1) {
+            factors.add(0, n);
+        }
+        return factors;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
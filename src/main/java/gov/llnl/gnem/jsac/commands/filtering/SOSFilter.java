@@ -0,0 +1,508 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.filtering;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.commons.math3.complex.Complex;
+
+import com.oregondsp.signalProcessing.filter.iir.PassbandType;
+
+import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData;
+import llnl.gnem.dftt.core.signalprocessing.filter.FilterDesign;
+
+/**
+ * A digital IIR filter held as a cascade of second-order sections and applied
+ * in double precision. The design follows the one used by SAC: an analog
+ * prototype (Butterworth, Chebyshev I or Chebyshev II) is mapped to the
+ * requested passband at prewarped corner frequencies and then to the digital
+ * domain with the bilinear transformation.
+ * <p>
+ * The coefficients are never modified, so one instance can filter any number
+ * of traces at the same time; the filter state lives on the stack of each
+ * call. A backward pass runs over the samples in reverse index order rather
+ * than reversing the array. Several traces of the same length can be filtered
+ * together: their samples are interleaved, so that the recurrence for one
+ * sample runs over all of the traces in the innermost loop.
+ */
+public class SOSFilter {
+
+    /** The largest number of traces filtered together. */
+    public static final int MAX_CHANNELS = 8;
+
+    private static final double TOLERANCE = 1.0e-9;
+
+    private final double[] b0;
+    private final double[] b1;
+    private final double[] b2;
+    private final double[] a1;
+    private final double[] a2;
+
+    private SOSFilter(List<double[]> sections) {
+        int n = sections.size();
+        b0 = new double[n];
+        b1 = new double[n];
+        b2 = new double[n];
+        a1 = new double[n];
+        a2 = new double[n];
+        for (int j = 0; j < n; ++j) {
+            double[] s = sections.get(j);
+            b0[j] = s[0];
+            b1[j] = s[1];
+            b2[j] = s[2];
+            a1[j] = s[3];
+            a2[j] = s[4];
+        }
+    }
+
+    /**
+     * Designs a filter.
+     *
+     * @param design       The analog prototype.
+     * @param order        The number of poles of the prototype.
+     * @param passband     The passband type. Lowpass filters use cutoff2 and
+     *                     highpass filters cutoff1.
+     * @param cutoff1      The lower corner frequency in Hz.
+     * @param cutoff2      The upper corner frequency in Hz.
+     * @param epsilon      The ripple parameter of Chebyshev prototypes.
+     * @param transitionBW The transition bandwidth of Chebyshev II prototypes
+     *                     as a fraction of the passband edge.
+     * @param delta        The sample interval in seconds.
+     * @return The filter.
+     */
+    public static SOSFilter design(FilterDesign design, int order, PassbandType passband, double cutoff1, double cutoff2, double epsilon, double transitionBW, double delta) {
+        Roots roots;
+        switch (design) {
+        case Butterworth:
+            roots = butterworth(order);
+            break;
+        case Chebyshev1:
+            roots = chebyshevI(order, epsilon);
+            break;
+        case Chebyshev2:
+            roots = chebyshevII(order, epsilon, 1.0 + transitionBW);
+            break;
+        default:
+            throw new IllegalArgumentException("Unsupported design: " + design);
+        }
+
+        switch (passband) {
+        case LOWPASS:
+            roots = roots.lowpass(warp(cutoff2, delta));
+            break;
+        case HIGHPASS:
+            roots = roots.highpass(warp(cutoff1, delta));
+            break;
+        case BANDPASS:
+            roots = roots.bandpass(warp(cutoff1, delta), warp(cutoff2, delta));
+            break;
+        case BANDREJECT:
+            roots = roots.bandreject(warp(cutoff1, delta), warp(cutoff2, delta));
+            break;
+        default:
+            throw new IllegalArgumentException("Unsupported passband: " + passband);
+        }
+        return new SOSFilter(roots.bilinear().toSections());
+    }
+
+    public int getSectionCount() {
+        return b0.length;
+    }
+
+    /**
+     * Filters one array of samples in place.
+     *
+     * @param data    The samples.
+     * @param twoPass true to filter forwards and then backwards, for zero
+     *                phase.
+     */
+    public void filter(float[] data, boolean twoPass) {
+        double[] x = new double[data.length];
+        for (int j = 0; j < data.length; ++j) {
+            x[j] = data[j];
+        }
+        filter(x, 1, twoPass);
+        for (int j = 0; j < data.length; ++j) {
+            data[j] = (float) x[j];
+        }
+    }
+
+    /**
+     * Filters the samples of several traces together.
+     *
+     * @param traces  Evenly sampled traces with the same number of samples.
+     * @param twoPass true to filter forwards and then backwards, for zero
+     *                phase.
+     */
+    public void filter(List<SacTraceData> traces, boolean twoPass) {
+        int channels = traces.size();
+        float[][] data = new float[channels][];
+        for (int c = 0; c < channels; ++c) {
+            data[c] = traces.get(c).getData();
+            if (data[c].length != data[0].length) {
+                throw new IllegalArgumentException("Traces filtered together must have the same number of samples");
+            }
+        }
+        int npts = channels > 0 ? data[0].length : 0;
+        double[] x = new double[npts * channels];
+        for (int c = 0; c < channels; ++c) {
+            float[] values = data[c];
+            for (int j = 0, k = c; j < npts; ++j, k += channels) {
+                x[k] = values[j];
+            }
+        }
+        filter(x, channels, twoPass);
+        for (int c = 0; c < channels; ++c) {
+            float[] values = data[c];
+            for (int j = 0, k = c; j < npts; ++j, k += channels) {
+                values[j] = (float) x[k];
+            }
+            traces.get(c).setData(values);
+        }
+    }
+
+    /**
+     * Filters interleaved samples in place.
+     *
+     * @param x        The samples, with sample j of channel c at
+     *                 {@code j * channels + c}.
+     * @param channels The number of channels.
+     * @param twoPass  true to follow the forward pass with a backward one.
+     */
+    public void filter(double[] x, int channels, boolean twoPass) {
+        double[] s1 = new double[channels];
+        double[] s2 = new double[channels];
+        for (int section = 0; section < b0.length; ++section) {
+            forward(section, x, channels, s1, s2);
+        }
+        if (twoPass) {
+            for (int section = 0; section < b0.length; ++section) {
+                backward(section, x, channels, s1, s2);
+            }
+        }
+    }
+
+    private void forward(int section, double[] x, int channels, double[] s1, double[] s2) {
+        double c0 = b0[section];
+        double c1 = b1[section];
+        double c2 = b2[section];
+        double d1 = a1[section];
+        double d2 = a2[section];
+        Arrays.fill(s1, 0.0);
+        Arrays.fill(s2, 0.0);
+        for (int base = 0; base < x.length; base += channels) {
+            for (int c = 0; c < channels; ++c) {
+                double in = x[base + c];
+                double out = c0 * in + s1[c];
+                s1[c] = c1 * in - d1 * out + s2[c];
+                s2[c] = c2 * in - d2 * out;
+                x[base + c] = out;
+            }
+        }
+    }
+
+    private void backward(int section, double[] x, int channels, double[] s1, double[] s2) {
+        double c0 = b0[section];
+        double c1 = b1[section];
+        double c2 = b2[section];
+        double d1 = a1[section];
+        double d2 = a2[section];
+        Arrays.fill(s1, 0.0);
+        Arrays.fill(s2, 0.0);
+        for (int base = x.length - channels; base >= 0; base -= channels) {
+            for (int c = 0; c < channels; ++c) {
+                double in = x[base + c];
+                double out = c0 * in + s1[c];
+                s1[c] = c1 * in - d1 * out + s2[c];
+                s2[c] = c2 * in - d2 * out;
+                x[base + c] = out;
+            }
+        }
+    }
+
+    private static double warp(double f, double delta) {
+        return Math.tan(Math.PI * f * delta);
+    }
+
+    private static double asinh(double x) {
+        return Math.log(x + Math.sqrt(x * x + 1.0));
+    }
+
+    private static Roots butterworth(int order) {
+        Roots roots = new Roots();
+        for (int k = 0; k < order / 2; ++k) {
+            double angle = Math.PI * (2 * k + 1) / (2 * order);
+            roots.addPolePair(new Complex(-Math.sin(angle), Math.cos(angle)));
+        }
+        if (order % 2 == 1) {
+            roots.poles.add(new Complex(-1.0));
+        }
+        return roots.normalize(1.0);
+    }
+
+    private static Roots chebyshevI(int order, double epsilon) {
+        double mu = asinh(1.0 / epsilon) / order;
+        Roots roots = new Roots();
+        for (int k = 0; k < order / 2; ++k) {
+            double angle = Math.PI * (2 * k + 1) / (2 * order);
+            roots.addPolePair(new Complex(-Math.sinh(mu) * Math.sin(angle), Math.cosh(mu) * Math.cos(angle)));
+        }
+        if (order % 2 == 1) {
+            roots.poles.add(new Complex(-Math.sinh(mu)));
+        }
+        return roots.normalize(order % 2 == 1 ? 1.0 : 1.0 / Math.sqrt(1.0 + epsilon * epsilon));
+    }
+
+    /**
+     * The stopband of the prototype begins at omegar.
+     */
+    private static Roots chebyshevII(int order, double epsilon, double omegar) {
+        double mu = asinh(1.0 / epsilon) / order;
+        Roots roots = new Roots();
+        for (int k = 0; k < order / 2; ++k) {
+            double angle = Math.PI * (2 * k + 1) / (2 * order);
+            Complex p = new Complex(-Math.sinh(mu) * Math.sin(angle), Math.cosh(mu) * Math.cos(angle));
+            roots.addPolePair(new Complex(omegar).divide(p));
+            roots.addZeroPair(new Complex(0.0, omegar / Math.cos(angle)));
+        }
+        if (order % 2 == 1) {
+            roots.poles.add(new Complex(-omegar / Math.sinh(mu)));
+        }
+        return roots.normalize(1.0);
+    }
+
+    private static Complex product(List<Complex> values, Complex offset, boolean negate) {
+        Complex result = Complex.ONE;
+        for (Complex value : values) {
+            result = result.multiply(negate ? offset.subtract(value) : offset.add(value));
+        }
+        return result;
+    }
+
+    /**
+     * The zeros, poles and gain of a transfer function.
+     */
+    private static class Roots {
+
+        private final List<Complex> zeros = new ArrayList<>();
+        private final List<Complex> poles = new ArrayList<>();
+        private double gain = 1.0;
+
+        private void addPolePair(Complex p) {
+            poles.add(p);
+            poles.add(p.conjugate());
+        }
+
+        private void addZeroPair(Complex z) {
+            zeros.add(z);
+            zeros.add(z.conjugate());
+        }
+
+        /**
+         * Sets the gain of an analog prototype so that its response at zero
+         * frequency is dcValue.
+         */
+        private Roots normalize(double dcValue) {
+            gain = dcValue * product(poles, Complex.ZERO, true).divide(product(zeros, Complex.ZERO, true)).getReal();
+            return this;
+        }
+
+        private int excess() {
+            return poles.size() - zeros.size();
+        }
+
+        private Roots lowpass(double omega) {
+            Roots result = new Roots();
+            zeros.forEach(z -> result.zeros.add(z.multiply(omega)));
+            poles.forEach(p -> result.poles.add(p.multiply(omega)));
+            result.gain = gain * Math.pow(omega, excess());
+            return result;
+        }
+
+        private Roots highpass(double omega) {
+            Roots result = new Roots();
+            zeros.forEach(z -> result.zeros.add(new Complex(omega).divide(z)));
+            poles.forEach(p -> result.poles.add(new Complex(omega).divide(p)));
+            for (int j = 0; j < excess(); ++j) {
+                result.zeros.add(Complex.ZERO);
+            }
+            result.gain = gain * product(zeros, Complex.ZERO, true).divide(product(poles, Complex.ZERO, true)).getReal();
+            return result;
+        }
+
+        private Roots bandpass(double omega1, double omega2) {
+            double bw = omega2 - omega1;
+            double w0 = Math.sqrt(omega1 * omega2);
+            Roots result = new Roots();
+            zeros.forEach(z -> splitBandpass(z, bw, w0, result.zeros));
+            poles.forEach(p -> splitBandpass(p, bw, w0, result.poles));
+            for (int j = 0; j < excess(); ++j) {
+                result.zeros.add(Complex.ZERO);
+            }
+            result.gain = gain * Math.pow(bw, excess());
+            return result;
+        }
+
+        private Roots bandreject(double omega1, double omega2) {
+            double bw = omega2 - omega1;
+            double w0 = Math.sqrt(omega1 * omega2);
+            Roots result = new Roots();
+            zeros.forEach(z -> splitBandpass(new Complex(1.0).divide(z), bw, w0, result.zeros));
+            poles.forEach(p -> splitBandpass(new Complex(1.0).divide(p), bw, w0, result.poles));
+            for (int j = 0; j < excess(); ++j) {
+                result.addZeroPair(new Complex(0.0, w0));
+            }
+            result.gain = gain * product(zeros, Complex.ZERO, true).divide(product(poles, Complex.ZERO, true)).getReal();
+            return result;
+        }
+
+        /**
+         * Adds the two roots of s^2 - r bw s + w0^2 = 0, the images of root
+         * r under the lowpass to bandpass mapping.
+         */
+        private static void splitBandpass(Complex r, double bw, double w0, List<Complex> target) {
+            Complex half = r.multiply(bw / 2.0);
+            Complex root = half.multiply(half).subtract(w0 * w0).sqrt();
+            target.add(half.add(root));
+            target.add(half.subtract(root));
+        }
+
+        /**
+         * Maps an analog filter to the digital domain with s = (1 - 1/z) / (1
+         * + 1/z).
+         */
+        private Roots bilinear() {
+            Roots result = new Roots();
+            zeros.forEach(z -> result.zeros.add(Complex.ONE.add(z).divide(Complex.ONE.subtract(z))));
+            poles.forEach(p -> result.poles.add(Complex.ONE.add(p).divide(Complex.ONE.subtract(p))));
+            for (int j = 0; j < excess(); ++j) {
+                result.zeros.add(new Complex(-1.0));
+            }
+            result.gain = gain * product(zeros, Complex.ONE, true).divide(product(poles, Complex.ONE, true)).getReal();
+            return result;
+        }
+
+        /**
+         * Groups the digital poles into conjugate pairs and real poles and
+         * gives each group its nearest zeros. Sections with poles closest to
+         * the unit circle are paired first and applied last.
+         *
+         * @return b0, b1, b2, a1, a2 for each section, with the gain in the
+         *         first one.
+         */
+        private List<double[]> toSections() {
+            List<Complex> polePairs = new ArrayList<>();
+            List<Complex> realPoles = new ArrayList<>();
+            split(poles, polePairs, realPoles);
+            List<Complex> zeroPairs = new ArrayList<>();
+            List<Complex> realZeros = new ArrayList<>();
+            split(zeros, zeroPairs, realZeros);
+
+            Comparator<Complex> closestToUnitCircle = Comparator.comparingDouble(p -> Math.abs(1.0 - p.abs()));
+            polePairs.sort(closestToUnitCircle);
+            realPoles.sort(closestToUnitCircle);
+
+            List<double[]> sections = new ArrayList<>();
+            for (Complex p : polePairs) {
+                List<Complex> z = takeZeros(p, 2, zeroPairs, realZeros);
+                sections.add(section(z, p, p.conjugate()));
+            }
+            for (int j = 0; j < realPoles.size(); j += 2) {
+                Complex p1 = realPoles.get(j);
+                Complex p2 = j + 1 < realPoles.size() ? realPoles.get(j + 1) : null;
+                List<Complex> z = takeZeros(p1, p2 != null ? 2 : 1, zeroPairs, realZeros);
+                sections.add(section(z, p1, p2));
+            }
+            while (!zeroPairs.isEmpty() || !realZeros.isEmpty()) {
+                sections.add(section(takeZeros(Complex.ZERO, 2, zeroPairs, realZeros), null, null));
+            }
+            if (sections.isEmpty()) {
+                sections.add(new double[] { 1.0, 0.0, 0.0, 0.0, 0.0 });
+            }
+
+            Collections.reverse(sections);
+            double[] first = sections.get(0);
+            first[0] *= gain;
+            first[1] *= gain;
+            first[2] *= gain;
+            return sections;
+        }
+
+        private static void split(List<Complex> values, List<Complex> pairs, List<Complex> reals) {
+            for (Complex value : values) {
+                if (Math.abs(value.getImaginary()) <= TOLERANCE) {
+                    reals.add(new Complex(value.getReal()));
+                } else if (value.getImaginary() > 0) {
+                    pairs.add(value);
+                }
+            }
+        }
+
+        /**
+         * Removes up to count zeros nearest to p, either a conjugate pair or
+         * real zeros.
+         */
+        private static List<Complex> takeZeros(Complex p, int count, List<Complex> pairs, List<Complex> reals) {
+            Comparator<Complex> nearest = Comparator.comparingDouble(z -> z.subtract(p).abs());
+            reals.sort(nearest);
+            pairs.sort(nearest);
+            List<Complex> result = new ArrayList<>();
+            boolean usePair = !pairs.isEmpty() && count == 2
+                    && (reals.size() < 2 || pairs.get(0).subtract(p).abs() <= reals.get(1).subtract(p).abs());
+            if (usePair) {
+                Complex z = pairs.remove(0);
+                result.add(z);
+                result.add(z.conjugate());
+            } else {
+                while (result.size() < count && !reals.isEmpty()) {
+                    result.add(reals.remove(0));
+                }
+            }
+            return result;
+        }
+
+        /**
+         * @return The coefficients of (1 - z1/z)(1 - z2/z) / (1 - p1/z)(1 -
+         *         p2/z), where missing roots contribute nothing.
+         */
+        private static double[] section(List<Complex> z, Complex p1, Complex p2) {
+            double[] b = quadratic(z.size() > 0 ? z.get(0) : null, z.size() > 1 ? z.get(1) : null);
+            double[] a = quadratic(p1, p2);
+            return new double[] { b[0], b[1], b[2], a[1], a[2] };
+        }
+
+        private static double[] quadratic(Complex r1, Complex r2) {
+            if (r1 == null) {
+                return new double[] { 1.0, 0.0, 0.0 };
+            }
+            if (r2 == null) {
+                return new double[] { 1.0, -r1.getReal(), 0.0 };
+            }
+            return new double[] { 1.0, -r1.add(r2).getReal(), r1.multiply(r2).getReal() };
+        }
+    }
+}
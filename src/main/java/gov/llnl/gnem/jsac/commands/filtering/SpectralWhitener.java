@@ -0,0 +1,147 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.filtering;
+
+import java.util.Arrays;
+
+import com.oregondsp.signalProcessing.fft.RDFT;
+
+import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData;
+
+/**
+ * Flattens the amplitude spectrum of a trace within a frequency band by
+ * dividing the spectrum by a running mean of its own amplitude, leaving the
+ * phase unchanged. Outside the band the spectrum is tapered to zero with a
+ * cosine over one smoothing width. This is the spectral normalization commonly
+ * applied before cross-correlating ambient noise.
+ *
+ * Instances hold no per-trace state and may be shared across threads.
+ */
+public class SpectralWhitener {
+
+    private final double lowFrequency;
+    private final double highFrequency;
+    private final double width;
+
+    /**
+     * @param lowFrequency  Lower edge of the band (Hz).
+     * @param highFrequency Upper edge of the band (Hz). Frequencies above the
+     *                      Nyquist are not present, so a large value keeps the
+     *                      band open to the Nyquist.
+     * @param width         Width of the running mean and of the edge tapers
+     *                      (Hz). Zero normalizes each frequency by its own
+     *                      amplitude and cuts the band edges sharply.
+     */
+    public SpectralWhitener(double lowFrequency, double highFrequency, double width) {
+        if (lowFrequency < 0.0 || highFrequency <= lowFrequency) {
+            throw new IllegalArgumentException("Band must satisfy 0 <= low < high: " + lowFrequency + " " + highFrequency);
+        }
+        if (width < 0.0) {
+            throw new IllegalArgumentException("Smoothing width must not be negative: " + width);
+        }
+        this.lowFrequency = lowFrequency;
+        this.highFrequency = highFrequency;
+        this.width = width;
+    }
+
+    public void whiten(SacTraceData std) {
+        std.setData(whiten(std.getData(), std.getSACHeader().getDelta()));
+    }
+
+    /**
+     * @param x     The sequence.
+     * @param delta The sample interval (s).
+     * @return The whitened sequence, of the same length as x.
+     */
+    public float[] whiten(float[] x, double delta) {
+
+        int n = x.length;
+        int log2nfft = 1;
+        while ((1 << log2nfft) < n) {
+            log2nfft++;
+        }
+        int nfft = 1 << log2nfft;
+        int half = nfft / 2;
+        double df = 1.0 / (nfft * delta);
+
+        RDFT fft = new RDFT(log2nfft);
+        float[] block = Arrays.copyOf(x, nfft);
+        float[] spectrum = new float[nfft];
+        fft.evaluate(block, spectrum);
+
+        double[] amplitude = new double[half + 1];
+        amplitude[0] = Math.abs(spectrum[0]);
+        amplitude[half] = Math.abs(spectrum[half]);
+        for (int k = 1; k < half; k++) {
+            amplitude[k] = Math.hypot(spectrum[k], spectrum[nfft - k]);
+        }
+        double[] smoothed = runningMean(amplitude, (int) Math.round(width / (2.0 * df)));
+
+        for (int k = 0; k <= half; k++) {
+            double weight = weight(k * df);
+            float scale = weight > 0.0 && smoothed[k] > 0.0 ? (float) (weight / smoothed[k]) : 0.0f;
+            spectrum[k] *= scale;
+            if (k > 0 && k < half) {
+                spectrum[nfft - k] *= scale;
+            }
+        }
+        fft.evaluateInverse(spectrum, block);
+
+        return Arrays.copyOf(block, n);
+    }
+
+    /*
+     * Gain applied to the normalized spectrum: one in the band, a cosine taper
+     * over one smoothing width either side and zero beyond.
+     */
+    double weight(double frequency) {
+        if (frequency >= lowFrequency && frequency <= highFrequency) {
+            return 1.0;
+        }
+        double distance = frequency < lowFrequency ? lowFrequency - frequency : frequency - highFrequency;
+        if (distance >= width) {
+            return 0.0;
+        }
+        return 0.5 * (1.0 + Math.cos(Math.PI * distance / width));
+    }
+
+    /*
+     * Mean over the bins within halfWidth of each bin, truncated at the ends
+     * of the spectrum.
+     */
+    static double[] runningMean(double[] x, int halfWidth) {
+        int n = x.length;
+        double[] prefix = new double[n + 1];
+        for (int i = 0; i < n; i++) {
+            prefix[i + 1] = prefix[i] + x[i];
+        }
+        double[] retval = new double[n];
+        for (int i = 0; i < n; i++) {
+            int lo = Math.max(0, i - halfWidth);
+            int hi = Math.min(n - 1, i + halfWidth);
+            retval[i] = (prefix[hi + 1] - prefix[lo]) / (hi - lo + 1);
+        }
+        return retval;
+    }
+
+}
@@ -30,20 +30,42 @@ import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData;
 import gov.llnl.gnem.jsac.io.SACHeader;
 import llnl.gnem.dftt.core.signalprocessing.Sequence;
 
+/**
+ * Stacks the cross-correlations of corresponding windows of a master and of
+ * each trace. The spectra of the master windows are computed once, so one
+ * instance can correlate any number of traces at the same time; each thread
+ * gets its own FFT and work arrays.
+ */
 public class StackedCorrelator {
 
-    private final float[] master;
-    private boolean normalize;
+    private final boolean normalize;
     private final int numberOfWindows;
     private final int windowLength;
-    private int mOverlap;
-    private int sOverlap;
-
-    private RDFT fft;
+    private final int log2nfft;
+    private final float[][] masterSpectra;
+
+    private final ThreadLocal<Scratch> scratch;
+
+    /**
+     * The FFT and work arrays of one thread.
+     */
+    private static class Scratch {
+
+        final RDFT fft;
+        final float[] accumulator;
+        final float[] s;
+        final float[] S;
+
+        Scratch(int log2nfft) {
+            fft = new RDFT(log2nfft);
+            accumulator = new float[1 << log2nfft];
+            s = new float[1 << log2nfft];
+            S = new float[1 << log2nfft];
+        }
+    }
 
-    public StackedCorrelator(float[] master, boolean normalize, int windowLength, int numberOfWindows, int slaveLength) {
+    public StackedCorrelator(float[] master, boolean normalize, int windowLength, int numberOfWindows) {
 
-        this.master = master;
         this.normalize = normalize;
         this.numberOfWindows = numberOfWindows;
         this.windowLength = windowLength;
@@ -52,71 +74,78 @@ public class StackedCorrelator {
             throw new IllegalStateException("Length of master sequence is smaller than specified window length");
         }
 
-        if (slaveLength < windowLength) {
-            throw new IllegalStateException("Length of second sequence is smaller than specified window length");
-        }
-
-        mOverlap = (int) Math.ceil((double) (windowLength * numberOfWindows - master.length) / (double) (numberOfWindows - 1));
-
-        sOverlap = (int) Math.ceil((double) (windowLength * numberOfWindows - slaveLength) / (double) (numberOfWindows - 1));
+        int mOverlap = overlap(master.length);
 
         int nfft = 32;
-        int log2nfft = 5;
+        int log2 = 5;
 
         while (nfft < windowLength) {
             nfft *= 2;
-            log2nfft++;
+            log2++;
         }
+        log2nfft = log2;
+        scratch = ThreadLocal.withInitial(() -> new Scratch(log2nfft));
 
-        fft = new RDFT(log2nfft);
+        Scratch s = scratch.get();
+        masterSpectra = new float[numberOfWindows][nfft];
+        int mptr = 0;
+        for (int iw = 0; iw < numberOfWindows; iw++) {
+            Arrays.fill(s.s, 0.0f);
+            System.arraycopy(master, mptr, s.s, 0, windowLength);
+            s.fft.evaluate(s.s, masterSpectra[iw]);
+            mptr += windowLength - mOverlap;
+        }
+    }
 
+    /**
+     * @return The overlap of successive windows that spreads them over a
+     *         sequence of the given length.
+     */
+    private int overlap(int length) {
+        return (int) Math.ceil((double) (windowLength * numberOfWindows - length) / (double) (numberOfWindows - 1));
     }
 
     public void correlate(SacTraceData std) {
 
-        int nfft = fft.getFFTSize();
+        float[] slave = std.getData();
+
+        if (slave.length < windowLength) {
+            throw new IllegalStateException("Length of second sequence is smaller than specified window length");
+        }
 
-        float[] accumulator = new float[nfft];
-        float[] m = new float[nfft];
-        float[] s = new float[nfft];
-        float[] M = new float[nfft];
-        float[] S = new float[nfft];
+        int sOverlap = overlap(slave.length);
 
-        float[] slave = std.getData();
+        Scratch s = scratch.get();
+        int nfft = s.S.length;
 
-        Arrays.fill(accumulator, 0.0f);
+        Arrays.fill(s.accumulator, 0.0f);
 
-        int mptr = 0;
         int sptr = 0;
 
         for (int iw = 0; iw < numberOfWindows; iw++) {
-            Arrays.fill(m, 0.0f);
-            Arrays.fill(s, 0.0f);
-            System.arraycopy(master, mptr, m, 0, windowLength);
-            System.arraycopy(slave, sptr, s, 0, windowLength);
+            Arrays.fill(s.s, 0.0f);
+            System.arraycopy(slave, sptr, s.s, 0, windowLength);
 
-            fft.evaluate(m, M);
-            fft.evaluate(s, S);
+            s.fft.evaluate(s.s, s.S);
 
-            RDFT.dftProduct(M, S, -1.0f);
+            RDFT.dftProduct(masterSpectra[iw], s.S, -1.0f);
 
             for (int i = 0; i < nfft; i++) {
-                accumulator[i] += S[i];
+                s.accumulator[i] += s.S[i];
             }
 
-            mptr += windowLength - mOverlap;
             sptr += windowLength - sOverlap;
         }
 
-        Arrays.fill(M, 0.0f);
-        fft.evaluateInverse(accumulator, M);
+        float[] result = new float[nfft];
+        s.fft.evaluateInverse(s.accumulator, result);
 
-        Sequence.cshift(M, nfft / 2);
+        Sequence.cshift(result, nfft / 2);
 
         SACHeader header = std.getSACHeader();
         header.setB(header.getB() - nfft / 2 * header.getDelta());
 
-        std.setData(M);
+        std.setData(result);
     }
 
 }
@@ -29,6 +29,7 @@ import java.util.List;
 import java.util.Map;
 
 import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.Session;
 import gov.llnl.gnem.jsac.commands.AttributeDescriptor;
 import gov.llnl.gnem.jsac.commands.SacCommand;
 import gov.llnl.gnem.jsac.commands.TokenListParser;
@@ -44,11 +45,26 @@ public class WhitenSacCommand implements SacCommand {
         descriptors.add(new AttributeDescriptor("FILTERDESIGN", ValuePossibilities.NO_VALUE, null));
         descriptors.add(new AttributeDescriptor("FD", ValuePossibilities.NO_VALUE, null));
         descriptors.add(new AttributeDescriptor("COMMON", ValuePossibilities.NO_VALUE, null));
+        descriptors.add(new AttributeDescriptor("SPECTRAL", ValuePossibilities.ONE_VALUE, String.class));
+        descriptors.add(new AttributeDescriptor("BAND", ValuePossibilities.TWO_VALUES, Double.class));
+        descriptors.add(new AttributeDescriptor("WIDTH", ValuePossibilities.ONE_VALUE, Double.class));
     }
 
-    private static boolean common = false;
-    private static boolean filterDesign = false;
-    private static int order = DEFAULT_ORDER;
+    /**
+     * Options that persist between invocations. Each session has its own.
+     */
+    private static class Settings {
+
+        boolean common = false;
+        boolean filterDesign = false;
+        int order = DEFAULT_ORDER;
+        boolean spectral = false;
+        double lowFrequency = 0.0;
+        double highFrequency = Double.POSITIVE_INFINITY;
+        double width = 0.0;
+    }
+
+    private final Settings settings = Session.current().getSettings(Settings.class, Settings::new);
 
     public WhitenSacCommand() {
 
@@ -56,7 +72,11 @@ public class WhitenSacCommand implements SacCommand {
 
     @Override
     public void execute() {
-        SacDataModel.getInstance().whiten(common, filterDesign, order);
+        if (settings.spectral) {
+            SacDataModel.getInstance().whitenSpectrum(settings.lowFrequency, settings.highFrequency, settings.width);
+            return;
+        }
+        SacDataModel.getInstance().whiten(settings.common, settings.filterDesign, settings.order);
     }
 
     @Override
@@ -69,16 +89,46 @@ public class WhitenSacCommand implements SacCommand {
         }
 
         if (parsedTokens.containsKey("COMMON")) {
-            common = true;
+            settings.common = true;
         }
 
         if (parsedTokens.containsKey("FILTERDESIGN") || parsedTokens.containsKey("FD")) {
-            filterDesign = true;
+            settings.filterDesign = true;
+        }
+
+        if (parsedTokens.containsKey("SPECTRAL")) {
+            String token = (String) parsedTokens.get("SPECTRAL").get(0);
+            if (token.equalsIgnoreCase("ON")) {
+                settings.spectral = true;
+            } else if (token.equalsIgnoreCase("OFF")) {
+                settings.spectral = false;
+            } else {
+                throw new IllegalArgumentException("SPECTRAL must be ON or OFF: " + token);
+            }
+        }
+
+        if (parsedTokens.containsKey("BAND")) {
+            List<Object> band = parsedTokens.get("BAND");
+            double low = (Double) band.get(0);
+            double high = (Double) band.get(1);
+            if (low < 0.0 || high <= low) {
+                throw new IllegalArgumentException("BAND must satisfy 0 <= v1 < v2: " + low + " " + high);
+            }
+            settings.lowFrequency = low;
+            settings.highFrequency = high;
+        }
+
+        if (parsedTokens.containsKey("WIDTH")) {
+            double width = (Double) parsedTokens.get("WIDTH").get(0);
+            if (width < 0.0) {
+                throw new IllegalArgumentException("WIDTH must not be negative: " + width);
+            }
+            settings.width = width;
         }
 
         List<Object> parameters = parsedTokens.get(TokenListParser.LEFT_OVER_TOKENS);
         if (parameters != null && !parameters.isEmpty()) {
-            order = Integer.parseInt((String) parameters.get(0));
+            settings.order = Integer.parseInt((String) parameters.get(0));
         }
 
     }
@@ -98,7 +148,7 @@ public class WhitenSacCommand implements SacCommand {
                 + "\n"
                 + "SYNTAX\n"
                 + "\n"
-                + "WHITEN {N} {FILTERDESIGN|FD} {COMMON}\n"
+                + "WHITEN {N} {FILTERDESIGN|FD} {COMMON} {SPECTRAL ON|OFF} {BAND v1 v2} {WIDTH v}\n"
                 + "\n"
                 + "INPUT\n"
                 + " N:                 Order of the filter (number of zeros in the predictor's transfer function).\n"
@@ -107,10 +157,16 @@ public class WhitenSacCommand implements SacCommand {
                 + "                    on disk in the current working directory with suffixes '.imp', '.spec' and '.gd' respectively.\n"
                 + "	COMMON:    	       Uses a common prediction error filter for all sequences in memory.  This option is provided for\n"
                 + "                    ambient noise Greens function estimation applications.\n"
+                + " SPECTRAL ON|OFF:   Whitens in the frequency domain instead: the amplitude spectrum of each trace is divided by\n"
+                + "                    its running mean, leaving the phase unchanged.  The order, FILTERDESIGN and COMMON are ignored.\n"
+                + " BAND v1 v2:        Frequency band (Hz) that SPECTRAL whitening flattens.  Outside it the spectrum is tapered to zero.\n"
+                + " WIDTH v:           Width (Hz) of the running mean and of the cosine tapers at the band edges.  With 0 each\n"
+                + "                    frequency is divided by its own amplitude and the band edges are sharp.\n"
                 + "\n"
                 + "DEFAULT VALUES\n"
                 + "\n"
-                + " WHITEN 6\n"
+                + " WHITEN 6 SPECTRAL OFF WIDTH 0\n"
+                + " The SPECTRAL band defaults to the whole spectrum.\n"
                 + "\n"
                 + "DESCRIPTION\n"
                 + " Flattens the spectrum of the time series in memory with a prediction error filter of the specified order (default 6).\n"
@@ -121,7 +177,10 @@ public class WhitenSacCommand implements SacCommand {
                 + " windowing effects (see Jenkins and Watts, Spectral Analysis and Its Applications).  Prewhitening reduces the \n"
                 + " dynamic range of the spectrum (which reduces leakage).  When prewhitening for spectral estimation, remember to divide\n"
                 + " the spectral estimate by the squared magnitude of the frequency response of the prediction error filter.\n\n"
-                + " Note that the first N values of the trace will be lost in this translation and the time markers updated accordingly."
+                + " Note that the first N values of the trace will be lost in this translation and the time markers updated accordingly.\n\n"
+                + " SPECTRAL whitening keeps the length and timing of the traces.  Each trace is transformed (padded to a power of two),\n"
+                + " its spectrum normalized within the band and transformed back.  This is the spectral normalization usually applied\n"
+                + " to ambient noise before cross-correlation (Bensen et al., 2007)."
                 + "\n"
                 + "HEADER CHANGES\n"
                 + "\n"
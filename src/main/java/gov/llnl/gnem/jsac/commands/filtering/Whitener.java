@@ -23,16 +23,25 @@
 package gov.llnl.gnem.jsac.commands.filtering;
 
 import java.text.DecimalFormat;
+import java.util.Arrays;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.oregondsp.signalProcessing.fft.RDFT;
+
 import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData;
 
 public class Whitener {
 
     private static final Logger log = LoggerFactory.getLogger(Whitener.class);
 
+    /**
+     * Orders up to this are correlated directly in one pass over the data;
+     * higher orders are correlated through an FFT.
+     */
+    static final int MAX_DIRECT_ORDER = 32;
+
     private int N;
     private final double[] reflectionCoefficients;
 
@@ -42,24 +51,97 @@ public class Whitener {
     }
 
     public double[] correlate(SacTraceData std) {
+        return autocorrelate(std.getData(), N);
+    }
 
-        double[] retval = new double[N + 1];
-        float[] x = std.getData();
-        int n = x.length;
+    /**
+     * Computes the (unnormalized) autocorrelation of a sequence.
+     *
+     * @param x     The sequence.
+     * @param order The largest lag.
+     * @return The autocorrelation at lags 0 through order.
+     */
+    public static double[] autocorrelate(float[] x, int order) {
+        if (order <= MAX_DIRECT_ORDER) {
+            return directAutocorrelation(x, order);
+        }
+        return fftAutocorrelation(x, order);
+    }
+
+    /*
+     * Accumulates every lag while each sample is at hand, so the data is read
+     * once whatever the order.  The sums for each lag are formed in the same
+     * order as a lag-by-lag loop would form them.
+     */
+    static double[] directAutocorrelation(float[] x, int order) {
 
-        for (int lag = 0; lag <= N; lag++) {
+        double[] retval = new double[order + 1];
+        int n = x.length;
 
-            double tmp = 0.0;
-            for (int i = 0; i < n - lag; i++) {
-                tmp += x[i] * x[i + lag];
+        for (int i = 0; i < n; i++) {
+            float xi = x[i];
+            int maxLag = Math.min(order, n - 1 - i);
+            for (int lag = 0; lag <= maxLag; lag++) {
+                retval[lag] += xi * x[i + lag];
             }
+        }
+
+        return retval;
+    }
+
+    /*
+     * Inverse transform of the power spectrum.  Padding to at least n + order
+     * keeps the circular wrap-around out of the lags returned.
+     */
+    static double[] fftAutocorrelation(float[] x, int order) {
+
+        int n = x.length;
+        int log2nfft = 1;
+        while ((1 << log2nfft) < n + order) {
+            log2nfft++;
+        }
+        int nfft = 1 << log2nfft;
+        int half = nfft / 2;
+
+        RDFT fft = new RDFT(log2nfft);
+        float[] block = Arrays.copyOf(x, nfft);
+        float[] spectrum = new float[nfft];
+        fft.evaluate(block, spectrum);
+
+        spectrum[0] *= spectrum[0];
+        spectrum[half] *= spectrum[half];
+        for (int k = 1; k < half; k++) {
+            float re = spectrum[k];
+            float im = spectrum[nfft - k];
+            spectrum[k] = re * re + im * im;
+            spectrum[nfft - k] = 0.0f;
+        }
+        fft.evaluateInverse(spectrum, block);
 
-            retval[lag] = tmp;
+        double[] retval = new double[order + 1];
+        for (int lag = 0; lag <= Math.min(order, n - 1); lag++) {
+            retval[lag] = block[lag];
         }
 
         return retval;
     }
 
+    /**
+     * Adds two correlation functions, as when averaging them for a common
+     * prediction error filter. Neither argument is modified.
+     *
+     * @param a A correlation function.
+     * @param b A correlation function of the same length.
+     * @return The sum.
+     */
+    public static double[] sum(double[] a, double[] b) {
+        double[] retval = a.clone();
+        for (int i = 0; i < retval.length; i++) {
+            retval[i] += b[i];
+        }
+        return retval;
+    }
+
     public double[] whiten(SacTraceData std, boolean common) {
 
         double[] retval = correlate(std);
@@ -424,6 +424,11 @@ public class MapCommand implements SacCommand {
         return map;
     }
 
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
     @Override
     public Collection<String> getCommandNames() {
         String[] names = { "MAP" };
@@ -191,6 +191,11 @@ public class Plot1SacCommand implements SacCommand {
         });
     }
 
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
     @Override
     public Collection<String> getCommandNames() {
         String[] names = { "P1", "PLOT1" };
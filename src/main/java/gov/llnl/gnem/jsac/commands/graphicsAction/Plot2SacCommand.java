@@ -121,6 +121,11 @@ public class Plot2SacCommand implements SacCommand {
         });
     }
 
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
     @Override
     public Collection<String> getCommandNames() {
         String[] names = { "P2", "PLOT2" };
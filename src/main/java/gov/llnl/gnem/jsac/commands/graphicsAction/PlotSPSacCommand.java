@@ -196,6 +196,11 @@ public class PlotSPSacCommand implements SacCommand {
         }
     }
 
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
     @Override
     public Collection<String> getCommandNames() {
         String[] names = { "PSP", "PLOTSP" };
@@ -239,6 +239,11 @@ public class PlotSacCommand implements SacCommand {
         return printName.toString();
     }
 
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
     @Override
     public Collection<String> getCommandNames() {
         String[] names = { "P", "PLOT" };
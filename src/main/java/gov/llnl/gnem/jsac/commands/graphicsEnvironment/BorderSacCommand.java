@@ -125,6 +125,11 @@ public class BorderSacCommand implements SacCommand {
                 + "	BORDER OFF, WIDTH 20, BACKGROUND WHITE, SUBPLOT_BORDERS ON, SUBPLOT_SPACING 0";
     }
 
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
     @Override
     public Collection<String> getCommandNames() {
         String[] names = {"BORDER"};
@@ -179,6 +179,11 @@ public class ClabelSacCommand implements SacCommand {
                 + "		u:  CLABEL 'Local maximum' POSITION 14.37 0.345 ";
     }
 
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
     @Override
     public Collection<String> getCommandNames() {
         String[] names = { "CLABEL" };
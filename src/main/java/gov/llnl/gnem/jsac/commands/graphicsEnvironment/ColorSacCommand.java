@@ -160,6 +160,11 @@ public class ColorSacCommand implements SacCommand {
                 + "	COLOR BLACK INCREMENT OFF SKELETON BLACK BACKGROUND WHITE LIST STANDARD";
     }
 
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
     @Override
     public Collection<String> getCommandNames() {
         String[] names = {"COLOR","COL"};
@@ -223,6 +223,11 @@ public class FileIDSacCommand implements SacCommand {
                 + "	FILEID ON TYPE DEFAULT LOCATION UR FIELD_LAYOUT VERTICAL FORMAT NONAMES FONT Arial SIZE 12 ADJUSTMENT 0 DELIMITER ,";
     }
 
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
     @Override
     public Collection<String> getCommandNames() {
         String[] names = {"FILEID"};
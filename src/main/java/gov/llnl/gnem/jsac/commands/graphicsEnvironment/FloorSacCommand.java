@@ -116,6 +116,11 @@ public class FloorSacCommand implements SacCommand {
                 + "	FLOOR 1.0E-10";
     }
 
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
     @Override
     public Collection<String> getCommandNames() {
         String[] names = { "FLOOR" };
@@ -143,6 +143,11 @@ public class LineSacCommand implements SacCommand {
                 + "	LINE SOLID INCREMENT OFF LIST STANDARD ";
     }
 
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
     @Override
     public Collection<String> getCommandNames() {
         String[] names = {"LINE"};
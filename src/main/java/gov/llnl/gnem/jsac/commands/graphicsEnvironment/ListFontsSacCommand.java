@@ -84,6 +84,11 @@ public class ListFontsSacCommand implements SacCommand {
         return "SUMMARY\n" + "	Lists available fonts on this system.\n" + "\n" + "SYNTAX\n" + "	FONTS | LISTFONTS | LF\n" + "INPUT\n" + "	none.\n" + "DEFAULT VALUES\n" + "	none";
     }
 
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
     @Override
     public Collection<String> getCommandNames() {
         String[] names = { "FONTS", "LISTFONTS", "LF" };
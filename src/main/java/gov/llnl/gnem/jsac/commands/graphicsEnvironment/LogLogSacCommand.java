@@ -62,6 +62,11 @@ public class LogLogSacCommand implements SacCommand {
                 + "	Linear scaling for both axes.";
     }
 
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
     @Override
     public Collection<String> getCommandNames() {
         String[] names = {"LOGLOG"};
@@ -236,6 +236,11 @@ public class PlabelSacCommand implements SacCommand {
                 + "		u:  PLABEL 'LLNL station: CDV' S T P .05 .95";
     }
 
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
     @Override
     public Collection<String> getCommandNames() {
         String[] names = { "PLABEL" };
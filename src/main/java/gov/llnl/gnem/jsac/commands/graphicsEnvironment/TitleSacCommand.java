@@ -123,6 +123,11 @@ public class TitleSacCommand implements SacCommand {
                 + "	TITLE OFF SIZE SMALL";
     }
 
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
     @Override
     public  Collection<String> getCommandNames() {
         String[] names = {"TITLE"};
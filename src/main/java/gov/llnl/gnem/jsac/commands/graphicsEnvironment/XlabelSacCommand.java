@@ -124,6 +124,11 @@ public class XlabelSacCommand implements SacCommand {
                 + "	XLABEL OFF SIZE SMALL;";
     }
 
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
     @Override
     public  Collection<String> getCommandNames() {
         String[] names = {"XLABEL"};
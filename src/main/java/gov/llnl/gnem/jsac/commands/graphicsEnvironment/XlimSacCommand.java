@@ -170,6 +170,11 @@ public class XlimSacCommand implements SacCommand {
                 + "	SIGNAL:	Equivalent to typing: A -1 F +1.";
     }
 
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
     @Override
     public Collection<String> getCommandNames() {
         String[] names = {"XLIM"};
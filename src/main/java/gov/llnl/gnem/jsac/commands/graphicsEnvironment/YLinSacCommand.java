@@ -62,6 +62,11 @@ public class YLinSacCommand implements SacCommand {
                 + "	Linear scaling.";
     }
 
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
     @Override
     public Collection<String> getCommandNames() {
         String[] names = {"YLIN"};
@@ -124,6 +124,11 @@ public class YlabelSacCommand implements SacCommand {
                 + "	YLABEL OFF SIZE SMALL;";
     }
 
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
     @Override
     public  Collection<String> getCommandNames() {
         String[] names = {"YLABEL"};
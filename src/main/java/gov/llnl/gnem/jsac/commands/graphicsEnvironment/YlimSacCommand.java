@@ -132,6 +132,11 @@ public class YlimSacCommand implements SacCommand {
                 + "	YLIM OFF";
     }
 
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
     @Override
     public Collection<String> getCommandNames() {
         String[] names = {"YLIM"};
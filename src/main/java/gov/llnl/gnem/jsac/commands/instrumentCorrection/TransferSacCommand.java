@@ -24,23 +24,30 @@
 package gov.llnl.gnem.jsac.commands.instrumentCorrection;
 
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.isti.jevalresp.ChannelMatchPolicy.Policy;
 
+import gov.llnl.gnem.jsac.Session;
 import gov.llnl.gnem.jsac.commands.AttributeDescriptor;
+import gov.llnl.gnem.jsac.commands.CacheableCommand;
 import gov.llnl.gnem.jsac.commands.Misc;
-import gov.llnl.gnem.jsac.commands.SacCommand;
 import gov.llnl.gnem.jsac.commands.TokenListParser;
 import gov.llnl.gnem.jsac.commands.ValuePossibilities;
+import gov.llnl.gnem.jsac.dataAccess.cache.ResultCache;
 import gov.llnl.gnem.jsac.transfer.ResponseOptions;
 import gov.llnl.gnem.jsac.transfer.ResponseType;
 import gov.llnl.gnem.jsac.transfer.TransferProcessor;
@@ -54,13 +61,21 @@ import llnl.gnem.dftt.core.util.StreamKey;
  *
  * @author dodge1
  */
-public class TransferSacCommand implements SacCommand {
+public class TransferSacCommand implements CacheableCommand {
 
     private static final Logger log = LoggerFactory.getLogger(TransferSacCommand.class);
 
-    private static FreqLimits freqLimits = null;
-    private static ResponseType fromType = ResponseType.NONE;
-    private static ResponseType toType = ResponseType.NONE;
+    /**
+     * Options that persist between invocations. Each session has its own.
+     */
+    private static class Settings {
+
+        FreqLimits freqLimits = null;
+        ResponseType fromType = ResponseType.NONE;
+        ResponseType toType = ResponseType.NONE;
+    }
+
+    private final Settings settings = Session.current().getSettings(Settings.class, Settings::new);
     private Policy policy = Policy.AGENCY_NET_STA_CHAN_LOCID_EPOCH_MATCH;
     private ResponseOptions fromResponseOptions = null;
     private ResponseOptions toResponseOptions = null;
@@ -68,11 +83,13 @@ public class TransferSacCommand implements SacCommand {
     private Path toResponseFilePath = null;
     private StreamKey substituteKey = null;
     private Double substituteTime = null;
+    private final List<String> mytokens = new ArrayList<>();
 
     public static void resetDefaults() {
-        freqLimits = null;
-        fromType = ResponseType.NONE;
-        toType = ResponseType.NONE;
+        Settings defaults = Session.current().getSettings(Settings.class, Settings::new);
+        defaults.freqLimits = null;
+        defaults.fromType = ResponseType.NONE;
+        defaults.toType = ResponseType.NONE;
     }
 
     private static final List<AttributeDescriptor> descriptors = new ArrayList<>();
@@ -100,19 +117,23 @@ public class TransferSacCommand implements SacCommand {
 
     @Override
     public void initialize(String[] tokens) {
+        mytokens.clear();
+        for (int j = 1; j < tokens.length; ++j) {
+            mytokens.add(tokens[j].toUpperCase());
+        }
         ChannelMatchPolicyHolder.getInstance().setPolicy(policy);
         Map<String, List<Object>> parsedTokens = TokenListParser.parseTokens(descriptors, tokens);
         policy = maybeGetPolicy(parsedTokens);
         substituteKey = maybeGetSubstituteKey(parsedTokens);
         substituteTime = maybeGetSubstituteTime(parsedTokens);
-        freqLimits = TransferSubOptionParser.maybeGetFreqLimits(parsedTokens);
+        settings.freqLimits = TransferSubOptionParser.maybeGetFreqLimits(parsedTokens);
         List<Object> values = parsedTokens.get("TO");
         if (values != null && values.size() >= 1) {
             try {
                 String tmp = (String) values.get(0);
-                toType = ResponseType.valueOf(tmp.toUpperCase());
-                if (toType != null) {
-                    switch (toType) {
+                settings.toType = ResponseType.valueOf(tmp.toUpperCase());
+                if (settings.toType != null) {
+                    switch (settings.toType) {
                     case POLEZERO:
                         try {
                             toResponseOptions = TransferSubOptionParser.getToOptions(values);
@@ -148,9 +169,9 @@ public class TransferSacCommand implements SacCommand {
         if (values != null && values.size() >= 1) {
             try {
                 String tmp = (String) values.get(0);
-                fromType = ResponseType.valueOf(tmp.toUpperCase());
-                if (null != fromType) {
-                    switch (fromType) {
+                settings.fromType = ResponseType.valueOf(tmp.toUpperCase());
+                if (null != settings.fromType) {
+                    switch (settings.fromType) {
                     case POLEZERO:
                         try {
                             fromResponseOptions = TransferSubOptionParser.getOptions(values);
@@ -180,7 +201,7 @@ public class TransferSacCommand implements SacCommand {
                         break;
                     }
                 } else {
-                    fromType = ResponseType.NONE;
+                    settings.fromType = ResponseType.NONE;
                 }
             } catch (IllegalStateException ex) {
                 throw ex;
@@ -192,12 +213,47 @@ public class TransferSacCommand implements SacCommand {
     public void execute() {
         ChannelMatchPolicyHolder.getInstance().setPolicy(policy);
         try {
-            TransferProcessor.getInstance().transfer(fromType, toType, freqLimits, fromResponseOptions, fromResponseFilePath, toResponseOptions, toResponseFilePath, substituteKey, substituteTime);
+            TransferProcessor.getInstance().transfer(settings.fromType, settings.toType, settings.freqLimits, fromResponseOptions, fromResponseFilePath, toResponseOptions, toResponseFilePath, substituteKey, substituteTime);
         } catch (FileNotFoundException ex) {
             log.error("Failed executing transfer command! {}", ex);
         }
     }
 
+    /**
+     * Describes the options, including any frequency limits, together with
+     * the identity of every response file that may be used. Results that
+     * depend on a database are not cached.
+     */
+    @Override
+    public String getCacheKey() {
+        if (settings.fromType == ResponseType.DBASE || settings.toType == ResponseType.DBASE) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder("TRANSFER ").append(String.join(" ", mytokens));
+        sb.append('\n').append(settings.fromType).append(' ').append(settings.toType).append(' ').append(policy);
+        try {
+            for (ResponseOptions options : new ResponseOptions[] { fromResponseOptions, toResponseOptions }) {
+                if (options != null && options.getFilename() != null) {
+                    sb.append('\n').append(ResultCache.describeFile(Paths.get(options.getFilename())));
+                } else if (options != null && options.getSearchDir() != null) {
+                    try (Stream<Path> files = Files.list(options.getSearchDir())) {
+                        for (Path file : files.sorted().collect(Collectors.toList())) {
+                            sb.append('\n').append(ResultCache.describeFile(file));
+                        }
+                    }
+                }
+            }
+            for (Path file : new Path[] { fromResponseFilePath, toResponseFilePath }) {
+                if (file != null) {
+                    sb.append('\n').append(ResultCache.describeFile(file));
+                }
+            }
+        } catch (IOException ex) {
+            return null;
+        }
+        return sb.toString();
+    }
+
     @Override
     public Collection<String> getCommandNames() {
         String[] names = { "TRANS", "TRANSFER" };
@@ -0,0 +1,129 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package gov.llnl.gnem.jsac.commands.signalCorrection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.Session;
+import gov.llnl.gnem.jsac.commands.CacheableCommand;
+
+public class DecimateSacCommand implements CacheableCommand {
+
+    /**
+     * Options that persist between invocations. Each session has its own.
+     */
+    private static class Settings {
+
+        int factor = 2;
+        boolean filter = true;
+    }
+
+    private final Settings settings = Session.current().getSettings(Settings.class, Settings::new);
+
+    private List<String> mytokens;
+
+    public static void resetDefaults() {
+        Settings defaults = Session.current().getSettings(Settings.class, Settings::new);
+        defaults.factor = 2;
+        defaults.filter = true;
+    }
+
+    @Override
+    public void initialize(String[] tokens) {
+        mytokens = new ArrayList<>();
+        mytokens.addAll(Arrays.asList(tokens));
+        mytokens.remove(0); // Don't need the command name anymore.
+        parseConstants();
+    }
+
+    @Override
+    public void execute() {
+        SacDataModel.getInstance().decimate(settings.factor, settings.filter);
+    }
+
+    @Override
+    public String getCacheKey() {
+        return String.format("DECIMATE %d %s", settings.factor, settings.filter);
+    }
+
+    private void parseConstants() {
+        while (!mytokens.isEmpty()) {
+            String token = mytokens.remove(0);
+            if (token.equalsIgnoreCase("FILTER")) {
+                if (mytokens.isEmpty() || mytokens.get(0).equalsIgnoreCase("ON")) {
+                    settings.filter = true;
+                } else if (mytokens.get(0).equalsIgnoreCase("OFF")) {
+                    settings.filter = false;
+                } else {
+                    throw new IllegalArgumentException("FILTER must be followed by ON or OFF, not " + mytokens.get(0));
+                }
+                if (!mytokens.isEmpty()) {
+                    mytokens.remove(0);
+                }
+            } else {
+                int factor;
+                try {
+                    factor = Integer.parseInt(token);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Unrecognized DECIMATE option: " + token);
+                }
+                if (factor < 2) {
+                    throw new IllegalArgumentException("The decimation factor must be at least 2");
+                }
+                settings.factor = factor;
+            }
+        }
+    }
+
+    @Override
+    public Collection<String> getCommandNames() {
+        String[] names = { "DECIMATE", "DECIM" };
+        return new ArrayList<>(Arrays.asList(names));
+    }
+
+    @Override
+    public String getHelpString() {
+        return "SUMMARY\n"
+                + "	Decimates (downsamples) data by an integer factor, with an optional anti-aliasing FIR filter.\n"
+                + "\n"
+                + "SYNTAX\n"
+                + "	DECIMATE {n} {FILTER ON|OFF}\n"
+                + "INPUT\n"
+                + "	n:		Set decimation factor to n. Any integer of 2 or more is allowed.\n"
+                + "	FILTER ON:	Apply an anti-aliasing filter before decimating.\n"
+                + "	FILTER OFF:	Keep every n'th sample without filtering.\n"
+                + "DESCRIPTION\n"
+                + "	The factor is applied in one stage for each of its prime factors, largest first, so that\n"
+                + "	DECIMATE 10 does the work of DECIMATE 5 followed by DECIMATE 2. Only the last stage needs a\n"
+                + "	sharp filter; the earlier ones use short filters. The filters are linear phase with their delay\n"
+                + "	removed, pass 80% of the new Nyquist frequency, and leave B unchanged. DELTA is multiplied by n\n"
+                + "	and NPTS and E are updated. Traces are decimated in parallel.\n"
+                + "DEFAULT VALUES\n"
+                + "	DECIMATE 2 FILTER ON";
+    }
+}
@@ -32,6 +32,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.Session;
 import gov.llnl.gnem.jsac.commands.SacCommand;
 
 /**
@@ -41,8 +42,16 @@ public class InterpolateSacCommand implements SacCommand {
 
     private static final Logger log = LoggerFactory.getLogger(InterpolateSacCommand.class);
 
-    private static Double DELTA = null;
-    private static Integer NPTS = null;
+    /**
+     * Options that persist between invocations. Each session has its own.
+     */
+    private static class Settings {
+
+        Double DELTA = null;
+        Integer NPTS = null;
+    }
+
+    private final Settings settings = Session.current().getSettings(Settings.class, Settings::new);
 
     private List<String> mytokens;
 
@@ -56,8 +65,8 @@ public class InterpolateSacCommand implements SacCommand {
 
     @Override
     public void execute() {
-        if (DELTA != null || NPTS != null) {
-            SacDataModel.getInstance().interpolate(DELTA, NPTS);
+        if (settings.DELTA != null || settings.NPTS != null) {
+            SacDataModel.getInstance().interpolate(settings.DELTA, settings.NPTS);
         } else {
             log.warn("Neither DELTA nor NPTS defined. Interpolation not performed.");
         }
@@ -68,12 +77,12 @@ public class InterpolateSacCommand implements SacCommand {
             String token = mytokens.remove(0);
             if (token.toUpperCase().equals("DELTA")) {
                 token = mytokens.remove(0);
-                DELTA = Double.valueOf(token);
-                NPTS = null;
+                settings.DELTA = Double.valueOf(token);
+                settings.NPTS = null;
             } else if (token.toUpperCase().equals("NPTS")) {
                 token = mytokens.remove(0);
-                NPTS = Integer.valueOf(token);
-                DELTA = null;
+                settings.NPTS = Integer.valueOf(token);
+                settings.DELTA = null;
             }
         }
 
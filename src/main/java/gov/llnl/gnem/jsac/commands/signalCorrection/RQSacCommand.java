@@ -33,6 +33,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.Session;
 import gov.llnl.gnem.jsac.commands.AttributeDescriptor;
 import gov.llnl.gnem.jsac.commands.SacCommand;
 import gov.llnl.gnem.jsac.commands.TokenListParser;
@@ -48,9 +49,17 @@ public class RQSacCommand implements SacCommand {
 
     private static final Logger log = LoggerFactory.getLogger(RQSacCommand.class);
 
-    private static double q = 1.0;
-    private static double r = 0.0;
-    private static double c = 1.0;
+    /**
+     * Options that persist between invocations. Each session has its own.
+     */
+    private static class Settings {
+
+        double q = 1.0;
+        double r = 0.0;
+        double c = 1.0;
+    }
+
+    private final Settings settings = Session.current().getSettings(Settings.class, Settings::new);
 
     private static final List<AttributeDescriptor> descriptors = new ArrayList<>();
 
@@ -69,15 +78,15 @@ public class RQSacCommand implements SacCommand {
         Map<String, List<Object>> parsedTokens = TokenListParser.parseTokens(descriptors, tokens, true);
         List<Object> tmp = parsedTokens.remove("Q");
         if (tmp != null && tmp.size() == 1) {
-            q = (double) tmp.get(0);
+            settings.q = (double) tmp.get(0);
         }
         tmp = parsedTokens.remove("R");
         if (tmp != null && tmp.size() == 1) {
-            r = (double) tmp.get(0);
+            settings.r = (double) tmp.get(0);
         }
         tmp = parsedTokens.remove("C");
         if (tmp != null && tmp.size() == 1) {
-            c = (double) tmp.get(0);
+            settings.c = (double) tmp.get(0);
         }
     }
 
@@ -89,7 +98,7 @@ public class RQSacCommand implements SacCommand {
                 log.warn(msg);
             } else {
                 SpectralData sd = std.getSpectralData();
-                sd.rq(q, r, c);
+                sd.rq(settings.q, settings.r, settings.c);
             }
         }
     }
@@ -0,0 +1,147 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package gov.llnl.gnem.jsac.commands.signalCorrection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.Session;
+import gov.llnl.gnem.jsac.commands.CacheableCommand;
+import gov.llnl.gnem.jsac.commands.filtering.Resampler;
+
+public class ResampleSacCommand implements CacheableCommand {
+
+    /**
+     * Options that persist between invocations. Each session has its own.
+     * DELTA, when set, takes the place of UP and DOWN.
+     */
+    private static class Settings {
+
+        Double delta = null;
+        int up = 1;
+        int down = 1;
+    }
+
+    private final Settings settings = Session.current().getSettings(Settings.class, Settings::new);
+
+    private List<String> mytokens;
+
+    public static void resetDefaults() {
+        Settings defaults = Session.current().getSettings(Settings.class, Settings::new);
+        defaults.delta = null;
+        defaults.up = 1;
+        defaults.down = 1;
+    }
+
+    @Override
+    public void initialize(String[] tokens) {
+        mytokens = new ArrayList<>();
+        mytokens.addAll(Arrays.asList(tokens));
+        mytokens.remove(0); // Don't need the command name anymore.
+        parseConstants();
+    }
+
+    @Override
+    public void execute() {
+        if (settings.delta != null) {
+            SacDataModel.getInstance().resample(settings.delta);
+        } else {
+            SacDataModel.getInstance().resample(settings.up, settings.down);
+        }
+    }
+
+    @Override
+    public String getCacheKey() {
+        return settings.delta != null ? String.format("RESAMPLE DELTA %s", settings.delta) : String.format("RESAMPLE %d %d", settings.up, settings.down);
+    }
+
+    private void parseConstants() {
+        while (!mytokens.isEmpty()) {
+            String token = mytokens.remove(0).toUpperCase();
+            if (mytokens.isEmpty()) {
+                throw new IllegalArgumentException("The " + token + " option requires a value.");
+            }
+            String value = mytokens.remove(0);
+            switch (token) {
+            case "DELTA":
+                double delta = Double.parseDouble(value);
+                if (!(delta > 0.0)) {
+                    throw new IllegalArgumentException("DELTA must be greater than 0.0");
+                }
+                settings.delta = delta;
+                break;
+            case "UP":
+                settings.up = parseFactor(token, value);
+                settings.delta = null;
+                break;
+            case "DOWN":
+                settings.down = parseFactor(token, value);
+                settings.delta = null;
+                break;
+            default:
+                throw new IllegalArgumentException("Unrecognized RESAMPLE option: " + token);
+            }
+        }
+    }
+
+    private static int parseFactor(String name, String value) {
+        int factor = Integer.parseInt(value);
+        if (factor < 1 || factor > Resampler.MAX_FACTOR) {
+            throw new IllegalArgumentException(name + " must be between 1 and " + Resampler.MAX_FACTOR);
+        }
+        return factor;
+    }
+
+    @Override
+    public Collection<String> getCommandNames() {
+        String[] names = { "RESAMPLE" };
+        return new ArrayList<>(Arrays.asList(names));
+    }
+
+    @Override
+    public String getHelpString() {
+        return "SUMMARY\n"
+                + "	Changes the sampling rate of evenly-spaced data by a rational factor with a polyphase FIR filter.\n"
+                + "\n"
+                + "SYNTAX\n"
+                + "	RESAMPLE {UP p} {DOWN q} | {DELTA v}\n"
+                + "INPUT\n"
+                + "	UP p:		Multiply the sampling rate by p.\n"
+                + "	DOWN q:		Divide the sampling rate by q. The new DELTA is DELTA * q / p.\n"
+                + "	DELTA v:	Set new sampling interval to v. The factors are found for each sampling interval\n"
+                + "			in memory and must be no more than " + Resampler.MAX_FACTOR + ", so that, for example,\n"
+                + "			0.005 to 0.05 uses UP 1 DOWN 10.\n"
+                + "DESCRIPTION\n"
+                + "	Only the products with nonzero samples of the upsampled data that contribute to the\n"
+                + "	kept output samples are computed. The filter is linear phase with its delay removed, passes 80%\n"
+                + "	of the lower of the old and new Nyquist frequencies, and leaves B unchanged. NPTS and E are\n"
+                + "	updated. Traces are resampled in parallel. Unlike INTERPOLATE, RESAMPLE filters out energy\n"
+                + "	above the new Nyquist frequency.\n"
+                + "DEFAULT VALUES\n"
+                + "	RESAMPLE UP 1 DOWN 1";
+    }
+}
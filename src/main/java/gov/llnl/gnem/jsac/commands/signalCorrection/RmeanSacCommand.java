@@ -28,13 +28,13 @@ import java.util.Arrays;
 import java.util.Collection;
 
 import gov.llnl.gnem.jsac.SacDataModel;
-import gov.llnl.gnem.jsac.commands.SacCommand;
+import gov.llnl.gnem.jsac.commands.CacheableCommand;
 
 /**
  *
  * @author dodge1
  */
-public class RmeanSacCommand implements SacCommand {
+public class RmeanSacCommand implements CacheableCommand {
 
     @Override
     public void initialize(String[] tokens) {
@@ -45,6 +45,11 @@ public class RmeanSacCommand implements SacCommand {
         SacDataModel.getInstance().removeMean();
     }
 
+    @Override
+    public String getCacheKey() {
+        return "RMEAN";
+    }
+
     @Override
     public String getHelpString() {
         return "SUMMARY\n"
@@ -34,6 +34,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.Session;
 import gov.llnl.gnem.jsac.commands.AttributeDescriptor;
 import gov.llnl.gnem.jsac.commands.SacCommand;
 import gov.llnl.gnem.jsac.commands.TokenListParser;
@@ -51,8 +52,16 @@ public class RotateSacCommand implements SacCommand {
 
     private static final Logger log = LoggerFactory.getLogger(RotateSacCommand.class);
 
-    private static RotationStyle rotationStyle = RotationStyle.NORMAL;
-    private static RotationType rotationType = RotationType.TO_GCP;
+    /**
+     * Options that persist between invocations. Each session has its own.
+     */
+    private static class Settings {
+
+        RotationStyle rotationStyle = RotationStyle.NORMAL;
+        RotationType rotationType = RotationType.TO_GCP;
+    }
+
+    private final Settings settings = Session.current().getSettings(Settings.class, Settings::new);
     private double rotationAngle = 0.0;
 
     private static final List<AttributeDescriptor> descriptors = new ArrayList<>();
@@ -76,10 +85,10 @@ public class RotateSacCommand implements SacCommand {
         if (tmp != null && tmp.size() == 1) {
             String value = (String) tmp.get(0);
             if (value.equalsIgnoreCase("GCP")) {
-                rotationType = RotationType.TO_GCP;
+                settings.rotationType = RotationType.TO_GCP;
             } else if (NumberUtils.isParsable(value)) {
                 rotationAngle = Double.parseDouble(value);
-                rotationType = RotationType.TO_VALUE;
+                settings.rotationType = RotationType.TO_VALUE;
             }
         }
 
@@ -89,17 +98,17 @@ public class RotateSacCommand implements SacCommand {
         }
         if (tmp != null && tmp.size() == 1) {
             rotationAngle = (Double) tmp.get(0);
-            rotationType = RotationType.THROUGH_VALUE;
+            settings.rotationType = RotationType.THROUGH_VALUE;
         }
 
         tmp = parsedTokens.remove("NORMAL");
         if (tmp != null) {
-            rotationStyle = RotationStyle.NORMAL;
+            settings.rotationStyle = RotationStyle.NORMAL;
         }
 
         tmp = parsedTokens.remove("REVERSED");
         if (tmp != null) {
-            rotationStyle = RotationStyle.REVERSED;
+            settings.rotationStyle = RotationStyle.REVERSED;
         }
         tmp = parsedTokens.remove(TokenListParser.LEFT_OVER_TOKENS);
         if (tmp != null && !tmp.isEmpty()) {
@@ -118,7 +127,7 @@ public class RotateSacCommand implements SacCommand {
         if (files.isEmpty()) {
             log.warn("1301: No data files read in.");
         } else {
-            TraceRotator.rotateTraces(files, rotationStyle, rotationType, rotationAngle);
+            TraceRotator.rotateTraces(files, settings.rotationStyle, settings.rotationType, rotationAngle);
         }
     }
 
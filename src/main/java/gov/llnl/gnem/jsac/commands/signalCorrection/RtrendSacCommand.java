@@ -28,13 +28,13 @@ import java.util.Arrays;
 import java.util.Collection;
 
 import gov.llnl.gnem.jsac.SacDataModel;
-import gov.llnl.gnem.jsac.commands.SacCommand;
+import gov.llnl.gnem.jsac.commands.CacheableCommand;
 
 /**
  *
  * @author dodge1
  */
-public class RtrendSacCommand implements SacCommand {
+public class RtrendSacCommand implements CacheableCommand {
 
     @Override
     public void initialize(String[] tokens) {
@@ -45,6 +45,11 @@ public class RtrendSacCommand implements SacCommand {
         SacDataModel.getInstance().removeTrend();
     }
 
+    @Override
+    public String getCacheKey() {
+        return "RTREND";
+    }
+
     @Override
     public Collection<String> getCommandNames() {
         String[] names = {"RTR", "RTREND"};
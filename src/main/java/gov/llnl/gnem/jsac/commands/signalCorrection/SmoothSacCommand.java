@@ -29,6 +29,7 @@ import java.util.Collection;
 import java.util.List;
 
 import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.Session;
 import gov.llnl.gnem.jsac.commands.SacCommand;
 
 /**
@@ -38,7 +39,15 @@ import gov.llnl.gnem.jsac.commands.SacCommand;
 public class SmoothSacCommand implements SacCommand {
 
     private List<String> mytokens;
-    private static int halfWidth = 1;
+    /**
+     * Options that persist between invocations. Each session has its own.
+     */
+    private static class Settings {
+
+        int halfWidth = 1;
+    }
+
+    private final Settings settings = Session.current().getSettings(Settings.class, Settings::new);
 
     @Override
     public void initialize(String[] tokens) {
@@ -50,7 +59,7 @@ public class SmoothSacCommand implements SacCommand {
 
     @Override
     public void execute() {
-        SacDataModel.getInstance().smooth(halfWidth);
+        SacDataModel.getInstance().smooth(settings.halfWidth);
     }
 
     private void maybeSetHalfWidth() {
@@ -61,7 +70,7 @@ public class SmoothSacCommand implements SacCommand {
                 if (j > ntokens - 2) {
                     throw new IllegalArgumentException("The HALFWIDTH option requires specification of an integer half-width.");
                 } else {
-                    halfWidth = Integer.parseInt(mytokens.get(j + 1));
+                    settings.halfWidth = Integer.parseInt(mytokens.get(j + 1));
                     return;
                 }
             }
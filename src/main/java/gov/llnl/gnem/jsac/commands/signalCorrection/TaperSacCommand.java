@@ -29,17 +29,26 @@ import java.util.Collection;
 import java.util.List;
 
 import gov.llnl.gnem.jsac.SacDataModel;
-import gov.llnl.gnem.jsac.commands.SacCommand;
+import gov.llnl.gnem.jsac.Session;
+import gov.llnl.gnem.jsac.commands.CacheableCommand;
 import llnl.gnem.dftt.core.util.TaperType;
 
 /**
  *
  * @author dodge1
  */
-public class TaperSacCommand implements SacCommand {
+public class TaperSacCommand implements CacheableCommand {
 
-    private static TaperType taperType = TaperType.Hanning;
-    private static double taperPercent = 5.0;
+    /**
+     * Options that persist between invocations. Each session has its own.
+     */
+    private static class Settings {
+
+        TaperType taperType = TaperType.Hanning;
+        double taperPercent = 5.0;
+    }
+
+    private final Settings settings = Session.current().getSettings(Settings.class, Settings::new);
     private List<String> mytokens;
 
     @Override
@@ -47,15 +56,20 @@ public class TaperSacCommand implements SacCommand {
         mytokens = new ArrayList<>();
         mytokens.addAll(Arrays.asList(tokens));
         mytokens.remove(0); // Don't need the command name anymore.
-    }
-
-    @Override
-    public void execute() {
         if (!mytokens.isEmpty()) {
             maybeSetType();
             maybeSetWidth();
         }
-        SacDataModel.getInstance().applyTaper(taperType, taperPercent);
+    }
+
+    @Override
+    public void execute() {
+        SacDataModel.getInstance().applyTaper(settings.taperType, settings.taperPercent);
+    }
+
+    @Override
+    public String getCacheKey() {
+        return String.format("TAPER %s %s", settings.taperType, settings.taperPercent);
     }
 
     private void maybeSetType() {
@@ -70,13 +84,13 @@ public class TaperSacCommand implements SacCommand {
                     switch (tmp) {
                     case "HANN":
                     case "HANNING":
-                        taperType = TaperType.Hanning;
+                        settings.taperType = TaperType.Hanning;
                         return;
                     case "HAMMING":
-                        taperType = TaperType.Hamming;
+                        settings.taperType = TaperType.Hamming;
                         return;
                     case "COSINE":
-                        taperType = TaperType.Cosine;
+                        settings.taperType = TaperType.Cosine;
                         return;
                     default:
                         System.out.println("Unrecognized taper type: " + tmp);
@@ -94,7 +108,7 @@ public class TaperSacCommand implements SacCommand {
                 if (j > ntokens - 2) {
                     System.out.println("The WIDTH option requires specification of a value between 0 and 0.5.");
                 } else {
-                    taperPercent = Double.parseDouble(mytokens.get(j + 1)) * 100;
+                    settings.taperPercent = Double.parseDouble(mytokens.get(j + 1)) * 100;
                 }
             }
         }
@@ -32,6 +32,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.Session;
 import gov.llnl.gnem.jsac.commands.AttributeDescriptor;
 import gov.llnl.gnem.jsac.commands.SacCommand;
 import gov.llnl.gnem.jsac.commands.TokenListParser;
@@ -43,8 +44,16 @@ public class MarkptpSacCommand implements SacCommand {
 
     private static final Logger log = LoggerFactory.getLogger(MarkptpSacCommand.class);
 
-    private static String toMarker = "T0";
-    private static double length = 5.0;
+    /**
+     * Options that persist between invocations. Each session has its own.
+     */
+    private static class Settings {
+
+        String toMarker = "T0";
+        double length = 5.0;
+    }
+
+    private final Settings settings = Session.current().getSettings(Settings.class, Settings::new);
     private static final PartialDataWindow pdw = new PartialDataWindow();
 
     private static final List<AttributeDescriptor> descriptors = new ArrayList<>();
@@ -73,7 +82,7 @@ public class MarkptpSacCommand implements SacCommand {
         if (values != null && values.size() == 1) {
             String tmp = (String) values.get(0);
             if (refs.contains(tmp.toUpperCase())) {
-                toMarker = tmp.toUpperCase();
+                settings.toMarker = tmp.toUpperCase();
             } else {
                 throw new IllegalStateException("Invalid marker: " + tmp.toUpperCase() + " Only T0 - T8 are allowed.");
             }
@@ -81,7 +90,7 @@ public class MarkptpSacCommand implements SacCommand {
 
         values = parsedTokens.remove("LENGTH");
         if (values != null && values.size() == 1) {
-            length = (double) values.get(0);
+            settings.length = (double) values.get(0);
         }
 
     }
@@ -90,7 +99,7 @@ public class MarkptpSacCommand implements SacCommand {
     public void execute() {
 
         List<SacTraceData> data = SacDataModel.getInstance().getData();
-        int idx = refs.indexOf(toMarker);
+        int idx = refs.indexOf(settings.toMarker);
         for (SacTraceData std : data) {
             if (std.isSpectral()) {
                 String msg = String.format("ERROR 1307: Illegal operation on spectral file");
@@ -98,7 +107,7 @@ public class MarkptpSacCommand implements SacCommand {
                 continue;
             }
 
-            std.markptp(MTWSacCommand.getPartialDataWindow(), length, idx);
+            std.markptp(MTWSacCommand.getPartialDataWindow(), settings.length, idx);
 
         }
     }
@@ -32,6 +32,7 @@ import java.util.Map;
 import org.apache.commons.lang3.math.NumberUtils;
 
 import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.Session;
 import gov.llnl.gnem.jsac.commands.AttributeDescriptor;
 import gov.llnl.gnem.jsac.commands.SacCommand;
 import gov.llnl.gnem.jsac.commands.TokenListParser;
@@ -54,13 +55,21 @@ public class MarktimesSacCommand implements SacCommand {
         HEADER, VALUE, GMT
     };
 
-    private static List<Double> velocities = new ArrayList<>();
-    private static String toMarker = "T0";
-    private static DistanceType distType = DistanceType.HEADER;
-    private static double specifiedDistance = 0.0;
-    private static OriginType originType = OriginType.HEADER;
-    private static double specifiedGMT = 0.0;
-    private static double specifiedOriginOffsetTime = 0;
+    /**
+     * Options that persist between invocations. Each session has its own.
+     */
+    private static class Settings {
+
+        List<Double> velocities = new ArrayList<>(Arrays.asList(2.0, 3.0, 4.0, 5.0, 6.0));
+        String toMarker = "T0";
+        DistanceType distType = DistanceType.HEADER;
+        double specifiedDistance = 0.0;
+        OriginType originType = OriginType.HEADER;
+        double specifiedGMT = 0.0;
+        double specifiedOriginOffsetTime = 0;
+    }
+
+    private final Settings settings = Session.current().getSettings(Settings.class, Settings::new);
 
     private static final List<AttributeDescriptor> descriptors = new ArrayList<>();
     private static final List<String> refs;
@@ -68,8 +77,6 @@ public class MarktimesSacCommand implements SacCommand {
     static {
         String[] foo = { "T0", "T1", "T2", "T3", "T4", "T5", "T6", "T7", "T8", "T9" };
         refs = new ArrayList<>(Arrays.asList(foo));
-        Double[] boo = { 2.0, 3.0, 4.0, 5.0, 6.0 };
-        velocities = new ArrayList<>(Arrays.asList(boo));
     }
 
     static {
@@ -97,7 +104,7 @@ public class MarktimesSacCommand implements SacCommand {
         if (values != null && values.size() == 1) {
             String tmp = (String) values.get(0);
             if (refs.contains(tmp.toUpperCase())) {
-                toMarker = tmp.toUpperCase();
+                settings.toMarker = tmp.toUpperCase();
             } else {
                 throw new IllegalStateException("Invalid marker: " + tmp.toUpperCase());
             }
@@ -111,9 +118,9 @@ public class MarktimesSacCommand implements SacCommand {
             values = parsedTokens.remove("V");
         }
         if (values != null && !values.isEmpty()) {
-            velocities.clear();
+            settings.velocities.clear();
             for (Object obj : values) {
-                velocities.add((Double) obj);
+                settings.velocities.add((Double) obj);
             }
         }
     }
@@ -123,7 +130,7 @@ public class MarktimesSacCommand implements SacCommand {
         if (values != null && !values.isEmpty()) {
             String token = (String) values.get(0);
             if (token.equalsIgnoreCase("HEADER")) {
-                originType = OriginType.HEADER;
+                settings.originType = OriginType.HEADER;
             } else if (token.equalsIgnoreCase("GMT") || token.equalsIgnoreCase("UTC")) {
                 if (values.size() < 7) {
                     throw new IllegalStateException("ORIGIN GMT option was chosen, but not enough tokens were supplied to calculate GMT time!");
@@ -135,12 +142,12 @@ public class MarktimesSacCommand implements SacCommand {
                     int second = Integer.parseInt(((String) values.get(5)));
                     int msec = Integer.parseInt(((String) values.get(6)));
                     TimeT tmp = new TimeT(year, jdate, hour, minute, second, msec);
-                    specifiedGMT = tmp.getEpochTime();
-                    originType = OriginType.GMT;
+                    settings.specifiedGMT = tmp.getEpochTime();
+                    settings.originType = OriginType.GMT;
                 }
             } else if (NumberUtils.isParsable(token)) {
-                specifiedOriginOffsetTime = Double.parseDouble(token);
-                originType = OriginType.VALUE;
+                settings.specifiedOriginOffsetTime = Double.parseDouble(token);
+                settings.originType = OriginType.VALUE;
             } else {
                 throw new IllegalArgumentException("Unrecognized ORIGIN specifier: " + token);
             }
@@ -152,12 +159,12 @@ public class MarktimesSacCommand implements SacCommand {
         if (values != null && values.size() == 1) {
             String token = (String) values.get(0);
             if (token.equalsIgnoreCase("HEADER")) {
-                distType = DistanceType.HEADER;
+                settings.distType = DistanceType.HEADER;
             } else if (NumberUtils.isParsable(token)) {
                 double v = Double.parseDouble(token);
                 if (v > 0) {
-                    specifiedDistance = v;
-                    distType = DistanceType.VALUE;
+                    settings.specifiedDistance = v;
+                    settings.distType = DistanceType.VALUE;
                 } else {
                     throw new IllegalArgumentException("Specified distance must be > 0!");
                 }
@@ -177,8 +184,8 @@ public class MarktimesSacCommand implements SacCommand {
 
             Double time = getTimeOffset(hdr);
 
-            int idx = refs.indexOf(toMarker);
-            for (double vel : velocities) {
+            int idx = refs.indexOf(settings.toMarker);
+            for (double vel : settings.velocities) {
                 double tt = dist / vel;
                 if (time != null) {
                     double phaseTime = time + tt;
@@ -196,20 +203,20 @@ public class MarktimesSacCommand implements SacCommand {
     }
 
     private Double getTimeOffset(SACHeader hdr) {
-        switch (originType) {
+        switch (settings.originType) {
         case HEADER:
             return hdr.getO();
         case VALUE:
-            return specifiedOriginOffsetTime;
+            return settings.specifiedOriginOffsetTime;
         case GMT:
-            return specifiedGMT - hdr.getReferenceTime();
+            return settings.specifiedGMT - hdr.getReferenceTime();
         }
         return null;
     }
 
     private double getDistanceValue(SACHeader hdr) throws IllegalStateException {
-        double dist = specifiedDistance;
-        if (distType == DistanceType.HEADER) {
+        double dist = settings.specifiedDistance;
+        if (settings.distType == DistanceType.HEADER) {
             if (hdr.hasEventInfo() && hdr.hasStationInfo()) {
                 dist = hdr.getDistanceKm();
             } else {
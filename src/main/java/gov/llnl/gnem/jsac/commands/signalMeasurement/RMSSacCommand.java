@@ -22,6 +22,7 @@
  */
 package gov.llnl.gnem.jsac.commands.signalMeasurement;
 
+import java.nio.FloatBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -32,6 +33,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.Session;
 import gov.llnl.gnem.jsac.commands.AttributeDescriptor;
 import gov.llnl.gnem.jsac.commands.SacCommand;
 import gov.llnl.gnem.jsac.commands.TokenListParser;
@@ -44,10 +46,18 @@ public class RMSSacCommand implements SacCommand {
 
     private static final Logger log = LoggerFactory.getLogger(RMSSacCommand.class);
 
-    private static String toMarker = "USER0";
-    private static int index = 0;
-    private static boolean useNoise = false;
-    private static final PartialDataWindow pdw = new PartialDataWindow();
+    /**
+     * Options that persist between invocations. Each session has its own.
+     */
+    private static class Settings {
+
+        String toMarker = "USER0";
+        int index = 0;
+        boolean useNoise = false;
+        final PartialDataWindow pdw = new PartialDataWindow();
+    }
+
+    private final Settings settings = Session.current().getSettings(Settings.class, Settings::new);
 
     private static final List<AttributeDescriptor> descriptors = new ArrayList<>();
 
@@ -68,10 +78,10 @@ public class RMSSacCommand implements SacCommand {
         List<Object> values = parsedTokens.remove("TO");
         if (values != null && values.size() == 1) {
             String tmp = (String) values.get(0);
-            toMarker = tmp.toUpperCase();
-            if (toMarker.indexOf("USER") == 0 && toMarker.length() == 5) {
+            settings.toMarker = tmp.toUpperCase();
+            if (settings.toMarker.indexOf("USER") == 0 && settings.toMarker.length() == 5) {
                 {
-                    index = Integer.parseInt(toMarker.substring(4));
+                    settings.index = Integer.parseInt(settings.toMarker.substring(4));
                 }
             }
         }
@@ -80,10 +90,10 @@ public class RMSSacCommand implements SacCommand {
         if (values != null && !values.isEmpty()) {
             String tmp = (String) values.get(0);
             if (tmp.equalsIgnoreCase("ON")) {
-                useNoise = true;
+                settings.useNoise = true;
                 values.remove(0);
             } else if (tmp.equalsIgnoreCase("OFF")) {
-                useNoise = false;
+                settings.useNoise = false;
                 values.remove(0);
             }
             if (values.size() >= 2) { // Window specification follows...
@@ -93,9 +103,9 @@ public class RMSSacCommand implements SacCommand {
                     Object obj = values.get(j);
                     t[j + 1] = (String) obj;
                 }
-                PDWSetterBase pdws = new PDWSetterBase("RMS", pdw);
+                PDWSetterBase pdws = new PDWSetterBase("RMS", settings.pdw);
                 pdws.initialize(t);
-                useNoise = true;
+                settings.useNoise = true;
             }
         }
     }
@@ -109,7 +119,7 @@ public class RMSSacCommand implements SacCommand {
             return;
         }
 
-        if (useNoise && !pdw.isValid()) {
+        if (settings.useNoise && !settings.pdw.isValid()) {
             String msg = String.format("No valid noise window set!");
             log.warn(msg);
             return;
@@ -122,33 +132,40 @@ public class RMSSacCommand implements SacCommand {
                 log.warn(msg);
                 continue;
             }
-            float[] signal = std.getPartialDataWindow(signalPdw);
-            if (signal == null || signal.length < 2) {
-                String msg = String.format("Could not produce an float[] for PDW (%s) and file (%s)!", signalPdw.toString(), std.getFilename().toString());
+            FloatBuffer signal = std.getPartialDataView(signalPdw);
+            if (signal == null || signal.remaining() < 2) {
+                String msg = String.format("Could not produce a window for PDW (%s) and file (%s)!", signalPdw.toString(), std.getFilename().toString());
                 log.warn(msg);
                 continue;
             }
             double sumSquares = 0;
-            double sumSignal = 0;
-            for (float element : signal) {
-                sumSignal += (element * element);
-            }
-            sumSignal /= signal.length;
-
-            if (useNoise) {
-                float[] noise = std.getPartialDataWindow(pdw);
-                double sumNoise = 0;
-                for (float element : noise) {
-                    sumNoise += (element * element);
+            double sumSignal = meanSquare(signal);
+
+            if (settings.useNoise) {
+                FloatBuffer noise = std.getPartialDataView(settings.pdw);
+                if (noise == null || noise.remaining() < 1) {
+                    String msg = String.format("Could not produce a noise window for PDW (%s) and file (%s)!", settings.pdw.toString(), std.getFilename().toString());
+                    log.warn(msg);
+                    continue;
                 }
-                sumNoise /= noise.length;
+                double sumNoise = meanSquare(noise);
                 sumSquares = sumSignal - sumNoise;
             } else {
                 sumSquares = sumSignal;
             }
             double rms = Math.sqrt(sumSquares);
-            std.getSACHeader().setUser(index, rms);
+            std.getSACHeader().setUser(settings.index, rms);
+        }
+    }
+
+    private static double meanSquare(FloatBuffer window) {
+        int n = window.remaining();
+        double sum = 0;
+        for (int j = 0; j < n; ++j) {
+            float element = window.get(j);
+            sum += (element * element);
         }
+        return sum / n;
     }
 
     @Override
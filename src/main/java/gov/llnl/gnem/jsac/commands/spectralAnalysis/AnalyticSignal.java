@@ -0,0 +1,208 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.spectralAnalysis;
+
+import java.util.Arrays;
+
+import com.oregondsp.signalProcessing.fft.RDFT;
+
+import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData;
+
+
+/**
+ * Computes the analytic signal x(n) + i y(n) of a sequence, where y(n) is the
+ * spectral Hilbert transform of x(n), with one real FFT and its inverse.  The
+ * Hilbert transform, envelope, instantaneous phase and instantaneous frequency
+ * are all derived from that single pass.
+ *
+ * The transform is zero padded to the next power of two.  The FFT plan and its
+ * work arrays are cached per thread and reused for as long as the transform
+ * size stays the same, so traces may be processed in parallel.
+ */
+public class AnalyticSignal {
+	
+	public enum Quantity {
+		HILBERT, ENVELOPE, PHASE, FREQUENCY
+	}
+	
+	private static final ThreadLocal<Scratch> plans = new ThreadLocal<>();
+	
+	
+	private static class Scratch {
+		
+		final int     log2nfft;
+		final RDFT    fft;
+		final float[] block;
+		final float[] spectrum;
+		
+		Scratch( int log2nfft ) {
+			this.log2nfft = log2nfft;
+			fft           = new RDFT( log2nfft );
+			block         = new float[ 1 << log2nfft ];
+			spectrum      = new float[ 1 << log2nfft ];
+		}
+	}
+	
+	
+	private AnalyticSignal() {
+	}
+	
+	
+	static int log2FFTSize( int n ) {
+		int log2nfft = 1;
+		while ( ( 1 << log2nfft ) < n ) {
+			log2nfft++;
+		}
+		return log2nfft;
+	}
+	
+	
+	private static Scratch plan( int n ) {
+		int log2nfft = log2FFTSize( n );
+		Scratch s = plans.get();
+		if ( s == null  ||  s.log2nfft != log2nfft ) {
+			s = new Scratch( log2nfft );
+			plans.set( s );
+		}
+		return s;
+	}
+	
+	
+	/**
+	 * Replaces the samples of a trace with one quantity derived from its analytic signal.
+	 * 
+	 * @param std       The trace, which must be evenly sampled.
+	 * @param quantity  The quantity.
+	 */
+	public static void transform( SacTraceData std, Quantity quantity ) {
+		
+		float[] x = std.getData();
+		double delta = std.getSACHeader().getDelta();
+		
+		switch ( quantity ) {
+		case HILBERT:
+			compute( x, delta, x, null, null, null );
+			break;
+		case ENVELOPE:
+			compute( x, delta, null, x, null, null );
+			break;
+		case PHASE:
+			compute( x, delta, null, null, x, null );
+			break;
+		case FREQUENCY:
+			compute( x, delta, null, null, null, x );
+			break;
+		default:
+			throw new IllegalArgumentException( "Unsupported quantity: " + quantity );
+		}
+		
+		std.setData( x );
+	}
+	
+	
+	/**
+	 * Computes any of the quantities derived from the analytic signal in one pass.  Outputs
+	 * that are not wanted may be null, and any output may be x itself.
+	 * 
+	 * @param x          The sequence.
+	 * @param delta      The sample interval (s), used for the instantaneous frequency.
+	 * @param hilbert    Receives the Hilbert transform y(n).
+	 * @param envelope   Receives the envelope sqrt( x(n)^2 + y(n)^2 ).
+	 * @param phase      Receives the instantaneous phase atan2( y(n), x(n) ) in radians.
+	 * @param frequency  Receives the instantaneous frequency (Hz): the phase advance per sample,
+	 *                   averaged over the samples either side, divided by 2 pi delta.
+	 */
+	public static void compute( float[] x, double delta, float[] hilbert, float[] envelope, float[] phase, float[] frequency ) {
+		
+		int n = x.length;
+		if ( n == 0 ) {
+			return;
+		}
+		
+		Scratch s    = plan( n );
+		int     nfft = 1 << s.log2nfft;
+		int     half = nfft / 2;
+		
+		System.arraycopy( x, 0, s.block, 0, n );
+		Arrays.fill( s.block, n, nfft, 0.0f );
+		s.fft.evaluate( s.block, s.spectrum );
+		
+		// multiply by -i sgn(f), zeroing the DC and folding frequency terms
+		
+		s.spectrum[0]    = 0.0f;
+		s.spectrum[half] = 0.0f;
+		for ( int k = 1;  k < half;  k++ ) {
+			float re = s.spectrum[k];
+			s.spectrum[k]        = s.spectrum[nfft - k];
+			s.spectrum[nfft - k] = -re;
+		}
+		s.fft.evaluateInverse( s.spectrum, s.block );
+		
+		// the spectrum is no longer needed:  hold a copy of x there so that outputs may overwrite x
+		
+		float[] re = s.spectrum;
+		float[] im = s.block;
+		System.arraycopy( x, 0, re, 0, n );
+		
+		double scale = 1.0 / ( 2.0 * Math.PI * delta );
+		double previousAdvance = 0.0;
+		
+		for ( int i = 0;  i < n;  i++ ) {
+			
+			if ( hilbert != null ) {
+				hilbert[i] = im[i];
+			}
+			if ( envelope != null ) {
+				envelope[i] = (float) Math.sqrt( (double) re[i]*re[i] + (double) im[i]*im[i] );
+			}
+			if ( phase != null ) {
+				phase[i] = (float) Math.atan2( im[i], re[i] );
+			}
+			if ( frequency != null ) {
+				
+				// arg( z(i+1) conj( z(i) ) ) is unambiguous up to the folding frequency
+				
+				double advance = 0.0;
+				if ( i < n - 1 ) {
+					advance = Math.atan2( (double) re[i]*im[i+1] - (double) im[i]*re[i+1],
+					                      (double) re[i]*re[i+1] + (double) im[i]*im[i+1] );
+				}
+				
+				double average;
+				if ( n == 1 ) {
+					average = 0.0;
+				} else if ( i == 0 ) {
+					average = advance;
+				} else if ( i == n - 1 ) {
+					average = previousAdvance;
+				} else {
+					average = 0.5 * ( previousAdvance + advance );
+				}
+				
+				frequency[i]    = (float) ( average * scale );
+				previousAdvance = advance;
+			}
+		}
+	}
+
+}
@@ -26,9 +26,15 @@ package gov.llnl.gnem.jsac.commands.spectralAnalysis;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.Session;
+import gov.llnl.gnem.jsac.commands.AttributeDescriptor;
 import gov.llnl.gnem.jsac.commands.SacCommand;
+import gov.llnl.gnem.jsac.commands.TokenListParser;
+import gov.llnl.gnem.jsac.commands.ValuePossibilities;
 
 /**
  *
@@ -36,13 +42,39 @@ import gov.llnl.gnem.jsac.commands.SacCommand;
  */
 public class EnvelopeSacCommand implements SacCommand {
 
+    private static final List<AttributeDescriptor> descriptors = new ArrayList<>();
+
+    static {
+        descriptors.add(new AttributeDescriptor("SPECTRAL", ValuePossibilities.NO_VALUE, null));
+        descriptors.add(new AttributeDescriptor("SP", ValuePossibilities.NO_VALUE, null));
+        descriptors.add(new AttributeDescriptor("FIR", ValuePossibilities.NO_VALUE, null));
+    }
+
+    /**
+     * Options that persist between invocations. Each session has its own.
+     */
+    private static class Settings {
+
+        HilbertTransformerType type = HilbertTransformerType.SPECTRAL;
+    }
+
+    private final Settings settings = Session.current().getSettings(Settings.class, Settings::new);
+
     @Override
     public void initialize(String[] tokens) {
+
+        Map<String, List<Object>> parsedTokens = TokenListParser.parseTokens(descriptors, tokens);
+
+        if (parsedTokens.containsKey("FIR")) {
+            settings.type = HilbertTransformerType.FIR;
+        } else {
+            settings.type = HilbertTransformerType.SPECTRAL;
+        }
     }
 
     @Override
     public void execute() {
-        SacDataModel.getInstance().computeEnvelope();
+        SacDataModel.getInstance().computeEnvelope(settings.type);
     }
 
     @Override
@@ -57,12 +89,19 @@ public class EnvelopeSacCommand implements SacCommand {
                 + "	Computes the envelope function using a Hilbert transform.\n"
                 + "\n"
                 + "SYNTAX\n"
-                + "	ENVELOPE\n"
+                + "	ENVELOPE { [SP]ECTRAL | FIR }\n"
+                + "INPUT\n"
+                + "	[SP]ECTRAL:    Compute the Hilbert transform with the spectral method.\n"
+                + "	FIR:           Compute the Hilbert transform by convolution with an FIR operator.\n"
+                + "DEFAULT VALUES\n"
+                + "	ENVELOPE SPECTRAL\n"
                 + "DESCRIPTION\n"
                 + "	This command computes the envelope function of the data in memory. \n"
                 + "	The envelope is defined by the square root of x(n)^2 + y(n)^2, \n"
                 + "	where x(n) is the original signal and y(n) its Hilbert transform \n"
                 + "	(see HILBERT). As with HILBERT, very long period data should be \n"
-                + "	decimated (see DECIMATE) prior to processing.";
+                + "	decimated (see DECIMATE) prior to processing.  The spectral method\n"
+                + "	derives the envelope from the same analytic signal used by HILBERT PHASE\n"
+                + "	and INSTFREQ.";
     }
 }
@@ -30,6 +30,7 @@ import java.util.List;
 import java.util.Map;
 
 import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.Session;
 import gov.llnl.gnem.jsac.commands.AttributeDescriptor;
 import gov.llnl.gnem.jsac.commands.SacCommand;
 import gov.llnl.gnem.jsac.commands.TokenListParser;
@@ -47,9 +48,19 @@ public class HilbertSacCommand implements SacCommand {
         descriptors.add(new AttributeDescriptor("SPECTRAL", ValuePossibilities.NO_VALUE, null));
         descriptors.add(new AttributeDescriptor("SP", ValuePossibilities.NO_VALUE, null));
         descriptors.add(new AttributeDescriptor("FIR", ValuePossibilities.TWO_VALUES, Double.class));
+        descriptors.add(new AttributeDescriptor("PHASE", ValuePossibilities.NO_VALUE, null));
     }
 
-    static HilbertTransformerType type = HilbertTransformerType.SPECTRAL;
+    /**
+     * Options that persist between invocations. Each session has its own.
+     */
+    private static class Settings {
+
+        HilbertTransformerType type = HilbertTransformerType.SPECTRAL;
+        boolean phase = false;
+    }
+
+    private final Settings settings = Session.current().getSettings(Settings.class, Settings::new);
 
     @Override
     public void initialize(String[] tokens) {
@@ -57,18 +68,27 @@ public class HilbertSacCommand implements SacCommand {
         Map<String, List<Object>> parsedTokens = TokenListParser.parseTokens(descriptors, tokens);
 
         if (parsedTokens.containsKey("SPECTRAL") || parsedTokens.containsKey("SP")) {
-            type = HilbertTransformerType.SPECTRAL;
+            settings.type = HilbertTransformerType.SPECTRAL;
         } else if (parsedTokens.containsKey("FIR")) {
-            type = HilbertTransformerType.FIR;
+            settings.type = HilbertTransformerType.FIR;
         } else {
-            type = HilbertTransformerType.SPECTRAL;
+            settings.type = HilbertTransformerType.SPECTRAL;
+        }
+
+        settings.phase = parsedTokens.containsKey("PHASE");
+        if (settings.phase && settings.type == HilbertTransformerType.FIR) {
+            throw new IllegalArgumentException("PHASE is computed with the spectral method and cannot be combined with FIR");
         }
 
     }
 
     @Override
     public void execute() {
-        SacDataModel.getInstance().applyHilbert(type);
+        if (settings.phase) {
+            SacDataModel.getInstance().applyAnalyticSignal(AnalyticSignal.Quantity.PHASE);
+            return;
+        }
+        SacDataModel.getInstance().applyHilbert(settings.type);
     }
 
     @Override
@@ -84,12 +104,14 @@ public class HilbertSacCommand implements SacCommand {
                 + "\n"
                 + "SYNTAX\n"
                 + "\n"
-                + "	HILBERT { [SP]ECTRAL | FIR }\n"
+                + "	HILBERT { [SP]ECTRAL | FIR } {PHASE}\n"
                 + "\n"
                 + "INPUT\n"
                 + "\n"
                 + "[SP]ECTRAL:    Use the spectral Hilbert transform method.\n"
                 + "FIR:           Apply a Hilbert transform by convolution with an FIR operator.\n"
+                + "PHASE:         Replace each trace with its instantaneous phase, atan2(y(n), x(n)), in radians.\n"
+                + "               The spectral method is used.  See also ENVELOPE and INSTFREQ.\n"
                 + "\n"
                 + "DEFAULT VALUES\n"
                 + "\n"
@@ -106,7 +106,25 @@ public class HilbertTransformer {
 	
 	
 	public void transform_sp( SacTraceData std ) {
-		std.applyHilbert();
+		AnalyticSignal.transform( std, AnalyticSignal.Quantity.HILBERT );
+	}
+	
+	
+	/**
+	 * Replaces the trace with its envelope, using this transformer's Hilbert transform method.
+	 */
+	public void envelope( SacTraceData std ) {
+		
+		if ( type == HilbertTransformerType.FIR ) {
+			float[] x = std.getData();
+			float[] y = transform_fir( x.clone() );
+			for ( int i = 0;  i < x.length;  i++ ) {
+				x[i] = (float) Math.sqrt( (double) x[i]*x[i] + (double) y[i]*y[i] );
+			}
+			std.setData( x );
+		} else {
+			AnalyticSignal.transform( std, AnalyticSignal.Quantity.ENVELOPE );
+		}
 	}
 	
 	
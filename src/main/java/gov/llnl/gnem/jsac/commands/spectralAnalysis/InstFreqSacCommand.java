@@ -0,0 +1,69 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.spectralAnalysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.commands.SacCommand;
+
+public class InstFreqSacCommand implements SacCommand {
+
+    @Override
+    public void initialize(String[] tokens) {
+    }
+
+    @Override
+    public void execute() {
+        SacDataModel.getInstance().applyAnalyticSignal(AnalyticSignal.Quantity.FREQUENCY);
+    }
+
+    @Override
+    public Collection<String> getCommandNames() {
+        String[] names = { "INSTFREQ" };
+        return new ArrayList<>(Arrays.asList(names));
+    }
+
+    @Override
+    public String getHelpString() {
+        return "SUMMARY\n"
+                + "	Computes the instantaneous frequency using a Hilbert transform.\n"
+                + "\n"
+                + "SYNTAX\n"
+                + "	INSTFREQ\n"
+                + "DESCRIPTION\n"
+                + "	Each trace in memory is replaced by its instantaneous frequency in Hz, the rate\n"
+                + "	of change of the phase of the analytic signal x(n) + i y(n), where y(n) is the\n"
+                + "	spectral Hilbert transform of x(n) (see HILBERT).  The phase advance between\n"
+                + "	successive samples is averaged over the samples either side of each point and\n"
+                + "	divided by 2 pi DELTA, so frequencies up to the folding frequency are resolved\n"
+                + "	without phase unwrapping.  The estimate is unstable where the envelope (see\n"
+                + "	ENVELOPE) is small.  The envelope, Hilbert transform and instantaneous phase\n"
+                + "	(HILBERT PHASE) come from the same analytic signal.\n"
+                + "\n"
+                + "HEADER CHANGES\n"
+                + "	DEPMIN, DEPMAX, DEPMEN\n";
+    }
+}
@@ -30,6 +30,7 @@ import java.util.List;
 import java.util.Map;
 
 import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.Session;
 import gov.llnl.gnem.jsac.commands.AttributeDescriptor;
 import gov.llnl.gnem.jsac.commands.SacCommand;
 import gov.llnl.gnem.jsac.commands.TokenListParser;
@@ -52,7 +53,15 @@ public class DifSacCommand implements SacCommand {
         descriptors.add(new AttributeDescriptor("EQ", ValuePossibilities.TWO_VALUES, Double.class));
     }
 
-    static DifferentiatorType difType = DifferentiatorType.TWO_POINT_OPERATOR;
+    /**
+     * Options that persist between invocations. Each session has its own.
+     */
+    private static class Settings {
+
+        DifferentiatorType difType = DifferentiatorType.TWO_POINT_OPERATOR;
+    }
+
+    private final Settings settings = Session.current().getSettings(Settings.class, Settings::new);
 
     public DifSacCommand() {
     }
@@ -66,22 +75,22 @@ public class DifSacCommand implements SacCommand {
         }
 
         if (parsedTokens.containsKey("TWO")) {
-            difType = DifferentiatorType.TWO_POINT_OPERATOR;
+            settings.difType = DifferentiatorType.TWO_POINT_OPERATOR;
         } else if (parsedTokens.containsKey("THREE")) {
-            difType = DifferentiatorType.THREE_POINT_OPERATOR;
+            settings.difType = DifferentiatorType.THREE_POINT_OPERATOR;
         } else if (parsedTokens.containsKey("FIVE")) {
-            difType = DifferentiatorType.FIVE_POINT_OPERATOR;
+            settings.difType = DifferentiatorType.FIVE_POINT_OPERATOR;
         } else if (parsedTokens.containsKey("EQUIRIPPLE") || parsedTokens.containsKey("EQ")) {
-            difType = DifferentiatorType.EQUIRIPPLE;
+            settings.difType = DifferentiatorType.EQUIRIPPLE;
         } else {
-            difType = DifferentiatorType.TWO_POINT_OPERATOR;
+            settings.difType = DifferentiatorType.TWO_POINT_OPERATOR;
         }
 
     }
 
     @Override
     public void execute() {
-        SacDataModel.getInstance().differentiate(difType);
+        SacDataModel.getInstance().differentiate(settings.difType);
     }
 
     @Override
@@ -0,0 +1,417 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.dataAccess.cache;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData;
+import gov.llnl.gnem.jsac.io.SACFile;
+import gov.llnl.gnem.jsac.io.SACFileReader;
+import gov.llnl.gnem.jsac.io.SACFileWriter;
+import gov.llnl.gnem.jsac.io.SACHeader;
+import gov.llnl.gnem.jsac.io.enums.FileType;
+
+/**
+ * An on-disk cache of processed data sets. Each entry holds the traces that
+ * resulted from a chain of commands, stored under a key derived from the
+ * identity of the input files and the normalized parameters of every command
+ * in the chain. Entries are shared by all sessions and processes that use the
+ * same cache directory. When the entries take up more than the size limit the
+ * least recently used ones are deleted.
+ * <p>
+ * An entry is a directory named after its key that holds one binary SAC file
+ * per trace and an index listing the original file name and agency of each
+ * trace. Entries are written to a temporary directory and moved into place
+ * once complete, so that other processes never see a partial entry. Only
+ * evenly sampled time series are cached.
+ * <p>
+ * The cache is disabled until {@link #enable(Path, long)} is called.
+ */
+public class ResultCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ResultCache.class);
+
+    private static final String INDEX = "index";
+    private static final String TEMP_PREFIX = ".tmp-";
+    private static final long STALE_TEMP_MILLIS = 24L * 3600 * 1000;
+
+    /**
+     * Part of every key. Increment it whenever a change to the processing
+     * alters the result of a cacheable command, so that entries written by
+     * earlier versions are no longer found and are eventually evicted.
+     */
+    static final int VERSION = 1;
+
+    private Path directory;
+    private long maxBytes;
+    private long hitCount;
+    private long missCount;
+    private long loadCount;
+    private long storeCount;
+    private long evictionCount;
+
+    ResultCache() {
+        directory = null;
+        maxBytes = 0;
+    }
+
+    public static ResultCache getInstance() {
+        return ResultCacheHolder.INSTANCE;
+    }
+
+    /**
+     * Enables the cache, creating the directory if necessary, and evicts
+     * entries until the cache fits within the size limit.
+     *
+     * @param directory The cache directory.
+     * @param maxBytes  The maximum total size of the entries.
+     * @throws IOException If the directory cannot be created.
+     */
+    public synchronized void enable(Path directory, long maxBytes) throws IOException {
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        evict();
+    }
+
+    public synchronized void disable() {
+        directory = null;
+    }
+
+    public synchronized boolean isEnabled() {
+        return directory != null;
+    }
+
+    public synchronized Path getDirectory() {
+        return directory;
+    }
+
+    public synchronized long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getLoadCount() {
+        return loadCount;
+    }
+
+    public synchronized long getStoreCount() {
+        return storeCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Combines the parts of a description into a cache key.
+     *
+     * @param parts The parts, in order.
+     * @return The hexadecimal SHA-256 digest of the cache version and the
+     *         parts.
+     */
+    public static String key(String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(("jsac-result-cache-" + VERSION).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            for (String part : parts) {
+                digest.update(part.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest.digest()) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Describes a file by its path, size, and modification time, so that the
+     * key changes whenever the file is replaced or modified.
+     *
+     * @param file The file.
+     * @return The description.
+     * @throws IOException If the file attributes cannot be read.
+     */
+    public static String describeFile(Path file) throws IOException {
+        Path absolute = file.toAbsolutePath().normalize();
+        return String.format("%s|%d|%d", absolute, Files.size(absolute), Files.getLastModifiedTime(absolute).toMillis());
+    }
+
+    /**
+     * @param std A trace.
+     * @return true if the trace can be stored in the cache.
+     */
+    public static boolean isCacheable(SacTraceData std) {
+        SACHeader header = std.getSACHeader();
+        return !std.isSpectral() && header.getIftype() == FileType.ITIME && header.isEvenlySampled();
+    }
+
+    /**
+     * Looks up an entry without loading it, and marks it as recently used so
+     * that it is among the last to be evicted before it is loaded.
+     *
+     * @param key The entry key.
+     * @return true if the cache has a complete entry for the key.
+     */
+    public boolean contains(String key) {
+        Path dir = getDirectory();
+        if (dir == null) {
+            return false;
+        }
+        try {
+            Files.setLastModifiedTime(dir.resolve(key).resolve(INDEX), FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ex) {
+            synchronized (this) {
+                ++missCount;
+            }
+            return false;
+        }
+        synchronized (this) {
+            ++hitCount;
+        }
+        return true;
+    }
+
+    /**
+     * Loads the traces of an entry and marks the entry as recently used.
+     *
+     * @param key The entry key.
+     * @return The traces, or null if the cache is disabled or has no complete
+     *         entry for the key.
+     */
+    public List<SacTraceData> load(String key) {
+        Path dir = getDirectory();
+        if (dir == null) {
+            return null;
+        }
+        Path entry = dir.resolve(key);
+        Path index = entry.resolve(INDEX);
+        if (!Files.isRegularFile(index)) {
+            return null;
+        }
+        try {
+            List<String> lines = Files.readAllLines(index, StandardCharsets.UTF_8);
+            List<SacTraceData> result = new ArrayList<>();
+            for (int j = 0; j < lines.size(); ++j) {
+                String[] fields = lines.get(j).split("\t", -1);
+                SACFile sac = SACFileReader.readFile(entry.resolve(j + ".sac"));
+                SacTraceData std = new SacTraceData(Paths.get(fields[0]), sac);
+                if (fields.length > 1 && !fields[1].isEmpty()) {
+                    std.setAgency(fields[1]);
+                }
+                result.add(std);
+            }
+            Files.setLastModifiedTime(index, FileTime.fromMillis(System.currentTimeMillis()));
+            synchronized (this) {
+                ++loadCount;
+            }
+            return result;
+        } catch (IOException | RuntimeException ex) {
+            // Most likely evicted by another process while being read.
+            log.warn("Could not load result cache entry {}: {}", key, ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Stores a data set under a key unless an entry for the key already exists
+     * or one of the traces cannot be cached, then evicts entries as necessary.
+     *
+     * @param key    The entry key.
+     * @param traces The traces.
+     * @return true if the entry was stored.
+     */
+    public boolean store(String key, List<SacTraceData> traces) {
+        Path dir = getDirectory();
+        if (dir == null || !traces.stream().allMatch(ResultCache::isCacheable)) {
+            return false;
+        }
+        Path entry = dir.resolve(key);
+        if (Files.exists(entry)) {
+            return false;
+        }
+        Path temp = null;
+        try {
+            temp = Files.createTempDirectory(dir, TEMP_PREFIX);
+            List<String> lines = new ArrayList<>();
+            for (int j = 0; j < traces.size(); ++j) {
+                SacTraceData std = traces.get(j);
+                SACHeader header = new SACHeader(std.getSACHeader());
+                header.setNpts(0);
+                SACFileWriter writer = new SACFileWriter(temp.resolve(j + ".sac"));
+                writer.setHeader(header);
+                writer.write(std.getData());
+                writer.close();
+                lines.add(std.getFilename() + "\t" + (std.getAgency() == null ? "" : std.getAgency()));
+            }
+            Files.write(temp.resolve(INDEX), lines, StandardCharsets.UTF_8);
+            Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            // Another process may have stored the same result first.
+            log.debug("Could not store result cache entry {}: {}", key, ex.getMessage());
+            if (temp != null) {
+                deleteEntry(temp);
+            }
+            return false;
+        }
+        synchronized (this) {
+            ++storeCount;
+            evict();
+        }
+        return true;
+    }
+
+    /**
+     * Deletes all entries.
+     */
+    public synchronized void clear() {
+        if (directory != null) {
+            listEntries(directory).forEach(entry -> deleteEntry(entry.path));
+        }
+    }
+
+    /**
+     * @return The number of complete entries in the cache.
+     */
+    public synchronized int getEntryCount() {
+        return directory == null ? 0 : listEntries(directory).size();
+    }
+
+    /**
+     * @return The total size of the entries in the cache.
+     */
+    public synchronized long getSizeBytes() {
+        return directory == null ? 0 : listEntries(directory).stream().mapToLong(entry -> entry.bytes).sum();
+    }
+
+    private void evict() {
+        if (directory == null) {
+            return;
+        }
+        removeStaleTemporaries(directory);
+        List<Entry> entries = listEntries(directory);
+        long total = entries.stream().mapToLong(entry -> entry.bytes).sum();
+        entries.sort(Comparator.comparingLong(entry -> entry.lastUsed));
+        for (Entry entry : entries) {
+            if (total <= maxBytes) {
+                break;
+            }
+            deleteEntry(entry.path);
+            total -= entry.bytes;
+            ++evictionCount;
+        }
+    }
+
+    private static final class Entry {
+
+        final Path path;
+        final long bytes;
+        final long lastUsed;
+
+        Entry(Path path, long bytes, long lastUsed) {
+            this.path = path;
+            this.bytes = bytes;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    private static List<Entry> listEntries(Path dir) {
+        List<Entry> result = new ArrayList<>();
+        List<Path> paths;
+        try (Stream<Path> stream = Files.list(dir)) {
+            paths = stream.filter(Files::isDirectory).filter(p -> !p.getFileName().toString().startsWith(TEMP_PREFIX)).collect(Collectors.toList());
+        } catch (IOException ex) {
+            log.warn("Could not list result cache directory {}: {}", dir, ex.getMessage());
+            return result;
+        }
+        for (Path path : paths) {
+            try (Stream<Path> files = Files.list(path)) {
+                long bytes = 0;
+                for (Path file : files.collect(Collectors.toList())) {
+                    bytes += Files.size(file);
+                }
+                result.add(new Entry(path, bytes, Files.getLastModifiedTime(path.resolve(INDEX)).toMillis()));
+            } catch (IOException ex) {
+                // Deleted by another process in the meantime.
+            }
+        }
+        return result;
+    }
+
+    private static void removeStaleTemporaries(Path dir) {
+        long cutoff = System.currentTimeMillis() - STALE_TEMP_MILLIS;
+        try (Stream<Path> stream = Files.list(dir)) {
+            for (Path path : stream.filter(p -> p.getFileName().toString().startsWith(TEMP_PREFIX)).collect(Collectors.toList())) {
+                if (Files.getLastModifiedTime(path).toMillis() < cutoff) {
+                    deleteEntry(path);
+                }
+            }
+        } catch (IOException ex) {
+            log.debug("Could not remove temporary result cache entries: {}", ex.getMessage());
+        }
+    }
+
+    private static void deleteEntry(Path path) {
+        try (Stream<Path> files = Files.list(path)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(path);
+        } catch (IOException ex) {
+            log.debug("Could not delete result cache entry {}: {}", path, ex.getMessage());
+        }
+    }
+
+    private static class ResultCacheHolder {
+
+        private static final ResultCache INSTANCE = new ResultCache();
+    }
+}
@@ -25,6 +25,7 @@ package gov.llnl.gnem.jsac.dataAccess.dataObjects;
 
 import java.io.File;
 import java.io.PrintStream;
+import java.nio.FloatBuffer;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
@@ -34,13 +35,12 @@ import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.oregondsp.signalProcessing.filter.iir.Butterworth;
-import com.oregondsp.signalProcessing.filter.iir.ChebyshevI;
-import com.oregondsp.signalProcessing.filter.iir.ChebyshevII;
 import com.oregondsp.signalProcessing.filter.iir.IIRFilter;
-import com.oregondsp.signalProcessing.filter.iir.PassbandType;
 
 import gov.llnl.gnem.jsac.dataAccess.dataObjects.SpectralData.PresentationFormat;
+import gov.llnl.gnem.jsac.dataAccess.storage.HeapSampleStore;
+import gov.llnl.gnem.jsac.dataAccess.storage.SampleStore;
+import gov.llnl.gnem.jsac.dataAccess.storage.SampleStoreFactory;
 import gov.llnl.gnem.jsac.io.GseSeismogram;
 import gov.llnl.gnem.jsac.io.SACFile;
 import gov.llnl.gnem.jsac.io.SACHeader;
@@ -55,7 +55,6 @@ import gov.llnl.gnem.jsac.util.PartialDataWindow;
 import gov.llnl.gnem.jsac.util.WaveformUtils;
 
 import llnl.gnem.dftt.core.signalprocessing.extended.SignalProcessingException;
-import llnl.gnem.dftt.core.signalprocessing.filter.FilterDesign;
 import llnl.gnem.dftt.core.util.Epoch;
 import llnl.gnem.dftt.core.util.SeriesMath;
 import llnl.gnem.dftt.core.util.StreamKey;
@@ -79,9 +78,11 @@ public class SacTraceData {
     private final Path filename;
     private SACHeader header;
     private float[] xValues;
-    private float[] yValues;
+    private SampleStore samples;
+    private SampleStoreFactory storeFactory = HeapSampleStore.FACTORY;
     private Epoch epoch;
     private String agency = null;
+    private long sampleRevision;
 
     public SacTraceData(Path filename, SACFile sac) {
 
@@ -91,20 +92,20 @@ public class SacTraceData {
         switch (header.getIftype()) {
         case ITIME:
             xValues = header.isEvenlySampled() ? null : sac.getDataBlock2();
-            yValues = sac.getData();
+            samples = toStore(sac.getData());
             spectralData = null;
             epoch = header.getEpoch();
             break;
         case IGRP:
         case IREAL:
             xValues = null;
-            yValues = sac.getData();
+            samples = toStore(sac.getData());
             spectralData = null;
             epoch = header.getEpoch();
             break;
         case IRLIM:
             xValues = null;
-            yValues = null;
+            samples = null;
             epoch = header.getEpoch(); //min positive frequency to nyquist frequency
             float[] tmp1 = sac.getData();
             float[] tmp2 = sac.getDataBlock2();
@@ -117,7 +118,7 @@ public class SacTraceData {
             break;
         case IAMPH:
             xValues = null;
-            yValues = null;
+            samples = null;
             epoch = header.getEpoch(); //min positive frequency to nyquist frequency
             tmp1 = sac.getData();
             tmp2 = sac.getDataBlock2();
@@ -132,7 +133,7 @@ public class SacTraceData {
             break;
         case IXY:
             xValues = sac.getDataBlock2();
-            yValues = sac.getData();
+            samples = toStore(sac.getData());
             epoch = header.getEpoch();
 
             break;
@@ -150,7 +151,7 @@ public class SacTraceData {
     }
 
     public SacTraceData(Path root, GseSeismogram seis) {
-        yValues = seis.getData();
+        samples = toStore(seis.getData());
         filename = buildFilename(root, seis);
         header = buildHeader(seis);
         spectralData = null;
@@ -158,7 +159,7 @@ public class SacTraceData {
     }
 
     public SacTraceData(NamedIntWaveform niw, Path parent) {
-        yValues = niw.getDataAsFloatArray();
+        samples = toStore(niw.getDataAsFloatArray());
         String name = WaveformUtils.createName(niw);
         File file = new File(parent.toFile(), name);
         filename = file.toPath();
@@ -167,6 +168,152 @@ public class SacTraceData {
         epoch = niw.getEpoch();
     }
 
+    private SacTraceData(SacTraceData other) {
+        spectralData = other.spectralData != null ? new SpectralData(other.spectralData) : null;
+        filename = other.filename;
+        header = new SACHeader(other.header);
+        xValues = other.xValues != null ? other.xValues.clone() : null;
+        samples = other.samples != null ? other.samples.share() : null;
+        storeFactory = other.storeFactory;
+        epoch = other.epoch;
+        agency = other.agency;
+    }
+
+    /**
+     * Creates an independent copy of this trace whose samples share storage
+     * with this one. The samples are copied only when one of the two traces
+     * modifies them.
+     *
+     * @return The copy.
+     */
+    public SacTraceData snapshot() {
+        return new SacTraceData(this);
+    }
+
+    /**
+     * @param snapshot A snapshot taken from this trace.
+     * @return true if neither the header nor the samples of this trace have
+     *         been changed since the snapshot was taken.
+     */
+    public boolean isUnchangedSince(SacTraceData snapshot) {
+        if (!filename.equals(snapshot.filename) || spectralData != null || snapshot.spectralData != null) {
+            return false;
+        }
+        if (samples == null ? snapshot.samples != null : !samples.sharesWith(snapshot.samples)) {
+            return false;
+        }
+        return Arrays.equals(xValues, snapshot.xValues) && header.equals(snapshot.header);
+    }
+
+    /**
+     * Records the header of this trace and the revision of its samples. Unlike
+     * {@link #snapshot()} the mark does not share the samples, so taking one
+     * never causes them to be copied.
+     *
+     * @return The mark.
+     */
+    public Mark mark() {
+        return new Mark(this);
+    }
+
+    /**
+     * @param mark A mark taken from this trace.
+     * @return true if neither the header nor the samples of this trace have
+     *         been changed since the mark was taken.
+     */
+    public boolean isUnchangedSince(Mark mark) {
+        return mark.trace == this && mark.sampleRevision == sampleRevision && mark.xValues == xValues && spectralData == null && header.equals(mark.header);
+    }
+
+    /**
+     * The state of a trace recorded by {@link SacTraceData#mark()}.
+     */
+    public static final class Mark {
+
+        private final SacTraceData trace;
+        private final SACHeader header;
+        private final float[] xValues;
+        private final long sampleRevision;
+
+        private Mark(SacTraceData trace) {
+            this.trace = trace;
+            header = new SACHeader(trace.header);
+            xValues = trace.xValues;
+            sampleRevision = trace.sampleRevision;
+        }
+    }
+
+    /**
+     * Releases the samples of a trace that will not be used again, allowing
+     * traces that share them to modify them without copying.
+     */
+    public void discard() {
+        if (samples != null) {
+            samples.discard();
+            samples = null;
+            ++sampleRevision;
+        }
+    }
+
+    private static SampleStore toStore(float[] values) {
+        return values != null ? new HeapSampleStore(values) : null;
+    }
+
+    /**
+     * Moves the samples of this trace into the medium managed by the supplied
+     * factory. Samples produced by later processing stay in that medium.
+     *
+     * @param factory The factory responsible for the new storage.
+     */
+    public void setStorage(SampleStoreFactory factory) {
+        SampleStoreFactory previous = storeFactory;
+        storeFactory = factory;
+        if (samples != null && !factory.owns(samples)) {
+            float[] values = samples.checkout();
+            previous.release(samples);
+            samples = factory.create(values);
+        }
+    }
+
+    /**
+     * Tells the storage factory that this trace is no longer part of the data
+     * set. The samples remain accessible.
+     */
+    public void releaseStorage() {
+        if (samples != null) {
+            storeFactory.release(samples);
+        }
+    }
+
+    /**
+     * @return false if the samples of this trace have been spilled out of
+     *         memory.
+     */
+    public boolean isSampleDataResident() {
+        return samples == null || samples.isResident();
+    }
+
+    /**
+     * @return The number of bytes currently used to hold the samples of this
+     *         trace.
+     */
+    public long getSampleBytes() {
+        return samples != null ? samples.getByteSize() : 0;
+    }
+
+    private float[] workingData() {
+        return samples.checkout();
+    }
+
+    private void commit(float[] values) {
+        ++sampleRevision;
+        if (samples == null) {
+            samples = storeFactory.create(values);
+        } else {
+            samples.checkin(values);
+        }
+    }
+
     @Override
     public String toString() {
         return "SacTraceData{" + "filename=" + filename + ", header=" + header + ", epoch=" + epoch + '}';
@@ -233,7 +380,7 @@ public class SacTraceData {
         if (tmp == null) {
             tmp = 0.0;
         }
-        return new CssSeismogram(lnwfid, key, yValues, header.getSamprate(), new TimeT(tmp), calib, calper);
+        return new CssSeismogram(lnwfid, key, getData(), header.getSamprate(), new TimeT(tmp), calib, calper);
     }
 
     private StreamKey makeStreamKey(StreamKey substituteKey) {
@@ -300,24 +447,27 @@ public class SacTraceData {
             System.out.println("Files " + this.filename + " and " + source.filename + " have different sample rates! Skipping");
             return;
         }
+        float[] yValues = workingData();
+        FloatBuffer sourceValues = source.getSamples();
         for (int j = 0; j < yValues.length; ++j) {
             switch (opType) {
             case ADD:
-                yValues[j] += source.yValues[j];
+                yValues[j] += sourceValues.get(j);
                 break;
             case SUB:
-                yValues[j] -= source.yValues[j];
+                yValues[j] -= sourceValues.get(j);
                 break;
             case MUL:
-                yValues[j] *= source.yValues[j];
+                yValues[j] *= sourceValues.get(j);
                 break;
             case DIV:
-                float tmp = source.yValues[j] != 0 ? source.yValues[j] : 1;
+                float tmp = sourceValues.get(j) != 0 ? sourceValues.get(j) : 1;
                 yValues[j] /= tmp;
                 break;
             }
 
         }
+        commit(yValues);
         if (replaceHeader) {
             header = source.header;
         }
@@ -337,26 +487,31 @@ public class SacTraceData {
     }
 
     public void abs() {
-        yValues = SeriesMath.abs(yValues);
+        commit(SeriesMath.abs(workingData()));
     }
 
     public void squareRoot() {
-        yValues = SeriesMath.sqrt(yValues);
+        commit(SeriesMath.sqrt(workingData()));
     }
 
-    public void computeEnvelope() {
-        if (!header.isEvenlySampled()) {
-            throw new IllegalStateException("ERROR 1306: Illegal operation on unevenly spaced file");
-        }
-        yValues = SeriesMath.envelope(yValues);
+    public boolean isNonNegative() {
+        return getMinimum() >= 0;
     }
 
-    public boolean isNonNegative() {
-        return SeriesMath.getMin(yValues) >= 0;
+    private float getMinimum() {
+        FloatBuffer values = getSamples();
+        if (!values.hasRemaining()) {
+            return SeriesMath.getMin(new float[0]);
+        }
+        float min = values.get();
+        while (values.hasRemaining()) {
+            min = Math.min(min, values.get());
+        }
+        return min;
     }
 
     public void log() {
-        yValues = log(yValues);
+        commit(log(workingData()));
     }
 
     private float[] log(float[] data) {
@@ -377,15 +532,15 @@ public class SacTraceData {
     }
 
     public boolean isPositive() {
-        return SeriesMath.getMin(yValues) > 0;
+        return getMinimum() > 0;
     }
 
     public void log10() {
-        yValues = SeriesMath.log10(yValues);
+        commit(SeriesMath.log10(workingData()));
     }
 
     public void exp() {
-        yValues = exp(yValues);
+        commit(exp(workingData()));
     }
 
     private float[] exp(float[] data) {
@@ -397,7 +552,7 @@ public class SacTraceData {
     }
 
     public void exp10() {
-        yValues = exp10(yValues);
+        commit(exp10(workingData()));
     }
 
     private float[] exp10(float[] data) {
@@ -412,7 +567,9 @@ public class SacTraceData {
         if (!header.isEvenlySampled()) {
             throw new IllegalStateException("ERROR 1306: Illegal operation on unevenly spaced file");
         }
+        float[] yValues = workingData();
         SeriesMath.ReverseArray(yValues);
+        commit(yValues);
     }
 
     public void setStationCode(String string) {
@@ -437,12 +594,16 @@ public class SacTraceData {
 
     public void integrate(boolean b) {
         double samprate = 1.0 / header.getDelta();
+        float[] yValues = workingData();
         SeriesMath.Integrate(yValues, samprate);
+        commit(yValues);
         maybeUpdateIdepForInt();
     }
 
     public void removeMean() {
+        float[] yValues = workingData();
         SeriesMath.RemoveMean(yValues);
+        commit(yValues);
     }
 
     public void divOmega() {
@@ -464,14 +625,22 @@ public class SacTraceData {
     public void interpolate(double newsamprate) {
         double samprate = header.getSamprate();
         if ((newsamprate > 0.)) {
-            yValues = SeriesMath.interpolate(0., 1. / samprate, yValues, 1. / newsamprate);
+            float[] yValues = SeriesMath.interpolate(0., 1. / samprate, workingData(), 1. / newsamprate);
+            commit(yValues);
             header.setDelta(1.0 / newsamprate);
             header.setNpts(yValues.length);
         }
     }
 
     public int getNsamp() {
-        return yValues.length;
+        return samples.size();
+    }
+
+    /**
+     * @return The number of samples, or 0 if the trace holds only a spectrum.
+     */
+    public long getSampleCount() {
+        return samples != null ? samples.size() : 0;
     }
 
     public Epoch getEpoch() {
@@ -479,41 +648,41 @@ public class SacTraceData {
     }
 
     public void removeTrend() {
+        float[] yValues = workingData();
         SeriesMath.RemoveTrend(yValues);
-    }
-
-    public void applyHilbert() {
-        if (!header.isEvenlySampled()) {
-            throw new IllegalStateException("ERROR 1306: Illegal operation on unevenly spaced file");
-        }
-        float[] tmp = SeriesMath.hilbert(yValues);
-        System.arraycopy(tmp, 0, yValues, 0, yValues.length);
+        commit(yValues);
     }
 
     public void smooth(int halfWidth) {
         if (!header.isEvenlySampled()) {
             throw new IllegalStateException("ERROR 1306: Illegal operation on unevenly spaced file");
         }
-        yValues = SeriesMath.MeanSmooth(yValues, halfWidth);
+        commit(SeriesMath.MeanSmooth(workingData(), halfWidth));
     }
 
     public void squareData() {
-        yValues = SeriesMath.square(yValues);
+        commit(SeriesMath.square(workingData()));
     }
 
     public void multiplyByConstant(float constant) {
+        float[] yValues = workingData();
         SeriesMath.MultiplyScalar(yValues, constant);
+        commit(yValues);
     }
 
     public void addConstant(float constant) {
+        float[] yValues = workingData();
         SeriesMath.AddScalar(yValues, constant);
+        commit(yValues);
     }
 
     public void applyTaper(TaperType taperType, double taperPercent) {
         if (!header.isEvenlySampled()) {
             throw new IllegalStateException("ERROR 1306: Illegal operation on unevenly spaced file");
         }
+        float[] yValues = workingData();
         SeriesMath.Taper(yValues, taperPercent);
+        commit(yValues);
     }
 
     public SpectralData getSpectralData() {
@@ -531,10 +700,21 @@ public class SacTraceData {
     }
 
     public float[] getData() {
-        if (yValues == null) {
+        if (samples == null) {
+            return null;
+        }
+        return samples.toArray();
+    }
+
+    /**
+     * @return A read-only view of the samples without copying them, or null if
+     *         the trace holds no time-domain samples.
+     */
+    public FloatBuffer getSamples() {
+        if (samples == null) {
             return null;
         }
-        return yValues.clone();
+        return samples.view();
     }
 
     public Double getBeginTimeMarker() {
@@ -674,11 +854,12 @@ public class SacTraceData {
 
     public void computeDataStats() {
 
-        if (yValues != null) {
+        if (samples != null) {
 
             DescriptiveStatistics stats = new DescriptiveStatistics();
-            for (float v : yValues) {
-                stats.addValue(v);
+            FloatBuffer values = samples.view();
+            while (values.hasRemaining()) {
+                stats.addValue(values.get());
             }
 
             header.setDepmin(stats.getMin());
@@ -749,19 +930,19 @@ public class SacTraceData {
         switch (header.getIftype()) {
         case ITIME:
             if (header.isEvenlySampled()) {
-                return new SacPlotData(header.getB(), header.getDelta(), yValues, referenceTime);
+                return new SacPlotData(header.getB(), header.getDelta(), getData(), referenceTime);
             } else {
-                return new SacPlotData(xValues, yValues, referenceTime);
+                return new SacPlotData(xValues, getData(), referenceTime);
             }
         case IGRP:
-            return new SacPlotData(header.getB(), header.getDelta(), yValues, referenceTime);
+            return new SacPlotData(header.getB(), header.getDelta(), getData(), referenceTime);
         case IREAL:
             throw new IllegalStateException("not implemented.");
         case IRLIM:
         case IAMPH:
             return new SacPlotData(spectralData);
         case IXY:
-            return new SacPlotData(xValues, yValues, referenceTime);
+            return new SacPlotData(xValues, getData(), referenceTime);
         default:
             throw new IllegalStateException("not implemented.");
         }
@@ -823,16 +1004,18 @@ public class SacTraceData {
             int indexOfMin = 0;
             int indexOfMax = 0;
             int ipmin = 0;
+            FloatBuffer yValues = samples.view();
             while (stop <= npts) {
                 double localMax = -Float.MAX_VALUE;
                 double localMin = -localMax;
                 for (int i = start; i < stop; i++) {
-                    if (yValues[i] > localMax) {
-                        localMax = yValues[i];
+                    float value = yValues.get(i);
+                    if (value > localMax) {
+                        localMax = value;
                         imax = i;
                     }
-                    if (yValues[i] < localMin) {
-                        localMin = yValues[i];
+                    if (value < localMin) {
+                        localMin = value;
                         indexOfMin = i;
                     }
                 }
@@ -912,6 +1095,7 @@ public class SacTraceData {
         if (!header.isEvenlySampled()) {
             throw new IllegalStateException("ERROR 1306: Illegal operation on unevenly spaced file");
         }
+        float[] yValues = workingData();
         Complex[] result = SeriesMath.fft(yValues);
 
         int nfreqs = result.length;
@@ -925,7 +1109,9 @@ public class SacTraceData {
         }
         spectralData = new SpectralData(result, deltaF, format, yValues.length);
         header.updateForFFT(spectralData);
-        yValues = null;
+        samples.discard();
+        samples = null;
+        ++sampleRevision;
         xValues = null;
     }
 
@@ -942,7 +1128,7 @@ public class SacTraceData {
                 for (int j = 0; j < v.length; ++j) {
                     v[j] = (float) tmp[j].divide(u).getReal();
                 }
-                yValues = v;
+                commit(v);
                 header.updateForIFFT();
                 this.spectralData = null;
                 return true;
@@ -973,7 +1159,7 @@ public class SacTraceData {
             E = getEndtime();
         }
         double duration = E.getEpochTime() - S.getEpochTime();
-        yValues = getSubSection(S, duration);
+        narrowTo(S.getEpochTime(), duration);
 
         double adjustmentToB = start.getEpochTime() - epoch.getbeginning().getEpochTime();
         double adjustmentToE = end.getEpochTime() - epoch.getEnd();
@@ -982,16 +1168,13 @@ public class SacTraceData {
         epoch = new Epoch(start, end);
     }
 
-    private float[] getSubSection(TimeT start, double duration) {
-        return getSubSection(start.getEpochTime(), duration);
-    }
-
-    private float[] getSubSection(double startEpoch, double requesteduration) {
-        return getSubSection(startEpoch, requesteduration, null);
-    }
-
-    private float[] getSubSection(double startEpoch, double requestedDuration, float[] result) {
-        int Nsamps = yValues.length;
+    /**
+     * Restricts the samples to the requested section. Where the storage allows
+     * it the section is a view of the existing samples, which are copied only
+     * when next modified.
+     */
+    private void narrowTo(double startEpoch, double requestedDuration) {
+        int Nsamps = samples.size();
         if (Nsamps >= 1) {
             double duration = Math.abs(requestedDuration);
             if (duration < getDelta()) {
@@ -1005,23 +1188,23 @@ public class SacTraceData {
                 startIndex = 0;
             }
 
-            if (endIndex >= yValues.length) {
-                endIndex = yValues.length - 1;
+            if (endIndex >= Nsamps) {
+                endIndex = Nsamps - 1;
             }
 
             int sampsRequired = endIndex - startIndex + 1;
-            if (result == null) {
-                result = new float[sampsRequired];
+            if (startIndex >= Nsamps || sampsRequired < 1) {
+                String msg = String.format("Requested %d samples from seismogram of length %d from index %d", sampsRequired, Nsamps, startIndex);
+                throw new IllegalStateException(msg);
             }
-            try {
-                System.arraycopy(yValues, startIndex, result, 0, sampsRequired);
-            } catch (ArrayIndexOutOfBoundsException ex) {
-                String msg = String.format("Requested %d samples from seismogram of length %d from index %d into buffer of length %d", sampsRequired, yValues.length, startIndex, result.length);
-                throw new IllegalStateException(msg, ex);
+            ++sampleRevision;
+            if (!samples.narrow(startIndex, sampsRequired)) {
+                float[] result = new float[sampsRequired];
+                FloatBuffer yValues = samples.view();
+                yValues.position(startIndex);
+                yValues.get(result, 0, sampsRequired);
+                commit(result);
             }
-            return result;
-        } else {
-            return null;
         }
     }
 
@@ -1040,13 +1223,14 @@ public class SacTraceData {
         }
         double offset = getTime().getEpochTime() - newStart;
         int sampsToAdd = (int) Math.round(offset * getSamprate());
-        int totalSamps = sampsToAdd + yValues.length;
+        FloatBuffer yValues = samples.view();
+        int totalSamps = sampsToAdd + yValues.remaining();
         float[] tmp = new float[totalSamps];
         Arrays.fill(tmp, padValue);
-        System.arraycopy(yValues, 0, tmp, sampsToAdd, yValues.length);
+        yValues.get(tmp, sampsToAdd, yValues.remaining());
         epoch = new Epoch(newStart, epoch.getEnd());
         header.setB(header.getB() - newStart);
-        yValues = tmp;
+        commit(tmp);
         header.setNpts(totalSamps);
     }
 
@@ -1057,18 +1241,20 @@ public class SacTraceData {
         }
         double offset = newEnd - currentEnd;
         int sampsToAdd = (int) Math.round(offset * getSamprate());
-        int totalSamps = sampsToAdd + yValues.length;
+        FloatBuffer yValues = samples.view();
+        int totalSamps = sampsToAdd + yValues.remaining();
         float[] tmp = new float[totalSamps];
         Arrays.fill(tmp, padValue);
-        System.arraycopy(yValues, 0, tmp, 0, yValues.length);
+        yValues.get(tmp, 0, yValues.remaining());
         epoch = new Epoch(epoch.getStart(), newEnd);
         header.setE(header.getE() + offset);
-        yValues = tmp;
+        commit(tmp);
         header.setNpts(totalSamps);
     }
 
     private void apply2(IIRFilter filt, boolean two_pass) {
 
+        float[] yValues = workingData();
         filt.initialize();
         filt.filter(yValues);
         if (two_pass) {
@@ -1077,39 +1263,24 @@ public class SacTraceData {
             filt.filter(yValues);
             SeriesMath.ReverseArray(yValues);
         }
+        commit(yValues);
     }
 
-    public void filter(FilterDesign design, int order, PassbandType passband, double cutoff1, double cutoff2, double epsilon, double transitionBW, boolean twoPass) {
-
+    /**
+     * Applies a designed IIR filter, forwards and, if requested, backwards.
+     *
+     * @param filt    A filter for the exclusive use of this call.
+     * @param twoPass true for a zero-phase filter.
+     */
+    public void filter(IIRFilter filt, boolean twoPass) {
         if (!header.isEvenlySampled()) {
             throw new IllegalStateException("ERROR 1306: Illegal operation on unevenly spaced file");
         }
-        com.oregondsp.signalProcessing.filter.iir.IIRFilter filt = null;
-
-        double dt = header.getDelta();
-
-        switch (design) {
-        case Butterworth:
-            filt = new Butterworth(order, passband, cutoff1, cutoff2, dt);
-            break;
-        case Chebyshev1:
-            filt = new ChebyshevI(order, epsilon, passband, cutoff1, cutoff2, dt);
-            break;
-        case Chebyshev2:
-            filt = new ChebyshevII(order, epsilon, 1.0 + transitionBW, passband, cutoff1, cutoff2, dt);
-            break;
-        default:
-            throw new IllegalArgumentException("Unsupported design: " + design);
-        }
-
-        if (filt != null) {
-            apply2(filt, twoPass);
-        }
-
+        apply2(filt, twoPass);
     }
 
     public void setData(float[] x) {
-        yValues = x;
+        commit(x);
         header.setNpts(x.length);
         resetStatistics();
     }
@@ -1118,22 +1289,25 @@ public class SacTraceData {
         float dmin = Float.MAX_VALUE;
         float dmax = Float.MIN_VALUE;
         float dmean = 0.0f;
-        for (float yValue : yValues) {
+        FloatBuffer yValues = samples.view();
+        int npts = yValues.remaining();
+        while (yValues.hasRemaining()) {
+            float yValue = yValues.get();
             dmin = Math.min(dmin, yValue);
             dmax = Math.max(dmax, yValue);
             dmean += yValue;
         }
         header.setDepmin((double) dmin);
         header.setDepmax((double) dmax);
-        header.setDepmen(((double) dmean) / yValues.length);
+        header.setDepmen(((double) dmean) / npts);
     }
 
     public SACFile getSacFile() {
-        if (yValues != null) {
+        if (samples != null) {
             if (xValues == null) {
-                return new SACFile(header, yValues);
+                return new SACFile(header, getData());
             } else {
-                return new SACFile(header, yValues, xValues);
+                return new SACFile(header, getData(), xValues);
             }
         } else if (spectralData != null) {
             switch (header.getIftype()) {
@@ -1156,7 +1330,7 @@ public class SacTraceData {
     }
 
     public boolean isPlottable() {
-        return (yValues != null && yValues.length > 1) || (spectralData != null && spectralData.isPlottable());
+        return (samples != null && samples.size() > 1) || (spectralData != null && spectralData.isPlottable());
     }
 
     public boolean isSpectral() {
@@ -1164,7 +1338,22 @@ public class SacTraceData {
     }
 
     public float[] getPartialDataWindow(PartialDataWindow pdw) {
-        if (yValues == null || yValues.length == 0) {
+        FloatBuffer window = getPartialDataView(pdw);
+        if (window == null) {
+            return null;
+        }
+        float[] result = new float[window.remaining()];
+        window.get(result);
+        return result;
+    }
+
+    /**
+     * @param pdw The window to extract.
+     * @return A read-only view of the samples in the window without copying
+     *         them, or null if the window cannot be formed for this trace.
+     */
+    public FloatBuffer getPartialDataView(PartialDataWindow pdw) {
+        if (samples == null || samples.size() == 0) {
             log.warn("No y-values available!");
             return null;
         }
@@ -1175,9 +1364,14 @@ public class SacTraceData {
             int startOffset = (int) Math.round((pdwStartSeconds - header.getB()) / delta);
             int endOffset = (int) Math.round((pdwEndseconds - header.getB()) / delta);
             int npts = endOffset - startOffset + 1;
-            float[] result = new float[npts];
-            System.arraycopy(yValues, startOffset, result, 0, npts);
-            return result;
+            FloatBuffer yValues = samples.view();
+            if (startOffset < 0 || npts < 0 || startOffset + npts > yValues.remaining()) {
+                log.warn("Window ({}, {}) extends beyond the data of {}!", pdwStartSeconds, pdwEndseconds, getFilename());
+                return null;
+            }
+            yValues.limit(startOffset + npts);
+            yValues.position(startOffset);
+            return yValues.slice();
         }
         return null;
     }
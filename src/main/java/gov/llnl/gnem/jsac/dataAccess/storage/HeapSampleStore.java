@@ -0,0 +1,178 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.dataAccess.storage;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+/**
+ * Sample storage backed by an ordinary heap array. This is the default and
+ * matches the historical behavior of {@code SacTraceData}. The store may
+ * present a range of the array, so that cutting a trace is a constant-time
+ * operation, and several stores may share one array. The range is copied only
+ * when it is first modified.
+ */
+public class HeapSampleStore implements SampleStore {
+
+    public static final SampleStoreFactory FACTORY = new SampleStoreFactory() {
+        @Override
+        public SampleStore create(float[] values) {
+            return new HeapSampleStore(values);
+        }
+
+        @Override
+        public boolean owns(SampleStore store) {
+            return store instanceof HeapSampleStore;
+        }
+    };
+
+    private Block block;
+    private int offset;
+    private int length;
+
+    public HeapSampleStore(float[] values) {
+        this(new Block(values), 0, values.length);
+    }
+
+    private HeapSampleStore(Block block, int offset, int length) {
+        this.block = block;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public int size() {
+        return length;
+    }
+
+    @Override
+    public float get(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of range for " + length + " samples.");
+        }
+        return block.values[offset + index];
+    }
+
+    @Override
+    public FloatBuffer view() {
+        return FloatBuffer.wrap(block.values, offset, length).slice().asReadOnlyBuffer();
+    }
+
+    @Override
+    public float[] toArray() {
+        return Arrays.copyOfRange(block.values, offset, offset + length);
+    }
+
+    /**
+     * Returns the backing array when it holds exactly the samples of this store
+     * and is not shared with another store. Otherwise the samples are first
+     * copied into a new array that the caller can modify in place.
+     */
+    @Override
+    public float[] checkout() {
+        if (offset != 0 || length != block.values.length || block.isShared()) {
+            Block tmp = new Block(toArray());
+            block.release();
+            block = tmp;
+            offset = 0;
+        }
+        return block.values;
+    }
+
+    @Override
+    public void checkin(float[] values) {
+        if (values != block.values) {
+            block.release();
+            block = new Block(values);
+        }
+        offset = 0;
+        length = values.length;
+    }
+
+    /**
+     * @return The size of the backing array, which may be larger than the
+     *         samples visible after {@link #narrow(int, int)}.
+     */
+    @Override
+    public long getByteSize() {
+        return 4L * block.values.length;
+    }
+
+    @Override
+    public boolean narrow(int start, int length) {
+        if (start < 0 || length < 0 || start + length > this.length) {
+            throw new IndexOutOfBoundsException("Range [" + start + ", " + (start + length) + ") is out of range for " + this.length + " samples.");
+        }
+        offset += start;
+        this.length = length;
+        return true;
+    }
+
+    @Override
+    public SampleStore share() {
+        block.acquire();
+        return new HeapSampleStore(block, offset, length);
+    }
+
+    @Override
+    public boolean sharesWith(SampleStore other) {
+        if (!(other instanceof HeapSampleStore)) {
+            return false;
+        }
+        HeapSampleStore tmp = (HeapSampleStore) other;
+        return tmp.block == block && tmp.offset == offset && tmp.length == length;
+    }
+
+    @Override
+    public void discard() {
+        block.release();
+    }
+
+    /**
+     * An array together with the number of stores that refer to it.
+     */
+    private static final class Block {
+
+        private final float[] values;
+        private int references;
+
+        private Block(float[] values) {
+            this.values = values;
+            references = 1;
+        }
+
+        synchronized void acquire() {
+            ++references;
+        }
+
+        synchronized void release() {
+            if (references > 0) {
+                --references;
+            }
+        }
+
+        synchronized boolean isShared() {
+            return references > 1;
+        }
+    }
+}
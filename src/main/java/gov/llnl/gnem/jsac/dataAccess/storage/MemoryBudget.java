@@ -0,0 +1,185 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.dataAccess.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Limits the number of sample bytes held on the heap by the traces in the data
+ * model. When the limit is exceeded the least-recently-used traces are written
+ * to memory-mapped scratch files and their heap arrays released. A spilled
+ * trace is faulted back into memory the next time its samples are modified.
+ * Read-only access to a spilled trace is served directly from the mapping.
+ * Samples shared by several stores, such as a trace and its undo snapshot,
+ * are accounted for once.
+ * <p>
+ * All bookkeeping, as well as every access to the stores it manages, is
+ * synchronized on the budget instance.
+ */
+public class MemoryBudget implements SampleStoreFactory {
+
+    private static final Logger log = LoggerFactory.getLogger(MemoryBudget.class);
+
+    private final long budgetBytes;
+    private final Path scratchDirectory;
+    private final LinkedHashMap<SpillableSampleStore.Block, Long> residentBlocks;
+    private long residentBytes;
+    private long spilledBytes;
+    private int spilledCount;
+    private long spillCount;
+    private long faultCount;
+
+    public MemoryBudget(long budgetBytes, Path scratchDirectory) {
+        this.budgetBytes = budgetBytes;
+        this.scratchDirectory = scratchDirectory;
+        residentBlocks = new LinkedHashMap<>(16, 0.75f, true);
+        residentBytes = 0;
+        spilledBytes = 0;
+        spilledCount = 0;
+        spillCount = 0;
+        faultCount = 0;
+    }
+
+    /**
+     * @return A budget of three quarters of the maximum heap size, spilling to
+     *         the default temporary directory.
+     */
+    public static MemoryBudget createDefault() {
+        long bytes = Runtime.getRuntime().maxMemory() / 4 * 3;
+        return new MemoryBudget(bytes, Paths.get(System.getProperty("java.io.tmpdir")));
+    }
+
+    @Override
+    public SampleStore create(float[] values) {
+        return new SpillableSampleStore(this, values);
+    }
+
+    /**
+     * @return true if the store is accounted for by this budget. A store that
+     *         has been released is not, and is migrated again if its trace is
+     *         added back to the data set.
+     */
+    @Override
+    public synchronized boolean owns(SampleStore store) {
+        return store instanceof SpillableSampleStore && ((SpillableSampleStore) store).getBudget() == this && ((SpillableSampleStore) store).isAttached();
+    }
+
+    @Override
+    public synchronized void release(SampleStore store) {
+        if (owns(store)) {
+            ((SpillableSampleStore) store).detach();
+        }
+    }
+
+    synchronized void admit(SpillableSampleStore.Block block, long bytes) {
+        Long previous = residentBlocks.put(block, bytes);
+        residentBytes += bytes - (previous != null ? previous : 0);
+        enforce(block);
+    }
+
+    synchronized void touch(SpillableSampleStore.Block block) {
+        residentBlocks.get(block);
+    }
+
+    synchronized void faulted(SpillableSampleStore.Block block, long bytes) {
+        spilledBytes -= bytes;
+        --spilledCount;
+        ++faultCount;
+        admit(block, bytes);
+    }
+
+    /**
+     * Stops accounting for a block that no attached store refers to.
+     */
+    synchronized void forget(SpillableSampleStore.Block block) {
+        Long bytes = residentBlocks.remove(block);
+        if (bytes != null) {
+            residentBytes -= bytes;
+        } else if (!block.isResident()) {
+            spilledBytes -= block.getByteSize();
+            --spilledCount;
+        }
+    }
+
+    private void enforce(SpillableSampleStore.Block keep) {
+        Iterator<Map.Entry<SpillableSampleStore.Block, Long>> it = residentBlocks.entrySet().iterator();
+        while (residentBytes > budgetBytes && it.hasNext()) {
+            Map.Entry<SpillableSampleStore.Block, Long> entry = it.next();
+            SpillableSampleStore.Block block = entry.getKey();
+            if (block == keep) {
+                continue;
+            }
+            try {
+                block.spill(scratchDirectory);
+                it.remove();
+                residentBytes -= entry.getValue();
+                spilledBytes += entry.getValue();
+                ++spilledCount;
+                ++spillCount;
+            } catch (IOException ex) {
+                log.warn("Failed spilling trace samples to {}: {}", scratchDirectory, ex.getMessage());
+                return;
+            }
+        }
+    }
+
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    public Path getScratchDirectory() {
+        return scratchDirectory;
+    }
+
+    public synchronized long getResidentBytes() {
+        return residentBytes;
+    }
+
+    public synchronized long getSpilledBytes() {
+        return spilledBytes;
+    }
+
+    public synchronized int getResidentCount() {
+        return residentBlocks.size();
+    }
+
+    public synchronized int getSpilledCount() {
+        return spilledCount;
+    }
+
+    public synchronized long getSpillCount() {
+        return spillCount;
+    }
+
+    public synchronized long getFaultCount() {
+        return faultCount;
+    }
+}
@@ -0,0 +1,105 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.dataAccess.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * Allocates trace sample segments from large direct (native) buffers so that
+ * sample data does not count against the Java heap or add to GC work. Segments
+ * are carved from slabs by bumping a pointer; individual segments are never
+ * freed. Instead the arena as a whole is discarded (see
+ * {@code SacDataModel.clear}) and its native memory is returned once no trace
+ * refers to it any longer.
+ * <p>
+ * Native memory is limited by the JVM option -XX:MaxDirectMemorySize, which
+ * defaults to the maximum heap size.
+ */
+public class OffHeapArena implements SampleStoreFactory {
+
+    private static final int SLAB_BYTES = 64 * 1024 * 1024;
+
+    private ByteBuffer currentSlab;
+    private long reservedBytes;
+    private long allocatedBytes;
+    private int segmentCount;
+
+    public OffHeapArena() {
+        currentSlab = null;
+        reservedBytes = 0;
+        allocatedBytes = 0;
+        segmentCount = 0;
+    }
+
+    /**
+     * @param nsamples The number of float samples the segment must hold.
+     * @return A native float buffer of capacity nsamples.
+     */
+    public synchronized FloatBuffer allocate(int nsamples) {
+        long bytes = 4L * nsamples;
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Cannot allocate a segment of " + nsamples + " samples!");
+        }
+        ++segmentCount;
+        allocatedBytes += bytes;
+        if (bytes > SLAB_BYTES / 4) {
+            // Large traces get a dedicated buffer so they do not strand the rest of a slab.
+            reservedBytes += bytes;
+            return ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        }
+        if (currentSlab == null || currentSlab.remaining() < bytes) {
+            currentSlab = ByteBuffer.allocateDirect(SLAB_BYTES);
+            reservedBytes += SLAB_BYTES;
+        }
+        int start = currentSlab.position();
+        ByteBuffer segment = currentSlab.duplicate();
+        segment.position(start);
+        segment.limit(start + (int) bytes);
+        currentSlab.position(start + (int) bytes);
+        return segment.slice().order(ByteOrder.nativeOrder()).asFloatBuffer();
+    }
+
+    @Override
+    public SampleStore create(float[] values) {
+        return new OffHeapSampleStore(this, values);
+    }
+
+    @Override
+    public boolean owns(SampleStore store) {
+        return store instanceof OffHeapSampleStore && ((OffHeapSampleStore) store).getArena() == this;
+    }
+
+    public synchronized long getReservedBytes() {
+        return reservedBytes;
+    }
+
+    public synchronized long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public synchronized int getSegmentCount() {
+        return segmentCount;
+    }
+}
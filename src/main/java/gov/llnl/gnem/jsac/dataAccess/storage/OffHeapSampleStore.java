@@ -0,0 +1,183 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.dataAccess.storage;
+
+
+import java.nio.FloatBuffer;
+
+/**
+ * Sample storage held in a native segment obtained from an
+ * {@link OffHeapArena}. Reads through {@link #view()} are zero-copy. Callers
+ * that need a heap array receive a copy, and modified samples are written
+ * back into the same segment when they fit and no other store shares it.
+ */
+public class OffHeapSampleStore implements SampleStore {
+
+    private final OffHeapArena arena;
+    private Segment segment;
+    private FloatBuffer samples;
+    private int size;
+
+    public OffHeapSampleStore(OffHeapArena arena, float[] values) {
+        this.arena = arena;
+        segment = null;
+        samples = null;
+        size = 0;
+        checkin(values);
+    }
+
+    private OffHeapSampleStore(OffHeapSampleStore other) {
+        arena = other.arena;
+        synchronized (other) {
+            other.segment.acquire();
+            segment = other.segment;
+            samples = other.samples;
+            size = other.size;
+        }
+    }
+
+    OffHeapArena getArena() {
+        return arena;
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized float get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of range for " + size + " samples.");
+        }
+        return samples.get(index);
+    }
+
+    @Override
+    public synchronized FloatBuffer view() {
+        FloatBuffer tmp = samples.duplicate();
+        tmp.position(0);
+        tmp.limit(size);
+        return tmp.slice().asReadOnlyBuffer();
+    }
+
+    @Override
+    public float[] toArray() {
+        FloatBuffer tmp = view();
+        float[] result = new float[tmp.remaining()];
+        tmp.get(result);
+        return result;
+    }
+
+    @Override
+    public float[] checkout() {
+        return toArray();
+    }
+
+    @Override
+    public synchronized void checkin(float[] values) {
+        if (segment == null || values.length > samples.capacity() || segment.isShared()) {
+            if (segment != null) {
+                segment.release();
+            }
+            segment = new Segment();
+            samples = arena.allocate(values.length);
+        }
+        FloatBuffer tmp = samples.duplicate();
+        tmp.clear();
+        tmp.put(values);
+        size = values.length;
+    }
+
+    @Override
+    public synchronized long getByteSize() {
+        return 4L * size;
+    }
+
+    @Override
+    public SampleStore share() {
+        return new OffHeapSampleStore(this);
+    }
+
+    @Override
+    public boolean sharesWith(SampleStore other) {
+        if (!(other instanceof OffHeapSampleStore)) {
+            return false;
+        }
+        OffHeapSampleStore tmp = (OffHeapSampleStore) other;
+        FloatBuffer otherSamples;
+        int otherSize;
+        synchronized (tmp) {
+            otherSamples = tmp.samples;
+            otherSize = tmp.size;
+        }
+        synchronized (this) {
+            return otherSamples == samples && otherSize == size;
+        }
+    }
+
+    @Override
+    public synchronized void discard() {
+        segment.release();
+    }
+
+    @Override
+    public synchronized boolean narrow(int start, int length) {
+        if (start < 0 || length < 0 || start + length > size) {
+            throw new IndexOutOfBoundsException("Range [" + start + ", " + (start + length) + ") is out of range for " + size + " samples.");
+        }
+        FloatBuffer tmp = samples.duplicate();
+        tmp.limit(start + length);
+        tmp.position(start);
+        samples = tmp.slice();
+        size = length;
+        return true;
+    }
+
+    /**
+     * Counts the stores that refer to one native segment. Narrowing a store
+     * keeps it on the same segment.
+     */
+    private static final class Segment {
+
+        private int references;
+
+        private Segment() {
+            references = 1;
+        }
+
+        synchronized void acquire() {
+            ++references;
+        }
+
+        synchronized void release() {
+            if (references > 0) {
+                --references;
+            }
+        }
+
+        synchronized boolean isShared() {
+            return references > 1;
+        }
+    }
+}
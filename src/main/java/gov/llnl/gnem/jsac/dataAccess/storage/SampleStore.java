@@ -0,0 +1,119 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.dataAccess.storage;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Holds the dependent-variable samples of a single trace. Implementations may
+ * keep the samples on the Java heap or in native memory. Callers that only
+ * need to read the samples should use {@link #view()}, which never copies.
+ */
+public interface SampleStore {
+
+    int size();
+
+    float get(int index);
+
+    /**
+     * @return A read-only view of the samples positioned at zero with limit
+     *         equal to {@link #size()}. No copy is made.
+     */
+    FloatBuffer view();
+
+    /**
+     * @return A copy of the samples in a newly-allocated heap array.
+     */
+    float[] toArray();
+
+    /**
+     * Returns a heap array holding the samples that may be modified in place.
+     * Modifications are only guaranteed to be retained once the array is
+     * passed to {@link #checkin(float[])}. For heap storage this is the
+     * backing array itself, so no copy is made.
+     *
+     * @return The working array.
+     */
+    float[] checkout();
+
+    /**
+     * Replaces the contents of the store. The length of the supplied array
+     * need not match the current size.
+     *
+     * @param values The new samples.
+     */
+    void checkin(float[] values);
+
+    /**
+     * @return The number of bytes used to hold the samples.
+     */
+    long getByteSize();
+
+    /**
+     * @return false if the samples have been moved out of memory, e.g. to a
+     *         scratch file.
+     */
+    default boolean isResident() {
+        return true;
+    }
+
+    /**
+     * Restricts the store to a contiguous range of its samples without copying
+     * them, if the store supports that. Any copy is then deferred until the
+     * samples are next checked out for modification.
+     *
+     * @param start  Index of the first sample to keep.
+     * @param length Number of samples to keep.
+     * @return false if the store cannot narrow itself; the caller must then
+     *         copy the range and check it in.
+     */
+    default boolean narrow(int start, int length) {
+        return false;
+    }
+
+    /**
+     * Creates a second store holding the same samples. Where the
+     * implementation allows it the two stores share storage, and whichever is
+     * modified first makes its own copy.
+     *
+     * @return The new store.
+     */
+    SampleStore share();
+
+    /**
+     * @param other Another store.
+     * @return true if the two stores present the same samples from shared
+     *         storage, which implies that neither has been modified since one
+     *         was created from the other with {@link #share()}.
+     */
+    default boolean sharesWith(SampleStore other) {
+        return false;
+    }
+
+    /**
+     * Tells the store that it will not be used again, so that storage it
+     * shares with other stores may be modified in place by them.
+     */
+    default void discard() {
+    }
+}
@@ -0,0 +1,47 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.dataAccess.storage;
+
+/**
+ * Creates the {@link SampleStore} used to hold a trace's samples.
+ */
+public interface SampleStoreFactory {
+
+    SampleStore create(float[] values);
+
+    /**
+     * @param store A store that may have been created elsewhere.
+     * @return true if the store is already held in the medium managed by this
+     *         factory and does not need to be migrated.
+     */
+    boolean owns(SampleStore store);
+
+    /**
+     * Tells the factory that the store is no longer part of the data set so
+     * that it stops accounting for it. The store itself remains usable.
+     *
+     * @param store A store created by this factory.
+     */
+    default void release(SampleStore store) {
+    }
+}
@@ -0,0 +1,275 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.dataAccess.storage;
+
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Heap sample storage that a {@link MemoryBudget} may move to a memory-mapped
+ * scratch file. The scratch file is deleted as soon as it has been mapped, so
+ * it disappears when the mapping is garbage collected.
+ * <p>
+ * Stores created with {@link #share()} refer to the same {@link Block}, which
+ * the budget accounts for once. The block is copied when one of the stores
+ * sharing it is first modified.
+ */
+public class SpillableSampleStore implements SampleStore {
+
+    private final MemoryBudget budget;
+    private Block block;
+    private boolean attached;
+
+    SpillableSampleStore(MemoryBudget budget, float[] values) {
+        this.budget = budget;
+        synchronized (budget) {
+            block = new Block(values);
+            attached = false;
+            attach();
+        }
+    }
+
+    private SpillableSampleStore(SpillableSampleStore other) {
+        budget = other.budget;
+        synchronized (budget) {
+            block = other.block;
+            attached = false;
+            ++block.stores;
+            if (other.attached) {
+                attach();
+            }
+        }
+    }
+
+    MemoryBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * Stops accounting for this store. Called by the budget with its lock
+     * held.
+     */
+    void detach() {
+        if (attached) {
+            attached = false;
+            if (--block.attachedStores == 0) {
+                budget.forget(block);
+            }
+        }
+    }
+
+    boolean isAttached() {
+        return attached;
+    }
+
+    @Override
+    public int size() {
+        synchronized (budget) {
+            return block.size;
+        }
+    }
+
+    @Override
+    public float get(int index) {
+        synchronized (budget) {
+            touch();
+            return block.resident != null ? block.resident[index] : block.spilled.get(index);
+        }
+    }
+
+    @Override
+    public FloatBuffer view() {
+        synchronized (budget) {
+            touch();
+            FloatBuffer tmp = block.resident != null ? FloatBuffer.wrap(block.resident) : block.spilled.duplicate();
+            return tmp.asReadOnlyBuffer();
+        }
+    }
+
+    @Override
+    public float[] toArray() {
+        FloatBuffer tmp = view();
+        float[] result = new float[tmp.remaining()];
+        tmp.get(result);
+        return result;
+    }
+
+    @Override
+    public float[] checkout() {
+        synchronized (budget) {
+            if (block.stores > 1) {
+                replaceBlock(toArray());
+            } else {
+                faultIn();
+                touch();
+            }
+            return block.resident;
+        }
+    }
+
+    @Override
+    public void checkin(float[] values) {
+        synchronized (budget) {
+            if (values != block.resident || block.stores > 1) {
+                replaceBlock(values);
+            } else {
+                block.size = values.length;
+                if (attached) {
+                    budget.admit(block, getByteSize());
+                }
+            }
+        }
+    }
+
+    @Override
+    public long getByteSize() {
+        synchronized (budget) {
+            return 4L * block.size;
+        }
+    }
+
+    @Override
+    public boolean isResident() {
+        synchronized (budget) {
+            return block.resident != null;
+        }
+    }
+
+    @Override
+    public SampleStore share() {
+        return new SpillableSampleStore(this);
+    }
+
+    @Override
+    public boolean sharesWith(SampleStore other) {
+        if (!(other instanceof SpillableSampleStore)) {
+            return false;
+        }
+        synchronized (budget) {
+            return ((SpillableSampleStore) other).block == block;
+        }
+    }
+
+    @Override
+    public void discard() {
+        synchronized (budget) {
+            detach();
+            if (block.stores > 0) {
+                --block.stores;
+            }
+        }
+    }
+
+    private void attach() {
+        attached = true;
+        if (block.attachedStores++ == 0) {
+            budget.admit(block, getByteSize());
+        }
+    }
+
+    private void replaceBlock(float[] values) {
+        boolean wasAttached = attached;
+        detach();
+        --block.stores;
+        block = new Block(values);
+        if (wasAttached) {
+            attach();
+        }
+    }
+
+    private void touch() {
+        if (attached && block.resident != null) {
+            budget.touch(block);
+        }
+    }
+
+    private void faultIn() {
+        if (block.resident == null) {
+            float[] tmp = new float[block.size];
+            block.spilled.duplicate().get(tmp);
+            block.resident = tmp;
+            block.spilled = null;
+            if (attached) {
+                budget.faulted(block, getByteSize());
+            }
+        }
+    }
+
+    /**
+     * The samples held by one or more stores, either on the heap or in a
+     * mapped scratch file. All fields are guarded by the budget lock.
+     */
+    static final class Block {
+
+        private float[] resident;
+        private FloatBuffer spilled;
+        private int size;
+        private int stores;
+        private int attachedStores;
+
+        private Block(float[] values) {
+            resident = values;
+            spilled = null;
+            size = values.length;
+            stores = 1;
+            attachedStores = 0;
+        }
+
+        long getByteSize() {
+            return 4L * size;
+        }
+
+        boolean isResident() {
+            return resident != null;
+        }
+
+        /**
+         * Writes the samples to a scratch file in the supplied directory, maps
+         * it, and releases the heap array. Called by the budget with its lock
+         * held.
+         */
+        void spill(Path scratchDirectory) throws IOException {
+            if (resident == null) {
+                return;
+            }
+            long bytes = getByteSize();
+            Path file = Files.createTempFile(scratchDirectory, "jsac", ".spill");
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE)) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+                mapped.order(ByteOrder.nativeOrder());
+                FloatBuffer tmp = mapped.asFloatBuffer();
+                tmp.put(resident);
+                tmp.clear();
+                spilled = tmp;
+                resident = null;
+            }
+        }
+    }
+}
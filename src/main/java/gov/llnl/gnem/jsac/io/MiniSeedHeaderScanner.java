@@ -0,0 +1,128 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Walks the fixed section data headers of a miniSEED file without decoding
+ * any data, accumulating the number of records, samples, and distinct
+ * channels.
+ */
+public class MiniSeedHeaderScanner {
+
+    private static final int FIXED_HEADER_SIZE = 48;
+    private static final int SCAN_SIZE = 128;
+    private static final int DEFAULT_RECORD_LENGTH = 4096;
+
+    private long recordCount;
+    private long sampleCount;
+    private final Set<String> channels;
+
+    public MiniSeedHeaderScanner() {
+        recordCount = 0;
+        sampleCount = 0;
+        channels = new HashSet<>();
+    }
+
+    /**
+     * Scans one file. Scanning stops quietly at the first record that does not
+     * look like a data record.
+     *
+     * @param path The miniSEED file.
+     * @throws IOException If the file cannot be read.
+     */
+    public void scan(Path path) throws IOException {
+        try (FileChannel fc = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = fc.size();
+            long position = 0;
+            ByteBuffer buffer = ByteBuffer.allocate(SCAN_SIZE);
+            while (position + FIXED_HEADER_SIZE <= size) {
+                buffer.clear();
+                fc.read(buffer, position);
+                buffer.flip();
+                if (buffer.remaining() < FIXED_HEADER_SIZE || !isDataRecord(buffer.get(6))) {
+                    return;
+                }
+                buffer.order(ByteOrder.BIG_ENDIAN);
+                int year = buffer.getShort(20) & 0xFFFF;
+                if (year < 1900 || year > 2100) {
+                    buffer.order(ByteOrder.LITTLE_ENDIAN);
+                }
+                ++recordCount;
+                sampleCount += buffer.getShort(30) & 0xFFFF;
+                channels.add(channelName(buffer));
+                position += recordLength(buffer);
+            }
+        }
+    }
+
+    private static boolean isDataRecord(byte quality) {
+        return quality == 'D' || quality == 'R' || quality == 'Q' || quality == 'M';
+    }
+
+    private static String channelName(ByteBuffer buffer) {
+        byte[] tmp = new byte[12];
+        for (int j = 0; j < tmp.length; ++j) {
+            tmp[j] = buffer.get(8 + j);
+        }
+        return new String(tmp, StandardCharsets.US_ASCII);
+    }
+
+    private static int recordLength(ByteBuffer buffer) {
+        int offset = buffer.getShort(46) & 0xFFFF;
+        while (offset >= FIXED_HEADER_SIZE && offset + 7 <= buffer.limit()) {
+            int type = buffer.getShort(offset) & 0xFFFF;
+            if (type == 1000) {
+                int exponent = buffer.get(offset + 6);
+                return exponent >= 7 && exponent <= 20 ? 1 << exponent : DEFAULT_RECORD_LENGTH;
+            }
+            int next = buffer.getShort(offset + 2) & 0xFFFF;
+            if (next <= offset) {
+                break;
+            }
+            offset = next;
+        }
+        return DEFAULT_RECORD_LENGTH;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    public int getChannelCount() {
+        return channels.size();
+    }
+}
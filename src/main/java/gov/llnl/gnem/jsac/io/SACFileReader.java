@@ -84,6 +84,37 @@ public class SACFileReader {
         return retval;
     }
 
+    /**
+     * Reads only the header of a binary SAC file and returns the number of
+     * float values that {@link #readFile(Path)} would load for it.
+     *
+     * @param path The SAC file.
+     * @return The number of data values in the file.
+     * @throws IOException If the header cannot be read.
+     */
+    public static long countValues(Path path) throws IOException {
+        SACHeader h = readHeader(path);
+        long npts = h.getNpts() != null ? h.getNpts() : 0;
+        FileType type = h.getIftype();
+        if (type == null || type == FileType.IGRP || type == FileType.IREAL || (type == FileType.ITIME && h.isEvenlySampled())) {
+            return npts;
+        }
+        return 2 * npts;
+    }
+
+    /**
+     * Reads only the header of a binary SAC file.
+     *
+     * @param path The SAC file.
+     * @return The header.
+     * @throws IOException If the header cannot be read.
+     */
+    public static SACHeader readHeader(Path path) throws IOException {
+        try ( FileChannel fc = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new SACHeaderIO(fc).read();
+        }
+    }
+
     private static SACFile buildFromXYData(SACHeader h, final FileChannel fc, SACHeaderIO io, int npts, boolean isXY) throws IOException {
         float[] tmp = read(h, fc, io.getByteOrder(), 2 * npts);
         if (h.isEvenlySampled() && tmp.length == npts && h.getIftype() == FileType.IXY) {
@@ -23,10 +23,14 @@
 package gov.llnl.gnem.jsac.io.css;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -47,13 +51,45 @@ import llnl.gnem.dftt.core.waveform.merge.NamedIntWaveform;
 public class CssProcessor {
 
     private static final Logger log = LoggerFactory.getLogger(CssProcessor.class);
+    private static final int NSAMP_FIELD = 7;
 
     public static List<SacTraceData> readCSS(String filename, PathType wfdiscPathType) throws Exception {
+        return readCSS(filename, wfdiscPathType, UnaryOperator.identity());
+    }
+
+    /**
+     * Reads the waveforms referenced by a wfdisc file, passing each trace
+     * through the supplied operator as soon as it has been read.
+     */
+    public static List<SacTraceData> readCSS(String filename, PathType wfdiscPathType, UnaryOperator<SacTraceData> onRead) throws Exception {
         Path parent = Paths.get(filename).getParent();
         String userPath = null;
         List<Wfdisc> wfdiscs = WfdiscReader.readSpaceDelimitedWfdiscFile(filename);
 
-        return wfdiscs.parallelStream().map(t -> toSacTraceData(t, parent)).filter(Objects::nonNull).collect(Collectors.toList());
+        return wfdiscs.parallelStream().map(t -> toSacTraceData(t, parent)).filter(Objects::nonNull).map(onRead).collect(Collectors.toList());
+    }
+
+    /**
+     * Reads the NSAMP column of a space-delimited wfdisc file without reading
+     * any waveform data.
+     *
+     * @param filename The wfdisc file.
+     * @return The number of samples in each row.
+     * @throws IOException If the file cannot be read.
+     */
+    public static List<Long> readSampleCounts(String filename) throws IOException {
+        List<Long> result = new ArrayList<>();
+        for (String line : Files.readAllLines(Paths.get(filename))) {
+            String[] fields = line.trim().split("\\s+");
+            if (fields.length > NSAMP_FIELD) {
+                try {
+                    result.add(Long.parseLong(fields[NSAMP_FIELD]));
+                } catch (NumberFormatException ex) {
+                    log.debug("Skipping wfdisc line: {}", line);
+                }
+            }
+        }
+        return result;
     }
 
     private static SacTraceData toSacTraceData(Wfdisc row, Path parent) {
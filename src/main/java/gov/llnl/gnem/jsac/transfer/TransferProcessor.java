@@ -78,10 +78,8 @@ public class TransferProcessor {
 
     private static final Logger log = LoggerFactory.getLogger(TransferProcessor.class);
 
-    private final Map<StreamKey, File> keyFileMap;
     private final List<DatabaseTransferService> transferServices = new CopyOnWriteArrayList<>();
     private TransferProcessor() {
-        keyFileMap = new HashMap<>();
         ServiceLoader<DatabaseTransferService> databaseTransferServices = ServiceLoader.load(DatabaseTransferService.class);
         for (DatabaseTransferService service : databaseTransferServices) {
             transferServices.add(service);
@@ -94,40 +92,39 @@ public class TransferProcessor {
 
     public void transfer(ResponseType fromType, ResponseType toType, FreqLimits freqLimits, ResponseOptions fromResponseOptions, Path fromFilePath, ResponseOptions toResponseOptions, Path toFilePath,
             StreamKey substituteKey, Double substituteTime) throws FileNotFoundException {
+        // Local to the call so that concurrent transfers on other data models do not interfere.
+        Map<StreamKey, File> keyFileMap = new HashMap<>();
         if (fromType == ResponseType.POLEZERO && fromResponseOptions != null && fromResponseOptions.getFilename() == null) {
             String pattern = "SAC_PZs_.+_.+_.+_.+_.+";
             int[] positions = { 2, 3, 4, 5 };
-            populateKeyFileMap(fromResponseOptions.getSearchDir(), pattern, "_", positions);
+            populateKeyFileMap(keyFileMap, fromResponseOptions.getSearchDir(), pattern, "_", positions);
         } else if (fromType == ResponseType.EVALRESP && fromResponseOptions != null && fromResponseOptions.getFilename() == null) {
             String pattern = "RESP\\..+\\..+\\.*\\..+";
             int[] positions = { 1, 2, 4, 3 };
-            populateKeyFileMap(fromResponseOptions.getSearchDir(), pattern, "\\.", positions);
+            populateKeyFileMap(keyFileMap, fromResponseOptions.getSearchDir(), pattern, "\\.", positions);
         }
         long start = System.currentTimeMillis();
 
-        SacDataModel.getInstance()
-                    .getData()
-                    .parallelStream()
-                    .forEach(std -> processOneTrace(std, fromType, toType, freqLimits, fromResponseOptions, fromFilePath, toResponseOptions, toFilePath, substituteKey, substituteTime));
+        SacDataModel.getInstance().forEachTrace(std -> processOneTrace(std, fromType, toType, freqLimits, fromResponseOptions, fromFilePath, toResponseOptions, toFilePath, substituteKey, substituteTime, keyFileMap));
         long end = System.currentTimeMillis();
         double elapsed = (end - start) / 1000.0;
         log.info(String.format("Transfer executed in %4.1f seconds.", elapsed));
     }
 
     private void processOneTrace(SacTraceData std, ResponseType fromType, ResponseType toType, FreqLimits freqLimits, ResponseOptions fromResponseOptions, Path fromFilePath,
-            ResponseOptions toResponseOptions, Path toFilePath, StreamKey substituteKey, Double substituteTime) {
+            ResponseOptions toResponseOptions, Path toFilePath, StreamKey substituteKey, Double substituteTime, Map<StreamKey, File> keyFileMap) {
         try {
             DepVarType dtype = DepVarType.IUNKN;
             CssSeismogram s = std.produceSeismogram(substituteKey, substituteTime);
             log.info("Processing: " + s.toString());
             Unit<?> requestedUnits = ResponseUnits.NANOMETER;
-            TransferData from = getFromTransferFunction(s, fromType, fromResponseOptions, fromFilePath);
+            TransferData from = getFromTransferFunction(s, fromType, fromResponseOptions, fromFilePath, keyFileMap);
             TransferData to = null;
             switch (toType) {
             case POLEZERO:
             case EVALRESP:
             case CSS:
-                to = getFromTransferFunction(s, toType, toResponseOptions, toFilePath);
+                to = getFromTransferFunction(s, toType, toResponseOptions, toFilePath, keyFileMap);
                 break;
             case ACC:
                 break;
@@ -240,7 +237,7 @@ public class TransferProcessor {
         return result;
     }
 
-    private TransferData getFromTransferFunction(CssSeismogram s, ResponseType fromType, ResponseOptions responseOptions, Path fromFilePath) throws FileNotFoundException {
+    private TransferData getFromTransferFunction(CssSeismogram s, ResponseType fromType, ResponseOptions responseOptions, Path fromFilePath, Map<StreamKey, File> keyFileMap) throws FileNotFoundException {
         StreamKey key = s.getStreamKey();
         ChannelMatchPolicy policy = ChannelMatchPolicyHolder.getInstance().getPolicy();
 
@@ -372,8 +369,7 @@ public class TransferProcessor {
         return false;
     }
 
-    private void populateKeyFileMap(Path searchDir, String pattern, String splitRegex, int[] positions) {
-        keyFileMap.clear();
+    private void populateKeyFileMap(Map<StreamKey, File> keyFileMap, Path searchDir, String pattern, String splitRegex, int[] positions) {
         FilenameFilter filter = new FileFilter(pattern);
         File file = searchDir.toFile();
         File[] files = file.listFiles(filter);
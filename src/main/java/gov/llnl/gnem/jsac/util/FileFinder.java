@@ -66,7 +66,12 @@ public class FileFinder {
         } else {
             try {
                 Path maybeAbsolutePath = Paths.get(request);
-                if (maybeAbsolutePath.toFile().isDirectory() && maybeAbsolutePath.isAbsolute()) {
+                Path literal = startingDir.resolve(maybeAbsolutePath);
+                if (Files.isRegularFile(literal)) {
+                    // A file that exists under its exact name is taken as is, so that
+                    // names holding commas or glob characters can still be read.
+                    matches.add(literal);
+                } else if (maybeAbsolutePath.toFile().isDirectory() && maybeAbsolutePath.isAbsolute()) {
                     Files.list(maybeAbsolutePath).forEach(p -> matches.add(p));
                 } else if (maybeAbsolutePath.isAbsolute()) {
                     process(maybeAbsolutePath.getParent(), numMatchers - 1);
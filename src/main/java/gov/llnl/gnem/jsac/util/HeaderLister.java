@@ -29,6 +29,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
+import gov.llnl.gnem.jsac.Session;
 import gov.llnl.gnem.jsac.io.SACHeader;
 import gov.llnl.gnem.jsac.io.enums.MagSource;
 import gov.llnl.gnem.jsac.io.enums.MagType;
@@ -306,12 +307,10 @@ public class HeaderLister {
         this.fileSelection = fileSelection;
     }
 
+    /**
+     * @return The listing options of the current session.
+     */
     public static HeaderLister getInstance() {
-        return ListHeaderOptionsHolder.INSTANCE;
-    }
-
-    private static class ListHeaderOptionsHolder {
-
-        private static final HeaderLister INSTANCE = new HeaderLister();
+        return Session.current().getSettings(HeaderLister.class, HeaderLister::new);
     }
 }
@@ -26,6 +26,7 @@ import java.io.File;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
+import gov.llnl.gnem.jsac.Session;
 import llnl.gnem.dftt.core.util.FileUtil.DriveMapper;
 
 /**
@@ -34,14 +35,28 @@ import llnl.gnem.dftt.core.util.FileUtil.DriveMapper;
  */
 public class PathManager {
 
-    private Path currentDir;
+    private volatile Path currentDir;
 
-    private PathManager() {
-        currentDir = Paths.get("").toAbsolutePath();
+    private PathManager(Path currentDir) {
+        this.currentDir = currentDir;
     }
 
+    /**
+     * @return The working directory of the current session.
+     */
     public static PathManager getInstance() {
-        return PathManagerHolder.INSTANCE;
+        return Session.current().getPathManager();
+    }
+
+    public static PathManager create(Path currentDir) {
+        return new PathManager(currentDir);
+    }
+
+    /**
+     * @return The directory the process was started in.
+     */
+    public static Path initialDirectory() {
+        return Paths.get("").toAbsolutePath();
     }
 
     public Path makeAbsolute(Path relativePath) {
@@ -93,11 +108,6 @@ public class PathManager {
         }
     }
 
-    private static class PathManagerHolder {
-
-        private static final PathManager INSTANCE = new PathManager();
-    }
-
     public Path getCurrentDir() {
         return currentDir;
     }
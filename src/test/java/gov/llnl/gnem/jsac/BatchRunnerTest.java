@@ -0,0 +1,87 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import gov.llnl.gnem.jsac.commands.SacCommandParser;
+
+public class BatchRunnerTest {
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    public static void setUpClass() {
+        SacCommandParser.getInstance().initialize();
+        SacDataModel.getInstance().clear();
+    }
+
+    private int run(String... lines) throws IOException {
+        Path script = dir.resolve("script.m");
+        Files.write(script, Arrays.asList(lines), StandardCharsets.UTF_8);
+        return new BatchRunner(script).run();
+    }
+
+    @Test
+    public void testSuccessfulScript() throws IOException {
+        Assertions.assertEquals(BatchRunner.SUCCESS, run("* comment", "-- another comment", "", "FUNCGEN IMPULSE; RTREND"));
+        Assertions.assertEquals(1, SacDataModel.getInstance().getData().size());
+    }
+
+    @Test
+    public void testUnrecognizedCommandFails() throws IOException {
+        Assertions.assertEquals(BatchRunner.COMMAND_FAILED, run("FUNCGEN IMPULSE", "NOSUCHCOMMAND", "RTREND"));
+    }
+
+    @Test
+    public void testReadOfMissingFileFails() throws IOException {
+        Assertions.assertEquals(BatchRunner.COMMAND_FAILED, run("READ " + dir.resolve("missing.sac")));
+    }
+
+    @Test
+    public void testMissingMacroFails() throws IOException {
+        Assertions.assertEquals(BatchRunner.COMMAND_FAILED, run("MACRO " + dir.resolve("missing.m")));
+    }
+
+    @Test
+    public void testFailureInsideMacroFails() throws IOException {
+        Path macro = dir.resolve("inner.m");
+        Files.write(macro, Arrays.asList("FUNCGEN IMPULSE", "NOSUCHCOMMAND", "RTREND"), StandardCharsets.UTF_8);
+        Assertions.assertEquals(BatchRunner.COMMAND_FAILED, run("MACRO " + macro));
+    }
+
+    @Test
+    public void testMissingScript() {
+        Assertions.assertEquals(BatchRunner.SCRIPT_UNREADABLE, new BatchRunner(dir.resolve("missing.m")).run());
+    }
+}
@@ -0,0 +1,110 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import gov.llnl.gnem.jsac.commands.Misc;
+import gov.llnl.gnem.jsac.commands.SacCommandParser;
+import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData;
+import gov.llnl.gnem.jsac.io.SACDataEncoding;
+
+public class FileMapperTest {
+
+    private static final String[] FILES = { "impulse.sac", "random.sac", "triangle.sac", "funcgenSeismogram.sac" };
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    public static void setUpClass() {
+        SacCommandParser.getInstance().initialize();
+    }
+
+    private static List<Path> inputs() {
+        List<Path> result = new ArrayList<>();
+        for (String name : FILES) {
+            result.add(TestUtil.getResourceFile(TestUtil.SAC_TEST_FILES_DIRECTORY, name).toPath());
+        }
+        return result;
+    }
+
+    @Test
+    public void testEachFileProcessedInIsolation() throws Exception {
+        TestUtil.loadTestSacFile("random.sac", TestUtil.SAC_TEST_FILES_DIRECTORY, true);
+        float[] inMemory = SacDataModel.getInstance().getData().get(0).getData();
+
+        List<String> commands = Arrays.asList("MUL 2", "WRITE DIR " + dir);
+        FileMapper.Result result = new FileMapper(commands, 3, FileMapper.Grouping.FILE, SACDataEncoding.BINARY).map(inputs());
+
+        Assertions.assertEquals(FILES.length, result.getUnits());
+        Assertions.assertEquals(FILES.length, result.getFiles());
+        Assertions.assertEquals(0, result.getFailedUnits());
+
+        try (Stream<Path> written = Files.list(dir)) {
+            Assertions.assertEquals(FILES.length, written.collect(Collectors.toList()).size());
+        }
+        File original = TestUtil.getResourceFile(TestUtil.SAC_TEST_FILES_DIRECTORY, "random.sac");
+        float[] source = Misc.createSacFile(original.toPath(), SACDataEncoding.BINARY).getData();
+        SacTraceData doubled = Misc.createSacFile(dir.resolve("random.sac"), SACDataEncoding.BINARY);
+        for (int j = 0; j < source.length; ++j) {
+            Assertions.assertEquals(2 * source[j], doubled.getData()[j], 1.0e-5f);
+        }
+
+        // The shared model is not touched by the workers.
+        Assertions.assertEquals(1, SacDataModel.getInstance().getTraceCount());
+        Assertions.assertArrayEquals(inMemory, SacDataModel.getInstance().getData().get(0).getData(), 0.0f);
+    }
+
+    @Test
+    public void testFailuresAreCountedPerUnit() throws Exception {
+        List<Path> files = new ArrayList<>(inputs());
+        files.add(dir.resolve("missing.sac"));
+        FileMapper.Result result = new FileMapper(Collections.singletonList("RMEAN"), 2, FileMapper.Grouping.FILE, SACDataEncoding.BINARY).map(files);
+        Assertions.assertEquals(1, result.getFailedUnits());
+
+        result = new FileMapper(Collections.singletonList("NOSUCHCOMMAND"), 2, FileMapper.Grouping.FILE, SACDataEncoding.BINARY).map(inputs());
+        Assertions.assertEquals(FILES.length, result.getFailedUnits());
+    }
+
+    @Test
+    public void testStreamGrouping() throws IOException, InterruptedException {
+        FileMapper.Result result = new FileMapper(Collections.singletonList("RMEAN"), 2, FileMapper.Grouping.STREAM, SACDataEncoding.BINARY).map(inputs());
+        Assertions.assertTrue(result.getUnits() >= 1 && result.getUnits() <= FILES.length);
+        Assertions.assertEquals(0, result.getFailedUnits());
+    }
+}
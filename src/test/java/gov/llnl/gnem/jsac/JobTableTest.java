@@ -0,0 +1,162 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac;
+
+import java.nio.file.Paths;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import gov.llnl.gnem.jsac.commands.SacCommand;
+import gov.llnl.gnem.jsac.commands.SacCommandParser;
+import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData;
+
+public class JobTableTest {
+
+    @BeforeAll
+    public static void setUpClass() {
+        SacCommandParser.getInstance().initialize();
+    }
+
+    /**
+     * Doubles every trace, holding each one until released.
+     */
+    private static class BlockingCommand implements SacCommand {
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public void initialize(String[] tokens) {
+        }
+
+        @Override
+        public void execute() {
+            SacDataModel.getInstance().forEachTrace(std -> {
+                started.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                std.multiplyByConstant(2.0f);
+            });
+        }
+    }
+
+    private static Session createSession() throws Exception {
+        Session session = Session.create("jobs", Paths.get("."));
+        session.run(() -> SacCommandParser.getInstance().createCommand("FUNCGEN STEP NPTS 100").execute());
+        return session;
+    }
+
+    @Test
+    public void testBackgroundSuffix() {
+        Assertions.assertTrue(JobTable.isBackground("TRANSFER TO VEL &"));
+        Assertions.assertFalse(JobTable.isBackground("TRANSFER TO VEL"));
+        Assertions.assertEquals("TRANSFER TO VEL", JobTable.stripBackground(" TRANSFER TO VEL& "));
+        Assertions.assertEquals("RMEAN", JobTable.stripBackground("RMEAN"));
+    }
+
+    @Test
+    public void testCancelledJobLeavesDataUnchanged() throws Exception {
+        Session session = createSession();
+        for (int j = 0; j < 7; ++j) {
+            session.getDataModel().add(session.getDataModel().getData().get(0).snapshot());
+        }
+        BlockingCommand command = new BlockingCommand();
+        JobTable.Job job = session.call(() -> session.getJobs().start("DOUBLE", command));
+        Assertions.assertTrue(command.started.await(10, TimeUnit.SECONDS));
+        Assertions.assertEquals(JobTable.State.RUNNING, job.getState());
+        Assertions.assertEquals(1, session.getJobs().list().size());
+
+        job.getMonitor().cancel();
+        command.release.countDown();
+        session.getJobs().waitFor(job, new TaskMonitor("test"));
+
+        Assertions.assertEquals(JobTable.State.CANCELLED, job.getState());
+        Assertions.assertEquals(8, session.getDataModel().getTraceCount());
+        for (SacTraceData std : session.getDataModel().getData()) {
+            Assertions.assertEquals(1.0f, std.getData()[99], 0.0f);
+        }
+    }
+
+    @Test
+    public void testForegroundCommandWaitsForJob() throws Exception {
+        Session session = createSession();
+        BlockingCommand command = new BlockingCommand();
+        JobTable.Job job = session.call(() -> session.getJobs().start("DOUBLE", command));
+        Assertions.assertTrue(command.started.await(10, TimeUnit.SECONDS));
+
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            command.release.countDown();
+        });
+        releaser.start();
+        session.run(() -> session.getJobs().runForeground("MUL 3", SacCommandParser.getInstance().createCommand("MUL 3")));
+        releaser.join();
+
+        Assertions.assertEquals(JobTable.State.DONE, job.getState());
+        Assertions.assertEquals(6.0f, session.getDataModel().getData().get(0).getData()[99], 0.0f);
+    }
+
+    @Test
+    public void testCancelledForegroundCommandThrows() throws Exception {
+        Session session = createSession();
+        SacCommand cancelling = new SacCommand() {
+            @Override
+            public void initialize(String[] tokens) {
+            }
+
+            @Override
+            public void execute() {
+                SacDataModel.getInstance().forEachTrace(std -> std.multiplyByConstant(2.0f));
+                TaskMonitor.current().cancel();
+                SacDataModel.getInstance().forEachTrace(std -> std.multiplyByConstant(2.0f));
+            }
+        };
+        Assertions.assertThrows(CancellationException.class, () -> session.run(() -> session.getJobs().runForeground("CANCEL", cancelling)));
+        Assertions.assertEquals(1.0f, session.getDataModel().getData().get(0).getData()[99], 0.0f);
+        Assertions.assertNull(session.getJobs().getForeground());
+    }
+
+    @Test
+    public void testProgress() {
+        TaskMonitor monitor = new TaskMonitor("test");
+        Assertions.assertEquals("", monitor.describeProgress());
+        monitor.begin(4);
+        monitor.worked();
+        Assertions.assertEquals(1, monitor.getDone());
+        Assertions.assertTrue(monitor.describeProgress().startsWith("1/4 traces, "));
+        Assertions.assertEquals("1:01:05", TaskMonitor.formatDuration(3665));
+        Assertions.assertEquals("2:05", TaskMonitor.formatDuration(125));
+    }
+}
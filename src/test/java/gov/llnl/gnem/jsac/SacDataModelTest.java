@@ -0,0 +1,190 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac;
+
+import java.io.File;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import gov.llnl.gnem.jsac.commands.SacCommand;
+import gov.llnl.gnem.jsac.commands.SacCommandExecutor;
+import gov.llnl.gnem.jsac.commands.TokenListParser;
+import gov.llnl.gnem.jsac.commands.dataFile.LhSacCommand;
+import gov.llnl.gnem.jsac.commands.dataFile.ReadSacCommand;
+import gov.llnl.gnem.jsac.commands.dataFile.UndoSacCommand;
+import gov.llnl.gnem.jsac.commands.unary.MulSacCommand;
+import gov.llnl.gnem.jsac.dataAccess.storage.MemoryBudget;
+import gov.llnl.gnem.jsac.dataAccess.storage.StorageMode;
+
+public class SacDataModelTest {
+
+    @TempDir
+    Path scratch;
+
+    @AfterEach
+    public void tearDown() {
+        SacDataModel.getInstance().clear();
+        SacDataModel.getInstance().setStorageMode(StorageMode.HEAP);
+        SacDataModel.getInstance().setUndoDepth(1);
+    }
+
+    private static void execute(String cmdString, SacCommand command) {
+        command.initialize(TokenListParser.tokenizeString(cmdString));
+        SacCommandExecutor.getInstance().executeCommand(command);
+    }
+
+    private static long sampleBytes(SacDataModel model) {
+        return model.getData().stream().mapToLong(std -> std.getSampleBytes()).sum();
+    }
+
+    @Test
+    public void clearReleasesBudget() {
+        SacDataModel model = SacDataModel.getInstance();
+        model.setMemoryBudget(1L << 30, scratch);
+        MemoryBudget budget = model.getMemoryBudget();
+        TestUtil.loadTestSacFile("random.sac", TestUtil.SAC_TEST_FILES_DIRECTORY, true);
+        TestUtil.loadTestSacFile("random.sac", TestUtil.SAC_TEST_FILES_DIRECTORY, false);
+        Assertions.assertEquals(2, model.getTraceCount());
+        Assertions.assertEquals(sampleBytes(model), budget.getResidentBytes());
+        Assertions.assertEquals(2, budget.getResidentCount());
+
+        model.clear();
+        Assertions.assertSame(budget, model.getMemoryBudget());
+        Assertions.assertEquals(0L, budget.getResidentBytes());
+        Assertions.assertEquals(0L, budget.getSpilledBytes());
+        Assertions.assertEquals(0, budget.getResidentCount());
+    }
+
+    @Test
+    public void readAfterReadAccountsForNewDataOnly() {
+        SacDataModel model = SacDataModel.getInstance();
+        model.setMemoryBudget(1L << 30, scratch);
+        MemoryBudget budget = model.getMemoryBudget();
+        File file = TestUtil.getResourceFile(TestUtil.SAC_TEST_FILES_DIRECTORY, "random.sac");
+        String command = "READ " + file.getAbsolutePath();
+
+        TestUtil.runCommand(command, new ReadSacCommand());
+        long bytes = budget.getResidentBytes();
+        Assertions.assertEquals(sampleBytes(model), bytes);
+        Assertions.assertTrue(bytes > 0);
+
+        TestUtil.runCommand(command, new ReadSacCommand());
+        Assertions.assertEquals(1, model.getTraceCount());
+        Assertions.assertEquals(bytes, budget.getResidentBytes());
+        Assertions.assertEquals(1, budget.getResidentCount());
+    }
+
+    @Test
+    public void undoPointSharesSamplesWithinBudget() {
+        SacDataModel model = SacDataModel.getInstance();
+        model.setMemoryBudget(1L << 30, scratch);
+        MemoryBudget budget = model.getMemoryBudget();
+        TestUtil.loadTestSacFile("random.sac", TestUtil.SAC_TEST_FILES_DIRECTORY, true);
+        long bytes = budget.getResidentBytes();
+        float[] original = model.getData().get(0).getData();
+
+        execute("LH", new LhSacCommand());
+        Assertions.assertEquals(bytes, budget.getResidentBytes());
+
+        // The undo point keeps the original samples, the trace holds the product.
+        execute("MUL 2", new MulSacCommand());
+        Assertions.assertEquals(2 * bytes, budget.getResidentBytes());
+
+        execute("UNDO", new UndoSacCommand());
+        Assertions.assertArrayEquals(original, model.getData().get(0).getData(), 0.0f);
+        Assertions.assertEquals(bytes, budget.getResidentBytes());
+    }
+
+    @Test
+    public void rollbackReleasesTheCancelledResult() {
+        SacDataModel model = SacDataModel.getInstance();
+        model.setMemoryBudget(1L << 30, scratch);
+        MemoryBudget budget = model.getMemoryBudget();
+        TestUtil.loadTestSacFile("random.sac", TestUtil.SAC_TEST_FILES_DIRECTORY, true);
+        long bytes = budget.getResidentBytes();
+        float[] original = model.getData().get(0).getData();
+
+        TaskMonitor previous = TaskMonitor.bind(new TaskMonitor("MUL 2"));
+        try {
+            model.openUndoPoint();
+            model.forEachTrace(std -> std.multiplyByConstant(2.0f));
+            Assertions.assertEquals(2 * bytes, budget.getResidentBytes());
+            model.rollbackUndoPoint();
+        } finally {
+            TaskMonitor.bind(previous);
+        }
+        Assertions.assertArrayEquals(original, model.getData().get(0).getData(), 0.0f);
+        Assertions.assertEquals(bytes, budget.getResidentBytes());
+    }
+
+    @Test
+    public void noUndoPointWithoutHistoryOrCancellation() {
+        SacDataModel model = SacDataModel.getInstance();
+        model.setUndoDepth(0);
+        TestUtil.loadTestSacFile("random.sac", TestUtil.SAC_TEST_FILES_DIRECTORY, true);
+        float[] original = model.getData().get(0).getData();
+
+        model.openUndoPoint();
+        model.forEachTrace(std -> std.multiplyByConstant(2.0f));
+        model.rollbackUndoPoint();
+        Assertions.assertEquals(2 * original[10], model.getData().get(0).getData()[10], 0.0f);
+    }
+
+    @Test
+    public void depthZeroLeavesSamplesUnsharedUnlessInterruptible() {
+        SacDataModel model = SacDataModel.getInstance();
+        model.setMemoryBudget(1L << 30, scratch);
+        model.setUndoDepth(0);
+        MemoryBudget budget = model.getMemoryBudget();
+        TestUtil.loadTestSacFile("random.sac", TestUtil.SAC_TEST_FILES_DIRECTORY, true);
+        long bytes = budget.getResidentBytes();
+        long[] during = new long[1];
+        MulSacCommand mul = new MulSacCommand() {
+            @Override
+            public void execute() {
+                super.execute();
+                during[0] = budget.getResidentBytes();
+            }
+        };
+        mul.initialize(TokenListParser.tokenizeString("MUL 2"));
+        JobTable jobs = Session.current().getJobs();
+
+        // Nothing can cancel the command, so it multiplies the samples in place.
+        jobs.runForeground("MUL 2", mul);
+        Assertions.assertEquals(bytes, during[0]);
+
+        // With Ctrl+C handled the original samples are kept until it finishes.
+        jobs.setInterruptible(true);
+        try {
+            jobs.runForeground("MUL 2", mul);
+        } finally {
+            jobs.setInterruptible(false);
+        }
+        Assertions.assertEquals(2 * bytes, during[0]);
+        Assertions.assertEquals(bytes, budget.getResidentBytes());
+    }
+}
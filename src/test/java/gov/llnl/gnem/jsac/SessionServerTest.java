@@ -0,0 +1,99 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import gov.llnl.gnem.jsac.commands.SacCommandParser;
+
+public class SessionServerTest {
+
+    private static SessionServer server;
+
+    @BeforeAll
+    public static void setUpClass() throws IOException {
+        SacCommandParser.getInstance().initialize();
+        server = new SessionServer(0);
+        server.start();
+    }
+
+    @AfterAll
+    public static void tearDownClass() throws IOException {
+        server.close();
+    }
+
+    private static String listNpts(int npts) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (SessionClient client = new SessionClient(server.getPort()); PrintStream output = new PrintStream(bytes, true, "UTF-8")) {
+            Assertions.assertNull(client.submit("FUNCGEN IMPULSE NPTS " + npts, output));
+            Assertions.assertNull(client.submit("LH NPTS", output));
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testClientsHaveSeparateSessionsAndOutput() {
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> listNpts(50));
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> listNpts(80));
+
+        String firstOutput = first.join();
+        String secondOutput = second.join();
+        Assertions.assertTrue(firstOutput.contains("NPTS =  50"), firstOutput);
+        Assertions.assertFalse(firstOutput.contains("NPTS =  80"), firstOutput);
+        Assertions.assertTrue(secondOutput.contains("NPTS =  80"), secondOutput);
+        Assertions.assertFalse(secondOutput.contains("NPTS =  50"), secondOutput);
+    }
+
+    @Test
+    public void testFailureIsReportedAndSessionContinues() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (SessionClient client = new SessionClient(server.getPort()); PrintStream output = new PrintStream(bytes)) {
+            String error = client.submit("FUNCGEN; NOSUCHCOMMAND; RMEAN", output);
+            Assertions.assertNotNull(error);
+            Assertions.assertTrue(error.contains("NOSUCHCOMMAND"), error);
+            Assertions.assertNull(client.submit("RMEAN", output));
+        }
+    }
+
+    @Test
+    public void testQuitClosesOnlyTheConnection() throws IOException {
+        try (SessionClient client = new SessionClient(server.getPort()); PrintStream output = new PrintStream(new ByteArrayOutputStream())) {
+            Assertions.assertNull(client.submit("QUIT", output));
+            Assertions.assertThrows(IOException.class, () -> client.submit("FUNCGEN", output));
+        }
+        try (SessionClient client = new SessionClient(server.getPort()); PrintStream output = new PrintStream(new ByteArrayOutputStream())) {
+            Assertions.assertNull(client.submit("FUNCGEN", output));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac;
+
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import gov.llnl.gnem.jsac.commands.SacCommandParser;
+
+public class SessionTest {
+
+    private static ExecutorService executor;
+
+    @BeforeAll
+    public static void setUpClass() {
+        SacCommandParser.getInstance().initialize();
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterAll
+    public static void tearDownClass() {
+        executor.shutdownNow();
+    }
+
+    private static int runAndCount(Session session, String... commands) throws Exception {
+        return session.call(() -> {
+            for (String command : commands) {
+                SacCommandParser.getInstance().parseCommandLine(command).execute();
+            }
+            return SacDataModel.getInstance().getData().get(0).getData().length;
+        });
+    }
+
+    @Test
+    public void testBindingIsPerThread() throws Exception {
+        Session session = Session.create("bound", Paths.get("."));
+        Assertions.assertSame(Session.getDefault(), Session.current());
+        Assertions.assertSame(session, session.call(Session::current));
+        Assertions.assertSame(Session.getDefault(), Session.current());
+
+        Session previous = Session.bind(session);
+        try {
+            Assertions.assertSame(Session.getDefault(), executor.submit(Session::current).get());
+            Assertions.assertSame(session.getDataModel(), SacDataModel.getInstance());
+        } finally {
+            Session.bind(previous);
+        }
+    }
+
+    @Test
+    public void testSessionsHaveIndependentDataAndSettings() throws Exception {
+        Session first = Session.create("first", Paths.get("."));
+        Session second = Session.create("second", Paths.get("."));
+
+        Future<Integer> a = executor.submit(() -> runAndCount(first, "FUNCGEN IMPULSE NPTS 50"));
+        Future<Integer> b = executor.submit(() -> runAndCount(second, "FUNCGEN STEP NPTS 80"));
+        Assertions.assertEquals(50, a.get().intValue());
+        Assertions.assertEquals(80, b.get().intValue());
+
+        // FUNCGEN with no options reuses the session's last settings.
+        Assertions.assertEquals(50, runAndCount(first, "FUNCGEN"));
+        Assertions.assertEquals(80, runAndCount(second, "FUNCGEN"));
+
+        Assertions.assertEquals(2, first.getParser().getHistory().size());
+        Assertions.assertEquals(2, second.getParser().getHistory().size());
+        Assertions.assertNotSame(first.getDataModel(), second.getDataModel());
+    }
+}
@@ -0,0 +1,143 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ShardedBatchTest {
+
+    @TempDir
+    Path directory;
+
+    private Path file(String name, int bytes) throws IOException {
+        Path path = directory.resolve(name);
+        Files.createDirectories(path.getParent());
+        Files.write(path, new byte[bytes]);
+        return path;
+    }
+
+    @Test
+    public void filesAreBalancedByBytes() throws IOException {
+        List<Path> files = Arrays.asList(file("a", 100), file("b", 60), file("c", 50), file("d", 40), file("e", 10));
+        List<ShardedBatch.Shard> shards = ShardedBatch.partition(files, ShardedBatch.Partitioning.FILE, 2);
+
+        Assertions.assertEquals(2, shards.size());
+        // a, b, c, d, e go to 1, 2, 2, 1, 2.
+        Assertions.assertEquals(140L, shards.get(0).getBytes());
+        Assertions.assertEquals(120L, shards.get(1).getBytes());
+        Assertions.assertEquals(5, shards.get(0).getFileCount() + shards.get(1).getFileCount());
+        shards.forEach(shard -> shard.getUnits().forEach(unit -> Assertions.assertEquals(1, unit.size())));
+    }
+
+    @Test
+    public void eventDirectoriesStayTogether() throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (String event : new String[] { "ev1", "ev2", "ev3" }) {
+            for (String sta : new String[] { "AAA", "BBB" }) {
+                files.add(file(event + "/" + sta + ".sac", 10));
+            }
+        }
+        List<ShardedBatch.Shard> shards = ShardedBatch.partition(files, ShardedBatch.Partitioning.EVENT, 8);
+
+        Assertions.assertEquals(3, shards.size());
+        for (ShardedBatch.Shard shard : shards) {
+            Assertions.assertEquals(1, shard.getUnits().size());
+            List<Path> unit = shard.getUnits().get(0);
+            Assertions.assertEquals(2, unit.size());
+            Assertions.assertEquals(unit.get(0).getParent(), unit.get(1).getParent());
+        }
+    }
+
+    @Test
+    public void fileListExpandsPatterns() throws IOException {
+        file("x1.sac", 1);
+        file("x2.sac", 1);
+        file("y.sac", 1);
+        Path list = directory.resolve("files.txt");
+        Files.write(list, Arrays.asList("* comment", directory.resolve("x*.sac").toString(), "", directory.resolve("y.sac").toString()));
+
+        List<Path> files = ShardedBatch.readFileList(list);
+        Assertions.assertEquals(3, files.size());
+        Assertions.assertTrue(files.contains(directory.resolve("y.sac").toAbsolutePath().normalize()));
+    }
+
+    private ShardedBatch.Shard runShard(String... macroLines) throws IOException, InterruptedException {
+        Path macro = directory.resolve("process.m");
+        Files.write(macro, Arrays.asList(macroLines), StandardCharsets.UTF_8);
+        File sac = TestUtil.getResourceFile(TestUtil.SAC_TEST_FILES_DIRECTORY, "random.sac");
+        List<ShardedBatch.Shard> shards = ShardedBatch.partition(Collections.singletonList(sac.toPath()), ShardedBatch.Partitioning.FILE, 1);
+        ShardedBatch batch = new ShardedBatch(macro, Collections.emptyList(), directory.resolve("work"), 1);
+        batch.setRetries(0);
+        boolean succeeded = batch.run(shards);
+        Assertions.assertEquals(succeeded, shards.get(0).isSucceeded());
+        return shards.get(0);
+    }
+
+    @Test
+    public void shardWithFailingCommandFails() throws IOException, InterruptedException {
+        ShardedBatch.Shard shard = runShard("RMEAN", "READ MORE " + directory.resolve("missing.sac"));
+
+        Assertions.assertFalse(shard.isSucceeded());
+        Assertions.assertEquals(BatchRunner.COMMAND_FAILED, shard.getExitStatus());
+        Path work = directory.resolve("work");
+        Assertions.assertFalse(Files.exists(work.resolve("shard-001").resolve("DONE")));
+        Assertions.assertTrue(Files.readAllLines(work.resolve("status.csv"), StandardCharsets.UTF_8).get(1).contains("FAILED(1)"));
+    }
+
+    @Test
+    public void shardWithoutErrorsIsDone() throws IOException, InterruptedException {
+        ShardedBatch.Shard shard = runShard("RMEAN");
+
+        Assertions.assertTrue(shard.isSucceeded());
+        Assertions.assertTrue(Files.exists(directory.resolve("work").resolve("shard-001").resolve("DONE")));
+    }
+
+    @Test
+    public void pathsWithSpacesAndCommasAreQuoted() throws IOException, InterruptedException {
+        Path macro = directory.resolve("my macros").resolve("process, v2.m");
+        Files.createDirectories(macro.getParent());
+        Files.write(macro, Arrays.asList("RMEAN"), StandardCharsets.UTF_8);
+        Path sac = directory.resolve("event 1").resolve("a, b.sac");
+        Files.createDirectories(sac.getParent());
+        Files.copy(TestUtil.getResourceFile(TestUtil.SAC_TEST_FILES_DIRECTORY, "random.sac").toPath(), sac);
+        List<ShardedBatch.Shard> shards = ShardedBatch.partition(Collections.singletonList(sac), ShardedBatch.Partitioning.FILE, 1);
+        ShardedBatch batch = new ShardedBatch(macro, Collections.emptyList(), directory.resolve("work dir"), 1);
+        batch.setRetries(0);
+
+        // READ fails the shard if the name is split, and MACRO if the macro is not found.
+        Assertions.assertTrue(batch.run(shards));
+        Assertions.assertTrue(Files.exists(directory.resolve("work dir").resolve("shard-001").resolve("DONE")));
+    }
+}
@@ -23,7 +23,9 @@
 package gov.llnl.gnem.jsac;
 
 import java.io.File;
+import java.nio.file.Paths;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.jupiter.api.Assertions;
 
@@ -33,6 +35,9 @@ import gov.llnl.gnem.jsac.commands.TokenListParser;
 import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData;
 import gov.llnl.gnem.jsac.dataAccess.dataObjects.SpectralData;
 import gov.llnl.gnem.jsac.io.SACDataEncoding;
+import gov.llnl.gnem.jsac.io.SACFile;
+import gov.llnl.gnem.jsac.io.SACHeader;
+import gov.llnl.gnem.jsac.io.enums.FileType;
 
 /**
  *
@@ -143,4 +148,48 @@ public class TestUtil {
         Assertions.assertTrue(maxdiff < tolerance, "Expected maximum difference in frequency arrays to be below tolerence.");
     }
 
+    /**
+     * @return n samples of seeded Gaussian noise with unit variance.
+     */
+    public static float[] noise(int n, long seed) {
+        return noise(n, 1.0, seed);
+    }
+
+    public static float[] noise(int n, double amplitude, long seed) {
+        Random random = new Random(seed);
+        float[] x = new float[n];
+        for (int j = 0; j < n; ++j) {
+            x[j] = (float) (amplitude * random.nextGaussian());
+        }
+        return x;
+    }
+
+    /**
+     * @return 0, 1, ..., n - 1.
+     */
+    public static float[] ramp(int n) {
+        return ramp(n, 0.0f);
+    }
+
+    public static float[] ramp(int n, float offset) {
+        float[] result = new float[n];
+        for (int j = 0; j < n; ++j) {
+            result[j] = j + offset;
+        }
+        return result;
+    }
+
+    /**
+     * @return An evenly sampled time series starting at 0 with a sample
+     *         interval of 0.01.
+     */
+    public static SacTraceData trace(float[] data) {
+        SACHeader header = new SACHeader();
+        header.setIftype(FileType.ITIME);
+        header.setLeven(1);
+        header.setDelta(0.01);
+        header.setB(0.0);
+        header.setNpts(data.length);
+        return new SacTraceData(Paths.get("trace.sac"), new SACFile(header, data));
+    }
 }
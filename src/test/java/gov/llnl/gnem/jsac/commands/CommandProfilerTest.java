@@ -0,0 +1,118 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import gov.llnl.gnem.jsac.Session;
+import gov.llnl.gnem.jsac.commands.CommandProfiler.CommandStats;
+
+public class CommandProfilerTest {
+
+    @TempDir
+    Path dir;
+
+    private Session previous;
+
+    @BeforeAll
+    public static void setUpClass() {
+        SacCommandParser.getInstance().initialize();
+    }
+
+    @BeforeEach
+    public void setUp() {
+        previous = Session.bind(Session.create("profile", dir));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Session.bind(previous);
+    }
+
+    private static void run(String text) {
+        SacCommandExecutor.getInstance().executeCommand(SacCommandParser.getInstance().parseCommandLine(text));
+    }
+
+    private static CommandStats find(List<CommandStats> report, String command) {
+        return report.stream().filter(s -> s.getCommand().equals(command)).findFirst().orElse(null);
+    }
+
+    @Test
+    public void testTotalsAreKeptOnlyWhileEnabled() {
+        run("FUNCGEN IMPULSE NPTS 1000");
+        run("PROFILE ON");
+        run("FUNCGEN IMPULSE NPTS 1000");
+        run("FUNCGEN IMPULSE NPTS 2000");
+        run("ADD 1");
+        run("PROFILE OFF");
+        run("ADD 1");
+
+        List<CommandStats> report = CommandProfiler.getInstance().getReport();
+        CommandStats funcgen = find(report, "FUNCGEN");
+        Assertions.assertNotNull(funcgen);
+        Assertions.assertEquals(2, funcgen.getCalls());
+        Assertions.assertEquals(3000, funcgen.getSamples());
+        Assertions.assertEquals(1, funcgen.getMaxTraces());
+        Assertions.assertTrue(funcgen.getWallNanos() > 0);
+        Assertions.assertEquals(1, find(report, "ADD").getCalls());
+
+        run("PROFILE CLEAR");
+        Assertions.assertTrue(CommandProfiler.getInstance().getReport().isEmpty());
+    }
+
+    @Test
+    public void testSessionsAreProfiledSeparately() throws Exception {
+        run("PROFILE ON");
+        Session other = Session.create("other", dir);
+        Assertions.assertFalse(other.call(() -> CommandProfiler.getInstance().isEnabled()));
+    }
+
+    @Test
+    public void testReportFiles() throws IOException {
+        run("PROFILE ON");
+        run("FUNCGEN IMPULSE NPTS 100");
+        Path csv = dir.resolve("profile.csv");
+        Path json = dir.resolve("profile.json");
+        run("PROFILE REPORT FILE " + csv);
+        run("PROFILE REPORT FILE " + json);
+
+        List<String> lines = Files.readAllLines(csv, StandardCharsets.UTF_8);
+        Assertions.assertTrue(lines.get(0).startsWith("command,calls,"));
+        Assertions.assertTrue(lines.stream().anyMatch(l -> l.startsWith("FUNCGEN,1,")), lines.toString());
+
+        String text = new String(Files.readAllBytes(json), StandardCharsets.UTF_8);
+        Assertions.assertTrue(text.trim().startsWith("["));
+        Assertions.assertTrue(text.contains("\"command\": \"FUNCGEN\", \"calls\": 1,"), text);
+    }
+}
@@ -0,0 +1,105 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.TestUtil;
+import gov.llnl.gnem.jsac.commands.dataFile.LhSacCommand;
+import gov.llnl.gnem.jsac.commands.dataFile.ReadSacCommand;
+import gov.llnl.gnem.jsac.commands.signalCorrection.RmeanSacCommand;
+import gov.llnl.gnem.jsac.commands.signalCorrection.RtrendSacCommand;
+import gov.llnl.gnem.jsac.commands.signalCorrection.TaperSacCommand;
+import gov.llnl.gnem.jsac.dataAccess.cache.ResultCache;
+
+public class SacCommandExecutorTest {
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    public void tearDown() {
+        ResultCache.getInstance().disable();
+        SacDataModel.getInstance().clear();
+        SacDataModel.getInstance().setUndoDepth(1);
+    }
+
+    private static void execute(String cmdString, SacCommand command) {
+        command.initialize(TokenListParser.tokenizeString(cmdString));
+        SacCommandExecutor.getInstance().executeCommand(command);
+    }
+
+    /**
+     * Reads the test file and runs the first steps of READ, RMEAN, RTREND,
+     * TAPER, which then ends.
+     */
+    private void runChain(int steps) {
+        String path = TestUtil.getResourceFile(TestUtil.SAC_TEST_FILES_DIRECTORY, "random.sac").getAbsolutePath();
+        SacDataModel.getInstance().clear();
+        execute("READ " + path, new ReadSacCommand());
+        String[] names = { "RMEAN", "RTREND", "TAPER" };
+        SacCommand[] chain = { new RmeanSacCommand(), new RtrendSacCommand(), new TaperSacCommand() };
+        for (int j = 0; j < steps; ++j) {
+            execute(names[j], chain[j]);
+        }
+    }
+
+    @Test
+    public void chainLoadsAndStoresOnlyItsLastResult() throws IOException {
+        ResultCache cache = ResultCache.getInstance();
+        cache.enable(directory, 1L << 30);
+        SacDataModel model = SacDataModel.getInstance();
+        model.setUndoDepth(0);
+        long hits = cache.getHitCount();
+        long loads = cache.getLoadCount();
+        long stores = cache.getStoreCount();
+
+        // Each chain is one step longer than the one before, so that the
+        // previous steps are found in the cache and only the last is run.
+        for (int steps = 1; steps <= 3; ++steps) {
+            runChain(steps);
+            Assertions.assertEquals(stores + steps - 1, cache.getStoreCount());
+            SacCommandExecutor.getInstance().endResultChain();
+            Assertions.assertEquals(stores + steps, cache.getStoreCount());
+            Assertions.assertEquals(loads + steps - 1, cache.getLoadCount());
+        }
+        Assertions.assertEquals(hits + 3, cache.getHitCount());
+        Assertions.assertEquals(3, cache.getEntryCount());
+        float[] computed = model.getData().get(0).getData();
+
+        runChain(3);
+        Assertions.assertEquals(hits + 6, cache.getHitCount());
+        Assertions.assertEquals(loads + 2, cache.getLoadCount());
+        execute("LH", new LhSacCommand());
+        Assertions.assertEquals(loads + 3, cache.getLoadCount());
+        Assertions.assertEquals(stores + 3, cache.getStoreCount());
+        Assertions.assertArrayEquals(computed, model.getData().get(0).getData(), 0.0f);
+    }
+}
@@ -0,0 +1,74 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Properties;
+import java.util.ServiceLoader;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SacCommandIndexTest {
+
+    @Test
+    public void testIndexMatchesServiceRegistrations() throws IOException {
+        Map<String, String> registered = new TreeMap<>();
+        for (SacCommand command : ServiceLoader.load(SacCommand.class)) {
+            if (command instanceof NullSacCommand) {
+                continue;
+            }
+            for (String name : command.getCommandNames()) {
+                registered.put(name, command.getClass().getName());
+            }
+        }
+
+        Map<String, String> indexed = new TreeMap<>();
+        try (InputStream in = SacCommandParser.class.getResourceAsStream(SacCommandParser.COMMAND_INDEX)) {
+            Assertions.assertNotNull(in, "Missing " + SacCommandParser.COMMAND_INDEX);
+            Properties properties = new Properties();
+            properties.load(in);
+            for (String name : properties.stringPropertyNames()) {
+                indexed.put(name, properties.getProperty(name).trim());
+            }
+        }
+        Assertions.assertEquals(registered, indexed);
+    }
+
+    @Test
+    public void testCommandsAreLoadedOnFirstUseAndCreatedPerInvocation() {
+        SacCommandParser parser = SacCommandParser.getInstance();
+        parser.initialize();
+        int before = parser.getLoadedCommandCount();
+
+        SacCommand first = parser.parseCommandLine("RTREND");
+        Assertions.assertNotNull(first);
+        SacCommand second = parser.parseCommandLine("RTR");
+        Assertions.assertNotSame(first, second);
+        Assertions.assertSame(first.getClass(), second.getClass());
+        Assertions.assertTrue(parser.getLoadedCommandCount() <= before + 1);
+    }
+}
@@ -0,0 +1,84 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.dataFile;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.TestUtil;
+import gov.llnl.gnem.jsac.commands.SacCommand;
+import gov.llnl.gnem.jsac.commands.SacCommandExecutor;
+import gov.llnl.gnem.jsac.commands.TokenListParser;
+import gov.llnl.gnem.jsac.commands.unary.MulSacCommand;
+
+public class CheckpointSacCommandTest {
+
+    @BeforeAll
+    public static void setUpClass() {
+        SacDataModel.getInstance().clear();
+    }
+
+    @AfterAll
+    protected static void tearDownAfterClass() throws Exception {
+        SacDataModel.getInstance().deleteCheckpoint("raw");
+        SacDataModel.getInstance().clear();
+    }
+
+    private static void execute(String cmdString, SacCommand command) {
+        command.initialize(TokenListParser.tokenizeString(cmdString));
+        SacCommandExecutor.getInstance().executeCommand(command);
+    }
+
+    private static float[] currentData() {
+        return SacDataModel.getInstance().getData().get(0).getData();
+    }
+
+    @Test
+    public void testCheckpointRestoreUndo() {
+        TestUtil.loadTestSacFile("random.sac", TestUtil.SAC_TEST_FILES_DIRECTORY, true);
+        float[] original = currentData();
+
+        execute("CHECKPOINT raw", new CheckpointSacCommand());
+        execute("MUL 2", new MulSacCommand());
+        float[] doubled = currentData();
+        Assertions.assertEquals(2 * original[10], doubled[10], 1.0e-6f);
+
+        execute("RESTORE raw", new RestoreSacCommand());
+        Assertions.assertArrayEquals(original, currentData(), 0.0f);
+
+        execute("UNDO", new UndoSacCommand());
+        Assertions.assertArrayEquals(doubled, currentData(), 0.0f);
+
+        execute("UNDO", new UndoSacCommand());
+        Assertions.assertArrayEquals(doubled, currentData(), 0.0f);
+
+        // The checkpoint is unaffected by restoring and modifying it again.
+        execute("RESTORE raw", new RestoreSacCommand());
+        execute("MUL 3", new MulSacCommand());
+        execute("RESTORE raw", new RestoreSacCommand());
+        Assertions.assertArrayEquals(original, currentData(), 0.0f);
+    }
+}
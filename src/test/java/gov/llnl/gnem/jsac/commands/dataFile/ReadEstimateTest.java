@@ -0,0 +1,99 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.dataFile;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import gov.llnl.gnem.jsac.TestUtil;
+import gov.llnl.gnem.jsac.commands.Misc;
+import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData;
+import gov.llnl.gnem.jsac.io.SACDataEncoding;
+
+public class ReadEstimateTest {
+
+    @TempDir
+    Path scratch;
+
+    @Test
+    public void sacEstimateMatchesLoadedSamples() {
+        List<Path> paths = Arrays.asList(TestUtil.getResourceFile(TestUtil.SAC_TEST_FILES_DIRECTORY, "random.sac").toPath(),
+                TestUtil.getResourceFile(TestUtil.SAC_TEST_FILES_DIRECTORY, "triangle.sac").toPath());
+        ReadEstimate estimate = ReadEstimate.forSacFiles(paths, SACDataEncoding.BINARY);
+        long actual = 0;
+        for (Path path : paths) {
+            SacTraceData std = Misc.createSacFile(path, SACDataEncoding.BINARY);
+            actual += std.getSampleBytes();
+        }
+        Assertions.assertEquals(2, estimate.getTraceCount());
+        Assertions.assertEquals(actual, estimate.getSampleBytes());
+        Assertions.assertTrue(estimate.getBytes() > estimate.getSampleBytes());
+    }
+
+    @Test
+    public void miniSeedEstimateUsesRecordHeaders() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(3 * 512).order(ByteOrder.BIG_ENDIAN);
+        writeRecord(buffer, 0, "ABC", 400);
+        writeRecord(buffer, 512, "ABC", 300);
+        writeRecord(buffer, 1024, "XYZ", 100);
+        Path file = scratch.resolve("test.mseed");
+        Files.write(file, buffer.array());
+
+        ReadEstimate estimate = ReadEstimate.forMiniSeedFiles(Collections.singletonList(file));
+        Assertions.assertEquals(2, estimate.getTraceCount());
+        Assertions.assertEquals(800, estimate.getValueCount());
+    }
+
+    private static void writeRecord(ByteBuffer buffer, int start, String station, int nsamples) {
+        byte[] sequence = "000001D ".getBytes(StandardCharsets.US_ASCII);
+        for (int j = 0; j < sequence.length; ++j) {
+            buffer.put(start + j, sequence[j]);
+        }
+        byte[] sta = String.format("%-5s  BHZXX", station).getBytes(StandardCharsets.US_ASCII);
+        for (int j = 0; j < sta.length; ++j) {
+            buffer.put(start + 8 + j, sta[j]);
+        }
+        buffer.putShort(start + 20, (short) 2020);
+        buffer.putShort(start + 22, (short) 100);
+        buffer.putShort(start + 30, (short) nsamples);
+        buffer.put(start + 39, (byte) 1);
+        buffer.putShort(start + 44, (short) 64);
+        buffer.putShort(start + 46, (short) 48);
+        buffer.putShort(start + 48, (short) 1000);
+        buffer.putShort(start + 50, (short) 0);
+        buffer.put(start + 52, (byte) 11);
+        buffer.put(start + 53, (byte) 1);
+        buffer.put(start + 54, (byte) 9);
+    }
+}
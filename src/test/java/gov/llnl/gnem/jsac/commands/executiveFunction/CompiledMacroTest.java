@@ -0,0 +1,151 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.executiveFunction;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.TestUtil;
+import gov.llnl.gnem.jsac.commands.SacCommandParser;
+
+public class CompiledMacroTest {
+
+    private static final List<String> MACRO = Arrays.asList(
+            "* Builds an impulse, then adds to it in a loop and by a header test.",
+            "$KEYS N",
+            "$DEFAULT N 10",
+            "FUNCGEN IMPULSE NPTS $N$",
+            "DO k FROM 1 TO 5",
+            "  IF $k$ EQ 4",
+            "    BREAK",
+            "  ENDIF",
+            "  ADD 1",
+            "ENDDO",
+            "IF &1,NPTS& GT 20",
+            "  ADD 100",
+            "ELSEIF &1,NPTS& GT 5",
+            "  ADD 1000",
+            "ELSE",
+            "  ADD 10000",
+            "ENDIF",
+            "DO value LIST 0.5 0.25; ADD $value$; ENDDO");
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    public static void setUpClass() {
+        SacCommandParser.getInstance().initialize();
+    }
+
+    private static float firstSample() {
+        return SacDataModel.getInstance().getData().get(0).getData()[0];
+    }
+
+    @Test
+    public void testDefaultsLoopsAndTests() {
+        CompiledMacro macro = CompiledMacro.compile("test", MACRO);
+        macro.run(Collections.emptyList());
+        Assertions.assertEquals(10, SacDataModel.getInstance().getData().get(0).getData().length);
+        Assertions.assertEquals(1003.75f, firstSample(), 1e-4);
+
+        macro.run(Arrays.asList("N", "50"));
+        Assertions.assertEquals(50, SacDataModel.getInstance().getData().get(0).getData().length);
+        Assertions.assertEquals(103.75f, firstSample(), 1e-4);
+    }
+
+    @Test
+    public void testPositionalArguments() {
+        CompiledMacro macro = CompiledMacro.compile("test", Arrays.asList("FUNCGEN IMPULSE NPTS $1$", "ADD $2$"));
+        macro.run(Arrays.asList("20", "7"));
+        Assertions.assertEquals(20, SacDataModel.getInstance().getData().get(0).getData().length);
+        Assertions.assertEquals(7f, firstSample(), 1e-6);
+
+        Assertions.assertThrows(IllegalStateException.class, () -> macro.run(Collections.singletonList("20")));
+    }
+
+    @Test
+    public void testOptionalThen() {
+        CompiledMacro macro = CompiledMacro.compile("test", Arrays.asList(
+                "FUNCGEN IMPULSE",
+                "IF $1$ GT 5 THEN",
+                "  ADD 100",
+                "ELSEIF $1$ GT 2 then",
+                "  ADD 10",
+                "ELSE",
+                "  ADD 1",
+                "ENDIF"));
+        macro.run(Collections.singletonList("7"));
+        Assertions.assertEquals(100f, firstSample(), 1e-6);
+        macro.run(Collections.singletonList("3"));
+        Assertions.assertEquals(10f, firstSample(), 1e-6);
+        macro.run(Collections.singletonList("0"));
+        Assertions.assertEquals(1f, firstSample(), 1e-6);
+    }
+
+    @Test
+    public void testBlocksMustMatch() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> CompiledMacro.compile("test", Arrays.asList("ADD 1", "ENDDO")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> CompiledMacro.compile("test", Arrays.asList("IF 1 EQ 1", "ADD 1")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> CompiledMacro.compile("test", Arrays.asList("IF 1 EQ 1", "ELSE", "ELSE", "ENDIF")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> CompiledMacro.compile("test", Arrays.asList("BREAK")));
+    }
+
+    @Test
+    public void testMacroCommandReportsTheError() throws IOException {
+        Path missing = dir.resolve("missing.m");
+        IllegalStateException notFound = Assertions.assertThrows(IllegalStateException.class, () -> TestUtil.runCommand("MACRO " + missing, new MacroSacCommand()));
+        Assertions.assertTrue(notFound.getMessage().contains("does not exist"), notFound.getMessage());
+
+        Path broken = dir.resolve("broken.m");
+        Files.write(broken, Arrays.asList("ADD 1", "ENDDO"), StandardCharsets.UTF_8);
+        IllegalArgumentException syntax = Assertions.assertThrows(IllegalArgumentException.class, () -> TestUtil.runCommand("MACRO " + broken, new MacroSacCommand()));
+        Assertions.assertTrue(syntax.getMessage().contains("ENDDO without DO or WHILE"), syntax.getMessage());
+    }
+
+    @Test
+    public void testMacroFileIsCompiledOnceUntilItChanges() throws IOException {
+        Path file = dir.resolve("add.m");
+        Files.write(file, Arrays.asList("FUNCGEN", "ADD 1"), StandardCharsets.UTF_8);
+        CompiledMacro first = CompiledMacro.compile(file);
+        Assertions.assertSame(first, CompiledMacro.compile(file));
+
+        Files.write(file, Arrays.asList("FUNCGEN", "ADD 1", "ADD 2"), StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 2000));
+        CompiledMacro second = CompiledMacro.compile(file);
+        Assertions.assertNotSame(first, second);
+        Assertions.assertEquals(3, second.size());
+    }
+}
@@ -0,0 +1,76 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.executiveFunction;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import gov.llnl.gnem.jsac.TestUtil;
+import gov.llnl.gnem.jsac.commands.Misc;
+import gov.llnl.gnem.jsac.commands.SacCommandParser;
+import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData;
+import gov.llnl.gnem.jsac.io.SACDataEncoding;
+
+public class MapFilesSacCommandTest {
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    public static void setUpClass() {
+        SacCommandParser.getInstance().initialize();
+    }
+
+    @Test
+    public void testMacroBlocksRunPerFile() throws IOException {
+        Path out = Files.createDirectory(dir.resolve("out"));
+        Path macro = dir.resolve("scale.m");
+        Files.write(macro, Arrays.asList(
+                "DO k FROM 1 TO 3",
+                "  MUL 2",
+                "ENDDO",
+                "IF &1,NPTS& GT 0",
+                "  WRITE DIR " + out,
+                "ENDIF"), StandardCharsets.UTF_8);
+        File input = TestUtil.getResourceFile(TestUtil.SAC_TEST_FILES_DIRECTORY, "random.sac");
+
+        TestUtil.runCommand("MAPFILES WORKERS 2 DIR " + input.getParent() + " " + macro + " random.sac impulse.sac", new MapFilesSacCommand());
+
+        float[] source = Misc.createSacFile(input.toPath(), SACDataEncoding.BINARY).getData();
+        SacTraceData scaled = Misc.createSacFile(out.resolve("random.sac"), SACDataEncoding.BINARY);
+        Assertions.assertNotNull(scaled);
+        for (int j = 0; j < source.length; ++j) {
+            Assertions.assertEquals(8 * source[j], scaled.getData()[j], 1.0e-5f);
+        }
+        Assertions.assertTrue(Files.exists(out.resolve("impulse.sac")));
+    }
+}
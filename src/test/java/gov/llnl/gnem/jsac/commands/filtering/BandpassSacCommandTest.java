@@ -30,9 +30,12 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import com.oregondsp.signalProcessing.filter.iir.PassbandType;
+
 import gov.llnl.gnem.jsac.SacDataModel;
 import gov.llnl.gnem.jsac.TestUtil;
 import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData;
+import llnl.gnem.dftt.core.signalprocessing.filter.FilterDesign;
 
 public class BandpassSacCommandTest {
 
@@ -74,6 +77,22 @@ public class BandpassSacCommandTest {
         TestUtil.compareTwoSacfileArraysExact(truth, test, "BP N 4 C 12 14", 0.001f);
     }
 
+    @Test
+    public void testBP_N_4_C_12_14_Sections() {
+        System.out.println("testBP_N_4_C_12_14_Sections");
+
+        TestUtil.loadTestSacAlphaFile("seismogram.txt", TestUtil.SAC_TEST_FILES_DIRECTORY);
+
+        List<SacTraceData> lstd = SacDataModel.getInstance().getData();
+        SacTraceData test = lstd.get(0);
+
+        SacDataModel.getInstance().applyFilter(FilterDesign.Butterworth, 4, PassbandType.BANDPASS, 12, 14, 0.0, 0.3, false, true);
+
+        SacTraceData truth = TestUtil.getTruthAlpha("seis.bp.n4.c.12_14.sacalpha", TestUtil.SAC_TEST_FILES_DIRECTORY);
+
+        TestUtil.compareTwoSacfileArraysExact(truth, test, "BP N 4 C 12 14 sections", 0.001f);
+    }
+
     @Test
     public void testBP_C1_N_4_C_12_14_point5_100() {
         System.out.println("testBP_C1_N_4_C_12_14_point5_100");
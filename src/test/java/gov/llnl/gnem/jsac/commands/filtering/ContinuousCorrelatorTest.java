@@ -0,0 +1,103 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.filtering;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import gov.llnl.gnem.jsac.TestUtil;
+
+public class ContinuousCorrelatorTest {
+
+    /**
+     * The correlation at each lag straight from the definition, normalized by
+     * the norms of the template and the overlapping input.
+     */
+    private static double[] correlate(float[] x, float[] t, boolean normalize) {
+        int n = t.length;
+        double templateEnergy = 0.0;
+        for (float v : t) {
+            templateEnergy += v * v;
+        }
+        double[] y = new double[x.length + n - 1];
+        for (int k = 0; k < y.length; ++k) {
+            double sum = 0.0;
+            double energy = 0.0;
+            for (int i = 0; i < n; ++i) {
+                int j = k - (n - 1) + i;
+                if (j >= 0 && j < x.length) {
+                    sum += t[i] * x[j];
+                    energy += x[j] * x[j];
+                }
+            }
+            y[k] = normalize ? sum / Math.sqrt(templateEnergy * energy) : sum;
+        }
+        return y;
+    }
+
+    @Test
+    public void matchesDirectFormula() {
+        for (int n : new int[] { 5, Convolver.DIRECT_LENGTH + 1, 300 }) {
+            float[] t = TestUtil.noise(n, n);
+            float[] x = TestUtil.noise(3000, 1L);
+            // A loud stretch, so that normalization has to follow the input.
+            for (int j = 1500; j < x.length; ++j) {
+                x[j] *= 100.0f;
+            }
+            for (boolean normalize : new boolean[] { false, true }) {
+                float[] y = new ContinuousCorrelator(t, normalize).correlate(x);
+                double[] expected = correlate(x, t, normalize);
+                Assertions.assertEquals(expected.length, y.length);
+                for (int k = 0; k < y.length; ++k) {
+                    double tolerance = normalize ? 1.0e-4 : 1.0e-4 * Math.max(1.0, Math.abs(expected[k]));
+                    Assertions.assertEquals(expected[k], y[k], tolerance, "template length " + n + " lag " + k);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void normalizedPeakIsOneAtTheMatch() {
+        float[] t = TestUtil.noise(200, 2L);
+        float[] x = new float[2000];
+        System.arraycopy(t, 0, x, 700, t.length);
+        float[] y = new ContinuousCorrelator(t, true).correlate(x);
+        int peak = 0;
+        for (int k = 0; k < y.length; ++k) {
+            Assertions.assertTrue(Math.abs(y[k]) <= 1.0f + 1.0e-5f);
+            if (y[k] > y[peak]) {
+                peak = k;
+            }
+        }
+        Assertions.assertEquals(700 + t.length - 1, peak);
+        Assertions.assertEquals(1.0, y[peak], 1.0e-5);
+    }
+
+    @Test
+    public void silenceCorrelatesToZero() {
+        float[] y = new ContinuousCorrelator(TestUtil.noise(100, 3L), true).correlate(new float[500]);
+        for (float v : y) {
+            Assertions.assertEquals(0.0f, v, 0.0f);
+        }
+    }
+}
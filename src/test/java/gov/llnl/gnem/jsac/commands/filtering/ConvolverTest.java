@@ -0,0 +1,95 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.filtering;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import gov.llnl.gnem.jsac.TestUtil;
+import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData;
+
+public class ConvolverTest {
+
+    private static float[] convolve(float[] x, float[] h) {
+        float[] y = new float[x.length + h.length - 1];
+        for (int k = 0; k < y.length; ++k) {
+            double sum = 0.0;
+            for (int j = 0; j < h.length; ++j) {
+                if (k - j >= 0 && k - j < x.length) {
+                    sum += h[j] * x[k - j];
+                }
+            }
+            y[k] = (float) sum;
+        }
+        return y;
+    }
+
+    @Test
+    public void directAndFftPathsMatchTheDefinition() {
+        for (int n : new int[] { 5, Convolver.DIRECT_LENGTH, Convolver.DIRECT_LENGTH + 1, 700 }) {
+            float[] h = TestUtil.noise(n, n);
+            // A whole number of blocks, so that the tail comes from flushing.
+            float[] x = TestUtil.noise(2 * Convolver.blockSize(n), 1L);
+            SacTraceData std = TestUtil.trace(x);
+            new Convolver(h, false).convolve(std);
+            Assertions.assertArrayEquals(convolve(x, h), std.getData(), 1.0e-3f, "template length " + n);
+        }
+    }
+
+    @Test
+    public void sharedConvolverIsSafeAcrossThreads() {
+        float[] h = TestUtil.noise(300, 3L);
+        Convolver convolver = new Convolver(h, false);
+        List<float[]> inputs = new ArrayList<>();
+        List<SacTraceData> traces = new ArrayList<>();
+        for (int j = 0; j < 64; ++j) {
+            float[] x = TestUtil.noise(3000 + 17 * j, j);
+            inputs.add(x);
+            traces.add(TestUtil.trace(x));
+        }
+        traces.parallelStream().forEach(convolver::convolve);
+        for (int j = 0; j < traces.size(); ++j) {
+            Assertions.assertArrayEquals(convolve(inputs.get(j), h), traces.get(j).getData(), 1.0e-3f, "trace " + j);
+        }
+    }
+
+    @Test
+    public void blockSizeFillsPowerOfTwoFft() {
+        for (int n : new int[] { 49, 300, 5000 }) {
+            int nfft = Convolver.blockSize(n) + n - 1;
+            Assertions.assertEquals(0, nfft & (nfft - 1));
+            Assertions.assertTrue(nfft >= 4 * n);
+        }
+    }
+
+    @Test
+    public void centeredConvolutionMovesBegin() {
+        SacTraceData std = TestUtil.trace(TestUtil.noise(500, 2L));
+        new Convolver(new float[101], true).convolve(std);
+        Assertions.assertEquals(-0.5, std.getSACHeader().getB(), 1.0e-9);
+        Assertions.assertEquals(600, std.getData().length);
+    }
+}
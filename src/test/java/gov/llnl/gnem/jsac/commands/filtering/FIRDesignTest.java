@@ -0,0 +1,87 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.filtering;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.oregondsp.signalProcessing.filter.iir.PassbandType;
+
+public class FIRDesignTest {
+
+    private static final double DELTA = 0.01;
+
+    private static double amplitude(float[] taps, double f) {
+        int half = taps.length / 2;
+        double re = 0.0;
+        double im = 0.0;
+        for (int n = 0; n < taps.length; ++n) {
+            double phase = 2.0 * Math.PI * f * DELTA * (n - half);
+            re += taps[n] * Math.cos(phase);
+            im -= taps[n] * Math.sin(phase);
+        }
+        return Math.hypot(re, im);
+    }
+
+    @Test
+    public void windowedSincHasHalfAmplitudeAtTheCorner() {
+        float[] taps = FIRDesign.windowedSinc(PassbandType.LOWPASS, 0.0, 5.0, 101, FIRDesign.Window.HAMMING, DELTA);
+        Assertions.assertEquals(1.0, amplitude(taps, 0.0), 0.01);
+        Assertions.assertEquals(0.5, amplitude(taps, 5.0), 0.01);
+        Assertions.assertEquals(0.0, amplitude(taps, 10.0), 0.01);
+    }
+
+    @Test
+    public void tapsAreSymmetric() {
+        for (PassbandType passband : PassbandType.values()) {
+            float[] taps = FIRDesign.design(FIRDesign.Method.EQUIRIPPLE, passband, 5.0, 15.0, 61, FIRDesign.Window.HAMMING, 0.0, DELTA);
+            for (int n = 0; n < taps.length; ++n) {
+                Assertions.assertEquals(taps[n], taps[taps.length - 1 - n], 0.0f, passband.toString());
+            }
+        }
+    }
+
+    @Test
+    public void equiripplePassAndStopBandsHaveEqualRipple() {
+        float[] taps = FIRDesign.equiripple(PassbandType.BANDPASS, 5.0, 15.0, 201, 2.0, DELTA);
+        double passDeviation = 0.0;
+        double stopDeviation = 0.0;
+        for (double f = 0.0; f <= 50.0; f += 0.01) {
+            double a = amplitude(taps, f);
+            if (f >= 6.0 && f <= 14.0) {
+                passDeviation = Math.max(passDeviation, Math.abs(a - 1.0));
+            } else if (f <= 4.0 || f >= 16.0) {
+                stopDeviation = Math.max(stopDeviation, a);
+            }
+        }
+        Assertions.assertTrue(passDeviation < 1.0e-3, "pass band deviation " + passDeviation);
+        Assertions.assertEquals(passDeviation, stopDeviation, 0.05 * passDeviation);
+    }
+
+    @Test
+    public void invalidDesignsAreRejected() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> FIRDesign.windowedSinc(PassbandType.LOWPASS, 0.0, 5.0, 100, FIRDesign.Window.HAMMING, DELTA));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> FIRDesign.design(FIRDesign.Method.SINC, PassbandType.BANDPASS, 5.0, 60.0, 101, FIRDesign.Window.HAMMING, 0.0, DELTA));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> FIRDesign.equiripple(PassbandType.BANDPASS, 5.0, 6.0, 101, 2.0, DELTA));
+    }
+}
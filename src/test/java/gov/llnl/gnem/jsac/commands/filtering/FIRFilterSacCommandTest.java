@@ -0,0 +1,74 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.filtering;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.oregondsp.signalProcessing.filter.iir.PassbandType;
+
+import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.TestUtil;
+import gov.llnl.gnem.jsac.commands.dataFile.FuncgenSacCommand;
+import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData;
+import gov.llnl.gnem.jsac.io.SACHeader;
+
+public class FIRFilterSacCommandTest {
+
+    private static final double DELTA = 0.01;
+
+    @BeforeEach
+    protected void setUp() throws Exception {
+        SacDataModel.getInstance().clear();
+        FIRFilterSacCommand.resetDefaults();
+    }
+
+    @AfterAll
+    protected static void tearDownAfterClass() throws Exception {
+        SacDataModel.getInstance().clear();
+        FIRFilterSacCommand.resetDefaults();
+    }
+
+    @Test
+    public void outputKeepsLengthAndTiming() {
+        TestUtil.runCommand("FUNCGEN IMPULSE NPTS 200 DELTA " + DELTA, new FuncgenSacCommand());
+        SacTraceData std = SacDataModel.getInstance().getData().get(0);
+        double begin = std.getSACHeader().getB();
+
+        TestUtil.runCommand("FIRFILTER LP SINC CORNERS 10 NTAPS 21", new FIRFilterSacCommand());
+
+        SACHeader header = std.getSACHeader();
+        Assertions.assertEquals(200, header.getNpts());
+        Assertions.assertEquals(begin, header.getB(), 1.0e-9);
+        float[] y = std.getData();
+        Assertions.assertEquals(200, y.length);
+        // The impulse at sample 100 becomes the taps, centred on the same sample.
+        float[] taps = FIRDesign.design(FIRDesign.Method.SINC, PassbandType.LOWPASS, 0.1, 10.0, 21, FIRDesign.Window.HAMMING, 0.0, DELTA);
+        for (int k = 0; k < y.length; ++k) {
+            int tap = k - 90;
+            Assertions.assertEquals(tap >= 0 && tap < taps.length ? taps[tap] : 0.0f, y[k], 1.0e-6f, "sample " + k);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.filtering;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.oregondsp.signalProcessing.filter.iir.IIRFilter;
+import com.oregondsp.signalProcessing.filter.iir.PassbandType;
+
+import llnl.gnem.dftt.core.signalprocessing.filter.FilterDesign;
+
+public class IIRDesignCacheTest {
+
+    private static IIRDesignCache.Key key(double delta) {
+        return new IIRDesignCache.Key(FilterDesign.Butterworth, 4, PassbandType.BANDPASS, 1.0, 5.0, 0.0, 0.3, delta);
+    }
+
+    @Test
+    public void designsAreLookedUpOncePerKey() {
+        IIRDesignCache cache = new IIRDesignCache();
+        cache.prepare(key(0.01));
+        cache.prepare(key(0.01));
+        cache.prepare(key(0.025));
+        Assertions.assertEquals(1, cache.getHitCount());
+        Assertions.assertEquals(2, cache.getMissCount());
+        Assertions.assertEquals(2, cache.getDesignCount());
+    }
+
+    @Test
+    public void concurrentBorrowersGetTheirOwnInstance() {
+        IIRDesignCache cache = new IIRDesignCache();
+        IIRDesignCache.Key key = cache.prepare(key(0.01));
+        IIRFilter first = cache.borrow(key);
+        IIRFilter second = cache.borrow(key);
+        Assertions.assertNotSame(first, second);
+        Assertions.assertEquals(2, cache.getDesignCount());
+
+        cache.giveBack(key, first);
+        Assertions.assertSame(first, cache.borrow(key));
+        Assertions.assertEquals(2, cache.getDesignCount());
+    }
+
+    @Test
+    public void borrowedFiltersMatchFreshDesigns() {
+        IIRDesignCache cache = new IIRDesignCache();
+        IIRDesignCache.Key key = cache.prepare(key(0.01));
+        float[] expected = new float[500];
+        expected[10] = 1.0f;
+        float[] actual = expected.clone();
+
+        IIRFilter used = cache.borrow(key);
+        float[] scratch = expected.clone();
+        used.filter(scratch);
+        cache.giveBack(key, used);
+
+        IIRDesignCache.design(key).filter(expected);
+        cache.borrow(key).filter(actual);
+        Assertions.assertArrayEquals(expected, actual, 0.0f);
+    }
+
+    @Test
+    public void sectionDesignsAreSharedPerKey() {
+        IIRDesignCache cache = new IIRDesignCache();
+        SOSFilter first = cache.getSections(key(0.01));
+        SOSFilter second = cache.getSections(key(0.01));
+        SOSFilter other = cache.getSections(key(0.025));
+        Assertions.assertSame(first, second);
+        Assertions.assertNotSame(first, other);
+        Assertions.assertEquals(1, cache.getHitCount());
+        Assertions.assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void clearDropsDesigns() {
+        IIRDesignCache cache = new IIRDesignCache();
+        SOSFilter first = cache.getSections(key(0.01));
+        cache.clear();
+        Assertions.assertNotSame(first, cache.getSections(key(0.01)));
+        Assertions.assertEquals(2, cache.getMissCount());
+    }
+}
@@ -0,0 +1,135 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.filtering;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import gov.llnl.gnem.jsac.TestUtil;
+import gov.llnl.gnem.jsac.commands.filtering.MatchedFilterDetector.Detection;
+import gov.llnl.gnem.jsac.commands.filtering.MatchedFilterDetector.Template;
+import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData;
+import gov.llnl.gnem.jsac.io.SACFile;
+import gov.llnl.gnem.jsac.io.SACHeader;
+import gov.llnl.gnem.jsac.io.enums.FileType;
+
+public class MatchedFilterDetectorTest {
+
+    private static final double DELTA = 0.01;
+
+    private static SacTraceData trace(String station, String event, double b, float[] data) {
+        SACHeader header = new SACHeader();
+        header.setIftype(FileType.ITIME);
+        header.setLeven(1);
+        header.setDelta(DELTA);
+        header.setB(b);
+        header.setE(b + (data.length - 1) * DELTA);
+        header.setNpts(data.length);
+        header.setKstnm(station);
+        header.setKcmpnm("BHZ");
+        header.setKevnm(event);
+        return new SacTraceData(Paths.get(station + ".sac"), new SACFile(header, data));
+    }
+
+    private static void add(float[] x, float[] signal, int at) {
+        for (int j = 0; j < signal.length; ++j) {
+            x[at + j] += signal[j];
+        }
+    }
+
+    @Test
+    public void findsEventsWithMoveoutAcrossChunks() {
+        int npts = MatchedFilterDetector.CHUNK_LENGTH + 20000;
+        int moveout = 50;
+        float[] s1 = TestUtil.noise(200, 1.0, 1L);
+        float[] s2 = TestUtil.noise(200, 1.0, 2L);
+        float[] c1 = TestUtil.noise(npts, 0.1, 3L);
+        float[] c2 = TestUtil.noise(npts, 0.1, 4L);
+        int[] onsets = { 10000, MatchedFilterDetector.CHUNK_LENGTH + 5000 };
+        for (int onset : onsets) {
+            add(c1, s1, onset);
+            add(c2, s2, onset + moveout);
+        }
+        List<SacTraceData> continuous = Arrays.asList(trace("STA1", null, 0.0, c1), trace("STA2", null, 0.0, c2));
+        Template template = new Template("EV1", Arrays.asList(trace("STA1", "EV1", 3.0, s1), trace("STA2", "EV1", 3.0 + moveout * DELTA, s2)));
+        // A template for a station without data is ignored.
+        Template elsewhere = new Template("EV2", Arrays.asList(trace("STA3", "EV2", 0.0, s1)));
+
+        List<Detection> detections = new MatchedFilterDetector(9.0).detect(continuous, Arrays.asList(template, elsewhere));
+
+        Assertions.assertEquals(onsets.length, detections.size());
+        for (int j = 0; j < onsets.length; ++j) {
+            Detection detection = detections.get(j);
+            Assertions.assertEquals("EV1", detection.getTemplate());
+            Assertions.assertEquals(onsets[j] * DELTA, detection.getTime(), 1.0e-6);
+            Assertions.assertTrue(detection.getCorrelation() > 0.95);
+            Assertions.assertEquals(2, detection.getTraces().size());
+            Assertions.assertEquals((onsets[j] + moveout) * DELTA, detection.getArrival(1), 1.0e-6);
+        }
+    }
+
+    @Test
+    public void matchesDirectNormalizedCorrelation() {
+        float[] t = TestUtil.noise(64, 1.0, 5L);
+        float[] x = TestUtil.noise(5000, 0.5, 6L);
+        add(x, t, 3000);
+        List<SacTraceData> continuous = Arrays.asList(trace("STA1", null, 0.0, x));
+        List<Detection> detections = new MatchedFilterDetector(8.0).detect(continuous, Arrays.asList(new Template("EV1", Arrays.asList(trace("STA1", "EV1", 0.0, t)))));
+
+        double sxy = 0.0;
+        double sxx = 0.0;
+        double syy = 0.0;
+        for (int j = 0; j < t.length; ++j) {
+            sxy += t[j] * x[3000 + j];
+            sxx += t[j] * t[j];
+            syy += x[3000 + j] * x[3000 + j];
+        }
+        Assertions.assertEquals(1, detections.size());
+        Assertions.assertEquals(30.0, detections.get(0).getTime(), 1.0e-6);
+        Assertions.assertEquals(sxy / Math.sqrt(sxx * syy), detections.get(0).getCorrelation(), 1.0e-4);
+    }
+
+    @Test
+    public void groupsTemplatesByEvent() {
+        List<SacTraceData> traces = new ArrayList<>();
+        traces.add(trace("STA1", "EV1", 0.0, new float[10]));
+        traces.add(trace("STA2", "EV1", 0.0, new float[10]));
+        traces.add(trace("STA1", null, 0.0, new float[10]));
+        List<Template> templates = MatchedFilterDetector.groupByEvent(traces);
+        Assertions.assertEquals(2, templates.size());
+        Assertions.assertEquals(2, templates.get(0).getChannels().size());
+        Assertions.assertEquals("STA1.sac", templates.get(1).getName());
+    }
+
+    @Test
+    public void duplicateChannelsAreRejected() {
+        List<SacTraceData> continuous = Arrays.asList(trace("STA1", null, 0.0, new float[100]), trace("STA1", null, 0.0, new float[100]));
+        Template template = new Template("EV1", Arrays.asList(trace("STA1", "EV1", 0.0, TestUtil.noise(10, 1.0, 7L))));
+        Assertions.assertThrows(IllegalStateException.class, () -> new MatchedFilterDetector(9.0).detect(continuous, Arrays.asList(template)));
+    }
+}
@@ -0,0 +1,121 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.filtering;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ResamplerTest {
+
+    private static float[] sine(int n, double frequency, double delta) {
+        float[] x = new float[n];
+        for (int k = 0; k < n; ++k) {
+            x[k] = (float) Math.sin(2.0 * Math.PI * frequency * k * delta);
+        }
+        return x;
+    }
+
+    /**
+     * Largest difference from the sine away from the ends, where the filter
+     * runs off the data.
+     */
+    private static double error(float[] y, double frequency, double delta, int margin) {
+        double error = 0.0;
+        for (int k = margin; k < y.length - margin; ++k) {
+            error = Math.max(error, Math.abs(y[k] - Math.sin(2.0 * Math.PI * frequency * k * delta)));
+        }
+        return error;
+    }
+
+    private static float[] decimate(float[] x, int factor) {
+        for (Resampler stage : Resampler.decimation(factor)) {
+            x = stage.resample(x);
+        }
+        return x;
+    }
+
+    @Test
+    public void decimationStagesAreLargestFirst() {
+        List<Resampler> stages = Resampler.decimation(20);
+        Assertions.assertEquals(3, stages.size());
+        Assertions.assertEquals(5, stages.get(0).getDown());
+        Assertions.assertEquals(2, stages.get(1).getDown());
+        Assertions.assertEquals(2, stages.get(2).getDown());
+        // Only the last stage needs a sharp filter.
+        Assertions.assertTrue(stages.get(1).getTapsPerPhase() < stages.get(2).getTapsPerPhase());
+    }
+
+    @Test
+    public void decimationKeepsPassbandAndTiming() {
+        float[] y = decimate(sine(20000, 1.0, 0.01), 10);
+        Assertions.assertEquals(2000, y.length);
+        Assertions.assertEquals(0.0, error(y, 1.0, 0.1, 50), 1.0e-3);
+    }
+
+    @Test
+    public void decimationRemovesAliases() {
+        // 6 Hz would alias to 4 Hz at 10 samples per second.
+        float[] y = decimate(sine(20000, 6.0, 0.01), 10);
+        for (int k = 50; k < y.length - 50; ++k) {
+            Assertions.assertEquals(0.0, y[k], 1.0e-3);
+        }
+    }
+
+    @Test
+    public void rationalResamplingKeepsPassbandAndTiming() {
+        Resampler resampler = Resampler.rational(3, 2);
+        float[] y = resampler.resample(sine(20000, 1.0, 0.01));
+        Assertions.assertEquals(30000, y.length);
+        Assertions.assertEquals(0.0, error(y, 1.0, 0.01 * 2 / 3, 100), 1.0e-3);
+    }
+
+    @Test
+    public void factorsAreReduced() {
+        Resampler resampler = Resampler.rational(4, 6);
+        Assertions.assertEquals(2, resampler.getUp());
+        Assertions.assertEquals(3, resampler.getDown());
+    }
+
+    @Test
+    public void subsamplerKeepsEveryNthSample() {
+        float[] x = { 0, 1, 2, 3, 4, 5, 6 };
+        Assertions.assertArrayEquals(new float[] { 0, 3, 6 }, Resampler.subsampler(3).resample(x));
+    }
+
+    @Test
+    public void ratioFromSampleIntervals() {
+        Assertions.assertArrayEquals(new int[] { 2, 5 }, Resampler.ratio(0.01, 0.025));
+        Assertions.assertArrayEquals(new int[] { 1, 10 }, Resampler.ratio(1.0 / 200.0, 1.0 / 20.0));
+        Assertions.assertArrayEquals(new int[] { 160, 147 }, Resampler.ratio(1.0 / 44100.0, 1.0 / 48000.0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Resampler.ratio(1.0, Math.sqrt(2.0)));
+    }
+
+    @Test
+    public void primeFactorsDescend() {
+        Assertions.assertEquals(Arrays.asList(7, 3, 2, 2), Resampler.primeFactors(84));
+        Assertions.assertEquals(Arrays.asList(13), Resampler.primeFactors(13));
+    }
+}
@@ -0,0 +1,155 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.filtering;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.oregondsp.signalProcessing.filter.iir.Butterworth;
+import com.oregondsp.signalProcessing.filter.iir.ChebyshevI;
+import com.oregondsp.signalProcessing.filter.iir.ChebyshevII;
+import com.oregondsp.signalProcessing.filter.iir.IIRFilter;
+import com.oregondsp.signalProcessing.filter.iir.PassbandType;
+
+import gov.llnl.gnem.jsac.TestUtil;
+import llnl.gnem.dftt.core.signalprocessing.filter.FilterDesign;
+
+public class SOSFilterTest {
+
+    private static final double DELTA = 0.01;
+    private static final double EPSILON = 0.3;
+    private static final double TRANSITION_BW = 0.3;
+
+    private static float[] impulse(int n) {
+        float[] x = new float[n];
+        x[n / 10] = 1.0f;
+        return x;
+    }
+
+    private static IIRFilter reference(FilterDesign design, int order, PassbandType passband, double c1, double c2) {
+        switch (design) {
+        case Chebyshev1:
+            return new ChebyshevI(order, EPSILON, passband, c1, c2, DELTA);
+        case Chebyshev2:
+            return new ChebyshevII(order, EPSILON, 1.0 + TRANSITION_BW, passband, c1, c2, DELTA);
+        default:
+            return new Butterworth(order, passband, c1, c2, DELTA);
+        }
+    }
+
+    /**
+     * The largest difference from the OregonDSP filters allowed before the
+     * engine may become the default, relative to the peak of the response.
+     */
+    private static final float REQUIRED_TOLERANCE = 1.0e-4f;
+
+    /**
+     * @return The largest difference relative to the peak of the expected
+     *         response.
+     */
+    private static float assertClose(float[] expected, float[] actual, String message) {
+        float peak = 0.0f;
+        float difference = 0.0f;
+        for (int j = 0; j < expected.length; ++j) {
+            peak = Math.max(peak, Math.abs(expected[j]));
+            difference = Math.max(difference, Math.abs(expected[j] - actual[j]));
+        }
+        Assertions.assertArrayEquals(expected, actual, REQUIRED_TOLERANCE * peak, message);
+        return difference / peak;
+    }
+
+    /**
+     * Prints the tolerance achieved for every design, so that it can be
+     * recorded with the decision to change the default engine.
+     */
+    @Test
+    public void matchesOregonDspFilters() {
+        for (FilterDesign design : new FilterDesign[] { FilterDesign.Butterworth, FilterDesign.Chebyshev1, FilterDesign.Chebyshev2 }) {
+            for (PassbandType passband : PassbandType.values()) {
+                for (int order : new int[] { 3, 4 }) {
+                    float[] expected = impulse(4000);
+                    float[] actual = expected.clone();
+                    IIRFilter filter = reference(design, order, passband, 2.0, 8.0);
+                    filter.initialize();
+                    filter.filter(expected);
+                    SOSFilter.design(design, order, passband, 2.0, 8.0, EPSILON, TRANSITION_BW, DELTA).filter(actual, false);
+                    String name = design + " " + passband + " order " + order;
+                    System.out.println(String.format("%s: largest difference %.2e of the peak", name, assertClose(expected, actual, name)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void backwardPassMatchesReversedArray() {
+        SOSFilter filter = SOSFilter.design(FilterDesign.Butterworth, 4, PassbandType.BANDPASS, 0.5, 3.0, 0.0, 0.0, DELTA);
+        float[] x = TestUtil.noise(3000, 7L);
+
+        float[] expected = x.clone();
+        filter.filter(expected, false);
+        reverse(expected);
+        filter.filter(expected, false);
+        reverse(expected);
+
+        float[] actual = x.clone();
+        filter.filter(actual, true);
+        Assertions.assertArrayEquals(expected, actual, 1.0e-6f);
+    }
+
+    @Test
+    public void interleavedChannelsMatchSingleChannels() {
+        SOSFilter filter = SOSFilter.design(FilterDesign.Chebyshev1, 5, PassbandType.LOWPASS, 0.0, 4.0, EPSILON, 0.0, DELTA);
+        int channels = 3;
+        int npts = 2000;
+        float[][] data = new float[channels][];
+        double[] x = new double[channels * npts];
+        for (int c = 0; c < channels; ++c) {
+            data[c] = TestUtil.noise(npts, c);
+            for (int j = 0; j < npts; ++j) {
+                x[j * channels + c] = data[c][j];
+            }
+        }
+        filter.filter(x, channels, true);
+        for (int c = 0; c < channels; ++c) {
+            filter.filter(data[c], true);
+            for (int j = 0; j < npts; ++j) {
+                Assertions.assertEquals(data[c][j], (float) x[j * channels + c], 0.0f);
+            }
+        }
+    }
+
+    @Test
+    public void sectionsHoldTheFilterOrder() {
+        Assertions.assertEquals(2, SOSFilter.design(FilterDesign.Butterworth, 4, PassbandType.LOWPASS, 0.0, 4.0, 0.0, 0.0, DELTA).getSectionCount());
+        Assertions.assertEquals(4, SOSFilter.design(FilterDesign.Butterworth, 4, PassbandType.BANDPASS, 1.0, 4.0, 0.0, 0.0, DELTA).getSectionCount());
+        Assertions.assertEquals(3, SOSFilter.design(FilterDesign.Butterworth, 3, PassbandType.BANDREJECT, 1.0, 4.0, 0.0, 0.0, DELTA).getSectionCount());
+    }
+
+    private static void reverse(float[] x) {
+        for (int i = 0, j = x.length - 1; i < j; ++i, --j) {
+            float tmp = x[i];
+            x[i] = x[j];
+            x[j] = tmp;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.filtering;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.oregondsp.signalProcessing.fft.RDFT;
+
+public class SpectralWhitenerTest {
+
+    private static final double DELTA = 0.01;
+
+    @Test
+    public void flattensAmplitudeInBandAndRemovesItOutside() {
+        int log2n = 10;
+        int n = 1 << log2n;
+        float[] x = new float[n];
+        Random random = new Random(3L);
+        for (int i = 0; i < n; i++) {
+            x[i] = (float) (random.nextGaussian() + 50.0 * Math.sin(2.0 * Math.PI * 12.5 * i * DELTA));
+        }
+
+        float[] y = new SpectralWhitener(5.0, 20.0, 0.0).whiten(x, DELTA);
+
+        float[] spectrum = new float[n];
+        new RDFT(log2n).evaluate(y, spectrum);
+        double df = 1.0 / (n * DELTA);
+        for (int k = 1; k < n / 2; k++) {
+            double amplitude = Math.hypot(spectrum[k], spectrum[n - k]);
+            double f = k * df;
+            if (f >= 5.0 && f <= 20.0) {
+                Assertions.assertEquals(1.0, amplitude, 1.0e-3, "bin " + k);
+            } else {
+                Assertions.assertEquals(0.0, amplitude, 1.0e-3, "bin " + k);
+            }
+        }
+    }
+
+    @Test
+    public void keepsTheTraceLength() {
+        float[] x = new float[1000];
+        x[100] = 1.0f;
+
+        float[] y = new SpectralWhitener(0.0, Double.POSITIVE_INFINITY, 1.0).whiten(x, DELTA);
+
+        Assertions.assertEquals(x.length, y.length);
+    }
+
+    @Test
+    public void tapersBandEdgesOverOneWidth() {
+        SpectralWhitener whitener = new SpectralWhitener(5.0, 20.0, 2.0);
+
+        Assertions.assertEquals(1.0, whitener.weight(5.0), 1.0e-12);
+        Assertions.assertEquals(0.5, whitener.weight(4.0), 1.0e-12);
+        Assertions.assertEquals(0.5, whitener.weight(21.0), 1.0e-12);
+        Assertions.assertEquals(0.0, whitener.weight(2.0), 1.0e-12);
+        Assertions.assertEquals(0.0, whitener.weight(23.0), 1.0e-12);
+    }
+
+    @Test
+    public void runningMeanIsTruncatedAtTheEnds() {
+        double[] mean = SpectralWhitener.runningMean(new double[] { 1.0, 2.0, 3.0, 4.0 }, 1);
+
+        Assertions.assertArrayEquals(new double[] { 1.5, 2.0, 3.0, 3.5 }, mean, 1.0e-12);
+    }
+
+    @Test
+    public void rejectsAnEmptyBand() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new SpectralWhitener(10.0, 10.0, 0.0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new SpectralWhitener(-1.0, 10.0, 0.0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new SpectralWhitener(1.0, 10.0, -1.0));
+    }
+
+}
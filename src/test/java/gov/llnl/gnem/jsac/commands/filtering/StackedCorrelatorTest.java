@@ -0,0 +1,74 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.filtering;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import gov.llnl.gnem.jsac.TestUtil;
+import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData;
+
+public class StackedCorrelatorTest {
+
+    @Test
+    public void sharedInstanceMatchesOnePerTrace() {
+        float[] master = TestUtil.noise(2000, 1L);
+        StackedCorrelator shared = new StackedCorrelator(master, false, 400, 7);
+        List<SacTraceData> traces = new ArrayList<>();
+        List<SacTraceData> expected = new ArrayList<>();
+        for (int j = 0; j < 32; ++j) {
+            // Different lengths give different window overlaps.
+            float[] x = TestUtil.noise(1500 + 50 * j, j + 2L);
+            traces.add(TestUtil.trace(x));
+            SacTraceData std = TestUtil.trace(x);
+            new StackedCorrelator(master, false, 400, 7).correlate(std);
+            expected.add(std);
+        }
+        traces.parallelStream().forEach(shared::correlate);
+        for (int j = 0; j < traces.size(); ++j) {
+            Assertions.assertArrayEquals(expected.get(j).getData(), traces.get(j).getData(), 0.0f, "trace " + j);
+            Assertions.assertEquals(expected.get(j).getSACHeader().getB(), traces.get(j).getSACHeader().getB(), 0.0);
+        }
+    }
+
+    @Test
+    public void autocorrelationPeaksAtZeroLag() {
+        float[] master = TestUtil.noise(1000, 3L);
+        SacTraceData std = TestUtil.trace(master.clone());
+        new StackedCorrelator(master, false, 200, 5).correlate(std);
+        float[] y = std.getData();
+        int nfft = 256;
+        Assertions.assertEquals(nfft, y.length);
+        int peak = 0;
+        for (int k = 0; k < y.length; ++k) {
+            if (y[k] > y[peak]) {
+                peak = k;
+            }
+        }
+        Assertions.assertEquals(nfft / 2, peak);
+        Assertions.assertEquals(-nfft / 2 * 0.01, std.getSACHeader().getB(), 1.0e-9);
+    }
+}
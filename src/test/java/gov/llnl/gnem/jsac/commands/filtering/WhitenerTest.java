@@ -32,6 +32,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.TestUtil;
 
 /**
  *
@@ -100,4 +101,59 @@ public class WhitenerTest {
         }
     }
 
+    @Test
+    public void directAutocorrelationMatchesLagByLagSums() {
+        float[] x = TestUtil.noise(500, 1L);
+        int order = 10;
+
+        double[] r = Whitener.directAutocorrelation(x, order);
+
+        for (int lag = 0; lag <= order; lag++) {
+            double tmp = 0.0;
+            for (int i = 0; i < x.length - lag; i++) {
+                tmp += x[i] * x[i + lag];
+            }
+            Assertions.assertEquals(tmp, r[lag], 0.0, "r[" + lag + "]");
+        }
+    }
+
+    @Test
+    public void fftAutocorrelationMatchesDirect() {
+        float[] x = TestUtil.noise(3000, 2L);
+        int order = 2 * Whitener.MAX_DIRECT_ORDER;
+
+        double[] direct = Whitener.directAutocorrelation(x, order);
+        double[] fft = Whitener.fftAutocorrelation(x, order);
+
+        for (int lag = 0; lag <= order; lag++) {
+            Assertions.assertEquals(direct[lag], fft[lag], 1.0e-4 * direct[0], "r[" + lag + "]");
+        }
+    }
+
+    @Test
+    public void autocorrelationOfShortSequenceIsZeroBeyondItsLength() {
+        float[] x = { 1.0f, 2.0f, 3.0f };
+        int order = Whitener.MAX_DIRECT_ORDER + 1;
+
+        double[] r = Whitener.autocorrelate(x, order);
+
+        Assertions.assertEquals(order + 1, r.length);
+        Assertions.assertEquals(14.0, r[0], 1.0e-4);
+        Assertions.assertEquals(8.0, r[1], 1.0e-4);
+        Assertions.assertEquals(3.0, r[2], 1.0e-4);
+        for (int lag = 3; lag <= order; lag++) {
+            Assertions.assertEquals(0.0, r[lag], 0.0);
+        }
+    }
+
+    @Test
+    public void sumLeavesItsArgumentsUnchanged() {
+        double[] a = { 1.0, 2.0 };
+        double[] b = { 3.0, 4.0 };
+
+        Assertions.assertArrayEquals(new double[] { 4.0, 6.0 }, Whitener.sum(a, b), 0.0);
+        Assertions.assertArrayEquals(new double[] { 1.0, 2.0 }, a, 0.0);
+        Assertions.assertArrayEquals(new double[] { 3.0, 4.0 }, b, 0.0);
+    }
+
 }
@@ -0,0 +1,99 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.signalCorrection;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.TestUtil;
+import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData;
+import gov.llnl.gnem.jsac.io.SACHeader;
+
+public class DecimateSacCommandTest {
+
+    @BeforeAll
+    public static void setUpClass() {
+        SacDataModel.getInstance().clear();
+    }
+
+    @AfterAll
+    protected static void tearDownAfterClass() throws Exception {
+        SacDataModel.getInstance().clear();
+    }
+
+    @BeforeEach
+    protected void setUp() throws Exception {
+        SacDataModel.getInstance().clear();
+        DecimateSacCommand.resetDefaults();
+    }
+
+    @AfterEach
+    protected void tearDown() throws Exception {
+        DecimateSacCommand.resetDefaults();
+    }
+
+    @Test
+    public void decimateUpdatesHeader() {
+        TestUtil.loadTestSacFile("funcgenSeismogram.sac", TestUtil.SAC_TEST_FILES_DIRECTORY, true);
+        SacTraceData test = SacDataModel.getInstance().getData().get(0);
+        SACHeader header = test.getSACHeader();
+        double delta = header.getDelta();
+        double b = header.getB();
+        int npts = header.getNpts();
+
+        TestUtil.runCommand("decimate 6", new DecimateSacCommand());
+
+        int expected = (npts + 5) / 6;
+        Assertions.assertEquals(6 * delta, header.getDelta(), 1.0e-9);
+        Assertions.assertEquals(b, header.getB(), 1.0e-9);
+        Assertions.assertEquals(expected, (int) header.getNpts());
+        Assertions.assertEquals(expected, test.getData().length);
+        Assertions.assertEquals(b + (expected - 1) * 6 * delta, header.getE(), 1.0e-6);
+    }
+
+    @Test
+    public void decimateWithoutFilterKeepsSamples() {
+        TestUtil.loadTestSacFile("funcgenSeismogram.sac", TestUtil.SAC_TEST_FILES_DIRECTORY, true);
+        SacTraceData test = SacDataModel.getInstance().getData().get(0);
+        float[] original = test.getData();
+
+        TestUtil.runCommand("decimate 3 filter off", new DecimateSacCommand());
+
+        float[] decimated = test.getData();
+        for (int k = 0; k < decimated.length; ++k) {
+            Assertions.assertEquals(original[3 * k], decimated[k], 0.0f);
+        }
+    }
+
+    @Test
+    public void factorBelowTwoIsRejected() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> {
+            TestUtil.runCommand("decimate 1", new DecimateSacCommand());
+        });
+    }
+}
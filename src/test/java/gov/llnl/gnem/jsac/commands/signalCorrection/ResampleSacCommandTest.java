@@ -0,0 +1,91 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.signalCorrection;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import gov.llnl.gnem.jsac.SacDataModel;
+import gov.llnl.gnem.jsac.TestUtil;
+import gov.llnl.gnem.jsac.io.SACHeader;
+
+public class ResampleSacCommandTest {
+
+    @BeforeAll
+    public static void setUpClass() {
+        SacDataModel.getInstance().clear();
+    }
+
+    @AfterAll
+    protected static void tearDownAfterClass() throws Exception {
+        SacDataModel.getInstance().clear();
+    }
+
+    @BeforeEach
+    protected void setUp() throws Exception {
+        SacDataModel.getInstance().clear();
+        ResampleSacCommand.resetDefaults();
+    }
+
+    @AfterEach
+    protected void tearDown() throws Exception {
+        ResampleSacCommand.resetDefaults();
+    }
+
+    @Test
+    public void resampleByFactors() {
+        TestUtil.loadTestSacFile("funcgenSeismogram.sac", TestUtil.SAC_TEST_FILES_DIRECTORY, true);
+        SACHeader header = SacDataModel.getInstance().getData().get(0).getSACHeader();
+        double delta = header.getDelta();
+        double b = header.getB();
+        int npts = header.getNpts();
+
+        TestUtil.runCommand("resample up 3 down 2", new ResampleSacCommand());
+
+        Assertions.assertEquals(delta * 2 / 3, header.getDelta(), 1.0e-9);
+        Assertions.assertEquals(b, header.getB(), 1.0e-9);
+        Assertions.assertEquals((npts * 3 + 1) / 2, (int) header.getNpts());
+    }
+
+    @Test
+    public void resampleToDelta() {
+        TestUtil.loadTestSacFile("funcgenSeismogram.sac", TestUtil.SAC_TEST_FILES_DIRECTORY, true);
+        SACHeader header = SacDataModel.getInstance().getData().get(0).getSACHeader();
+        double newDelta = header.getDelta() * 2.5;
+
+        TestUtil.runCommand("resample delta " + newDelta, new ResampleSacCommand());
+
+        Assertions.assertEquals(newDelta, header.getDelta(), 1.0e-9);
+    }
+
+    @Test
+    public void missingValueIsRejected() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> {
+            TestUtil.runCommand("resample up", new ResampleSacCommand());
+        });
+    }
+}
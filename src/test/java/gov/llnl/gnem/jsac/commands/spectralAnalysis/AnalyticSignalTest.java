@@ -0,0 +1,102 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.commands.spectralAnalysis;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import gov.llnl.gnem.jsac.TestUtil;
+
+public class AnalyticSignalTest {
+
+    private static final double DELTA = 0.01;
+    private static final int NPTS = 512;
+    // A whole number of cycles in NPTS samples, so the transform is exact.
+    private static final double FREQUENCY = 16.0 / (NPTS * DELTA);
+
+    @Test
+    public void cosineYieldsSineConstantEnvelopeAndFrequency() {
+        float[] x = new float[NPTS];
+        for (int i = 0; i < NPTS; i++) {
+            x[i] = (float) (2.0 * Math.cos(2.0 * Math.PI * FREQUENCY * i * DELTA));
+        }
+        float[] hilbert = new float[NPTS];
+        float[] envelope = new float[NPTS];
+        float[] phase = new float[NPTS];
+        float[] frequency = new float[NPTS];
+
+        AnalyticSignal.compute(x, DELTA, hilbert, envelope, phase, frequency);
+
+        for (int i = 0; i < NPTS; i++) {
+            double angle = 2.0 * Math.PI * FREQUENCY * i * DELTA;
+            Assertions.assertEquals(2.0 * Math.sin(angle), hilbert[i], 1.0e-3, "hilbert " + i);
+            Assertions.assertEquals(2.0, envelope[i], 1.0e-3, "envelope " + i);
+            Assertions.assertEquals(0.0, Math.IEEEremainder(angle - phase[i], 2.0 * Math.PI), 1.0e-3, "phase " + i);
+            Assertions.assertEquals(FREQUENCY, frequency[i], 1.0e-2, "frequency " + i);
+        }
+    }
+
+    @Test
+    public void outputsMayOverwriteTheInput() {
+        float[] x = TestUtil.noise(300, 4L);
+
+        float[] hilbert = new float[x.length];
+        float[] envelope = new float[x.length];
+        float[] frequency = new float[x.length];
+        AnalyticSignal.compute(x, DELTA, hilbert, envelope, null, frequency);
+
+        float[] inPlace = x.clone();
+        AnalyticSignal.compute(inPlace, DELTA, null, null, null, inPlace);
+        Assertions.assertArrayEquals(frequency, inPlace, 0.0f);
+
+        inPlace = x.clone();
+        AnalyticSignal.compute(inPlace, DELTA, null, inPlace, null, null);
+        Assertions.assertArrayEquals(envelope, inPlace, 0.0f);
+
+        for (int i = 0; i < x.length; i++) {
+            Assertions.assertEquals(Math.hypot(x[i], hilbert[i]), envelope[i], 1.0e-5);
+        }
+    }
+
+    @Test
+    public void cachedPlanFollowsTheTraceLength() {
+        float[] shorter = TestUtil.noise(100, 5L);
+        float[] longer = TestUtil.noise(1000, 6L);
+
+        float[] first = new float[shorter.length];
+        AnalyticSignal.compute(shorter, DELTA, first, null, null, null);
+        AnalyticSignal.compute(longer, DELTA, new float[longer.length], null, null, null);
+        float[] second = new float[shorter.length];
+        AnalyticSignal.compute(shorter, DELTA, second, null, null, null);
+
+        Assertions.assertArrayEquals(first, second, 0.0f);
+    }
+
+    @Test
+    public void fftSizeIsTheNextPowerOfTwo() {
+        Assertions.assertEquals(9, AnalyticSignal.log2FFTSize(500));
+        Assertions.assertEquals(9, AnalyticSignal.log2FFTSize(512));
+        Assertions.assertEquals(10, AnalyticSignal.log2FFTSize(513));
+    }
+
+}
@@ -0,0 +1,119 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.dataAccess.cache;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import gov.llnl.gnem.jsac.dataAccess.dataObjects.SacTraceData;
+import gov.llnl.gnem.jsac.io.SACFile;
+import gov.llnl.gnem.jsac.io.SACHeader;
+import gov.llnl.gnem.jsac.io.enums.FileType;
+
+public class ResultCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private static SacTraceData trace(String name, int npts, float offset) {
+        SACHeader header = new SACHeader();
+        header.setIftype(FileType.ITIME);
+        header.setLeven(1);
+        header.setDelta(0.01);
+        header.setB(0.0);
+        header.setNpts(npts);
+        header.setKstnm(name);
+        float[] data = new float[npts];
+        for (int j = 0; j < npts; ++j) {
+            data[j] = j + offset;
+        }
+        return new SacTraceData(Paths.get(name + ".sac"), new SACFile(header, data));
+    }
+
+    @Test
+    public void storedTracesAreLoaded() throws IOException {
+        ResultCache cache = new ResultCache();
+        cache.enable(directory, 1L << 20);
+        SacTraceData first = trace("AAA", 100, 0);
+        SacTraceData second = trace("BBB", 50, 1);
+        second.setAgency("XX");
+        String key = ResultCache.key("READ", "RMEAN");
+
+        Assertions.assertFalse(cache.contains(key));
+        Assertions.assertNull(cache.load(key));
+        Assertions.assertTrue(cache.store(key, Arrays.asList(first, second)));
+        Assertions.assertFalse(cache.store(key, Arrays.asList(first, second)));
+
+        Assertions.assertTrue(cache.contains(key));
+        List<SacTraceData> loaded = cache.load(key);
+        Assertions.assertNotNull(loaded);
+        Assertions.assertEquals(2, loaded.size());
+        Assertions.assertEquals(Paths.get("AAA.sac"), loaded.get(0).getFilename());
+        Assertions.assertEquals("BBB", loaded.get(1).getSACHeader().getKstnm());
+        Assertions.assertEquals("XX", loaded.get(1).getAgency());
+        Assertions.assertArrayEquals(first.getData(), loaded.get(0).getData(), 0.0f);
+        Assertions.assertArrayEquals(second.getData(), loaded.get(1).getData(), 0.0f);
+        Assertions.assertEquals(1, cache.getHitCount());
+        Assertions.assertEquals(1, cache.getMissCount());
+        Assertions.assertEquals(1, cache.getLoadCount());
+        Assertions.assertEquals(1, cache.getStoreCount());
+    }
+
+    @Test
+    public void keysDependOnEveryPart() {
+        Assertions.assertEquals(ResultCache.key("a", "b"), ResultCache.key("a", "b"));
+        Assertions.assertNotEquals(ResultCache.key("a", "b"), ResultCache.key("ab"));
+        Assertions.assertNotEquals(ResultCache.key("a", "b"), ResultCache.key("b", "a"));
+    }
+
+    @Test
+    public void leastRecentlyUsedEntriesAreEvicted() throws IOException, InterruptedException {
+        ResultCache cache = new ResultCache();
+        cache.enable(directory, 1L << 20);
+        for (String key : new String[] { "first", "second", "third" }) {
+            cache.store(key, Collections.singletonList(trace(key, 10000, 0)));
+            Thread.sleep(20);
+        }
+        Assertions.assertEquals(3, cache.getEntryCount());
+        Assertions.assertNotNull(cache.load("first"));
+
+        long entryBytes = cache.getSizeBytes() / 3;
+        cache.enable(directory, 2 * entryBytes);
+        Assertions.assertEquals(2, cache.getEntryCount());
+        Assertions.assertEquals(1, cache.getEvictionCount());
+        Assertions.assertNull(cache.load("second"));
+        Assertions.assertNotNull(cache.load("first"));
+        Assertions.assertNotNull(cache.load("third"));
+
+        cache.clear();
+        Assertions.assertEquals(0, cache.getEntryCount());
+    }
+}
@@ -0,0 +1,64 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.dataAccess.dataObjects;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import gov.llnl.gnem.jsac.TestUtil;
+
+public class SacTraceDataTest {
+
+    @Test
+    public void readingKeepsSamplesShared() {
+        SacTraceData std = TestUtil.trace(new float[] { 3, 1, 4, 1, 5 });
+        SacTraceData snapshot = std.snapshot();
+
+        Assertions.assertArrayEquals(new float[] { 3, 1, 4, 1, 5 }, std.getPlotData().getYValues(), 0.0f);
+        Assertions.assertArrayEquals(new float[] { 3, 1, 4, 1, 5 }, std.getSacFile().getData(), 0.0f);
+        std.produceSeismogram(null, null);
+        Assertions.assertTrue(std.isNonNegative());
+        Assertions.assertTrue(std.isUnchangedSince(snapshot));
+
+        std.abs();
+        Assertions.assertFalse(std.isUnchangedSince(snapshot));
+    }
+
+    @Test
+    public void markDetectsChangesWithoutSharingSamples() {
+        SacTraceData std = TestUtil.trace(new float[] { 3, 1, 4, 1, 5 });
+        long bytes = std.getSampleBytes();
+        SacTraceData.Mark mark = std.mark();
+
+        std.getSacFile();
+        Assertions.assertTrue(std.isUnchangedSince(mark));
+        std.abs();
+        Assertions.assertFalse(std.isUnchangedSince(mark));
+        Assertions.assertEquals(bytes, std.getSampleBytes());
+
+        mark = std.mark();
+        std.getSACHeader().setKstnm("ABC");
+        Assertions.assertFalse(std.isUnchangedSince(mark));
+        Assertions.assertFalse(TestUtil.trace(new float[] { 3, 1, 4, 1, 5 }).isUnchangedSince(std.mark()));
+    }
+}
@@ -0,0 +1,104 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.dataAccess.storage;
+
+import java.nio.FloatBuffer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import gov.llnl.gnem.jsac.TestUtil;
+
+public class HeapSampleStoreTest {
+
+    @Test
+    public void narrowIsAView() {
+        float[] values = TestUtil.ramp(100);
+        HeapSampleStore store = new HeapSampleStore(values);
+        Assertions.assertTrue(store.narrow(10, 20));
+        Assertions.assertEquals(20, store.size());
+        Assertions.assertEquals(10.0f, store.get(0), 0.0f);
+        Assertions.assertEquals(29.0f, store.get(19), 0.0f);
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> store.get(20));
+
+        FloatBuffer view = store.view();
+        Assertions.assertEquals(20, view.remaining());
+        Assertions.assertEquals(10.0f, view.get(0), 0.0f);
+
+        Assertions.assertTrue(store.narrow(5, 5));
+        Assertions.assertArrayEquals(new float[] { 15, 16, 17, 18, 19 }, store.toArray(), 0.0f);
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> store.narrow(3, 5));
+    }
+
+    @Test
+    public void checkoutCopiesNarrowedRange() {
+        float[] values = TestUtil.ramp(100);
+        HeapSampleStore store = new HeapSampleStore(values);
+        Assertions.assertSame(values, store.checkout());
+
+        store.narrow(50, 10);
+        float[] working = store.checkout();
+        Assertions.assertNotSame(values, working);
+        Assertions.assertEquals(10, working.length);
+        working[0] = -1;
+        Assertions.assertEquals(50.0f, values[50], 0.0f);
+        Assertions.assertSame(working, store.checkout());
+        Assertions.assertEquals(40L, store.getByteSize());
+    }
+
+    @Test
+    public void sharedArrayIsCopiedOnFirstWrite() {
+        float[] values = TestUtil.ramp(100);
+        HeapSampleStore store = new HeapSampleStore(values);
+        SampleStore copy = store.share();
+        Assertions.assertTrue(store.sharesWith(copy));
+
+        float[] working = store.checkout();
+        Assertions.assertNotSame(values, working);
+        working[0] = -1;
+        store.checkin(working);
+        Assertions.assertFalse(store.sharesWith(copy));
+        Assertions.assertEquals(0.0f, copy.get(0), 0.0f);
+
+        // The copy is now the only user of the original array.
+        Assertions.assertSame(values, copy.checkout());
+    }
+
+    @Test
+    public void discardReleasesSharedArray() {
+        float[] values = TestUtil.ramp(10);
+        HeapSampleStore store = new HeapSampleStore(values);
+        store.share().discard();
+        Assertions.assertSame(values, store.checkout());
+    }
+
+    @Test
+    public void offHeapNarrow() {
+        SampleStore store = new OffHeapArena().create(TestUtil.ramp(100));
+        Assertions.assertTrue(store.narrow(90, 10));
+        Assertions.assertEquals(10, store.size());
+        Assertions.assertEquals(90.0f, store.get(0), 0.0f);
+        store.checkin(TestUtil.ramp(5));
+        Assertions.assertArrayEquals(TestUtil.ramp(5), store.toArray(), 0.0f);
+    }
+}
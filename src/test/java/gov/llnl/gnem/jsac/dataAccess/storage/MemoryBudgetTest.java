@@ -0,0 +1,112 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.dataAccess.storage;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import gov.llnl.gnem.jsac.TestUtil;
+
+public class MemoryBudgetTest {
+
+    @TempDir
+    Path scratch;
+
+    @Test
+    public void leastRecentlyUsedIsSpilled() {
+        MemoryBudget budget = new MemoryBudget(8000, scratch);
+        SampleStore first = budget.create(TestUtil.ramp(1000, 0));
+        SampleStore second = budget.create(TestUtil.ramp(1000, 1));
+        first.view();
+        SampleStore third = budget.create(TestUtil.ramp(1000, 2));
+
+        Assertions.assertTrue(first.isResident());
+        Assertions.assertFalse(second.isResident());
+        Assertions.assertTrue(third.isResident());
+        Assertions.assertEquals(8000L, budget.getResidentBytes());
+        Assertions.assertEquals(4000L, budget.getSpilledBytes());
+        Assertions.assertEquals(1, budget.getSpillCount());
+        Assertions.assertEquals(0, budget.getFaultCount());
+    }
+
+    @Test
+    public void spilledSamplesAreReadableAndFaultBack() {
+        MemoryBudget budget = new MemoryBudget(4000, scratch);
+        float[] expected = TestUtil.ramp(1000, 1);
+        SampleStore first = budget.create(expected.clone());
+        budget.create(TestUtil.ramp(1000, 2));
+        Assertions.assertFalse(first.isResident());
+        Assertions.assertArrayEquals(expected, first.toArray(), 0.0f);
+        Assertions.assertEquals(1000.0f, first.get(999), 0.0f);
+
+        float[] values = first.checkout();
+        Assertions.assertTrue(first.isResident());
+        Assertions.assertArrayEquals(expected, values, 0.0f);
+        Assertions.assertEquals(1, budget.getFaultCount());
+        Assertions.assertEquals(2, budget.getSpillCount());
+        Assertions.assertEquals(4000L, budget.getResidentBytes());
+        Assertions.assertEquals(4000L, budget.getSpilledBytes());
+    }
+
+    @Test
+    public void sharedSamplesAreChargedOnce() {
+        MemoryBudget budget = new MemoryBudget(1000000, scratch);
+        SampleStore store = budget.create(TestUtil.ramp(1000, 0));
+        SampleStore copy = store.share();
+        Assertions.assertTrue(store.sharesWith(copy));
+        Assertions.assertEquals(4000L, budget.getResidentBytes());
+        Assertions.assertEquals(1, budget.getResidentCount());
+
+        float[] working = store.checkout();
+        working[0] = -1;
+        store.checkin(working);
+        Assertions.assertFalse(store.sharesWith(copy));
+        Assertions.assertEquals(0.0f, copy.get(0), 0.0f);
+        Assertions.assertEquals(8000L, budget.getResidentBytes());
+        Assertions.assertEquals(2, budget.getResidentCount());
+
+        copy.discard();
+        Assertions.assertEquals(4000L, budget.getResidentBytes());
+        budget.release(store);
+        Assertions.assertEquals(0L, budget.getResidentBytes());
+    }
+
+    @Test
+    public void releaseStopsAccounting() {
+        MemoryBudget budget = new MemoryBudget(4000, scratch);
+        SampleStore first = budget.create(TestUtil.ramp(1000, 0));
+        SampleStore second = budget.create(TestUtil.ramp(1000, 0));
+        budget.release(first);
+        budget.release(second);
+        Assertions.assertEquals(0L, budget.getResidentBytes());
+        Assertions.assertEquals(0L, budget.getSpilledBytes());
+        Assertions.assertEquals(0, budget.getResidentCount());
+        Assertions.assertEquals(0, budget.getSpilledCount());
+        second.checkin(TestUtil.ramp(2000, 0));
+        Assertions.assertEquals(0L, budget.getResidentBytes());
+        Assertions.assertEquals(2000, second.size());
+    }
+}
@@ -0,0 +1,105 @@
+/*-
+ * #%L
+ * Java Seismic Analysis Code (JSAC)
+ *  LLNL-CODE-855505
+ *  This work was performed under the auspices of the U.S. Department of Energy
+ *  by Lawrence Livermore National Laboratory under Contract DE-AC52-07NA27344.
+ * %%
+ * Copyright (C) 2022 - 2023 Lawrence Livermore National Laboratory
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package gov.llnl.gnem.jsac.dataAccess.storage;
+
+import java.nio.FloatBuffer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import gov.llnl.gnem.jsac.TestUtil;
+
+public class OffHeapSampleStoreTest {
+
+    @Test
+    public void roundTrip() {
+        OffHeapArena arena = new OffHeapArena();
+        float[] values = TestUtil.ramp(1000);
+        SampleStore store = arena.create(values);
+        Assertions.assertEquals(1000, store.size());
+        Assertions.assertEquals(4000L, store.getByteSize());
+        Assertions.assertArrayEquals(values, store.toArray(), 0.0f);
+        Assertions.assertEquals(999.0f, store.get(999), 0.0f);
+        Assertions.assertTrue(arena.owns(store));
+        Assertions.assertFalse(new OffHeapArena().owns(store));
+    }
+
+    @Test
+    public void viewDoesNotAllowWrites() {
+        SampleStore store = new OffHeapArena().create(TestUtil.ramp(10));
+        FloatBuffer view = store.view();
+        Assertions.assertTrue(view.isReadOnly());
+        Assertions.assertEquals(10, view.remaining());
+    }
+
+    @Test
+    public void checkinReusesOrGrowsSegment() {
+        OffHeapArena arena = new OffHeapArena();
+        SampleStore store = arena.create(TestUtil.ramp(100));
+        float[] work = store.checkout();
+        for (int j = 0; j < work.length; ++j) {
+            work[j] *= 2;
+        }
+        store.checkin(new float[] { 1, 2, 3 });
+        Assertions.assertEquals(3, store.size());
+        Assertions.assertEquals(1, arena.getSegmentCount());
+
+        store.checkin(work);
+        Assertions.assertEquals(100, store.size());
+        Assertions.assertEquals(198.0f, store.get(99), 0.0f);
+
+        store.checkin(TestUtil.ramp(500));
+        Assertions.assertEquals(500, store.size());
+        Assertions.assertEquals(2, arena.getSegmentCount());
+    }
+
+    @Test
+    public void sharedSegmentIsCopiedOnFirstWrite() {
+        OffHeapArena arena = new OffHeapArena();
+        SampleStore store = arena.create(TestUtil.ramp(100));
+        SampleStore copy = store.share();
+        Assertions.assertTrue(store.sharesWith(copy));
+        Assertions.assertEquals(1, arena.getSegmentCount());
+
+        float[] working = store.checkout();
+        working[0] = -1;
+        store.checkin(working);
+        Assertions.assertFalse(store.sharesWith(copy));
+        Assertions.assertEquals(2, arena.getSegmentCount());
+        Assertions.assertEquals(0.0f, copy.get(0), 0.0f);
+        Assertions.assertEquals(-1.0f, store.get(0), 0.0f);
+
+        // The copy is now the only user of the original segment.
+        copy.checkin(TestUtil.ramp(100));
+        Assertions.assertEquals(2, arena.getSegmentCount());
+    }
+
+    @Test
+    public void segmentsDoNotOverlap() {
+        OffHeapArena arena = new OffHeapArena();
+        SampleStore a = arena.create(TestUtil.ramp(64));
+        SampleStore b = arena.create(new float[64]);
+        Assertions.assertArrayEquals(TestUtil.ramp(64), a.toArray(), 0.0f);
+        Assertions.assertEquals(0.0f, b.get(0), 0.0f);
+    }
+}
@@ -0,0 +1,70 @@
+#!/usr/bin/env bash
+#
+# Measures JSAC start-to-exit time for a short script in three configurations:
+#
+#   interactive  the script piped to the console interpreter (creates the plot
+#                frame and loads every command; needs a display)
+#   batch        --batch: headless, commands loaded on first use
+#   batch+cds    --batch with an AppCDS archive of the classes used by the
+#                batch run (JDK 13 or later)
+#
+# Usage: src/test/scripts/startup-benchmark.sh [shaded jar] [runs]
+# Build the jar first with "mvn -B package -DskipTests".
+
+set -euo pipefail
+
+JAR=${1:-$(ls target/jsac-os-*.jar 2>/dev/null | grep -v original | head -n 1)}
+RUNS=${2:-10}
+JAVA=${JAVA:-java}
+
+if [ -z "$JAR" ] || [ ! -f "$JAR" ]; then
+    echo "Shaded jar not found; run 'mvn -B package -DskipTests' or pass its path." >&2
+    exit 2
+fi
+
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+SCRIPT=$WORK/startup.m
+cat > "$SCRIPT" <<'SAC'
+FUNCGEN SEISMOGRAM
+RMEAN
+RTREND
+TAPER
+SAC
+printf '%s\nQUIT\n' "$(cat "$SCRIPT")" > "$WORK/interactive.txt"
+
+# Prints the median wall-clock time in milliseconds of RUNS executions of "$@".
+median_ms() {
+    local times=()
+    for ((i = 0; i < RUNS; i++)); do
+        local start end
+        start=$(date +%s%N)
+        "$@" > /dev/null 2>&1 < "${STDIN:-/dev/null}"
+        end=$(date +%s%N)
+        times+=($(((end - start) / 1000000)))
+    done
+    printf '%s\n' "${times[@]}" | sort -n | awk '{ v[NR] = $1 } END { print v[int((NR + 1) / 2)] }'
+}
+
+java_major() {
+    "$JAVA" -version 2>&1 | awk -F'"' '/version/ { split($2, v, "."); print (v[1] == "1") ? v[2] : v[1] }'
+}
+
+printf '%-12s %8s\n' "mode" "ms"
+
+if [ -n "${DISPLAY:-}" ] || [ "$(uname)" = "Darwin" ]; then
+    printf '%-12s %8s\n' "interactive" "$(STDIN=$WORK/interactive.txt median_ms "$JAVA" -jar "$JAR")"
+else
+    printf '%-12s %8s\n' "interactive" "n/a (no display)"
+fi
+
+printf '%-12s %8s\n' "batch" "$(median_ms "$JAVA" -jar "$JAR" --batch "$SCRIPT")"
+
+if [ "$(java_major)" -ge 13 ]; then
+    ARCHIVE=$WORK/jsac.jsa
+    "$JAVA" -XX:ArchiveClassesAtExit="$ARCHIVE" -jar "$JAR" --batch "$SCRIPT" > /dev/null 2>&1
+    printf '%-12s %8s\n' "batch+cds" "$(median_ms "$JAVA" -XX:SharedArchiveFile="$ARCHIVE" -jar "$JAR" --batch "$SCRIPT")"
+else
+    printf '%-12s %8s\n' "batch+cds" "n/a (needs JDK 13+)"
+fi